@@ -17,6 +17,7 @@
 package com.thoughtworks.go.agent;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import com.thoughtworks.go.agent.common.ssl.GoAgentServerHttpClient;
 import com.thoughtworks.go.config.DefaultAgentRegistry;
 import com.thoughtworks.go.domain.JobIdentifier;
@@ -28,10 +29,9 @@ import com.thoughtworks.go.remote.Serialization;
 import com.thoughtworks.go.remote.request.*;
 import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
-import org.apache.http.HttpResponse;
-import org.apache.http.NoHttpResponseException;
-import org.apache.http.StatusLine;
+import org.apache.http.*;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
@@ -59,6 +59,7 @@ public class RemotingClient implements BuildRepositoryRemote {
     private final GoAgentServerHttpClient client;
     private final DefaultAgentRegistry agent;
     private final URLService urls;
+    private volatile AcknowledgedPing acknowledgedPing;
 
     @Autowired
     public RemotingClient(GoAgentServerHttpClient client, DefaultAgentRegistry agent, URLService urls) {
@@ -67,9 +68,48 @@ public class RemotingClient implements BuildRepositoryRemote {
         this.urls = urls;
     }
 
+    /**
+     * Sends only what changed since the last ping the server acknowledged, once the server has said it takes deltas.
+     * When the delta is not accepted for any reason (the server no longer has that ping after a restart, an error, a
+     * failed request...) the full runtime info is sent instead, and deltas resume only once the server acknowledges it.
+     */
     @Override
     public AgentInstruction ping(AgentRuntimeInfo info) {
-        return GSON.fromJson(post("ping", new PingRequest(info)), AgentInstruction.class);
+        JsonObject runtimeInfo = GSON.toJsonTree(info, AgentRuntimeInfo.class).getAsJsonObject();
+
+        AcknowledgedPing acknowledged = acknowledgedPing;
+        if (acknowledged != null && acknowledged.uuid().equals(info.getUUId())) {
+            AgentInstruction instruction = pingDelta(info.getUUId(), acknowledged, runtimeInfo);
+            if (instruction != null) {
+                return instruction;
+            }
+            acknowledgedPing = null;
+        }
+
+        return post("ping", GSON.toJson(new PingRequest(info), AgentRequest.class), response -> {
+            validateResponse(response, "ping");
+            acknowledgedPing = acknowledgementOf(response, info.getUUId(), runtimeInfo);
+            return GSON.fromJson(readBodyAsString(response), AgentInstruction.class);
+        });
+    }
+
+    private AgentInstruction pingDelta(String uuid, AcknowledgedPing acknowledged, JsonObject runtimeInfo) {
+        PingDelta delta = PingDelta.between(uuid, acknowledged.version(), acknowledged.runtimeInfo(), runtimeInfo);
+        try {
+            return post("ping_delta", GSON.toJson(delta), response -> {
+                int status = response.getStatusLine().getStatusCode();
+                if (status < HttpStatus.SC_OK || status >= HttpStatus.SC_MULTIPLE_CHOICES) {
+                    LOG.debug("Server responded to the delta on acknowledged ping [{}] with status [{}], sending the full runtime info.", acknowledged.version(), status);
+                    return null;
+                }
+                AgentInstruction instruction = GSON.fromJson(readBodyAsString(response), AgentInstruction.class);
+                acknowledgedPing = new AcknowledgedPing(uuid, delta.getVersion(), runtimeInfo);
+                return instruction;
+            });
+        } catch (RuntimeException e) {
+            LOG.debug("Could not send the delta on acknowledged ping [{}], sending the full runtime info.", acknowledged.version(), e);
+            return null;
+        }
     }
 
     @Override
@@ -104,19 +144,34 @@ public class RemotingClient implements BuildRepositoryRemote {
     }
 
     private String post(final String action, final AgentRequest payload) {
+        return post(action, GSON.toJson(payload, AgentRequest.class), response -> {
+            validateResponse(response, action);
+            return readBodyAsString(response);
+        });
+    }
+
+    private <T> T post(final String action, final String json, final ResponseHandler<T> handler) {
         try {
             try (CloseableHttpResponse response = client.execute(
                     injectCredentials(
-                            postRequestFor(action, payload)
+                            postRequestFor(action, json)
                     ))) {
-                validateResponse(response, action);
-                return readBodyAsString(response);
+                return handler.handleResponse(response);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static AcknowledgedPing acknowledgementOf(HttpResponse response, String uuid, JsonObject runtimeInfo) {
+        Header encoding = response.getFirstHeader(PingDelta.ENCODING_HEADER);
+        Header version = response.getFirstHeader(PingDelta.VERSION_HEADER);
+        if (encoding == null || version == null || !PingDelta.DELTA_ENCODING.equals(encoding.getValue())) {
+            return null;
+        }
+        return new AcknowledgedPing(uuid, Long.parseLong(version.getValue()), runtimeInfo);
+    }
+
     private HttpRequestBase injectCredentials(final HttpRequestBase request) {
         request.setHeader(UUID_HEADER, agent.uuid());
         request.setHeader(AUTH_HEADER, agent.token());
@@ -148,10 +203,10 @@ public class RemotingClient implements BuildRepositoryRemote {
         }
     }
 
-    private HttpRequestBase postRequestFor(String action, AgentRequest payload) {
+    private HttpRequestBase postRequestFor(String action, String json) {
         final HttpPost request = new HttpPost(urls.remotingUrlFor(action));
         request.addHeader("Accept", "application/vnd.go.cd+json");
-        request.setEntity(new StringEntity(GSON.toJson(payload, AgentRequest.class), ContentType.APPLICATION_JSON));
+        request.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
         return request;
     }
 
@@ -161,4 +216,7 @@ public class RemotingClient implements BuildRepositoryRemote {
         LOG.error(format("Server responded to action `%s` with: status[%d %s], body[%s]",
                 action, status.getStatusCode(), status.getReasonPhrase(), body));
     }
+
+    private record AcknowledgedPing(String uuid, long version, JsonObject runtimeInfo) {
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.agent;
+
+import com.thoughtworks.go.agent.common.ssl.GoAgentServerHttpClient;
+import com.thoughtworks.go.config.DefaultAgentRegistry;
+import com.thoughtworks.go.domain.AgentRuntimeStatus;
+import com.thoughtworks.go.remote.AgentIdentifier;
+import com.thoughtworks.go.remote.AgentInstruction;
+import com.thoughtworks.go.remote.Serialization;
+import com.thoughtworks.go.remote.request.PingDelta;
+import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.apache.http.HttpStatus.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RemotingClientTest {
+    @Mock
+    private GoAgentServerHttpClient httpClient;
+    @Mock
+    private DefaultAgentRegistry agentRegistry;
+    private RemotingClient remotingClient;
+
+    @BeforeEach
+    void setUp() {
+        when(agentRegistry.uuid()).thenReturn("uuid");
+        when(agentRegistry.token()).thenReturn("token");
+        remotingClient = new RemotingClient(httpClient, agentRegistry, new URLService("https://localhost:8154/go"));
+    }
+
+    @Test
+    void sendsOnlyTheDeltaOnceTheServerAcknowledgedAPing() throws Exception {
+        CloseableHttpResponse acknowledged = acknowledgedPing(1);
+        CloseableHttpResponse delta = response(SC_OK);
+        when(httpClient.execute(any(HttpRequestBase.class))).thenReturn(acknowledged, delta);
+
+        assertThat(remotingClient.ping(runtimeInfo("uuid", "cookie"))).isEqualTo(AgentInstruction.NONE);
+        assertThat(remotingClient.ping(runtimeInfo("uuid", "another-cookie"))).isEqualTo(AgentInstruction.NONE);
+
+        assertThat(actions()).containsExactly("ping", "ping_delta");
+    }
+
+    @Test
+    void sendsTheFullRuntimeInfoWhenTheServerNoLongerHasTheAcknowledgedPing() throws Exception {
+        CloseableHttpResponse acknowledged = acknowledgedPing(1);
+        CloseableHttpResponse unknownPing = response(SC_PRECONDITION_FAILED);
+        CloseableHttpResponse full = response(SC_OK);
+        CloseableHttpResponse nextFull = response(SC_OK);
+        when(httpClient.execute(any(HttpRequestBase.class))).thenReturn(acknowledged, unknownPing, full, nextFull);
+
+        remotingClient.ping(runtimeInfo("uuid", "cookie"));
+        assertThat(remotingClient.ping(runtimeInfo("uuid", "cookie"))).isEqualTo(AgentInstruction.NONE);
+        remotingClient.ping(runtimeInfo("uuid", "cookie"));
+
+        assertThat(actions()).containsExactly("ping", "ping_delta", "ping", "ping");
+    }
+
+    @Test
+    void sendsTheFullRuntimeInfoWhenTheServerFailsToHandleTheDelta() throws Exception {
+        CloseableHttpResponse acknowledged = acknowledgedPing(1);
+        CloseableHttpResponse failed = response(SC_INTERNAL_SERVER_ERROR);
+        CloseableHttpResponse full = response(SC_OK);
+        CloseableHttpResponse nextFull = response(SC_OK);
+        when(httpClient.execute(any(HttpRequestBase.class))).thenReturn(acknowledged, failed, full, nextFull);
+
+        remotingClient.ping(runtimeInfo("uuid", "cookie"));
+        assertThat(remotingClient.ping(runtimeInfo("uuid", "cookie"))).isEqualTo(AgentInstruction.NONE);
+        remotingClient.ping(runtimeInfo("uuid", "cookie"));
+
+        assertThat(actions()).containsExactly("ping", "ping_delta", "ping", "ping");
+    }
+
+    @Test
+    void sendsTheFullRuntimeInfoWhenTheDeltaCouldNotBeSent() throws Exception {
+        CloseableHttpResponse acknowledged = acknowledgedPing(1);
+        CloseableHttpResponse full = response(SC_OK);
+        when(httpClient.execute(any(HttpRequestBase.class)))
+            .thenReturn(acknowledged)
+            .thenThrow(new IOException("connection reset"))
+            .thenReturn(full);
+
+        remotingClient.ping(runtimeInfo("uuid", "cookie"));
+        assertThat(remotingClient.ping(runtimeInfo("uuid", "cookie"))).isEqualTo(AgentInstruction.NONE);
+
+        assertThat(actions()).containsExactly("ping", "ping_delta", "ping");
+    }
+
+    @Test
+    void sendsTheFullRuntimeInfoWhenTheAgentUuidChanged() throws Exception {
+        CloseableHttpResponse acknowledged = acknowledgedPing(1);
+        CloseableHttpResponse full = response(SC_OK);
+        when(httpClient.execute(any(HttpRequestBase.class))).thenReturn(acknowledged, full);
+
+        remotingClient.ping(runtimeInfo("uuid", "cookie"));
+        remotingClient.ping(runtimeInfo("another-uuid", "cookie"));
+
+        assertThat(actions()).containsExactly("ping", "ping");
+    }
+
+    private List<String> actions() throws IOException {
+        ArgumentCaptor<HttpRequestBase> requests = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClient, atLeastOnce()).execute(requests.capture());
+        return requests.getAllValues().stream()
+            .map(request -> request.getURI().getPath())
+            .map(path -> path.substring(path.lastIndexOf('/') + 1))
+            .toList();
+    }
+
+    private static AgentRuntimeInfo runtimeInfo(String uuid, String cookie) {
+        return new AgentRuntimeInfo(new AgentIdentifier("localhost", "127.0.0.1", uuid), AgentRuntimeStatus.Idle, "/var/lib/go-agent", cookie);
+    }
+
+    private static CloseableHttpResponse acknowledgedPing(long version) {
+        CloseableHttpResponse response = response(SC_OK);
+        when(response.getFirstHeader(PingDelta.ENCODING_HEADER)).thenReturn(new BasicHeader(PingDelta.ENCODING_HEADER, PingDelta.DELTA_ENCODING));
+        when(response.getFirstHeader(PingDelta.VERSION_HEADER)).thenReturn(new BasicHeader(PingDelta.VERSION_HEADER, String.valueOf(version)));
+        return response;
+    }
+
+    private static CloseableHttpResponse response(int status) {
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        lenient().when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, status, null));
+        lenient().when(response.getEntity()).thenReturn(new StringEntity(Serialization.instance().toJson(AgentInstruction.NONE), "UTF-8"));
+        return response;
+    }
+}
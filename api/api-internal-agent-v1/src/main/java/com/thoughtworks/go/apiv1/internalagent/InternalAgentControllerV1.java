@@ -16,6 +16,11 @@
 
 package com.thoughtworks.go.apiv1.internalagent;
 
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.thoughtworks.go.api.ApiController;
 import com.thoughtworks.go.api.ApiVersion;
 import com.thoughtworks.go.apiv1.internalagent.representers.*;
@@ -23,14 +28,19 @@ import com.thoughtworks.go.remote.AgentInstruction;
 import com.thoughtworks.go.remote.request.*;
 import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.messaging.BuildRepositoryMessageProducer;
+import com.thoughtworks.go.server.service.AgentRuntimeInfo;
 import com.thoughtworks.go.spark.Routes;
 import com.thoughtworks.go.spark.spring.SparkSpringController;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import spark.Request;
 import spark.Response;
 
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.go.api.util.HaltApiResponses.haltBecauseEtagDoesNotMatch;
 import static com.thoughtworks.go.api.util.HaltApiResponses.haltBecauseForbidden;
 import static java.lang.String.valueOf;
 import static spark.Spark.*;
@@ -38,11 +48,22 @@ import static spark.Spark.*;
 @Component
 public class InternalAgentControllerV1 extends ApiController implements SparkSpringController {
     private final BuildRepositoryMessageProducer buildRepositoryMessageProducer;
+    // the last ping of every agent that sends ping deltas, as acknowledged to it; what its next delta applies to.
+    // An agent that stops pinging for as long as it takes to be marked lost contact (or deleted) drops out.
+    private final Cache<String, AcknowledgedPing> acknowledgedPings;
 
     @Autowired
-    public InternalAgentControllerV1(BuildRepositoryMessageProducer buildRepositoryMessageProducer) {
+    public InternalAgentControllerV1(BuildRepositoryMessageProducer buildRepositoryMessageProducer, SystemEnvironment systemEnvironment) {
+        this(buildRepositoryMessageProducer, systemEnvironment, Ticker.systemTicker());
+    }
+
+    public InternalAgentControllerV1(BuildRepositoryMessageProducer buildRepositoryMessageProducer, SystemEnvironment systemEnvironment, Ticker ticker) {
         super(ApiVersion.v1);
         this.buildRepositoryMessageProducer = buildRepositoryMessageProducer;
+        this.acknowledgedPings = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterAccess(systemEnvironment.getAgentConnectionTimeout(), TimeUnit.SECONDS)
+                .build();
     }
 
     @Override
@@ -60,6 +81,7 @@ public class InternalAgentControllerV1 extends ApiController implements SparkSpr
             before("/*", mimeType, this::verifyContentType);
 
             post(Routes.InternalAgent.PING, mimeType, this::ping);
+            post(Routes.InternalAgent.PING_DELTA, mimeType, this::pingDelta);
             post(Routes.InternalAgent.REPORT_CURRENT_STATUS, mimeType, this::reportCurrentStatus);
             post(Routes.InternalAgent.REPORT_COMPLETING, mimeType, this::reportCompleting);
             post(Routes.InternalAgent.REPORT_COMPLETED, mimeType, this::reportCompleted);
@@ -70,11 +92,38 @@ public class InternalAgentControllerV1 extends ApiController implements SparkSpr
     }
 
     public String ping(Request request, Response response) {
-        PingRequest pingRequest = PingRequestRepresenter.fromJSON(request.body());
+        JsonObject json = JsonParser.parseString(request.body()).getAsJsonObject();
+        PingRequest pingRequest = PingRequestRepresenter.fromJSON(json);
         ensureAgentIsMakingARequestForItself(pingRequest, request);
 
         AgentInstruction agentInstruction = buildRepositoryMessageProducer.ping(pingRequest.getAgentRuntimeInfo());
 
+        // only kept for agents that have sent a delta; the first one is refused, and the full ping it falls back to is kept
+        String uuid = pingRequest.getAgentRuntimeInfo().getUUId();
+        AcknowledgedPing acknowledged = acknowledgedPings.asMap().computeIfPresent(uuid, (agent, previous) ->
+                new AcknowledgedPing(previous.version() + 1, json.getAsJsonObject("agentRuntimeInfo")));
+        response.header(PingDelta.ENCODING_HEADER, PingDelta.DELTA_ENCODING);
+        response.header(PingDelta.VERSION_HEADER, valueOf(acknowledged == null ? AcknowledgedPing.NONE.version() : acknowledged.version()));
+
+        return AgentInstructionRepresenter.toJSON(agentInstruction);
+    }
+
+    public String pingDelta(Request request, Response response) {
+        PingDelta delta = PingDeltaRepresenter.fromJSON(request.body());
+        ensureAgentIsMakingARequestForItself(delta.getUuid(), request);
+
+        AcknowledgedPing acknowledged = acknowledgedPings.asMap().putIfAbsent(delta.getUuid(), AcknowledgedPing.NONE);
+        if (acknowledged == null || !acknowledged.isAt(delta.getBaseVersion())) {
+            throw haltBecauseEtagDoesNotMatch("Ping %s of agent '%s' is not the last one acknowledged. Send a full ping.", delta.getBaseVersion(), delta.getUuid());
+        }
+
+        JsonObject runtimeInfoJson = delta.applyTo(acknowledged.runtimeInfo());
+        AgentRuntimeInfo runtimeInfo = PingDeltaRepresenter.runtimeInfoFromJSON(runtimeInfoJson);
+        ensureAgentIsMakingARequestForItself(runtimeInfo.getUUId(), request);
+
+        AgentInstruction agentInstruction = buildRepositoryMessageProducer.ping(runtimeInfo);
+
+        acknowledgedPings.put(delta.getUuid(), new AcknowledgedPing(delta.getVersion(), runtimeInfoJson));
         return AgentInstructionRepresenter.toJSON(agentInstruction);
     }
 
@@ -134,7 +183,10 @@ public class InternalAgentControllerV1 extends ApiController implements SparkSpr
     }
 
     public void ensureAgentIsMakingARequestForItself(AgentRequest agentRequest, Request request) {
-        String uuidInRuntimeInfo = agentRequest.getAgentRuntimeInfo().getUUId();
+        ensureAgentIsMakingARequestForItself(agentRequest.getAgentRuntimeInfo().getUUId(), request);
+    }
+
+    private void ensureAgentIsMakingARequestForItself(String uuidInRuntimeInfo, Request request) {
         String uuidInRequest = request.headers("X-Agent-GUID");
 
         if (!StringUtils.equals(uuidInRequest, uuidInRuntimeInfo)) {
@@ -143,4 +195,13 @@ public class InternalAgentControllerV1 extends ApiController implements SparkSpr
             haltBecauseForbidden(message);
         }
     }
+
+    private record AcknowledgedPing(long version, JsonObject runtimeInfo) {
+        // an agent that sends deltas, but none of whose pings has been acknowledged yet
+        static final AcknowledgedPing NONE = new AcknowledgedPing(0, null);
+
+        boolean isAt(long baseVersion) {
+            return runtimeInfo != null && version == baseVersion;
+        }
+    }
 }
@@ -17,6 +17,7 @@
 package com.thoughtworks.go.apiv1.internalagent.representers;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.thoughtworks.go.remote.Serialization;
 import com.thoughtworks.go.remote.request.AgentRequest;
 import com.thoughtworks.go.remote.request.PingRequest;
@@ -31,4 +32,8 @@ public class PingRequestRepresenter {
     public static PingRequest fromJSON(String json) {
         return gson.fromJson(json, PingRequest.class);
     }
+
+    public static PingRequest fromJSON(JsonElement json) {
+        return gson.fromJson(json, PingRequest.class);
+    }
 }
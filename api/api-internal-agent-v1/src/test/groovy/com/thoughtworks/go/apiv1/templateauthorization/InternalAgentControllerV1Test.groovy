@@ -16,6 +16,8 @@
 
 package com.thoughtworks.go.apiv1.templateauthorization
 
+import com.google.common.base.Ticker
+import com.google.gson.JsonObject
 import com.thoughtworks.go.apiv1.internalagent.InternalAgentControllerV1
 import com.thoughtworks.go.apiv1.internalagent.representers.*
 import com.thoughtworks.go.config.Agent
@@ -24,19 +26,26 @@ import com.thoughtworks.go.domain.JobIdentifier
 import com.thoughtworks.go.domain.JobResult
 import com.thoughtworks.go.domain.JobState
 import com.thoughtworks.go.remote.AgentInstruction
+import com.thoughtworks.go.remote.Serialization
 import com.thoughtworks.go.remote.request.*
 import com.thoughtworks.go.remote.work.NoWork
 import com.thoughtworks.go.server.messaging.BuildRepositoryMessageProducer
 import com.thoughtworks.go.server.service.AgentRuntimeInfo
 import com.thoughtworks.go.spark.ControllerTrait
+import com.thoughtworks.go.util.SystemEnvironment
 import org.junit.jupiter.api.Nested
 import org.junit.jupiter.api.Test
 import org.mockito.Mock
 import org.mockito.junit.jupiter.MockitoSettings
 import org.mockito.quality.Strictness
 
+import java.util.concurrent.TimeUnit
+
 import static com.thoughtworks.go.util.SystemUtil.currentWorkingDirectory
+import static org.mockito.ArgumentMatchers.any
+import static org.mockito.Mockito.reset
 import static org.mockito.Mockito.verify
+import static org.mockito.Mockito.verifyNoInteractions
 import static org.mockito.Mockito.when
 
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -44,10 +53,17 @@ class InternalAgentControllerV1Test implements ControllerTrait<InternalAgentCont
   @Mock
   BuildRepositoryMessageProducer buildRepositoryMessageProducer;
 
+  long nanos = 0
+  Ticker ticker = new Ticker() {
+    @Override
+    long read() {
+      nanos
+    }
+  }
 
   @Override
   InternalAgentControllerV1 createControllerInstance() {
-    new InternalAgentControllerV1(buildRepositoryMessageProducer)
+    new InternalAgentControllerV1(buildRepositoryMessageProducer, new SystemEnvironment(), ticker)
   }
 
   @Nested
@@ -86,6 +102,143 @@ class InternalAgentControllerV1Test implements ControllerTrait<InternalAgentCont
       assertThatResponse()
               .isForbidden()
     }
+
+    @Test
+    void 'should tell the agent that it can send only what changed from now on'() {
+      def agent = new Agent("uuid", "localhost", "176.19.4.1")
+      def runtimeInfo = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+
+      when(buildRepositoryMessageProducer.ping(runtimeInfo)).thenReturn(AgentInstruction.NONE)
+      def headers = [
+              'accept'      : controller.mimeType,
+              'content-type': 'application/json',
+              'X-Agent-GUID': 'uuid'
+      ]
+      postWithApiHeader(controller.controllerPath("/ping"), headers, PingRequestRepresenter.toJSON(new PingRequest(runtimeInfo)))
+
+      assertThatResponse()
+              .isOk()
+              .hasHeader(PingDelta.ENCODING_HEADER, PingDelta.DELTA_ENCODING)
+              .hasHeader(PingDelta.VERSION_HEADER, "0")
+    }
+  }
+
+  @Nested
+  class pingDelta {
+
+    @Test
+    void 'should ping with the last acknowledged runtime info and the changes to it'() {
+      def agent = new Agent("uuid", "localhost", "176.19.4.1")
+      def acknowledged = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+      def current = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+      current.setUsableSpace(42L)
+
+      when(buildRepositoryMessageProducer.ping(any(AgentRuntimeInfo))).thenReturn(AgentInstruction.NONE)
+      acknowledgeFullPing(acknowledged)
+
+      def delta = PingDelta.between("uuid", 1, json(acknowledged), json(current))
+      postWithApiHeader(controller.controllerPath("/ping_delta"), headers(), PingDeltaRepresenter.toJSON(delta))
+
+      verify(buildRepositoryMessageProducer).ping(current)
+      assertThatResponse()
+              .isOk()
+              .hasBodyWithJson(AgentInstructionRepresenter.toJSON(AgentInstruction.NONE))
+    }
+
+    @Test
+    void 'should not keep the full pings of an agent until it sends a delta'() {
+      def agent = new Agent("uuid", "localhost", "176.19.4.1")
+      def runtimeInfo = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+
+      when(buildRepositoryMessageProducer.ping(any(AgentRuntimeInfo))).thenReturn(AgentInstruction.NONE)
+      postWithApiHeader(controller.controllerPath("/ping"), headers(), PingRequestRepresenter.toJSON(new PingRequest(runtimeInfo)))
+      postWithApiHeader(controller.controllerPath("/ping"), headers(), PingRequestRepresenter.toJSON(new PingRequest(runtimeInfo)))
+      assertThatResponse()
+              .isOk()
+              .hasHeader(PingDelta.VERSION_HEADER, "0")
+
+      postWithApiHeader(controller.controllerPath("/ping_delta"), headers(), PingDeltaRepresenter.toJSON(PingDelta.between("uuid", 0, json(runtimeInfo), json(runtimeInfo))))
+      assertThatResponse()
+              .isPreconditionFailed()
+    }
+
+    @Test
+    void 'should forget the acknowledged ping of an agent that has stopped pinging for as long as it takes to lose contact'() {
+      def agent = new Agent("uuid", "localhost", "176.19.4.1")
+      def runtimeInfo = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+
+      when(buildRepositoryMessageProducer.ping(any(AgentRuntimeInfo))).thenReturn(AgentInstruction.NONE)
+      acknowledgeFullPing(runtimeInfo)
+      nanos += TimeUnit.SECONDS.toNanos(new SystemEnvironment().getAgentConnectionTimeout() + 1)
+      reset(buildRepositoryMessageProducer)
+
+      def delta = PingDelta.between("uuid", 1, json(runtimeInfo), json(runtimeInfo))
+      postWithApiHeader(controller.controllerPath("/ping_delta"), headers(), PingDeltaRepresenter.toJSON(delta))
+
+      verifyNoInteractions(buildRepositoryMessageProducer)
+      assertThatResponse()
+              .isPreconditionFailed()
+    }
+
+    @Test
+    void 'should ask for a full ping when it does not have the ping the delta applies to'() {
+      def agent = new Agent("uuid", "localhost", "176.19.4.1")
+      def runtimeInfo = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+
+      def delta = PingDelta.between("uuid", 1, json(runtimeInfo), json(runtimeInfo))
+      postWithApiHeader(controller.controllerPath("/ping_delta"), headers(), PingDeltaRepresenter.toJSON(delta))
+
+      verifyNoInteractions(buildRepositoryMessageProducer)
+      assertThatResponse()
+              .isPreconditionFailed()
+    }
+
+    @Test
+    void 'ensure agent is making a request for itself'() {
+      def agent = new Agent("different_agent_uuid", "localhost", "176.19.4.1")
+      def runtimeInfo = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+
+      def delta = PingDelta.between("different_agent_uuid", 1, json(runtimeInfo), json(runtimeInfo))
+      postWithApiHeader(controller.controllerPath("/ping_delta"), headers(), PingDeltaRepresenter.toJSON(delta))
+
+      assertThatResponse()
+              .isForbidden()
+    }
+
+    /**
+     * What an agent does once the server says it takes deltas: its first delta is refused, and the full ping it
+     * falls back to becomes version 1.
+     */
+    private void acknowledgeFullPing(AgentRuntimeInfo runtimeInfo) {
+      postWithApiHeader(controller.controllerPath("/ping"), headers(), PingRequestRepresenter.toJSON(new PingRequest(runtimeInfo)))
+      postWithApiHeader(controller.controllerPath("/ping_delta"), headers(), PingDeltaRepresenter.toJSON(PingDelta.between("uuid", 0, json(runtimeInfo), json(runtimeInfo))))
+      assertThatResponse()
+              .isPreconditionFailed()
+
+      postWithApiHeader(controller.controllerPath("/ping"), headers(), PingRequestRepresenter.toJSON(new PingRequest(runtimeInfo)))
+      assertThatResponse()
+              .isOk()
+              .hasHeader(PingDelta.VERSION_HEADER, "1")
+    }
+
+    private Map<String, String> headers() {
+      [
+              'accept'      : controller.mimeType,
+              'content-type': 'application/json',
+              'X-Agent-GUID': 'uuid'
+      ]
+    }
+
+    private JsonObject json(AgentRuntimeInfo runtimeInfo) {
+      Serialization.instance().toJsonTree(runtimeInfo, AgentRuntimeInfo).getAsJsonObject()
+    }
   }
 
   @Nested
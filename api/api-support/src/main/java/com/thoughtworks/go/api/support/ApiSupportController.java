@@ -21,6 +21,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.thoughtworks.go.api.ControllerMethods;
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult;
+import com.thoughtworks.go.server.service.support.DatabaseInformationProvider;
 import com.thoughtworks.go.server.service.support.ServerStatusService;
 import com.thoughtworks.go.spark.Routes;
 import com.thoughtworks.go.spark.SparkController;
@@ -44,6 +45,7 @@ import static spark.Spark.path;
 @Component
 public class ApiSupportController implements SparkController, ControllerMethods, SparkSpringController {
     private ServerStatusService serverStatusService;
+    private DatabaseInformationProvider databaseInformationProvider;
 
     private Gson gson = new GsonBuilder()
         .setPrettyPrinting()
@@ -52,8 +54,9 @@ public class ApiSupportController implements SparkController, ControllerMethods,
         .create();
 
     @Autowired
-    public ApiSupportController(ServerStatusService serverStatusService) {
+    public ApiSupportController(ServerStatusService serverStatusService, DatabaseInformationProvider databaseInformationProvider) {
         this.serverStatusService = serverStatusService;
+        this.databaseInformationProvider = databaseInformationProvider;
     }
 
     @Override
@@ -66,6 +69,7 @@ public class ApiSupportController implements SparkController, ControllerMethods,
         path(controllerBasePath(), () -> {
             get("", this::show);
             get(Routes.Support.PROCESS_LIST, this::processList);
+            get(Routes.Support.DATABASE, this::database);
         });
     }
 
@@ -87,6 +91,12 @@ public class ApiSupportController implements SparkController, ControllerMethods,
         return writerForTopLevelObject(request, response, outputWriter -> toJSON(outputWriter, processList));
     }
 
+    public String database(Request request, Response response) throws IOException {
+        response.type("application/json");
+        gson.toJson(databaseInformationProvider.asJson(), response.raw().getWriter());
+        return "";
+    }
+
     private static ExclusionStrategy excludeLocks() {
         return new ExclusionStrategy() {
             @Override
@@ -17,6 +17,7 @@ package com.thoughtworks.go.api.support
 
 import com.thoughtworks.go.server.domain.Username
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult
+import com.thoughtworks.go.server.service.support.DatabaseInformationProvider
 import com.thoughtworks.go.server.service.support.ServerStatusService
 import com.thoughtworks.go.spark.ControllerTrait
 import com.thoughtworks.go.spark.Routes
@@ -38,10 +39,12 @@ class ApiSupportControllerV1Test implements SecurityServiceTrait, ControllerTrai
   @Mock
   private ServerStatusService serverStatusService
 
+  @Mock
+  private DatabaseInformationProvider databaseInformationProvider
 
   @Override
   ApiSupportController createControllerInstance() {
-    new ApiSupportController(serverStatusService)
+    new ApiSupportController(serverStatusService, databaseInformationProvider)
   }
 
   @Nested
@@ -90,4 +93,20 @@ class ApiSupportControllerV1Test implements SecurityServiceTrait, ControllerTrai
         .hasContentType("application/json")
     }
   }
+
+  @Nested
+  class Database {
+    @Test
+    void 'should return database statistics json'() {
+      def res = ["Statements": ["Pipeline.getPipelineRange": ["Count": 1]]]
+      when(databaseInformationProvider.asJson()).thenReturn(res)
+
+      get(controller.controllerPath(Routes.Support.DATABASE))
+
+      assertThatResponse()
+        .isOk()
+        .hasJsonBody(res)
+        .hasContentType("application/json")
+    }
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.agent.common.ssl;
+
+import org.apache.http.*;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.EnglishReasonCatalog;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends agent requests over a single multiplexed connection per server: HTTP/2 over TLS when the server (or the proxy
+ * in front of it) offers it, and h2c over plain http. Requests and responses are the same Apache HttpClient types the
+ * rest of the agent uses, so that callers do not need to know which client carried them.
+ * <p>
+ * The JDK client always verifies host names, so https requests are only sent this way when the agent is set up to
+ * verify them too. Request bodies are sent from memory, so large or streamed uploads, like requests that carry their
+ * own {@link org.apache.http.client.config.RequestConfig}, are left to the HTTP/1.1 client.
+ */
+public class GoAgentServerHttp2Client {
+    static final long MAX_BUFFERED_REQUEST_BODY = 1024 * 1024;
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient client;
+    private final boolean verifiesHostnames;
+
+    GoAgentServerHttp2Client(HttpClient client, boolean verifiesHostnames) {
+        this.client = client;
+        this.verifiesHostnames = verifiesHostnames;
+    }
+
+    public boolean handles(HttpRequestBase request) {
+        String scheme = request.getURI().getScheme();
+        if (!"http".equalsIgnoreCase(scheme) && !("https".equalsIgnoreCase(scheme) && verifiesHostnames)) {
+            return false;
+        }
+        if (request.getConfig() != null) {
+            return false;
+        }
+        HttpEntity entity = entityOf(request);
+        return entity == null || (entity.isRepeatable() && entity.getContentLength() >= 0 && entity.getContentLength() <= MAX_BUFFERED_REQUEST_BODY);
+    }
+
+    public CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getURI());
+
+        for (Header header : request.getAllHeaders()) {
+            if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                builder.header(header.getName(), header.getValue());
+            }
+        }
+
+        HttpEntity entity = entityOf(request);
+        if (entity == null) {
+            builder.method(request.getMethod(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            builder.method(request.getMethod(), HttpRequest.BodyPublishers.ofByteArray(EntityUtils.toByteArray(entity)));
+            if (entity.getContentType() != null && !request.containsHeader(HttpHeaders.CONTENT_TYPE)) {
+                builder.header(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+            }
+            if (entity.getContentEncoding() != null && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, entity.getContentEncoding().getValue());
+            }
+        }
+
+        try {
+            return new Response(client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.getMethod() + " " + request.getURI());
+        }
+    }
+
+    private static HttpEntity entityOf(HttpRequestBase request) {
+        return request instanceof HttpEntityEnclosingRequest enclosingRequest ? enclosingRequest.getEntity() : null;
+    }
+
+    private static class Response extends BasicHttpResponse implements CloseableHttpResponse {
+        private final InputStream body;
+
+        Response(HttpResponse<InputStream> response) {
+            super(new BasicStatusLine(response.version() == HttpClient.Version.HTTP_2 ? HTTP_2 : HttpVersion.HTTP_1_1,
+                    response.statusCode(), EnglishReasonCatalog.INSTANCE.getReason(response.statusCode(), Locale.ENGLISH)));
+            this.body = response.body();
+
+            for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+                if (!header.getKey().startsWith(":")) {
+                    for (String value : header.getValue()) {
+                        addHeader(header.getKey(), value);
+                    }
+                }
+            }
+
+            InputStreamEntity entity = new InputStreamEntity(body, response.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1));
+            response.headers().firstValue(HttpHeaders.CONTENT_TYPE).ifPresent(entity::setContentType);
+            response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).ifPresent(entity::setContentEncoding);
+            setEntity(entity);
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+}
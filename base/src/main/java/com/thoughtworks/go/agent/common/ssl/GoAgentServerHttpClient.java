@@ -30,6 +30,7 @@ public class GoAgentServerHttpClient implements Closeable {
 
     private final GoAgentServerHttpClientBuilder builder;
     private CloseableHttpClient client;
+    private GoAgentServerHttp2Client http2Client;
 
     public GoAgentServerHttpClient(GoAgentServerHttpClientBuilder builder) {
         this.builder = builder;
@@ -38,10 +39,14 @@ public class GoAgentServerHttpClient implements Closeable {
     // called by spring
     public void init() throws Exception {
         this.client = builder.build();
+        this.http2Client = builder.buildHttp2();
     }
-    
+
     public CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
         request.setURI(request.getURI().normalize());
+        if (http2Client != null && http2Client.handles(request)) {
+            return http2Client.execute(request);
+        }
         return client.execute(request);
     }
 
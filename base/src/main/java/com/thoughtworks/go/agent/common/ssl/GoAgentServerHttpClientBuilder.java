@@ -26,9 +26,11 @@ import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.ssl.SSLContextBuilder;
 
-import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
 import java.io.File;
 import java.io.IOException;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 
@@ -54,7 +56,29 @@ public class GoAgentServerHttpClientBuilder extends GoAgentServerClientBuilder<C
                 )
                 .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE);
 
-        HostnameVerifier hostnameVerifier = sslVerificationMode.verifier();
+        SSLConnectionSocketFactory sslConnectionSocketFactory = new SSLConnectionSocketFactory(sslContext(), sslVerificationMode.verifier());
+        builder.setSSLSocketFactory(sslConnectionSocketFactory);
+        return builder.build();
+    }
+
+    /**
+     * The multiplexed client that agent to server requests are sent through when {@code go.agent.http2.enabled} is
+     * set, or {@code null} when they should all go through {@link #build()}.
+     */
+    public GoAgentServerHttp2Client buildHttp2() throws GeneralSecurityException, IOException {
+        if (!systemEnvironment.get(SystemEnvironment.GO_AGENT_HTTP2_ENABLED)) {
+            return null;
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .proxy(ProxySelector.getDefault())
+                .sslContext(sslContext())
+                .build();
+        return new GoAgentServerHttp2Client(client, sslVerificationMode == SslVerificationMode.FULL);
+    }
+
+    private SSLContext sslContext() throws GeneralSecurityException, IOException {
         TrustStrategy trustStrategy = sslVerificationMode.trustStrategy();
         KeyStore trustStore = agentTruststore();
 
@@ -70,10 +94,6 @@ public class GoAgentServerHttpClientBuilder extends GoAgentServerClientBuilder<C
             sslContextBuilder.loadKeyMaterial(keystore, agentKeystorePassword);
         }
 
-        SSLConnectionSocketFactory sslConnectionSocketFactory = new SSLConnectionSocketFactory(sslContextBuilder.build(), hostnameVerifier);
-        builder.setSSLSocketFactory(sslConnectionSocketFactory);
-        return builder.build();
+        return sslContextBuilder.build();
     }
-
-
 }
@@ -147,6 +147,7 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Long> GO_CONFIG_REPO_GC_EXPIRE_IN_HOURS = new GoLongSystemProperty("go.config.repo.gc.expire", 24L);
     public static final GoSystemProperty<Long> GO_CONFIG_REPO_GC_LOOSE_OBJECT_WARNING_THRESHOLD = new GoLongSystemProperty("go.config.repo.gc.warning.looseobject.threshold", 10000L);
     public static final GoSystemProperty<Boolean> GO_CONFIG_REPO_PERIODIC_GC = new GoBooleanSystemProperty("go.config.repo.gc.periodic", false);
+    public static final GoSystemProperty<Long> CONFIG_REPO_PARTIAL_MERGE_WINDOW_IN_MILLIS = new GoLongSystemProperty("go.config.repo.partial.merge.window.millis", 0L);
 
     public static final GoSystemProperty<String> GO_UPDATE_SERVER_PUBLIC_KEY_FILE_NAME = new GoStringSystemProperty("go.update.server.public.key.file.name", "go_update_server.pub");
     public static final GoSystemProperty<String> GO_UPDATE_SERVER_URL = new GoStringSystemProperty("go.update.server.url", "https://update.gocd.org/channels/supported/latest.json");
@@ -164,6 +165,28 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Boolean> GO_API_WITH_SAFE_MODE = new GoBooleanSystemProperty("go.api.with.safe.mode", true);
     public static final GoSystemProperty<Integer> MAX_PENDING_AGENTS_ALLOWED = new GoIntSystemProperty("max.pending.agents.allowed", 100);
     public static final GoSystemProperty<Boolean> CHECK_AND_REMOVE_DUPLICATE_MODIFICATIONS = new GoBooleanSystemProperty("go.modifications.removeDuplicates", true);
+    public static final GoSystemProperty<Integer> MODIFICATIONS_INSERT_BATCH_SIZE = new GoIntSystemProperty("go.modifications.insert.batch.size", 500);
+    public static final GoSystemProperty<Long> GO_DB_SLOW_QUERY_THRESHOLD_MILLIS = new GoLongSystemProperty("go.db.slow.query.threshold.millis", 1000L);
+    public static final GoSystemProperty<Integer> GO_STARTUP_WARMUP_THREADS = new GoIntSystemProperty("go.startup.warmup.threads", 4);
+    public static final GoSystemProperty<Integer> GO_STARTUP_WARMUP_CHUNK_SIZE = new GoIntSystemProperty("go.startup.warmup.chunk.size", 500);
+    public static final GoSystemProperty<Boolean> GO_STARTUP_WARMUP_LAZY = new GoBooleanSystemProperty("go.startup.warmup.lazy", false);
+    public static final GoSystemProperty<Boolean> GO_PIPELINE_TIMELINE_LAZY = new GoBooleanSystemProperty("go.pipeline.timeline.lazy", false);
+    public static final GoSystemProperty<Integer> GO_VSM_LAYOUT_CACHE_SIZE = new GoIntSystemProperty("go.vsm.layout.cache.size", 500);
+    public static final GoSystemProperty<Integer> GO_VSM_CROSSING_MINIMIZATION_SWEEPS = new GoIntSystemProperty("go.vsm.crossing.minimization.sweeps", 1);
+    public static final GoSystemProperty<Long> GO_VSM_CROSSING_MINIMIZATION_BUDGET_MILLIS = new GoLongSystemProperty("go.vsm.crossing.minimization.budget.millis", 500L);
+    public static final GoSystemProperty<Boolean> GO_VSM_WARMUP_ENABLED = new GoBooleanSystemProperty("go.vsm.warmup.enabled", false);
+    public static final GoSystemProperty<Long> GO_ZIP_ARTIFACT_CACHE_MAX_SIZE_MB = new GoLongSystemProperty("go.zip.artifact.cache.max.size.mb", 0L);
+    public static final GoSystemProperty<Long> GO_ZIP_ARTIFACT_CACHE_PARALLEL_THRESHOLD_MB = new GoLongSystemProperty("go.zip.artifact.cache.parallel.threshold.mb", 64L);
+    public static final GoSystemProperty<String[]> GO_ZIP_ARTIFACT_CACHE_EAGER_PATHS = new GoStringArraySystemProperty("go.zip.artifact.cache.eager.paths", new String[0]);
+    public static final GoSystemProperty<Integer> GO_CONFIG_PARALLEL_PARSE_MIN_GROUPS = new GoIntSystemProperty("go.config.parse.parallel.min.groups", 0);
+    public static final GoSystemProperty<Integer> GO_SERVER_THREAD_POOL_MIN_THREADS = new GoIntSystemProperty("go.server.thread.pool.min.threads", 20);
+    public static final GoSystemProperty<Integer> GO_SERVER_THREAD_POOL_MAX_THREADS = new GoIntSystemProperty("go.server.thread.pool.max.threads", 300);
+    public static final GoSystemProperty<Integer> GO_SERVER_THREAD_POOL_IDLE_TIMEOUT_IN_MILLIS = new GoIntSystemProperty("go.server.thread.pool.idle.timeout", 60_000);
+    public static final GoSystemProperty<Integer> GO_SERVER_THREAD_POOL_RESERVED_THREADS = new GoIntSystemProperty("go.server.thread.pool.reserved.threads", -1);
+    public static final GoSystemProperty<Integer> GO_SERVER_THREAD_POOL_MAX_QUEUED_REQUESTS = new GoIntSystemProperty("go.server.thread.pool.max.queued.requests", -1);
+    public static final GoSystemProperty<Boolean> GO_SERVER_USE_VIRTUAL_THREADS = new GoBooleanSystemProperty("go.server.use.virtual.threads", false);
+    public static final GoSystemProperty<Boolean> GO_SERVER_HTTP2_ENABLED = new GoBooleanSystemProperty("go.server.http2.enabled", false);
+    public static final GoSystemProperty<Boolean> GO_AGENT_HTTP2_ENABLED = new GoBooleanSystemProperty("go.agent.http2.enabled", false);
     public static final GoSystemProperty<Boolean> GO_DIAGNOSTICS_MODE = new GoBooleanSystemProperty("go.diagnostics.mode", false);
 
     public static final GoIntSystemProperty DEPENDENCY_MATERIAL_UPDATE_LISTENERS = new GoIntSystemProperty("dependency.material.check.threads", 3);
@@ -176,6 +199,7 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Boolean> CONSOLE_OUT_TO_STDOUT = new GoBooleanSystemProperty("go.console.stdout", false);
     private static final GoSystemProperty<String> CONSOLE_LOG_CHARSET = new GoStringSystemProperty("go.console.log.charset", "utf-8");
     public static final GoSystemProperty<Integer> CONSOLE_LOG_MAX_LINE_LENGTH = new GoIntSystemProperty("go.console.log.max.line.length", 1_000_000);
+    public static final GoSystemProperty<Integer> AGENT_ARTIFACT_PUBLISH_THREADS = new GoIntSystemProperty("go.agent.artifact.publish.threads", 4);
     private static final GoSystemProperty<Boolean> AGENT_STATUS_API_ENABLED = new GoBooleanSystemProperty("go.agent.status.api.enabled", true);
     private static final GoSystemProperty<String> AGENT_STATUS_API_BIND_HOST = new GoStringSystemProperty("go.agent.status.api.bind.host", "localhost");
     private static final GoSystemProperty<Integer> AGENT_STATUS_API_BIND_PORT = new GoIntSystemProperty("go.agent.status.api.bind.port", 8152);
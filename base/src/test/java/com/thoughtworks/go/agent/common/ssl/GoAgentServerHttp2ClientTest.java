@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.agent.common.ssl;
+
+import com.thoughtworks.go.agent.testhelper.FakeGoServer;
+import com.thoughtworks.go.agent.testhelper.FakeGoServerExtension;
+import com.thoughtworks.go.agent.testhelper.GoTestResource;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayInputStream;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(FakeGoServerExtension.class)
+class GoAgentServerHttp2ClientTest {
+    @GoTestResource
+    public FakeGoServer server;
+
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    private final GoAgentServerHttp2Client client = new GoAgentServerHttp2Client(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build(), true);
+
+    @Test
+    void shouldFallBackToHttp1WhenTheServerDoesNotSpeakH2c() throws Exception {
+        try (CloseableHttpResponse response = client.execute(new HttpGet("http://localhost:" + server.getPort() + "/go/hello"))) {
+            assertThat(response.getStatusLine().getStatusCode()).isEqualTo(200);
+            assertThat(response.getStatusLine().getReasonPhrase()).isEqualTo("OK");
+            assertThat(EntityUtils.toString(response.getEntity()).trim()).isEqualTo("Hello");
+        }
+    }
+
+    @Test
+    void shouldSendRequestsOverH2cToAServerThatOffersIt() throws Exception {
+        String url = "http://localhost:" + server.getH2cPort() + "/go/echo";
+        upgradeToH2c(url);
+
+        HttpPut request = new HttpPut(url);
+        request.setHeader("X-Echo", "agent-uuid");
+        request.setEntity(new StringEntity("console output", ContentType.TEXT_PLAIN));
+
+        try (CloseableHttpResponse response = client.execute(request)) {
+            assertThat(response.getStatusLine().getProtocolVersion()).isEqualTo(HTTP_2);
+            assertThat(response.getStatusLine().getStatusCode()).isEqualTo(200);
+            assertThat(response.getFirstHeader("X-Request-Protocol").getValue()).isEqualTo("HTTP/2.0");
+            assertThat(response.getFirstHeader("X-Echo").getValue()).isEqualTo("agent-uuid");
+            assertThat(response.getEntity().getContentType().getValue()).startsWith("text/plain");
+            assertThat(EntityUtils.toString(response.getEntity())).isEqualTo("console output");
+        }
+    }
+
+    @Test
+    void shouldMultiplexConcurrentRequestsOverOneH2cConnection() throws Exception {
+        String url = "http://localhost:" + server.getH2cPort() + "/go/echo";
+        String connectionPort = upgradeToH2c(url);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String[]>> responses = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String body = "request-" + i;
+                responses.add(executor.submit(() -> {
+                    HttpPost request = new HttpPost(url);
+                    request.setHeader("X-Echo", body);
+                    request.setEntity(new StringEntity(body));
+                    try (CloseableHttpResponse response = client.execute(request)) {
+                        return new String[]{
+                            body,
+                            response.getFirstHeader("X-Request-Protocol").getValue(),
+                            response.getFirstHeader("X-Remote-Port").getValue(),
+                            response.getFirstHeader("X-Echo").getValue(),
+                            EntityUtils.toString(response.getEntity())
+                        };
+                    }
+                }));
+            }
+
+            for (Future<String[]> future : responses) {
+                String[] response = future.get(30, TimeUnit.SECONDS);
+                assertThat(response[1]).isEqualTo("HTTP/2.0");
+                assertThat(response[2]).isEqualTo(connectionPort);
+                assertThat(response[3]).isEqualTo(response[0]);
+                assertThat(response[4]).isEqualTo(response[0]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Upgrades with a body-less request, which the server will always accept, and returns the client port of the
+     * resulting h2c connection.
+     */
+    private String upgradeToH2c(String url) throws Exception {
+        try (CloseableHttpResponse upgrade = client.execute(new HttpGet(url))) {
+            assertThat(upgrade.getStatusLine().getProtocolVersion()).isEqualTo(HTTP_2);
+            return upgrade.getFirstHeader("X-Remote-Port").getValue();
+        }
+    }
+
+    @Test
+    void shouldOnlyHandleRequestsWhoseBodiesCanBeSentFromMemory() {
+        String url = "http://localhost:" + server.getPort() + "/go/hello";
+
+        HttpPut console = new HttpPut(url);
+        console.setEntity(new StringEntity("console output"));
+        assertThat(client.handles(console)).isTrue();
+
+        HttpPost upload = new HttpPost(url);
+        upload.setEntity(new InputStreamEntity(new ByteArrayInputStream(new byte[10])));
+        assertThat(client.handles(upload)).isFalse();
+
+        HttpGet withOwnConfig = new HttpGet(url);
+        withOwnConfig.setConfig(RequestConfig.custom().setRedirectsEnabled(false).build());
+        assertThat(client.handles(withOwnConfig)).isFalse();
+    }
+
+    @Test
+    void shouldLeaveHttpsToTheHttp1ClientWhenHostnamesAreNotVerified() {
+        GoAgentServerHttp2Client notVerifyingHostnames = new GoAgentServerHttp2Client(HttpClient.newHttpClient(), false);
+
+        assertThat(notVerifyingHostnames.handles(new HttpGet("https://localhost:" + server.getSecurePort() + "/go/hello"))).isFalse();
+        assertThat(notVerifyingHostnames.handles(new HttpGet("http://localhost:" + server.getPort() + "/go/hello"))).isTrue();
+        assertThat(client.handles(new HttpGet("https://localhost:" + server.getSecurePort() + "/go/hello"))).isTrue();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.api.base;
+
+import com.thoughtworks.go.benchmarks.BenchmarkData;
+import com.thoughtworks.go.spark.RequestContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a response shaped like the dashboard's: every pipeline with its links, latest instance, stages and jobs.
+ * The output is thrown away, so only building the json is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonOutputWriterBenchmark {
+    private static final List<String> JOBS = List.of("compile", "test");
+
+    @Param({"100", "1000"})
+    public int pipelines;
+
+    private final RequestContext requestContext = new RequestContext("https", "gocd.example.com", 443, "/go");
+    private final Date scheduledAt = new Date();
+
+    @Benchmark
+    public JsonOutputWriter writePipelines() {
+        return new JsonOutputWriter(Writer.nullWriter(), requestContext).forTopLevelObject(writer -> writer
+                .addLinks(links -> links.addLink("self", "/api/dashboard"))
+                .addChildList("pipelines", pipelineList -> {
+                    for (int pipeline = 0; pipeline < pipelines; pipeline++) {
+                        String pipelineName = BenchmarkData.pipelineName(pipeline);
+                        pipelineList.addChild(pipelineWriter -> writePipeline(pipelineWriter, pipelineName));
+                    }
+                }));
+    }
+
+    private void writePipeline(OutputWriter writer, String pipelineName) {
+        writer.addLinks(links -> links
+                        .addLink("self", "/api/pipelines/" + pipelineName + "/history")
+                        .addAbsoluteLink("doc", "https://api.gocd.org/current/#pipelines"))
+                .add("name", pipelineName)
+                .add("locked", false)
+                .add("can_operate", true)
+                .addChildList("instances", instances -> instances.addChild(instance -> instance
+                        .add("label", "1")
+                        .add("counter", 1)
+                        .add("scheduled_at", scheduledAt)
+                        .add("triggered_by", "changes")
+                        .addChildList("stages", stages -> stages.addChild(stage -> stage
+                                .add("name", BenchmarkData.STAGE)
+                                .add("counter", "1")
+                                .add("status", "Passed")
+                                .add("scheduled_at", scheduledAt)
+                                .addChildList("jobs", jobs -> {
+                                    for (String job : JOBS) {
+                                        jobs.addChild(jobWriter -> jobWriter
+                                                .add("name", job)
+                                                .add("state", "Completed")
+                                                .add("result", "Passed"));
+                                    }
+                                })))));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.benchmarks;
+
+import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.config.materials.MaterialConfigs;
+import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
+import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
+import com.thoughtworks.go.domain.*;
+import com.thoughtworks.go.util.SystemEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Understands generating configs, agents and scheduled jobs of a given size for the benchmarks. The data is the same
+ * for the same sizes, so that results of different runs can be compared.
+ * <p>
+ * Every pipeline has a single stage with two jobs, each needing one resource. Four out of five pipelines depend on
+ * the pipeline before them, and every other pipeline is in an environment. Every other agent is in an environment too.
+ */
+public final class BenchmarkData {
+    public static final String STAGE = "build";
+    private static final String[] RESOURCES = {"linux", "windows", "docker", "java", "node"};
+
+    private BenchmarkData() {
+    }
+
+    public static String pipelineName(int pipeline) {
+        return "pipeline-" + pipeline;
+    }
+
+    public static String gitUrl(int repository) {
+        return "https://git.example.com/repository-" + repository + ".git";
+    }
+
+    public static BasicCruiseConfig cruiseConfig(int pipelines, int materialsPerPipeline, int environments) {
+        BasicCruiseConfig cruiseConfig = new BasicCruiseConfig();
+        cruiseConfig.server().ensureServerIdExists();
+        cruiseConfig.server().ensureTokenGenerationKeyExists();
+
+        for (int pipeline = 0; pipeline < pipelines; pipeline++) {
+            cruiseConfig.addPipeline("group-" + (pipeline % 10), pipelineConfig(pipeline, materialsPerPipeline));
+        }
+
+        List<BasicEnvironmentConfig> environmentConfigs = new ArrayList<>();
+        for (int environment = 0; environment < environments; environment++) {
+            BasicEnvironmentConfig environmentConfig = new BasicEnvironmentConfig(new CaseInsensitiveString(environmentName(environment)));
+            environmentConfigs.add(environmentConfig);
+            cruiseConfig.addEnvironment(environmentConfig);
+        }
+        for (int pipeline = 0; environments > 0 && pipeline < pipelines; pipeline += 2) {
+            environmentConfigs.get((pipeline / 2) % environments).addPipeline(new CaseInsensitiveString(pipelineName(pipeline)));
+        }
+        return cruiseConfig;
+    }
+
+    public static List<AgentInstance> agents(int agents, int environments) {
+        SystemEnvironment systemEnvironment = new SystemEnvironment();
+        List<AgentInstance> agentInstances = new ArrayList<>();
+        for (int index = 0; index < agents; index++) {
+            Agent agent = new Agent("agent-uuid-" + index, "agent-" + index, "10.0." + (index / 256) + "." + (index % 256));
+            agent.setResources(RESOURCES[index % RESOURCES.length] + "," + RESOURCES[(index + 1) % RESOURCES.length]);
+            if (environments > 0 && index % 2 == 0) {
+                agent.setEnvironments(environmentName((index / 2) % environments));
+            }
+            agentInstances.add(AgentInstance.createFromAgent(agent, systemEnvironment, null));
+        }
+        return agentInstances;
+    }
+
+    /**
+     * One scheduled job for every job in the config, in the order of the pipelines.
+     */
+    public static List<JobPlan> scheduledJobs(CruiseConfig cruiseConfig) {
+        List<JobPlan> jobPlans = new ArrayList<>();
+        long jobId = 1;
+        for (PipelineConfig pipelineConfig : cruiseConfig.getAllPipelineConfigs()) {
+            for (JobConfig jobConfig : pipelineConfig.getFirstStageConfig().getJobs()) {
+                JobIdentifier identifier = new JobIdentifier(pipelineConfig.name().toString(), 1, "1", STAGE, "1", jobConfig.name().toString(), jobId);
+                jobPlans.add(new DefaultJobPlan(new Resources(jobConfig.resourceConfigs()), new ArrayList<>(), jobId, identifier, null,
+                        new EnvironmentVariables(), new EnvironmentVariables(), null, null));
+                jobId++;
+            }
+        }
+        return jobPlans;
+    }
+
+    private static String environmentName(int environment) {
+        return "environment-" + environment;
+    }
+
+    private static PipelineConfig pipelineConfig(int pipeline, int materialsPerPipeline) {
+        MaterialConfigs materialConfigs = new MaterialConfigs();
+        for (int material = 0; material < materialsPerPipeline; material++) {
+            GitMaterialConfig git = new GitMaterialConfig();
+            git.setUrl(gitUrl(pipeline + material));
+            git.setFolder("repository-" + material);
+            materialConfigs.add(git);
+        }
+        if (pipeline % 5 != 0) {
+            materialConfigs.add(new DependencyMaterialConfig(new CaseInsensitiveString(pipelineName(pipeline - 1)), new CaseInsensitiveString(STAGE)));
+        }
+
+        JobConfigs jobConfigs = new JobConfigs(jobConfig("compile", pipeline), jobConfig("test", pipeline + 1));
+        return new PipelineConfig(new CaseInsensitiveString(pipelineName(pipeline)), materialConfigs, new StageConfig(new CaseInsensitiveString(STAGE), jobConfigs));
+    }
+
+    private static JobConfig jobConfig(String name, int seed) {
+        return new JobConfig(new CaseInsensitiveString(name), new ResourceConfigs(RESOURCES[seed % RESOURCES.length]), new ArtifactTypeConfigs(),
+                new Tasks(new ExecTask("make", name, null)));
+    }
+}
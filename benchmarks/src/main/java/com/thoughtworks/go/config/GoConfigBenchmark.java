@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.benchmarks.BenchmarkData;
+import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistrar;
+import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading the config xml the way every config save and reload does, and cloning the loaded config the way every
+ * config update does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GoConfigBenchmark {
+    @Param({"100", "1000"})
+    public int pipelines;
+
+    @Param({"2"})
+    public int materialsPerPipeline;
+
+    private MagicalGoConfigXmlLoader loader;
+    private GoConfigCloner cloner;
+    private String configXml;
+    private CruiseConfig loadedConfig;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ConfigElementImplementationRegistry registry = new ConfigElementImplementationRegistry();
+        new ConfigElementImplementationRegistrar(registry).initialize();
+        ConfigCache configCache = new ConfigCache();
+
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        new MagicalGoConfigXmlWriter(configCache, registry).write(BenchmarkData.cruiseConfig(pipelines, materialsPerPipeline, 10), xml, false);
+        configXml = xml.toString(StandardCharsets.UTF_8);
+
+        loader = new MagicalGoConfigXmlLoader(configCache, registry);
+        cloner = new GoConfigCloner();
+        loadedConfig = loader.loadConfigHolder(configXml).config;
+    }
+
+    @Benchmark
+    public GoConfigHolder loadConfigHolder() throws Exception {
+        return loader.loadConfigHolder(configXml);
+    }
+
+    @Benchmark
+    public CruiseConfig deepClone() {
+        return cloner.deepClone(loadedConfig);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.cache;
+
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes against a cache set up the way the server sets it up, from four threads at once, since most
+ * requests go through the same cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class GoCacheBenchmark {
+    // the default of cruise.cache.elements.limit
+    private static final int CACHE_SIZE = 100000;
+
+    @Param({"1000", "100000"})
+    public int keys;
+
+    private GoCache goCache;
+    private String[] cacheKeys;
+    private String[] parentKeys;
+    private String[] subKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        goCache = new GoCacheFactory(new TransactionSynchronizationManager(), CACHE_SIZE, false).createCache();
+        cacheKeys = new String[keys];
+        parentKeys = new String[keys];
+        subKeys = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            cacheKeys[i] = "com.thoughtworks.go.server.dao.PipelineSqlMapDao_pipeline_" + i;
+            parentKeys[i] = "com.thoughtworks.go.server.dao.StageSqlMapDao_stages_" + (i / 10);
+            subKeys[i] = "stage_" + (i % 10);
+            goCache.put(cacheKeys[i], "value-" + i);
+            goCache.put(parentKeys[i], subKeys[i], "sub-value-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        goCache.destroy();
+    }
+
+    @Benchmark
+    public Object get() {
+        return goCache.get(cacheKeys[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    public Object getWithSubKey() {
+        int key = ThreadLocalRandom.current().nextInt(keys);
+        return goCache.get(parentKeys[key], subKeys[key]);
+    }
+
+    @Benchmark
+    public void put() {
+        int key = ThreadLocalRandom.current().nextInt(keys);
+        goCache.put(cacheKeys[key], "value-" + key);
+    }
+}
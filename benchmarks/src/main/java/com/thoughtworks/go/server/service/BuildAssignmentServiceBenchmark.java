@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.benchmarks.BenchmarkData;
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.domain.AgentInstance;
+import com.thoughtworks.go.domain.JobPlan;
+import com.thoughtworks.go.server.domain.AgentInstances;
+import com.thoughtworks.go.server.messaging.JobStatusTopic;
+import com.thoughtworks.go.server.service.builders.BuilderFactory;
+import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Matching an agent that asks for work against the scheduled jobs. Environments are matched by a real
+ * {@link EnvironmentConfigService}; everything else the service talks to is stubbed out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildAssignmentServiceBenchmark {
+    @Param({"100", "1000"})
+    public int pipelines;
+
+    @Param({"50", "500"})
+    public int agents;
+
+    @Param({"10"})
+    public int environments;
+
+    private BuildAssignmentService buildAssignmentService;
+    private List<AgentInstance> agentInstances;
+    private int nextAgent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CruiseConfig cruiseConfig = BenchmarkData.cruiseConfig(pipelines, 1, environments);
+        agentInstances = BenchmarkData.agents(agents, environments);
+
+        AgentService agentService = mock(AgentService.class);
+        when(agentService.getAgentInstances()).thenReturn(new AgentInstances(new SystemEnvironment(), null, agentInstances.toArray(new AgentInstance[0])));
+        EnvironmentConfigService environmentConfigService = new EnvironmentConfigService(mock(GoConfigService.class), null, null, agentService);
+        environmentConfigService.onConfigChange(cruiseConfig);
+
+        JobInstanceService jobInstanceService = mock(JobInstanceService.class);
+        when(jobInstanceService.orderedScheduledBuilds()).thenReturn(new ArrayList<>(BenchmarkData.scheduledJobs(cruiseConfig)));
+
+        buildAssignmentService = new BuildAssignmentService(mock(GoConfigService.class), jobInstanceService, mock(ScheduleService.class), agentService,
+                environmentConfigService, mock(TransactionTemplate.class), mock(ScheduledPipelineLoader.class), mock(PipelineService.class),
+                mock(BuilderFactory.class), mock(MaintenanceModeService.class), mock(ElasticAgentPluginService.class), new SystemEnvironment(),
+                mock(SecretParamResolver.class), mock(JobStatusTopic.class), mock(ConsoleService.class));
+        buildAssignmentService.onTimer();
+    }
+
+    @Benchmark
+    public JobPlan findMatchingJob() {
+        AgentInstance agent = agentInstances.get(nextAgent++ % agentInstances.size());
+        JobPlan match = buildAssignmentService.findMatchingJob(agent);
+        if (match != null) {
+            // put the job back, so that every invocation looks at the same number of scheduled jobs
+            buildAssignmentService.jobPlans().add(match);
+        }
+        return match;
+    }
+}
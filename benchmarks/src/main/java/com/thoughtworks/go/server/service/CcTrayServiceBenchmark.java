@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.benchmarks.BenchmarkData;
+import com.thoughtworks.go.config.security.users.AllowedUsers;
+import com.thoughtworks.go.domain.activity.ProjectStatus;
+import com.thoughtworks.go.domain.cctray.CcTrayCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rendering cctray.xml for a user who can see a tenth of the pipelines, with security turned on. Every pipeline has
+ * an entry for itself, its stage and two jobs, as the cache holds them on a running server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CcTrayServiceBenchmark {
+    private static final String USER = "viewer";
+
+    @Param({"100", "1000", "5000"})
+    public int pipelines;
+
+    private CcTrayService ccTrayService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ProjectStatus> statuses = new ArrayList<>();
+        Date lastBuildTime = new Date();
+        for (int pipeline = 0; pipeline < pipelines; pipeline++) {
+            String pipelineName = BenchmarkData.pipelineName(pipeline);
+            Set<String> viewers = pipeline % 10 == 0 ? Set.of(USER, "admin") : Set.of("admin");
+            AllowedUsers allowedUsers = new AllowedUsers(viewers, Collections.emptySet());
+            String stageName = pipelineName + " :: " + BenchmarkData.STAGE;
+            String stageUrl = ProjectStatus.SITE_URL_PREFIX + "/pipelines/" + pipelineName + "/1/" + BenchmarkData.STAGE + "/1";
+            statuses.add(new ProjectStatus(pipelineName, "Sleeping", "Success", "1", lastBuildTime, stageUrl).updateViewers(allowedUsers));
+            statuses.add(new ProjectStatus(stageName, "Sleeping", "Success", "1", lastBuildTime, stageUrl).updateViewers(allowedUsers));
+            for (String job : List.of("compile", "test")) {
+                statuses.add(new ProjectStatus(stageName + " :: " + job, "Sleeping", "Success", "1", lastBuildTime, stageUrl + "/" + job).updateViewers(allowedUsers));
+            }
+        }
+        CcTrayCache ccTrayCache = new CcTrayCache();
+        ccTrayCache.putAll(statuses);
+
+        GoConfigService goConfigService = mock(GoConfigService.class);
+        when(goConfigService.isSecurityEnabled()).thenReturn(true);
+        ccTrayService = new CcTrayService(ccTrayCache, goConfigService);
+    }
+
+    @Benchmark
+    public Appendable renderCCTrayXML() {
+        return ccTrayService.renderCCTrayXML("https://gocd.example.com/go", USER, new StringBuilder(), etag -> {
+        });
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.dd;
+
+import com.thoughtworks.go.benchmarks.BenchmarkData;
+import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.config.materials.MaterialConfigs;
+import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
+import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
+import com.thoughtworks.go.domain.*;
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.server.dao.PipelineDao;
+import com.thoughtworks.go.server.domain.PipelineTimeline;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.server.service.MaterialConfigConverter;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resolving the revisions of a pipeline which fans in from a number of upstream pipelines built off the same git
+ * repository. The latest runs of the upstream pipelines were built from different commits, so the resolution has to
+ * walk back a few runs of each to find a commit they all agree on. The timeline is kept in memory and the database
+ * lookups are stubbed out, so only the graph walk is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanInGraphBenchmark {
+    private static final CaseInsensitiveString DOWNSTREAM = new CaseInsensitiveString("downstream");
+    private static final long ONE_MINUTE = 60 * 1000;
+
+    @Param({"5", "20"})
+    public int upstreamPipelines;
+
+    @Param({"10", "100"})
+    public int runsOfEachUpstream;
+
+    private final SystemEnvironment systemEnvironment = new SystemEnvironment();
+    private final MaterialConfigConverter materialConfigConverter = new MaterialConfigConverter();
+    private CruiseConfig cruiseConfig;
+    private MaterialRepository materialRepository;
+    private PipelineDao pipelineDao;
+    private PipelineTimeline pipelineTimeline;
+    private MaterialRevisions actualRevisions;
+    private FanInGraph cachedGraph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GitMaterialConfig git = new GitMaterialConfig();
+        git.setUrl(BenchmarkData.gitUrl(0));
+        MaterialConfigs downstreamMaterials = new MaterialConfigs(git);
+
+        cruiseConfig = new BasicCruiseConfig();
+        for (int upstream = 0; upstream < upstreamPipelines; upstream++) {
+            cruiseConfig.addPipeline("upstream", pipelineConfig(upstreamName(upstream), new MaterialConfigs(git)));
+            downstreamMaterials.add(new DependencyMaterialConfig(new CaseInsensitiveString(upstreamName(upstream)), new CaseInsensitiveString(BenchmarkData.STAGE)));
+        }
+        cruiseConfig.addPipeline("downstream", pipelineConfig(DOWNSTREAM.toString(), downstreamMaterials));
+
+        Map<Long, PipelineTimelineEntry> entriesById = new HashMap<>();
+        pipelineTimeline = new PipelineTimeline(systemEnvironment, null, null, null);
+        long id = 1;
+        for (int counter = 1; counter <= runsOfEachUpstream; counter++) {
+            for (int upstream = 0; upstream < upstreamPipelines; upstream++) {
+                // the latest runs of the upstream pipelines lag up to two commits behind each other
+                int commit = Math.max(1, counter - upstream % 3);
+                Map<String, List<PipelineTimelineEntry.Revision>> revisions = new HashMap<>();
+                revisions.put(git.getFingerprint(), List.of(new PipelineTimelineEntry.Revision(new Date(commit * ONE_MINUTE), "commit-" + commit, null, commit)));
+                PipelineTimelineEntry entry = new PipelineTimelineEntry(upstreamName(upstream), id, counter, revisions);
+                entriesById.put(id++, entry);
+                pipelineTimeline.add(entry);
+            }
+        }
+
+        pipelineDao = mock(PipelineDao.class);
+        when(pipelineDao.latestPassedStageIdentifier(anyLong(), anyString())).thenAnswer(invocation -> {
+            PipelineTimelineEntry entry = entriesById.get(invocation.<Long>getArgument(0));
+            return new StageIdentifier(entry.getPipelineName(), entry.getCounter(), invocation.getArgument(1), "1");
+        });
+        materialRepository = mock(MaterialRepository.class);
+        when(materialRepository.modificationFor(any(StageIdentifier.class))).thenAnswer(invocation -> {
+            StageIdentifier stage = invocation.getArgument(0);
+            return List.of(new Modification(new Date(), stage.getStageLocator(), stage.getPipelineLabel(), 1L));
+        });
+        when(materialRepository.findModificationWithRevision(any(), anyString())).thenAnswer(invocation ->
+                new Modification("dev", "commit", "dev@example.com", new Date(), invocation.getArgument(1)));
+
+        List<MaterialRevision> revisions = new ArrayList<>();
+        for (MaterialConfig materialConfig : downstreamMaterials) {
+            revisions.add(new MaterialRevision(materialConfigConverter.toMaterial(materialConfig), new Modification("dev", "latest", "dev@example.com", new Date(), "latest")));
+        }
+        actualRevisions = new MaterialRevisions(revisions);
+
+        cachedGraph = newGraph();
+    }
+
+    /**
+     * What every schedule check did before fan-in graphs were kept between checks.
+     */
+    @Benchmark
+    public MaterialRevisions computeRevisionsWithNewGraph() {
+        return newGraph().computeRevisions(actualRevisions, pipelineTimeline);
+    }
+
+    @Benchmark
+    public MaterialRevisions computeRevisionsWithCachedGraph() {
+        return cachedGraph.computeRevisions(actualRevisions, pipelineTimeline);
+    }
+
+    private FanInGraph newGraph() {
+        return new FanInGraph(cruiseConfig, DOWNSTREAM, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+    }
+
+    private static String upstreamName(int upstream) {
+        return "upstream-" + upstream;
+    }
+
+    private static PipelineConfig pipelineConfig(String name, MaterialConfigs materialConfigs) {
+        return new PipelineConfig(new CaseInsensitiveString(name), materialConfigs,
+                new StageConfig(new CaseInsensitiveString(BenchmarkData.STAGE), new JobConfigs(new JobConfig(new CaseInsensitiveString("compile")))));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.websocket;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.LocatableEntity;
+import com.thoughtworks.go.server.dao.JobInstanceDao;
+import com.thoughtworks.go.server.service.ConsoleService;
+import com.thoughtworks.go.server.view.artifacts.ArtifactDirectoryChooser;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Streaming the console log of a completed job to a browser, from reading the file to gzipping the chunks sent over
+ * the web socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsoleLogSenderBenchmark {
+    @Param({"10000", "100000"})
+    public int lines;
+
+    private File consoleLog;
+    private ConsoleLogSender consoleLogSender;
+    private final JobIdentifier jobIdentifier = new JobIdentifier("pipeline-0", 1, "1", "build", "1", "compile");
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        consoleLog = File.createTempFile("console", ".log");
+        try (BufferedWriter writer = Files.newBufferedWriter(consoleLog.toPath(), StandardCharsets.UTF_8)) {
+            for (int line = 0; line < lines; line++) {
+                writer.write("01:02:03.456 [go] Task: make compile took: 1.234s, step " + line + " of " + lines + " completed with exit code 0");
+                writer.newLine();
+            }
+        }
+
+        ConsoleService consoleService = new ConsoleService(new ArtifactDirectoryChooser()) {
+            @Override
+            public File consoleLogFile(LocatableEntity jobIdentifier) {
+                return consoleLog;
+            }
+        };
+        JobInstanceDao jobInstanceDao = mock(JobInstanceDao.class);
+        when(jobInstanceDao.isJobCompleted(any())).thenReturn(true);
+        consoleLogSender = new ConsoleLogSender(consoleService, jobInstanceDao, new SystemEnvironment());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        consoleLog.delete();
+    }
+
+    @Benchmark
+    public long process() throws Exception {
+        CountingSocket socket = new CountingSocket();
+        consoleLogSender.process(socket, jobIdentifier, 0);
+        return socket.bytesSent;
+    }
+
+    private static class CountingSocket implements SocketEndpoint {
+        private long bytesSent;
+
+        @Override
+        public void send(ByteBuffer data) {
+            bytesSent += data.remaining();
+        }
+
+        @Override
+        public void ping() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(int code, String reason) {
+        }
+
+        @Override
+        public String key() {
+            return "benchmark";
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.thoughtworks.go.config.AgentRegistry;
 import com.thoughtworks.go.domain.FetchHandler;
 import com.thoughtworks.go.util.GoConstants;
 import com.thoughtworks.go.util.PerfTimer;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -40,6 +41,7 @@ import java.util.Properties;
 @Component
 public class HttpService {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpService.class);
+    private static final int RESTART_DOWNLOAD = -1;
 
     private final AgentRegistry agentRegistry;
     private final HttpClientFactory httpClientFactory;
@@ -83,9 +85,26 @@ public class HttpService {
     }
 
     public int download(String url, FetchHandler handler) throws IOException {
+        long resumeOffset = handler.resumeOffset();
+        if (resumeOffset > 0) {
+            LOGGER.info("Resuming download of [{}] from byte {}", url, resumeOffset);
+            int statusCode = download(url, handler, resumeOffset);
+            if (statusCode != RESTART_DOWNLOAD) {
+                return statusCode;
+            }
+            LOGGER.warn("Could not resume download of [{}] from byte {}, downloading all of it again", url, resumeOffset);
+        }
+        return download(url, handler, 0);
+    }
+
+    private int download(String url, FetchHandler handler, long resumeOffset) throws IOException {
         HttpGet toGet = null;
         try {
             toGet = httpClientFactory.createGet(url);
+            if (resumeOffset > 0) {
+                toGet.setHeader("Range", "bytes=" + resumeOffset + "-");
+                toGet.setHeader("If-Range", handler.resumeValidator());
+            }
             PerfTimer timer = PerfTimer.start(String.format("Downloading from url [%s]", url));
             try (CloseableHttpResponse response = execute(toGet)) {
                 timer.stop();
@@ -98,6 +117,17 @@ public class HttpService {
                         }
                     }
                 }
+                if (statusCode == HttpURLConnection.HTTP_PARTIAL && resumeOffset > 0) {
+                    if (!startsAt(response, resumeOffset)) {
+                        return RESTART_DOWNLOAD;
+                    }
+                    try (InputStream is = response.getEntity().getContent()) {
+                        if (!handler.resume(is, resumeOffset)) {
+                            return RESTART_DOWNLOAD;
+                        }
+                    }
+                    return HttpURLConnection.HTTP_OK;
+                }
                 return statusCode;
             }
         } catch (IOException e) {
@@ -110,6 +140,23 @@ public class HttpService {
         }
     }
 
+    /**
+     * @return whether the partial content in the response, as described by its {@code Content-Range} header
+     * (e.g. {@code bytes 100-999/1000}), starts at {@code offset}
+     */
+    private static boolean startsAt(CloseableHttpResponse response, long offset) {
+        Header contentRange = response.getFirstHeader("Content-Range");
+        if (contentRange == null || !contentRange.getValue().startsWith("bytes ") || !contentRange.getValue().contains("-")) {
+            return false;
+        }
+        String firstByte = contentRange.getValue().substring("bytes ".length(), contentRange.getValue().indexOf('-')).trim();
+        try {
+            return Long.parseLong(firstByte) == offset;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
     public CloseableHttpResponse execute(HttpRequestBase httpMethod) throws IOException {
         GoAgentServerHttpClient client = httpClientFactory.httpClient();
 
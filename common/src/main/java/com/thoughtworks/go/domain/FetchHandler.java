@@ -30,4 +30,28 @@ public interface FetchHandler extends Serializable {
 
     void useArtifactMd5Checksums(ArtifactMd5Checksums artifactMd5Checksums);
 
+    /**
+     * @return the number of bytes already downloaded by an interrupted attempt, which the next attempt can continue
+     * from; or 0 to download everything again. Only a handler that overrides {@link #resume} may return more than 0.
+     */
+    default long resumeOffset() {
+        return 0;
+    }
+
+    /**
+     * @return the strong entity tag the server must still have for the content downloaded so far to be reused.
+     */
+    default String resumeValidator() {
+        return null;
+    }
+
+    /**
+     * Continues an interrupted download with {@code stream}, which holds the content from {@code offset} onwards.
+     *
+     * @return false if the download could not be continued, in which case it is downloaded again from the start.
+     */
+    default boolean resume(InputStream stream, long offset) throws IOException {
+        return false;
+    }
+
 }
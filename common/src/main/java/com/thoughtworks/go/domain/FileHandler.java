@@ -44,6 +44,7 @@ public class FileHandler implements FetchHandler {
     private static final Logger LOG = LoggerFactory.getLogger(FileHandler.class);
     private ArtifactMd5Checksums artifactMd5Checksums;
     private ChecksumValidationPublisher checksumValidationPublisher;
+    private transient boolean downloadInterrupted;
 
     public FileHandler(File artifact, String srcFile) {
         this.artifact = artifact;
@@ -65,17 +66,53 @@ public class FileHandler implements FetchHandler {
 
     @Override
     public void handle(InputStream stream) throws IOException {
+        download(stream, 0);
+    }
+
+    @Override
+    public boolean resume(InputStream stream, long offset) throws IOException {
+        download(stream, offset);
+        return true;
+    }
+
+    private void download(InputStream stream, long offset) throws IOException {
         MessageDigest digest = getMd5();
-        try (DigestInputStream digestInputStream = new DigestInputStream(stream, digest)) {
-            LOG.info("[Artifact File Download] [{}] Download of artifact {} started", new Date(), artifact.getName());
-            FileUtils.copyInputStreamToFile(digestInputStream, artifact);
+        if (offset > 0) {
+            try (DigestInputStream downloaded = new DigestInputStream(new FileInputStream(artifact), digest)) {
+                downloaded.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        downloadInterrupted = true;
+        try (DigestInputStream digestInputStream = new DigestInputStream(stream, digest);
+             OutputStream out = FileUtils.openOutputStream(artifact, offset > 0)) {
+            LOG.info("[Artifact File Download] [{}] Download of artifact {} started from byte {}", new Date(), artifact.getName(), offset);
+            digestInputStream.transferTo(out);
             LOG.info("[Artifact File Download] [{}] Download of artifact {} ended", new Date(), artifact.getName());
         }
+        downloadInterrupted = false;
 
         String artifactMD5 = Hex.encodeHexString(digest.digest());
         new ChecksumValidator(artifactMd5Checksums).validate(srcFile, artifactMD5, checksumValidationPublisher);
     }
 
+    /**
+     * Only a download interrupted by this handler is resumed, and only when the server can tell through the md5 of
+     * the artifact that it has not changed since.
+     */
+    @Override
+    public long resumeOffset() {
+        if (downloadInterrupted && resumeValidator() != null && artifact.isFile()) {
+            return artifact.length();
+        }
+        return 0;
+    }
+
+    @Override
+    public String resumeValidator() {
+        String md5 = artifactMd5Checksums == null ? null : artifactMd5Checksums.md5For(srcFile);
+        return md5 == null || md5.isBlank() ? null : "\"" + md5 + "\"";
+    }
+
     private MessageDigest getMd5() {
         try {
             return MessageDigest.getInstance("MD5");
@@ -86,6 +123,9 @@ public class FileHandler implements FetchHandler {
 
     @Override
     public boolean handleResult(int httpCode, GoPublisher goPublisher) {
+        if (httpCode == HttpURLConnection.HTTP_REQUESTED_RANGE_NOT_SATISFIABLE) {
+            downloadInterrupted = false;
+        }
         checksumValidationPublisher.publish(httpCode, artifact, goPublisher);
 
         return httpCode < HttpURLConnection.HTTP_BAD_REQUEST;
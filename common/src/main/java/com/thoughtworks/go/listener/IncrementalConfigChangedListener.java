@@ -0,0 +1,28 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.listener;
+
+import com.thoughtworks.go.config.ConfigChangeSet;
+import com.thoughtworks.go.config.CruiseConfig;
+
+/**
+ * A {@link ConfigChangedListener} that would rather be told what changed. After a full config save, it is notified
+ * through {@link #onConfigChange(CruiseConfig, ConfigChangeSet)} instead of {@link #onConfigChange(CruiseConfig)}.
+ * The latter is still used when there is no previous config to compare against (e.g. on registration).
+ */
+public interface IncrementalConfigChangedListener extends ConfigChangedListener {
+    void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changeSet);
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.remote.request;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A ping that only carries the top level fields of the agent's serialized runtime info that changed since the last
+ * ping the server acknowledged. The server applies it to its copy of that ping, and refuses it with a
+ * {@code 412 Precondition Failed} when its copy is not {@link #getBaseVersion()}, after which the agent sends a full
+ * {@link PingRequest}.
+ * <p>
+ * A server that accepts deltas says so on its responses to full pings, using {@link #ENCODING_HEADER} and the
+ * version it acknowledged that ping as, in {@link #VERSION_HEADER}. Agents that never see these keep sending full
+ * pings.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class PingDelta {
+    public static final String ENCODING_HEADER = "X-Agent-Ping-Encoding";
+    public static final String VERSION_HEADER = "X-Agent-Ping-Version";
+    public static final String DELTA_ENCODING = "delta-v1";
+
+    private final String uuid;
+    private final long baseVersion;
+    private final long version;
+    private final JsonObject changed;
+    private final List<String> removed;
+
+    public static PingDelta between(String uuid, long baseVersion, JsonObject acknowledged, JsonObject current) {
+        JsonObject changed = new JsonObject();
+        for (Map.Entry<String, JsonElement> field : current.entrySet()) {
+            if (!Objects.equals(acknowledged.get(field.getKey()), field.getValue())) {
+                changed.add(field.getKey(), field.getValue());
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String field : acknowledged.keySet()) {
+            if (!current.has(field)) {
+                removed.add(field);
+            }
+        }
+        return new PingDelta(uuid, baseVersion, baseVersion + 1, changed, removed);
+    }
+
+    public JsonObject applyTo(JsonObject acknowledged) {
+        JsonObject current = acknowledged.deepCopy();
+        removed.forEach(current::remove);
+        for (Map.Entry<String, JsonElement> field : changed.entrySet()) {
+            current.add(field.getKey(), field.getValue().deepCopy());
+        }
+        return current;
+    }
+}
@@ -22,6 +22,7 @@ import com.thoughtworks.go.domain.ArtifactPlanType;
 import com.thoughtworks.go.plugin.access.artifact.ArtifactExtension;
 import com.thoughtworks.go.plugin.access.artifact.model.PublishArtifactResponse;
 import com.thoughtworks.go.plugin.infra.PluginRequestProcessorRegistry;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
 import com.thoughtworks.go.work.GoPublisher;
 import org.apache.commons.io.FileUtils;
@@ -30,10 +31,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static com.thoughtworks.go.remote.work.artifact.ArtifactRequestProcessor.Request.CONSOLE_LOG;
 import static com.thoughtworks.go.util.GoConstants.PRODUCT_NAME;
@@ -48,9 +51,15 @@ public class ArtifactsPublisher implements Serializable {
     private final ArtifactPlanFilter artifactPlanFilter;
     private ArtifactExtension artifactExtension;
     private ArtifactStores artifactStores;
-    private final List<ArtifactPlan> failedArtifact = new ArrayList<>();
+    private final int publishThreads;
+    private final List<ArtifactPlan> failedArtifact = Collections.synchronizedList(new ArrayList<>());
 
     public ArtifactsPublisher(GoPublisher goPublisher, ArtifactExtension artifactExtension, ArtifactStores artifactStores, PluginRequestProcessorRegistry pluginRequestProcessorRegistry, File workingDirectory) {
+        this(goPublisher, artifactExtension, artifactStores, pluginRequestProcessorRegistry, workingDirectory, new SystemEnvironment().get(SystemEnvironment.AGENT_ARTIFACT_PUBLISH_THREADS));
+    }
+
+    ArtifactsPublisher(GoPublisher goPublisher, ArtifactExtension artifactExtension, ArtifactStores artifactStores, PluginRequestProcessorRegistry pluginRequestProcessorRegistry, File workingDirectory, int publishThreads) {
+        this.publishThreads = Math.max(1, publishThreads);
         this.goPublisher = goPublisher;
         this.artifactStores = artifactStores;
         this.workingDirectory = workingDirectory;
@@ -67,21 +76,22 @@ public class ArtifactsPublisher implements Serializable {
             if (isMetadataFolderEmpty(pluggableArtifactFolder)) {
                 LOGGER.info("Pluggable metadata folder is empty.");
             } else if (pluggableArtifactFolder != null) {
-                mergedPlans.add(0, new ArtifactPlan(ArtifactPlanType.file, format("%s%s*", pluggableArtifactFolder.getName(), File.separator), PLUGGABLE_ARTIFACT_METADATA_FOLDER));
+                // metadata is always uploaded first, before any of the (possibly concurrent) built-in uploads
+                publishBuiltInArtifact(new ArtifactPlan(ArtifactPlanType.file, format("%s%s*", pluggableArtifactFolder.getName(), File.separator), PLUGGABLE_ARTIFACT_METADATA_FOLDER));
             }
 
-            for (ArtifactPlan artifactPlan : mergedPlans) {
-                try {
-                    artifactPlan.publishBuiltInArtifacts(goPublisher, workingDirectory);
-                } catch (Exception e) {
-                    failedArtifact.add(artifactPlan);
-                }
-            }
+            final AtomicInteger completed = new AtomicInteger();
+            publishConcurrently(mergedPlans, artifactPlan -> {
+                publishBuiltInArtifact(artifactPlan);
+                reportProgress(artifactPlan, completed.incrementAndGet(), mergedPlans.size());
+            });
 
             if (!failedArtifact.isEmpty()) {
                 StringBuilder builder = new StringBuilder();
-                for (ArtifactPlan artifactPlan : failedArtifact) {
-                    artifactPlan.printArtifactInfo(builder);
+                synchronized (failedArtifact) {
+                    for (ArtifactPlan artifactPlan : failedArtifact) {
+                        artifactPlan.printArtifactInfo(builder);
+                    }
                 }
                 throw new RuntimeException(format("[%s] Uploading finished. Failed to upload %s.", PRODUCT_NAME, builder));
             }
@@ -90,6 +100,59 @@ public class ArtifactsPublisher implements Serializable {
         }
     }
 
+    private void publishBuiltInArtifact(ArtifactPlan artifactPlan) {
+        try {
+            artifactPlan.publishBuiltInArtifacts(goPublisher, workingDirectory);
+        } catch (Exception e) {
+            failedArtifact.add(artifactPlan);
+        }
+    }
+
+    private void reportProgress(ArtifactPlan artifactPlan, int completed, int total) {
+        if (total <= 1) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        artifactPlan.printArtifactInfo(builder);
+        String status = failedArtifact.contains(artifactPlan) ? "Failed to upload" : "Finished uploading";
+        goPublisher.taggedConsumeLineWithPrefix(GoPublisher.PUBLISH, format("%s artifact %s (%d/%d).", status, builder, completed, total));
+    }
+
+    private void publishConcurrently(List<ArtifactPlan> artifactPlans, Consumer<ArtifactPlan> publishAction) {
+        final int threads = Math.min(publishThreads, artifactPlans.size());
+        if (threads <= 1) {
+            artifactPlans.forEach(publishAction);
+            return;
+        }
+
+        LOGGER.info("Publishing {} artifacts using {} threads.", artifactPlans.size(), threads);
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "artifact-publisher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (ArtifactPlan artifactPlan : artifactPlans) {
+                futures.add(executor.submit(() -> publishAction.accept(artifactPlan)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(format("[%s] Interrupted while uploading artifacts.", PRODUCT_NAME), e);
+                } catch (Exception e) {
+                    LOGGER.error("Failed to publish artifact.", e);
+                    failedArtifact.add(artifactPlans.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private boolean isMetadataFolderEmpty(File pluggableArtifactFolder) {
         return pluggableArtifactFolder != null && pluggableArtifactFolder.list().length == 0;
     }
@@ -101,9 +164,8 @@ public class ArtifactsPublisher implements Serializable {
             final Map<ArtifactPlan, ArtifactStore> artifactPlanToStores = artifactStoresToPlugin(pluggableArtifactPlans);
 
             final PluggableArtifactMetadata pluggableArtifactMetadata = new PluggableArtifactMetadata();
-            for (Map.Entry<ArtifactPlan, ArtifactStore> artifactPlanAndStore : artifactPlanToStores.entrySet()) {
-                publishPluggableArtifact(pluggableArtifactMetadata, artifactPlanAndStore.getKey(), artifactPlanAndStore.getValue(), environmentVariableContext);
-            }
+            publishConcurrently(new ArrayList<>(artifactPlanToStores.keySet()), artifactPlan ->
+                publishPluggableArtifact(pluggableArtifactMetadata, artifactPlan, artifactPlanToStores.get(artifactPlan), environmentVariableContext));
 
             if (!pluggableArtifactPlans.isEmpty() && pluggableArtifactMetadata.isEmpty()) {
                 LOGGER.info(format("[%s] No pluggable artifact metadata to upload.", PRODUCT_NAME));
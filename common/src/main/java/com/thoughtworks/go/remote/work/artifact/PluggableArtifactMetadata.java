@@ -34,7 +34,7 @@ public class PluggableArtifactMetadata {
     private static final Logger LOGGER = LoggerFactory.getLogger(PluggableArtifactMetadata.class);
     private final Map<String, Map<String, Map<String, Object>>> metadataPerPlugin = new HashMap<>();
 
-    public void addMetadata(String pluginId, String artifactId, Map<String, Object> map) {
+    public synchronized void addMetadata(String pluginId, String artifactId, Map<String, Object> map) {
         metadataPerPlugin
             .computeIfAbsent(pluginId, k -> new HashMap<>())
             .put(artifactId, map);
@@ -44,7 +44,7 @@ public class PluggableArtifactMetadata {
         return metadataPerPlugin;
     }
 
-    public boolean isEmpty() {
+    public synchronized boolean isEmpty() {
         return metadataPerPlugin.isEmpty();
     }
 
@@ -31,21 +31,34 @@ import org.springframework.util.LinkedMultiValueMap;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import static com.thoughtworks.go.domain.AgentInstance.createFromAgent;
 import static com.thoughtworks.go.util.SystemEnvironment.MAX_PENDING_AGENTS_ALLOWED;
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.join;
 
+/**
+ * Registry of the agents known to the server. Agents are added and removed through the uuid map; readers iterate an
+ * immutable, sorted snapshot of the registry (along with its elastic, environment and resource indexes) that is
+ * rebuilt lazily whenever the registry has changed since the snapshot was taken. Neither side takes a lock.
+ * <p>
+ * The snapshot captures which agents exist and what they are indexed by, not their runtime state: an
+ * {@link AgentInstance} is still updated in place by every ping, so the agent status is always read live.
+ */
 public class AgentInstances implements Iterable<AgentInstance> {
     private SystemEnvironment systemEnvironment;
 
-    private Map<String, AgentInstance> uuidToAgentInstanceMap = new ConcurrentHashMap<>();
+    private final Map<String, AgentInstance> uuidToAgentInstanceMap = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
 
     private AgentStatusChangeListener agentStatusChangeListener;
 
@@ -63,8 +76,13 @@ public class AgentInstances implements Iterable<AgentInstance> {
         }
     }
 
+    /**
+     * Adds the agent, replacing any agent with the same uuid. Re-adding an agent that is already known is the way to
+     * tell the registry that its hostname, environments or resources have changed.
+     */
     public void add(AgentInstance agent) {
         uuidToAgentInstanceMap.put(agent.getAgent().getUuid(), agent);
+        changed();
     }
 
     public void updateAgentAboutCancelledBuild(String uuid, boolean isCancelled) {
@@ -93,11 +111,14 @@ public class AgentInstances implements Iterable<AgentInstance> {
     }
 
     public void removeAgent(String uuid) {
-        uuidToAgentInstanceMap.remove(uuid);
+        if (uuidToAgentInstanceMap.remove(uuid) != null) {
+            changed();
+        }
     }
 
     public void clearAll() {
         uuidToAgentInstanceMap.clear();
+        changed();
     }
 
     public AgentInstances getAllAgents() {
@@ -110,11 +131,9 @@ public class AgentInstances implements Iterable<AgentInstance> {
         this.refresh();
         AgentInstances registeredInstances = new AgentInstances(agentStatusChangeListener);
 
-        synchronized (uuidToAgentInstanceMap) {
-            stream(this.spliterator(), false)
-                    .filter(agentInstance -> agentInstance.getStatus().isRegistered())
-                    .forEach(registeredInstances::add);
-        }
+        currentInstances().stream()
+                .filter(agentInstance -> agentInstance.getStatus().isRegistered())
+                .forEach(registeredInstances::add);
 
         return registeredInstances;
     }
@@ -144,26 +163,17 @@ public class AgentInstances implements Iterable<AgentInstance> {
     public void syncAgentInstancesFrom(Agents agentsFromDB) {
         for (Agent agentFromDB : agentsFromDB) {
             String uuid = agentFromDB.getUuid();
-            if (uuidToAgentInstanceMap.containsKey(uuid)) {
-                uuidToAgentInstanceMap.get(uuid).syncAgentFrom(agentFromDB);
+            AgentInstance existingAgent = uuidToAgentInstanceMap.get(uuid);
+            if (existingAgent != null) {
+                existingAgent.syncAgentFrom(agentFromDB);
             } else {
                 AgentInstance newAgent = createFromAgent(agentFromDB, new SystemEnvironment(), agentStatusChangeListener);
                 uuidToAgentInstanceMap.put(uuid, newAgent);
             }
         }
 
-        synchronized (uuidToAgentInstanceMap) {
-            List<String> uuids = new ArrayList<>();
-            for (String uuid : uuidToAgentInstanceMap.keySet()) {
-                AgentInstance instance = uuidToAgentInstanceMap.get(uuid);
-                if (!(instance.getStatus() == AgentStatus.Pending)) {
-                    if (!agentsFromDB.hasAgent(uuid)) {
-                        uuids.add(uuid);
-                    }
-                }
-            }
-            uuids.forEach(uuidToAgentInstanceMap::remove);
-        }
+        uuidToAgentInstanceMap.values().removeIf(instance -> instance.getStatus() != AgentStatus.Pending && !agentsFromDB.hasAgent(instance.getUuid()));
+        changed();
     }
 
     public boolean hasAgent(String uuid) {
@@ -180,13 +190,13 @@ public class AgentInstances implements Iterable<AgentInstance> {
             agentInstance = AgentInstance.createFromLiveAgent(runtimeInfo, systemEnvironment, agentStatusChangeListener);
             this.add(agentInstance);
         }
-        agentInstance.update(runtimeInfo);
+        update(agentInstance, runtimeInfo);
         return agentInstance;
     }
 
     public void updateAgentRuntimeInfo(AgentRuntimeInfo runtimeInfo) {
         AgentInstance agentInstance = this.findAgentAndRefreshStatus(runtimeInfo.getUUId());
-        agentInstance.update(runtimeInfo);
+        update(agentInstance, runtimeInfo);
     }
 
     public void building(String uuid, AgentBuildingInfo agentBuildingInfo) {
@@ -203,28 +213,28 @@ public class AgentInstances implements Iterable<AgentInstance> {
                 .collect(toList());
     }
 
+    public List<AgentInstance> findAgentsInEnvironment(String environmentName) {
+        return unmodifiableList(snapshot().byEnvironment().getOrDefault(environmentName, emptyList()));
+    }
+
+    public List<AgentInstance> findAgentsWithResource(String resourceName) {
+        return unmodifiableList(snapshot().byResource().getOrDefault(resourceName, emptyList()));
+    }
+
     public LinkedMultiValueMap<String, ElasticAgentMetadata> getAllElasticAgentsGroupedByPluginId() {
         LinkedMultiValueMap<String, ElasticAgentMetadata> map = new LinkedMultiValueMap<>();
 
-        for (Map.Entry<String, AgentInstance> entry : uuidToAgentInstanceMap.entrySet()) {
-            AgentInstance agentInstance = entry.getValue();
-            if (agentInstance.isElastic()) {
-                ElasticAgentMetadata metadata = agentInstance.elasticAgentMetadata();
-                map.add(metadata.elasticPluginId(), metadata);
-            }
-        }
+        snapshot().elasticAgentsByPluginId().forEach((elasticPluginId, elasticAgents) ->
+                elasticAgents.values().forEach(agentInstances ->
+                        agentInstances.forEach(agentInstance -> map.add(elasticPluginId, agentInstance.elasticAgentMetadata()))));
 
         return map;
     }
 
     public AgentInstance findElasticAgent(final String elasticAgentId, final String elasticPluginId) {
-        Collection<AgentInstance> agentInstances = uuidToAgentInstanceMap.values();
-
-        List<AgentInstance> matchingElasticInstances = agentInstances.stream()
-                .filter(agentInstance -> agentInstance.isElastic()
-                        && agentInstance.elasticAgentMetadata().elasticAgentId().equals(elasticAgentId)
-                        && agentInstance.elasticAgentMetadata().elasticPluginId().equals(elasticPluginId))
-                .collect(toList());
+        List<AgentInstance> matchingElasticInstances = snapshot().elasticAgentsByPluginId()
+                .getOrDefault(elasticPluginId, emptyMap())
+                .getOrDefault(elasticAgentId, emptyList());
 
         if (CollectionUtils.isEmpty(matchingElasticInstances)) {
             return null;
@@ -266,8 +276,41 @@ public class AgentInstances implements Iterable<AgentInstance> {
                 .collect(toList());
     }
 
-    private Collection<AgentInstance> currentInstances() {
-        return new TreeSet<>(uuidToAgentInstanceMap.values());
+    private void update(AgentInstance agentInstance, AgentRuntimeInfo runtimeInfo) {
+        List<String> indexedBy = indexedRuntimeAttributes(agentInstance);
+        agentInstance.update(runtimeInfo);
+        if (!indexedBy.equals(indexedRuntimeAttributes(agentInstance))) {
+            changed();
+        }
+    }
+
+    // the parts of the runtime info that the snapshot is sorted or indexed by
+    private static List<String> indexedRuntimeAttributes(AgentInstance agentInstance) {
+        if (agentInstance.isElastic()) {
+            ElasticAgentMetadata metadata = agentInstance.elasticAgentMetadata();
+            return Arrays.asList(agentInstance.getLocation(), metadata.elasticPluginId(), metadata.elasticAgentId());
+        }
+        return Collections.singletonList(agentInstance.getLocation());
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = this.snapshot;
+        long latestVersion = version.get();
+        if (current.version() == latestVersion) {
+            return current;
+        }
+        // the version is read before the agents, so a snapshot never claims to be newer than what it holds
+        Snapshot rebuilt = Snapshot.of(latestVersion, uuidToAgentInstanceMap.values());
+        this.snapshot = rebuilt;
+        return rebuilt;
+    }
+
+    private List<AgentInstance> currentInstances() {
+        return snapshot().agentInstances();
     }
 
     private boolean isMaxPendingAgentsLimitReached() {
@@ -275,4 +318,39 @@ public class AgentInstances implements Iterable<AgentInstance> {
         int pendingAgentsCount = this.size() - findRegisteredAgents().size();
         return pendingAgentsCount >= maxPendingAgentsAllowed;
     }
+
+    private record Snapshot(long version,
+                            List<AgentInstance> agentInstances,
+                            Map<String, Map<String, List<AgentInstance>>> elasticAgentsByPluginId,
+                            Map<String, List<AgentInstance>> byEnvironment,
+                            Map<String, List<AgentInstance>> byResource) {
+        private static final Snapshot EMPTY = new Snapshot(0, emptyList(), emptyMap(), emptyMap(), emptyMap());
+
+        private static Snapshot of(long version, Collection<AgentInstance> instances) {
+            List<AgentInstance> agentInstances = unmodifiableList(instances.stream().sorted().collect(toList()));
+
+            Map<String, Map<String, List<AgentInstance>>> elasticAgentsByPluginId = new HashMap<>();
+            Map<String, List<AgentInstance>> byEnvironment = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            Map<String, List<AgentInstance>> byResource = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+            for (AgentInstance agentInstance : agentInstances) {
+                if (agentInstance.isElastic()) {
+                    ElasticAgentMetadata metadata = agentInstance.elasticAgentMetadata();
+                    elasticAgentsByPluginId.computeIfAbsent(metadata.elasticPluginId(), pluginId -> new LinkedHashMap<>())
+                            .computeIfAbsent(metadata.elasticAgentId(), elasticAgentId -> new ArrayList<>())
+                            .add(agentInstance);
+                }
+                index(byEnvironment, agentInstance, agentInstance.getAgent().getEnvironmentsAsList());
+                index(byResource, agentInstance, agentInstance.getAgent().getResourcesAsList());
+            }
+
+            return new Snapshot(version, agentInstances, elasticAgentsByPluginId, byEnvironment, byResource);
+        }
+
+        private static void index(Map<String, List<AgentInstance>> index, AgentInstance agentInstance, List<String> keys) {
+            Set<String> distinctKeys = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            distinctKeys.addAll(keys);
+            distinctKeys.forEach(key -> index.computeIfAbsent(key, k -> new ArrayList<>()).add(agentInstance));
+        }
+    }
 }
@@ -23,6 +23,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicStatusLine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,6 +37,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 
 import static com.thoughtworks.go.util.GoConstants.GO_ARTIFACT_PAYLOAD_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
@@ -107,6 +109,84 @@ public class HttpServiceTest {
         verify(fetchHandler).handle(instream);
     }
 
+    @Test
+    public void shouldResumeAnInterruptedDownload() throws IOException, URISyntaxException {
+        String url = "http://blah";
+        FetchHandler fetchHandler = mock(FetchHandler.class);
+        when(fetchHandler.resumeOffset()).thenReturn(5L);
+        when(fetchHandler.resumeValidator()).thenReturn("\"md5\"");
+
+        HttpGet mockGetMethod = mock(HttpGet.class);
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        BasicHttpEntity basicHttpEntity = new BasicHttpEntity();
+        ByteArrayInputStream instream = new ByteArrayInputStream(new byte[]{});
+        basicHttpEntity.setContent(instream);
+        when(response.getEntity()).thenReturn(basicHttpEntity);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 206, "Partial Content"));
+        when(response.getFirstHeader("Content-Range")).thenReturn(new BasicHeader("Content-Range", "bytes 5-9/10"));
+        when(httpClient.execute(mockGetMethod)).thenReturn(response);
+        when(httpClientFactory.createGet(url)).thenReturn(mockGetMethod);
+        when(mockGetMethod.getURI()).thenReturn(new URI(url));
+        when(fetchHandler.resume(instream, 5L)).thenReturn(true);
+
+        assertEquals(200, service.download(url, fetchHandler));
+        verify(mockGetMethod).setHeader("Range", "bytes=5-");
+        verify(mockGetMethod).setHeader("If-Range", "\"md5\"");
+        verify(fetchHandler).resume(instream, 5L);
+        verify(fetchHandler, never()).handle(any());
+    }
+
+    @Test
+    public void shouldDownloadEverythingAgainWhenThePartialContentDoesNotStartWhereTheDownloadWasInterrupted() throws IOException {
+        String url = "http://blah";
+        FetchHandler fetchHandler = mock(FetchHandler.class);
+        when(fetchHandler.resumeOffset()).thenReturn(5L);
+        when(fetchHandler.resumeValidator()).thenReturn("\"md5\"");
+
+        HttpGet mockGetMethod = mock(HttpGet.class);
+        CloseableHttpResponse partial = response(206, "Partial Content", new ByteArrayInputStream(new byte[]{}));
+        when(partial.getFirstHeader("Content-Range")).thenReturn(new BasicHeader("Content-Range", "bytes 0-9/10"));
+        ByteArrayInputStream everything = new ByteArrayInputStream(new byte[]{});
+        CloseableHttpResponse full = response(200, "OK", everything);
+        when(httpClient.execute(mockGetMethod)).thenReturn(partial, full);
+        when(httpClientFactory.createGet(url)).thenReturn(mockGetMethod);
+
+        assertEquals(200, service.download(url, fetchHandler));
+        verify(mockGetMethod, times(1)).setHeader("Range", "bytes=5-");
+        verify(fetchHandler, never()).resume(any(), anyLong());
+        verify(fetchHandler).handle(everything);
+    }
+
+    @Test
+    public void shouldDownloadEverythingAgainWhenTheHandlerCannotResume() throws IOException {
+        String url = "http://blah";
+        FetchHandler fetchHandler = mock(FetchHandler.class);
+        when(fetchHandler.resumeOffset()).thenReturn(5L);
+
+        HttpGet mockGetMethod = mock(HttpGet.class);
+        ByteArrayInputStream rest = new ByteArrayInputStream(new byte[]{});
+        CloseableHttpResponse partial = response(206, "Partial Content", rest);
+        when(partial.getFirstHeader("Content-Range")).thenReturn(new BasicHeader("Content-Range", "bytes 5-9/10"));
+        ByteArrayInputStream everything = new ByteArrayInputStream(new byte[]{});
+        CloseableHttpResponse full = response(200, "OK", everything);
+        when(httpClient.execute(mockGetMethod)).thenReturn(partial, full);
+        when(httpClientFactory.createGet(url)).thenReturn(mockGetMethod);
+        when(fetchHandler.resume(rest, 5L)).thenReturn(false);
+
+        assertEquals(200, service.download(url, fetchHandler));
+        verify(fetchHandler).resume(rest, 5L);
+        verify(fetchHandler).handle(everything);
+    }
+
+    private CloseableHttpResponse response(int statusCode, String reason, ByteArrayInputStream content) {
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(content);
+        when(response.getEntity()).thenReturn(entity);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, reason));
+        return response;
+    }
+
     @Test
     public void shouldNotFailIfChecksumFileIsNotPresent() throws IOException {
         HttpService.HttpClientFactory factory = new HttpService.HttpClientFactory(null);
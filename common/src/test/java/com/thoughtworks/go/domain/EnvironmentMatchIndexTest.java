@@ -0,0 +1,65 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.EnvironmentPipelineConfig;
+import com.thoughtworks.go.config.EnvironmentPipelinesConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EnvironmentMatchIndexTest {
+    private final EnvironmentPipelineMatchers matchers = new EnvironmentPipelineMatchers(List.of(
+            matcher("uat", List.of("uat-agent", "shared-agent"), "uat-pipeline", "shared-pipeline"),
+            matcher("prod", List.of("prod-agent", "shared-agent"), "prod-pipeline", "shared-pipeline")));
+    private final EnvironmentMatchIndex index = new EnvironmentMatchIndex(matchers);
+
+    @Test
+    public void shouldMatchTheSameWayAsTheMatchers() {
+        for (String pipeline : List.of("uat-pipeline", "prod-pipeline", "shared-pipeline", "no-env-pipeline", "UAT-Pipeline")) {
+            for (String agent : List.of("uat-agent", "prod-agent", "shared-agent", "no-env-agent")) {
+                assertThat(pipeline + " on " + agent, index.match(pipeline, agent), is(matchers.match(pipeline, agent)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldFilterItemsByAgentKeepingTheirOrder() {
+        List<String> pipelines = List.of("prod-pipeline", "no-env-pipeline", "shared-pipeline", "uat-pipeline", "prod-pipeline");
+
+        assertThat(index.filterByAgent(pipelines, pipeline -> pipeline, "prod-agent"), contains("prod-pipeline", "shared-pipeline", "prod-pipeline"));
+        assertThat(index.filterByAgent(pipelines, pipeline -> pipeline, "no-env-agent"), contains("no-env-pipeline"));
+    }
+
+    @Test
+    public void shouldFindTheFirstEnvironmentOfAPipeline() {
+        assertThat(index.environmentOf("Prod-Pipeline"), is(new CaseInsensitiveString("prod")));
+        assertThat(index.environmentOf("shared-pipeline"), is(new CaseInsensitiveString("uat")));
+        assertThat(index.environmentOf("no-env-pipeline"), is(nullValue()));
+    }
+
+    private static EnvironmentPipelineMatcher matcher(String name, List<String> agents, String... pipelines) {
+        EnvironmentPipelinesConfig pipelinesConfig = new EnvironmentPipelinesConfig();
+        for (String pipeline : pipelines) {
+            pipelinesConfig.add(new EnvironmentPipelineConfig(new CaseInsensitiveString(pipeline)));
+        }
+        return new EnvironmentPipelineMatcher(new CaseInsensitiveString(name), agents, pipelinesConfig);
+    }
+}
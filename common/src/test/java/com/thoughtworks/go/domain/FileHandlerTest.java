@@ -25,6 +25,8 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -128,6 +130,49 @@ public class FileHandlerTest {
         }
     }
 
+    @Test
+    public void shouldResumeAnInterruptedDownloadAndVerifyTheWholeFile() throws IOException {
+        String md5 = CachedDigestUtils.md5Hex(new ByteArrayInputStream("Hello world".getBytes()));
+        when(checksums.md5For("src/file/path")).thenReturn(md5);
+        fileHandler.useArtifactMd5Checksums(checksums);
+
+        try {
+            fileHandler.handle(new SequenceInputStream(new ByteArrayInputStream("Hello".getBytes()), failingStream()));
+            fail("Should have been interrupted");
+        } catch (IOException expected) {
+        }
+
+        assertThat(fileHandler.resumeOffset()).isEqualTo(5);
+        assertThat(fileHandler.resumeValidator()).isEqualTo("\"" + md5 + "\"");
+
+        fileHandler.resume(new ByteArrayInputStream(" world".getBytes()), 5);
+        fileHandler.handleResult(200, goPublisher);
+
+        assertThat(FileUtils.readFileToString(artifact, UTF_8)).isEqualTo("Hello world");
+        assertThat(goPublisher.getMessage()).contains("Saved artifact to [foo] after verifying the integrity of its contents.");
+        assertThat(fileHandler.resumeOffset()).isZero();
+    }
+
+    @Test
+    public void shouldNotResumeWhenTheMd5OfTheArtifactIsNotKnown() throws IOException {
+        try {
+            fileHandler.handle(new SequenceInputStream(new ByteArrayInputStream("Hello".getBytes()), failingStream()));
+            fail("Should have been interrupted");
+        } catch (IOException expected) {
+        }
+
+        assertThat(fileHandler.resumeOffset()).isZero();
+    }
+
+    private InputStream failingStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+    }
+
     @Test
     void shouldCalculateSha1Digest() throws IOException {
         File tempFile = tempDir.toPath().resolve("testFile.txt").toFile();
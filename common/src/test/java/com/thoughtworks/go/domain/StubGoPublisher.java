@@ -45,38 +45,38 @@ public class StubGoPublisher extends DefaultGoPublisher {
     }
 
     @Override
-    public void taggedConsumeLineWithPrefix(String tag, String message) {
+    public synchronized void taggedConsumeLineWithPrefix(String tag, String message) {
         this.message += message;
     }
 
     @Override
-    public void taggedConsumeLine(String tag, String message) {
+    public synchronized void taggedConsumeLine(String tag, String message) {
         this.message += message;
     }
 
     @Override
-    public void consumeLineWithPrefix(String message) {
+    public synchronized void consumeLineWithPrefix(String message) {
         this.message += message;
     }
 
     @Override
-    public void consumeLine(String message) {
+    public synchronized void consumeLine(String message) {
         this.message += message;
     }
 
-    public String getMessage() {
+    public synchronized String getMessage() {
         return message;
     }
 
     @Override
-    public void upload(File fileToUpload, String destPath) {
+    public synchronized void upload(File fileToUpload, String destPath) {
         if (shouldFail) {
             throw new RuntimeException("failed on purpose");
         }
         uploadedFiles.put(fileToUpload, destPath);
     }
 
-    public Map<File, String> publishedFiles() {
+    public synchronized Map<File, String> publishedFiles() {
         return uploadedFiles;
     }
 
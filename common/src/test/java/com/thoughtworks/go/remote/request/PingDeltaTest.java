@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.remote.request;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.thoughtworks.go.domain.AgentRuntimeStatus;
+import com.thoughtworks.go.remote.AgentIdentifier;
+import com.thoughtworks.go.remote.Serialization;
+import com.thoughtworks.go.server.service.AgentBuildingInfo;
+import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PingDeltaTest {
+    private static final Gson GSON = Serialization.instance();
+
+    @Test
+    void shouldOnlyCarryTheFieldsThatChanged() {
+        AgentRuntimeInfo acknowledged = runtimeInfo();
+        AgentRuntimeInfo current = runtimeInfo();
+        current.setUsableSpace(10L);
+
+        PingDelta delta = PingDelta.between("uuid", 4, json(acknowledged), json(current));
+
+        assertThat(delta.getBaseVersion()).isEqualTo(4);
+        assertThat(delta.getVersion()).isEqualTo(5);
+        assertThat(delta.getChanged().keySet()).containsExactly("usableSpace");
+        assertThat(delta.getRemoved()).isEmpty();
+    }
+
+    @Test
+    void shouldRebuildTheCurrentRuntimeInfoFromTheAcknowledgedOne() {
+        AgentRuntimeInfo acknowledged = runtimeInfo();
+        AgentRuntimeInfo current = runtimeInfo();
+        current.busy(new AgentBuildingInfo("pipeline/1/stage/1/job", "pipeline/1/stage/1/job"));
+        current.setCookie(null);
+
+        PingDelta delta = GSON.fromJson(GSON.toJson(PingDelta.between("uuid", 1, json(acknowledged), json(current))), PingDelta.class);
+
+        assertThat(delta.getRemoved()).containsExactly("cookie");
+        JsonObject rebuilt = delta.applyTo(json(acknowledged));
+        assertThat(rebuilt).isEqualTo(json(current));
+        assertThat(GSON.fromJson(rebuilt, AgentRuntimeInfo.class)).isEqualTo(current);
+    }
+
+    @Test
+    void shouldNotChangeTheAcknowledgedRuntimeInfo() {
+        JsonObject acknowledged = json(runtimeInfo());
+        AgentRuntimeInfo current = runtimeInfo();
+        current.setLocation("/elsewhere");
+
+        PingDelta.between("uuid", 1, acknowledged, json(current)).applyTo(acknowledged);
+
+        assertThat(acknowledged).isEqualTo(json(runtimeInfo()));
+    }
+
+    private static AgentRuntimeInfo runtimeInfo() {
+        AgentRuntimeInfo runtimeInfo = new AgentRuntimeInfo(new AgentIdentifier("localhost", "127.0.0.1", "uuid"), AgentRuntimeStatus.Idle, "/var/lib/go-agent", "cookie");
+        runtimeInfo.setUsableSpace(1024L);
+        return runtimeInfo;
+    }
+
+    private static JsonObject json(AgentRuntimeInfo runtimeInfo) {
+        return GSON.toJsonTree(runtimeInfo, AgentRuntimeInfo.class).getAsJsonObject();
+    }
+}
@@ -132,6 +132,40 @@ public class ArtifactsPublisherTest {
         assertThat(publisher.publishedFiles()).containsExactlyInAnyOrderEntriesOf(Map.of(testFile1, "dest", testFile2, "dest", testFile3, "dest"));
     }
 
+    @Test
+    public void shouldUploadArtifactsConcurrentlyAndReportProgress() throws Exception {
+        List<ArtifactPlan> artifactPlans = new ArrayList<>();
+        Map<File, String> expected = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            final File src = TestFileUtil.createTestFolder(workingFolder, "src" + i);
+            TestFileUtil.createTestFile(src, "test.txt");
+            artifactPlans.add(new ArtifactPlan(ArtifactPlanType.file, src.getName(), "dest" + i));
+            expected.put(src, "dest" + i);
+        }
+
+        new ArtifactsPublisher(publisher, artifactExtension, new ArtifactStores(), registry, workingFolder, 4).publishArtifacts(artifactPlans, env);
+
+        assertThat(publisher.publishedFiles()).containsExactlyInAnyOrderEntriesOf(expected);
+        assertThat(publisher.getMessage()).contains("(10/10).");
+    }
+
+    @Test
+    public void shouldReportAllFailedArtifactsWhenUploadingConcurrently() throws Exception {
+        List<ArtifactPlan> artifactPlans = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final File src = TestFileUtil.createTestFolder(workingFolder, "src" + i);
+            TestFileUtil.createTestFile(src, "test.txt");
+            artifactPlans.add(new ArtifactPlan(ArtifactPlanType.file, src.getName(), "dest"));
+        }
+        publisher.setShouldFail(true);
+
+        assertThatThrownBy(() -> new ArtifactsPublisher(publisher, artifactExtension, new ArtifactStores(), registry, workingFolder, 3).publishArtifacts(artifactPlans, env))
+            .hasMessageContaining("[go] Uploading finished. Failed to upload ")
+            .hasMessageContaining("[src0]")
+            .hasMessageContaining("[src1]")
+            .hasMessageContaining("[src2]");
+    }
+
     @Test
     public void shouldPublishPluggableArtifactsAndUploadMetadataFileToServer() {
         final ArtifactStore s3ArtifactStore = new ArtifactStore("s3", "cd.go.s3", create("access_key", false, "some-key"));
@@ -233,7 +267,7 @@ public class ArtifactsPublisherTest {
 
         final GoPublisher publisher = mock(GoPublisher.class);
 
-        new ArtifactsPublisher(publisher, artifactExtension, artifactStores, registry, workingFolder)
+        new ArtifactsPublisher(publisher, artifactExtension, artifactStores, registry, workingFolder, 1)
                 .publishArtifacts(artifactPlans, env);
 
         InOrder inOrder = inOrder(publisher);
@@ -421,6 +421,67 @@ class AgentInstancesTest {
         }
     }
 
+    @Nested
+    class Indexes {
+        @Test
+        void shouldFindAgentsByEnvironmentIgnoringCase() {
+            idle.getAgent().setEnvironments("uat,prod");
+            building.getAgent().setEnvironments("UAT");
+            AgentInstances agentInstances = createAgentInstancesWithAgentInstanceInVariousState();
+
+            assertThat(agentInstances.findAgentsInEnvironment("uat"), containsInAnyOrder(idle, building));
+            assertThat(agentInstances.findAgentsInEnvironment("PROD"), contains(idle));
+            assertThat(agentInstances.findAgentsInEnvironment("dev"), is(empty()));
+        }
+
+        @Test
+        void shouldFindAgentsByResource() {
+            idle.getAgent().setResources("java,linux");
+            disabled.getAgent().setResources("linux");
+            AgentInstances agentInstances = createAgentInstancesWithAgentInstanceInVariousState();
+
+            assertThat(agentInstances.findAgentsWithResource("linux"), containsInAnyOrder(idle, disabled));
+            assertThat(agentInstances.findAgentsWithResource("java"), contains(idle));
+        }
+
+        @Test
+        void shouldReindexAnAgentWhenItIsAddedAgain() {
+            AgentInstances agentInstances = createAgentInstancesWithAgentInstanceInVariousState();
+            assertThat(agentInstances.findAgentsWithResource("firefox"), is(empty()));
+
+            idle.getAgent().setResources("firefox");
+            agentInstances.add(idle);
+
+            assertThat(agentInstances.findAgentsWithResource("firefox"), contains(idle));
+        }
+
+        @Test
+        void shouldReflectAddedAndRemovedAgentsWhenIterating() {
+            AgentInstances agentInstances = createAgentInstancesWithAgentInstanceInVariousState();
+            assertThat(agentInstances, hasItem(idle));
+
+            agentInstances.removeAgent(idle.getUuid());
+            assertThat(agentInstances, not(hasItem(idle)));
+
+            agentInstances.add(idle);
+            assertThat(agentInstances, hasItem(idle));
+        }
+
+        @Test
+        void shouldReindexAnElasticAgentWhenItsRuntimeInfoChangesItsElasticAgentId() {
+            String pluginId = "go.cd.elastic-agent-plugin.docker";
+            AgentInstance elasticAgent = createElasticAgentInstance(1, pluginId);
+            AgentInstances agentInstances = new AgentInstances(systemEnvironment, null, elasticAgent);
+            assertThat(agentInstances.findElasticAgent("elastic-agent-id-1", pluginId), is(elasticAgent));
+
+            AgentIdentifier identifier = new AgentIdentifier("localhost", "127.0.0.1", elasticAgent.getUuid());
+            agentInstances.updateAgentRuntimeInfo(new ElasticAgentRuntimeInfo(identifier, Idle, "/foo/one", elasticAgent.getAgent().getCookie(), "elastic-agent-id-2", pluginId));
+
+            assertThat(agentInstances.findElasticAgent("elastic-agent-id-1", pluginId), is(nullValue()));
+            assertThat(agentInstances.findElasticAgent("elastic-agent-id-2", pluginId), is(elasticAgent));
+        }
+    }
+
     @Nested
     class agentsStuckInCancel {
         @Test
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * Understands what changed between two versions of the (preprocessed) cruise config, so that config change listeners
+ * can act only on the entities that changed instead of rescanning the whole config on every save.
+ */
+public class ConfigChangeSet {
+    private final Set<CaseInsensitiveString> addedPipelines = new HashSet<>();
+    private final Set<CaseInsensitiveString> removedPipelines = new HashSet<>();
+    private final Set<CaseInsensitiveString> modifiedPipelines = new HashSet<>();
+    private final Set<CaseInsensitiveString> addedEnvironments = new HashSet<>();
+    private final Set<CaseInsensitiveString> removedEnvironments = new HashSet<>();
+    private final Set<CaseInsensitiveString> modifiedEnvironments = new HashSet<>();
+    private final Set<CaseInsensitiveString> addedTemplates = new HashSet<>();
+    private final Set<CaseInsensitiveString> removedTemplates = new HashSet<>();
+    private final Set<CaseInsensitiveString> modifiedTemplates = new HashSet<>();
+    private final Set<String> addedMaterials = new HashSet<>();
+    private final Set<String> removedMaterials = new HashSet<>();
+
+    private ConfigChangeSet() {
+    }
+
+    public static ConfigChangeSet between(CruiseConfig previous, CruiseConfig current) {
+        return between(previous, current, Objects::equals);
+    }
+
+    /**
+     * @param sameContent decides whether a pipeline, environment or template present in both configs is unchanged.
+     *                    The domain {@code equals} methods leave out some config fields (material filters, shallow
+     *                    clone, credentials...), so callers that must see every edit pass a stricter comparison here.
+     */
+    public static ConfigChangeSet between(CruiseConfig previous, CruiseConfig current, BiPredicate<Object, Object> sameContent) {
+        ConfigChangeSet changeSet = new ConfigChangeSet();
+        if (previous == current) {
+            return changeSet;
+        }
+
+        diff(pipelinesByName(previous), pipelinesByName(current), (old, updated) -> isSamePipeline(old, updated, sameContent),
+            changeSet.addedPipelines, changeSet.removedPipelines, changeSet.modifiedPipelines);
+        diff(byName(previous.getEnvironments(), EnvironmentConfig::name), byName(current.getEnvironments(), EnvironmentConfig::name), sameContent::test,
+            changeSet.addedEnvironments, changeSet.removedEnvironments, changeSet.modifiedEnvironments);
+        diff(byName(previous.getTemplates(), PipelineTemplateConfig::name), byName(current.getTemplates(), PipelineTemplateConfig::name), sameContent::test,
+            changeSet.addedTemplates, changeSet.removedTemplates, changeSet.modifiedTemplates);
+
+        Set<String> previousMaterials = materialFingerprints(previous);
+        Set<String> currentMaterials = materialFingerprints(current);
+        changeSet.addedMaterials.addAll(difference(currentMaterials, previousMaterials));
+        changeSet.removedMaterials.addAll(difference(previousMaterials, currentMaterials));
+        return changeSet;
+    }
+
+    public Set<CaseInsensitiveString> getAddedPipelines() {
+        return unmodifiableSet(addedPipelines);
+    }
+
+    public Set<CaseInsensitiveString> getRemovedPipelines() {
+        return unmodifiableSet(removedPipelines);
+    }
+
+    public Set<CaseInsensitiveString> getModifiedPipelines() {
+        return unmodifiableSet(modifiedPipelines);
+    }
+
+    public Set<CaseInsensitiveString> getAddedEnvironments() {
+        return unmodifiableSet(addedEnvironments);
+    }
+
+    public Set<CaseInsensitiveString> getRemovedEnvironments() {
+        return unmodifiableSet(removedEnvironments);
+    }
+
+    public Set<CaseInsensitiveString> getModifiedEnvironments() {
+        return unmodifiableSet(modifiedEnvironments);
+    }
+
+    public Set<CaseInsensitiveString> getAddedTemplates() {
+        return unmodifiableSet(addedTemplates);
+    }
+
+    public Set<CaseInsensitiveString> getRemovedTemplates() {
+        return unmodifiableSet(removedTemplates);
+    }
+
+    public Set<CaseInsensitiveString> getModifiedTemplates() {
+        return unmodifiableSet(modifiedTemplates);
+    }
+
+    public Set<String> getAddedMaterialFingerprints() {
+        return unmodifiableSet(addedMaterials);
+    }
+
+    public Set<String> getRemovedMaterialFingerprints() {
+        return unmodifiableSet(removedMaterials);
+    }
+
+    /**
+     * @return names of pipelines that were added, removed or modified
+     */
+    public Set<CaseInsensitiveString> getChangedPipelines() {
+        return union(union(addedPipelines, removedPipelines), modifiedPipelines);
+    }
+
+    public Set<CaseInsensitiveString> getChangedEnvironments() {
+        return union(union(addedEnvironments, removedEnvironments), modifiedEnvironments);
+    }
+
+    public Set<CaseInsensitiveString> getChangedTemplates() {
+        return union(union(addedTemplates, removedTemplates), modifiedTemplates);
+    }
+
+    public boolean hasPipelineChanged(CaseInsensitiveString pipelineName) {
+        return addedPipelines.contains(pipelineName) || removedPipelines.contains(pipelineName) || modifiedPipelines.contains(pipelineName);
+    }
+
+    public boolean hasPipelineChanges() {
+        return !(addedPipelines.isEmpty() && removedPipelines.isEmpty() && modifiedPipelines.isEmpty());
+    }
+
+    public boolean hasEnvironmentChanges() {
+        return !(addedEnvironments.isEmpty() && removedEnvironments.isEmpty() && modifiedEnvironments.isEmpty());
+    }
+
+    public boolean hasTemplateChanges() {
+        return !(addedTemplates.isEmpty() && removedTemplates.isEmpty() && modifiedTemplates.isEmpty());
+    }
+
+    public boolean hasMaterialChanges() {
+        return !(addedMaterials.isEmpty() && removedMaterials.isEmpty());
+    }
+
+    public boolean isEmpty() {
+        return !(hasPipelineChanges() || hasEnvironmentChanges() || hasTemplateChanges() || hasMaterialChanges());
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigChangeSet{" +
+            "addedPipelines=" + addedPipelines +
+            ", removedPipelines=" + removedPipelines +
+            ", modifiedPipelines=" + modifiedPipelines +
+            ", addedEnvironments=" + addedEnvironments +
+            ", removedEnvironments=" + removedEnvironments +
+            ", modifiedEnvironments=" + modifiedEnvironments +
+            ", addedTemplates=" + addedTemplates +
+            ", removedTemplates=" + removedTemplates +
+            ", modifiedTemplates=" + modifiedTemplates +
+            ", addedMaterials=" + addedMaterials +
+            ", removedMaterials=" + removedMaterials +
+            '}';
+    }
+
+    private static boolean isSamePipeline(PipelineWithGroup previous, PipelineWithGroup current, BiPredicate<Object, Object> sameContent) {
+        return Objects.equals(previous.group, current.group) && sameContent.test(previous.pipeline, current.pipeline);
+    }
+
+    private static Map<CaseInsensitiveString, PipelineWithGroup> pipelinesByName(CruiseConfig config) {
+        Map<CaseInsensitiveString, PipelineWithGroup> pipelines = new HashMap<>();
+        for (PipelineConfigs group : config.getGroups()) {
+            for (PipelineConfig pipeline : group) {
+                pipelines.put(pipeline.name(), new PipelineWithGroup(group.getGroup(), pipeline));
+            }
+        }
+        return pipelines;
+    }
+
+    private static <T> Map<CaseInsensitiveString, T> byName(Iterable<T> entities, Function<T, CaseInsensitiveString> name) {
+        Map<CaseInsensitiveString, T> byName = new HashMap<>();
+        for (T entity : entities) {
+            byName.put(name.apply(entity), entity);
+        }
+        return byName;
+    }
+
+    private static <T> void diff(Map<CaseInsensitiveString, T> previous, Map<CaseInsensitiveString, T> current, BiPredicate<T, T> same,
+                                 Set<CaseInsensitiveString> added, Set<CaseInsensitiveString> removed, Set<CaseInsensitiveString> modified) {
+        for (Map.Entry<CaseInsensitiveString, T> entry : current.entrySet()) {
+            T old = previous.get(entry.getKey());
+            if (old == null) {
+                added.add(entry.getKey());
+            } else if (!same.test(old, entry.getValue())) {
+                modified.add(entry.getKey());
+            }
+        }
+        for (CaseInsensitiveString name : previous.keySet()) {
+            if (!current.containsKey(name)) {
+                removed.add(name);
+            }
+        }
+    }
+
+    private static Set<String> materialFingerprints(CruiseConfig config) {
+        Set<String> fingerprints = new HashSet<>();
+        for (MaterialConfig materialConfig : config.getAllUniqueMaterials()) {
+            fingerprints.add(materialConfig.getFingerprint());
+        }
+        return fingerprints;
+    }
+
+    private static <T> Set<T> union(Set<T> first, Set<T> second) {
+        Set<T> union = new HashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    private static <T> Set<T> difference(Set<T> first, Set<T> second) {
+        Set<T> difference = new HashSet<>(first);
+        difference.removeAll(second);
+        return difference;
+    }
+
+    private static class PipelineWithGroup {
+        private final String group;
+        private final PipelineConfig pipeline;
+
+        private PipelineWithGroup(String group, PipelineConfig pipeline) {
+            this.group = group;
+            this.pipeline = pipeline;
+        }
+    }
+}
@@ -296,6 +296,9 @@ public class PipelineTemplateConfig extends BaseCollection<StageConfig> implemen
         if (name != null ? !name.equals(config.name) : config.name != null) {
             return false;
         }
+        if (authorization != null ? !authorization.equals(config.authorization) : config.authorization != null) {
+            return false;
+        }
 
         return true;
     }
@@ -304,6 +307,7 @@ public class PipelineTemplateConfig extends BaseCollection<StageConfig> implemen
     public int hashCode() {
         int result = super.hashCode();
         result = 31 * result + (name != null ? name.hashCode() : 0);
+        result = 31 * result + (authorization != null ? authorization.hashCode() : 0);
         return result;
     }
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Understands the same rules as {@link EnvironmentPipelineMatchers}, precomputed: every pipeline and every agent maps
+ * to the set of environments it is in, as bits over the environments. A pipeline matches an agent when the two sets
+ * intersect, or when neither is in any environment.
+ */
+public class EnvironmentMatchIndex {
+    private static final BitSet NO_ENVIRONMENTS = new BitSet();
+
+    private final List<CaseInsensitiveString> environmentNames = new ArrayList<>();
+    private final Map<CaseInsensitiveString, BitSet> pipelineToEnvironments = new HashMap<>();
+    private final Map<String, BitSet> agentToEnvironments = new HashMap<>();
+
+    public EnvironmentMatchIndex(EnvironmentPipelineMatchers matchers) {
+        for (EnvironmentPipelineMatcher matcher : matchers) {
+            int environment = environmentNames.size();
+            environmentNames.add(matcher.name());
+            matcher.pipelineNames().forEach(pipelineName -> pipelineToEnvironments.computeIfAbsent(pipelineName, key -> new BitSet()).set(environment));
+            matcher.agentUuids().forEach(uuid -> agentToEnvironments.computeIfAbsent(uuid, key -> new BitSet()).set(environment));
+        }
+    }
+
+    public boolean match(String pipelineName, String uuid) {
+        return match(environmentsOfPipeline(pipelineName), environmentsOfAgent(uuid));
+    }
+
+    /**
+     * @return the items whose pipeline matches the agent, in their original order. The environments of every distinct
+     * pipeline are looked up once per call.
+     */
+    public <T> List<T> filterByAgent(List<T> items, Function<T, String> pipelineNameOf, String uuid) {
+        BitSet agentEnvironments = environmentsOfAgent(uuid);
+        Map<String, Boolean> matchesByPipeline = new HashMap<>();
+        List<T> matching = new ArrayList<>();
+        for (T item : items) {
+            if (matchesByPipeline.computeIfAbsent(pipelineNameOf.apply(item), pipelineName -> match(environmentsOfPipeline(pipelineName), agentEnvironments))) {
+                matching.add(item);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * @return the first environment (in config order) the pipeline is in, or null if it is in none
+     */
+    public CaseInsensitiveString environmentOf(String pipelineName) {
+        BitSet environments = environmentsOfPipeline(pipelineName);
+        return environments.isEmpty() ? null : environmentNames.get(environments.nextSetBit(0));
+    }
+
+    private BitSet environmentsOfPipeline(String pipelineName) {
+        return pipelineToEnvironments.getOrDefault(new CaseInsensitiveString(pipelineName), NO_ENVIRONMENTS);
+    }
+
+    private BitSet environmentsOfAgent(String uuid) {
+        return agentToEnvironments.getOrDefault(uuid, NO_ENVIRONMENTS);
+    }
+
+    private static boolean match(BitSet pipelineEnvironments, BitSet agentEnvironments) {
+        if (pipelineEnvironments.isEmpty() && agentEnvironments.isEmpty()) {
+            return true;
+        }
+        return pipelineEnvironments.intersects(agentEnvironments);
+    }
+}
@@ -68,4 +68,12 @@ public class EnvironmentPipelineMatcher {
     public CaseInsensitiveString name() {
         return name;
     }
+
+    List<String> agentUuids() {
+        return agentUuids;
+    }
+
+    List<CaseInsensitiveString> pipelineNames() {
+        return pipelineConfigs.getNames();
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.helper.GoConfigMother;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.thoughtworks.go.helper.GoConfigMother.deepClone;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigChangeSetTest {
+    private BasicCruiseConfig previous;
+
+    @BeforeEach
+    void setUp() {
+        previous = GoConfigMother.configWithPipelines("p1", "p2", "p3");
+        new GoConfigMother().addEnvironmentConfig(previous, "uat", "p1");
+    }
+
+    @Test
+    void shouldBeEmptyWhenNothingHasChanged() {
+        ConfigChangeSet changeSet = ConfigChangeSet.between(previous, deepClone(previous));
+
+        assertThat(changeSet.isEmpty()).isTrue();
+        assertThat(ConfigChangeSet.between(previous, previous).isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldIdentifyAddedRemovedAndModifiedPipelines() {
+        BasicCruiseConfig current = deepClone(previous);
+        current.getGroups().first().remove(current.pipelineConfigByName(new CaseInsensitiveString("p3")));
+        current.pipelineConfigByName(new CaseInsensitiveString("p2")).setLabelTemplate("${COUNT}-foo");
+        new GoConfigMother().addPipeline(current, "p4", "stage", "job");
+
+        ConfigChangeSet changeSet = ConfigChangeSet.between(previous, current);
+
+        assertThat(changeSet.getAddedPipelines()).containsExactly(new CaseInsensitiveString("p4"));
+        assertThat(changeSet.getRemovedPipelines()).containsExactly(new CaseInsensitiveString("p3"));
+        assertThat(changeSet.getModifiedPipelines()).containsExactly(new CaseInsensitiveString("p2"));
+        assertThat(changeSet.hasPipelineChanged(new CaseInsensitiveString("p1"))).isFalse();
+        assertThat(changeSet.hasEnvironmentChanges()).isFalse();
+    }
+
+    @Test
+    void shouldIdentifyEnvironmentChanges() {
+        BasicCruiseConfig current = deepClone(previous);
+        current.getEnvironments().find(new CaseInsensitiveString("uat")).addAgent("agent-1");
+        new GoConfigMother().addEnvironmentConfig(current, "prod", "p2");
+
+        ConfigChangeSet changeSet = ConfigChangeSet.between(previous, current);
+
+        assertThat(changeSet.getModifiedEnvironments()).containsExactly(new CaseInsensitiveString("uat"));
+        assertThat(changeSet.getAddedEnvironments()).containsExactly(new CaseInsensitiveString("prod"));
+        assertThat(changeSet.hasPipelineChanges()).isFalse();
+    }
+}
@@ -371,4 +371,14 @@ public class PipelineTemplateConfigTest {
         assertThat(template.size(), is(sizeBeforeCopy));
     }
 
+    @Test
+    public void shouldNotBeEqualToATemplateWithDifferentAuthorization() {
+        PipelineTemplateConfig template = PipelineTemplateConfigMother.createTemplate("template", new Authorization(), StageConfigMother.manualStage("stage"));
+        PipelineTemplateConfig sameAuthorization = PipelineTemplateConfigMother.createTemplate("template", new Authorization(), StageConfigMother.manualStage("stage"));
+        PipelineTemplateConfig differentAuthorization = PipelineTemplateConfigMother.createTemplate("template", new Authorization(new AdminsConfig(new AdminUser("bob"))), StageConfigMother.manualStage("stage"));
+
+        assertThat(template, is(sameAuthorization));
+        assertThat(template.hashCode(), is(sameAuthorization.hashCode()));
+        assertThat(template, is(not(differentAuthorization)));
+    }
 }
@@ -18,15 +18,15 @@ package com.thoughtworks.go.config;
 import com.thoughtworks.go.domain.GoConfigRevision;
 import com.thoughtworks.go.util.TimeProvider;
 import org.apache.commons.io.FileUtils;
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.input.SAXBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import javax.xml.transform.Transformer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -35,8 +35,9 @@ import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.net.URL;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.ExceptionUtils.bombIfNull;
@@ -49,6 +50,9 @@ import static com.thoughtworks.go.util.XmlUtils.buildXmlDocument;
 public class GoConfigMigration {
     private static final Logger LOG = LoggerFactory.getLogger(GoConfigMigration.class.getName());
     private static final int XPATH_EXPRESSION_OPERATION_LIMIT = 200;
+    private static final int SLOWEST_SCRIPTS_TO_REPORT = 5;
+    // upgrade scripts never change while the server runs, so each one is compiled once and shared across upgrades
+    private static final Map<String, Templates> COMPILED_SCRIPTS = new ConcurrentHashMap<>();
     private final TimeProvider timeProvider;
 
     @Autowired
@@ -90,38 +94,67 @@ public class GoConfigMigration {
     public String upgrade(String content, int currentVersion, int targetVersion) {
         LOG.info("Upgrading config file from version {} to version {}", currentVersion, targetVersion);
         List<URL> upgradeScripts = upgradeScripts(currentVersion, targetVersion);
+        List<ScriptTiming> timings = new ArrayList<>(upgradeScripts.size());
+        long upgradeStart = System.nanoTime();
 
+        // every intermediate version has to pass its own schema, so the transforms are chained as bytes that the
+        // validating parser reads directly, rather than as strings that are re-encoded at every step
+        byte[] config = content.getBytes();
         for (URL upgradeScript : upgradeScripts) {
-            validate(content);
-            content = upgrade(content, upgradeScript);
+            long start = System.nanoTime();
+            validate(config);
+            long validated = System.nanoTime();
+            config = upgrade(config, upgradeScript);
+            timings.add(new ScriptTiming(upgradeScript, validated - start, System.nanoTime() - validated));
         }
-        validate(content);
+        validate(config);
+        logTimings(timings, System.nanoTime() - upgradeStart);
         LOG.info("Finished upgrading config file");
-        return content;
+        return new String(config);
     }
 
-    private void validate(String content) {
+    private void validate(byte[] content) {
         int currentVersion = getCurrentSchemaVersion(content);
         try {
-            buildXmlDocument(new ByteArrayInputStream(content.getBytes()), GoConfigSchema.getResource(currentVersion));
+            buildXmlDocument(new ByteArrayInputStream(content), GoConfigSchema.getResource(currentVersion));
         } catch (Exception e) {
             throw bomb("Cruise config file with version " + currentVersion + " is invalid. Unable to upgrade.", e);
         }
     }
 
-    private String upgrade(String originalContent, URL upgradeScript) {
-        try (InputStream xslt = upgradeScript.openStream()) {
-            ByteArrayOutputStream convertedConfig = new ByteArrayOutputStream();
-            transformer(upgradeScript.getPath(), xslt)
-                    .transform(new StreamSource(new ByteArrayInputStream(originalContent.getBytes())), new StreamResult(convertedConfig));
-            return convertedConfig.toString();
+    private byte[] upgrade(byte[] originalContent, URL upgradeScript) {
+        try {
+            ByteArrayOutputStream convertedConfig = new ByteArrayOutputStream(originalContent.length + originalContent.length / 8);
+            compiled(upgradeScript).newTransformer()
+                    .transform(new StreamSource(new ByteArrayInputStream(originalContent)), new StreamResult(convertedConfig));
+            return convertedConfig.toByteArray();
         } catch (TransformerException e) {
             throw bomb("Couldn't transform configuration file using upgrade script " + upgradeScript.getPath(), e);
-        } catch (IOException e) {
-            throw bomb("Couldn't write converted config file", e);
         }
     }
 
+    private void logTimings(List<ScriptTiming> timings, long totalNanos) {
+        if (timings.isEmpty()) {
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            for (ScriptTiming timing : timings) {
+                LOG.debug("Upgrade script {} took {}ms to validate its input and {}ms to transform", timing.name(), millis(timing.validationNanos), millis(timing.transformNanos));
+            }
+        }
+        List<ScriptTiming> slowest = new ArrayList<>(timings);
+        slowest.sort(Comparator.comparingLong(ScriptTiming::totalNanos).reversed());
+        StringJoiner slowestScripts = new StringJoiner(", ");
+        for (ScriptTiming timing : slowest.subList(0, Math.min(SLOWEST_SCRIPTS_TO_REPORT, slowest.size()))) {
+            slowestScripts.add(timing.name() + "=" + millis(timing.totalNanos()) + "ms");
+        }
+        LOG.info("Ran {} upgrade scripts in {}ms. Slowest: {}", timings.size(), millis(totalNanos), slowestScripts);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
     private List<URL> upgradeScripts(int currentVersion, int targetVersion) {
         ArrayList<URL> xsls = new ArrayList<>();
         for (int i = currentVersion + 1; i <= targetVersion; i++) {
@@ -137,13 +170,19 @@ public class GoConfigMigration {
         return GoConfigMigration.class.getResource(script);
     }
 
-    private Transformer transformer(String xsltName, InputStream xslt) {
-        try {
+    private Templates compiled(URL upgradeScript) {
+        return COMPILED_SCRIPTS.computeIfAbsent(upgradeScript.toExternalForm(), key -> compile(upgradeScript));
+    }
+
+    private Templates compile(URL upgradeScript) {
+        try (InputStream xslt = upgradeScript.openStream()) {
             TransformerFactory factory = TransformerFactory.newInstance();
             tryIncreaseXpathExpressionOperationLimit(factory);
-            return factory.newTransformer(new StreamSource(xslt));
+            return factory.newTemplates(new StreamSource(xslt, upgradeScript.toExternalForm()));
         } catch (TransformerConfigurationException tce) {
-            throw bomb("Couldn't parse XSL template " + xsltName, tce);
+            throw bomb("Couldn't parse XSL template " + upgradeScript.getPath(), tce);
+        } catch (IOException e) {
+            throw bomb("Couldn't read XSL template " + upgradeScript.getPath(), e);
         }
     }
 
@@ -156,16 +195,46 @@ public class GoConfigMigration {
     }
 
     private int getCurrentSchemaVersion(String content) {
-        try {
-            SAXBuilder builder = new SAXBuilder();
-            Document document = builder.build(new ByteArrayInputStream(content.getBytes()));
-            Element root = document.getRootElement();
+        return getCurrentSchemaVersion(content.getBytes());
+    }
 
-            String schemaVersion = "schemaVersion";
-            String currentVersion = root.getAttributeValue(schemaVersion) == null ? "0" : root.getAttributeValue(schemaVersion);
-            return Integer.parseInt(currentVersion);
+    // only the root element is needed, so there is no point building a document for every step of an upgrade
+    private int getCurrentSchemaVersion(byte[] content) {
+        XMLStreamReader reader = null;
+        try {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            reader = factory.createXMLStreamReader(new ByteArrayInputStream(content));
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // skip the prolog
+            }
+            String currentVersion = reader.getAttributeValue(null, "schemaVersion");
+            return Integer.parseInt(currentVersion == null ? "0" : currentVersion);
         } catch (Exception e) {
             throw bomb(e);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private record ScriptTiming(URL script, long validationNanos, long transformNanos) {
+        String name() {
+            String path = script.getPath();
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        long totalNanos() {
+            return validationNanos + transformNanos;
         }
     }
 }
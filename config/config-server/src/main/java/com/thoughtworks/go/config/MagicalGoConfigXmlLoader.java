@@ -24,6 +24,7 @@ import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.config.remote.FileConfigOrigin;
 import com.thoughtworks.go.config.validation.*;
 import com.thoughtworks.go.domain.ConfigErrors;
+import com.thoughtworks.go.domain.PipelineGroups;
 import com.thoughtworks.go.security.GoCipher;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.jdom2.Document;
@@ -109,7 +110,10 @@ public class MagicalGoConfigXmlLoader {
         Element element = parseInputStream(new ByteArrayInputStream(content.getBytes()));
         LOGGER.debug("[Config Save] Updating config cache with new XML");
 
-        CruiseConfig configForEdit = classParser(element, BasicCruiseConfig.class, configCache, new GoCipher(), registry, new ConfigReferenceElements()).parse();
+        // pipeline groups only refer to elements defined outside them (packages, scms), so large configs can have their groups parsed concurrently (off unless configured)
+        CruiseConfig configForEdit = classParser(element, BasicCruiseConfig.class, configCache, new GoCipher(), registry, new ConfigReferenceElements())
+                .inParallelFor(PipelineGroups.class, systemEnvironment.get(SystemEnvironment.GO_CONFIG_PARALLEL_PARSE_MIN_GROUPS))
+                .parse();
         setMd5(configForEdit, md5);
         configForEdit.setOrigins(new FileConfigOrigin());
         return configForEdit;
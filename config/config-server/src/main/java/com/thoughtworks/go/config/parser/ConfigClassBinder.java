@@ -0,0 +1,232 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config.parser;
+
+import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.security.GoCipher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.thoughtworks.go.config.ConfigCache.annotationFor;
+import static com.thoughtworks.go.config.ConfigCache.isAnnotationPresent;
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+
+/**
+ * Understands everything the config loaders need to know about a config class, worked out once per class: its
+ * annotations, how to create it, which of its fields are bound to the xml and how to read and write them.
+ * Fields are read and written through {@link MethodHandle}s rather than {@link Field#get}/{@link Field#set}.
+ */
+final class ConfigClassBinder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigClassBinder.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassValue<ConfigClassBinder> BINDERS = new ClassValue<>() {
+        @Override
+        protected ConfigClassBinder computeValue(Class<?> type) {
+            return new ConfigClassBinder(type);
+        }
+    };
+
+    final Class<?> type;
+    final ConfigTag configTag;
+    final AttributeAwareConfigTag attributeAwareConfigTag;
+    final ConfigCollection configCollection;
+    final ConfigReferenceCollection referenceCollection;
+    final boolean configInterface;
+    final boolean implicitCollection;
+    private final List<MethodHandle> postConstructs;
+    private volatile MethodHandle constructor;
+    private volatile List<FieldBinder> fields;
+
+    static ConfigClassBinder binderFor(Class<?> type) {
+        return BINDERS.get(type);
+    }
+
+    private ConfigClassBinder(Class<?> type) {
+        this.type = type;
+        this.configTag = annotationFor(type, ConfigTag.class);
+        this.attributeAwareConfigTag = annotationFor(type, AttributeAwareConfigTag.class);
+        this.configCollection = annotationFor(type, ConfigCollection.class);
+        this.referenceCollection = annotationFor(type, ConfigReferenceCollection.class);
+        this.configInterface = isAnnotationPresent(type, ConfigInterface.class);
+        this.implicitCollection = configCollection != null && configTag == null && attributeAwareConfigTag == null;
+        this.postConstructs = postConstructMethods(type);
+    }
+
+    Object newInstance(GoCipher goCipher) {
+        boolean isPasswordEncrypter = PasswordEncrypter.class.isAssignableFrom(type);
+        try {
+            MethodHandle handle = constructor(isPasswordEncrypter);
+            return isPasswordEncrypter ? (Object) handle.invokeExact(goCipher) : (Object) handle.invokeExact();
+        } catch (Throwable e) {
+            throw bomb("Error creating new instance of class " + type.getName(), e);
+        }
+    }
+
+    private MethodHandle constructor(boolean isPasswordEncrypter) throws ReflectiveOperationException {
+        MethodHandle handle = constructor;
+        if (handle == null) {
+            Constructor<?> declared = isPasswordEncrypter ? type.getDeclaredConstructor(GoCipher.class) : type.getDeclaredConstructor();
+            declared.setAccessible(true);
+            MethodType methodType = isPasswordEncrypter ? MethodType.methodType(Object.class, GoCipher.class) : MethodType.methodType(Object.class);
+            handle = LOOKUP.unreflectConstructor(declared).asType(methodType);
+            constructor = handle;
+        }
+        return handle;
+    }
+
+    void postConstruct(Object instance) {
+        for (MethodHandle postConstruct : postConstructs) {
+            try {
+                postConstruct.invokeExact(instance);
+            } catch (Throwable e) {
+                LOGGER.error("Failed to save config: ", e);
+                throw bomb(e);
+            }
+        }
+    }
+
+    /**
+     * @param declaredFields the fields of this class and its superclasses, as cached by {@link ConfigCache}
+     */
+    List<FieldBinder> fields(List<Field> declaredFields) {
+        List<FieldBinder> bound = fields;
+        if (bound == null) {
+            bound = new ArrayList<>();
+            for (Field field : declaredFields) {
+                FieldBinder.Kind kind = FieldBinder.kindOf(field);
+                if (kind != null) {
+                    bound.add(new FieldBinder(field, kind));
+                }
+            }
+            fields = bound;
+        }
+        return bound;
+    }
+
+    private static List<MethodHandle> postConstructMethods(Class<?> type) {
+        List<MethodHandle> handles = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            if (isAnnotationPresent(method, PostConstruct.class)) {
+                try {
+                    handles.add(LOOKUP.unreflect(method).asType(MethodType.methodType(void.class, Object.class)));
+                } catch (IllegalAccessException e) {
+                    throw bomb("Unable to call @PostConstruct method " + method + " of " + type.getName(), e);
+                }
+            }
+        }
+        return handles;
+    }
+
+    static final class FieldBinder {
+        enum Kind {IMPLICIT_COLLECTION, SUBTAG, ATTRIBUTE, VALUE, REFERENCE}
+
+        final Field field;
+        final Kind kind;
+        final ConfigSubtag subtag;
+        final ConfigAttribute attribute;
+        final ConfigReferenceElement referenceElement;
+        final boolean attributeClashesWithAttributeAwareTag;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final ConfigAttributeValue configAttributeValue;
+        private final MethodHandle attributeValueConstructor;
+
+        private FieldBinder(Field field, Kind kind) {
+            this.field = field;
+            this.kind = kind;
+            this.subtag = annotationFor(field, ConfigSubtag.class);
+            this.attribute = annotationFor(field, ConfigAttribute.class);
+            this.referenceElement = annotationFor(field, ConfigReferenceElement.class);
+            AttributeAwareConfigTag declaringTag = field.getDeclaringClass().getAnnotation(AttributeAwareConfigTag.class);
+            this.attributeClashesWithAttributeAwareTag = declaringTag != null && attribute != null && declaringTag.attribute().equals(attribute.value());
+            this.configAttributeValue = field.getType().getAnnotation(ConfigAttributeValue.class);
+            field.setAccessible(true);
+            try {
+                this.getter = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+                this.setter = LOOKUP.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw bomb("Error accessing configField: " + field.getName(), e);
+            }
+            this.attributeValueConstructor = configAttributeValue == null ? null : stringConstructor(field.getType());
+        }
+
+        private static Kind kindOf(Field field) {
+            boolean subtag = isAnnotationPresent(field, ConfigSubtag.class);
+            if (subtag && binderFor(field.getType()).implicitCollection) {
+                return Kind.IMPLICIT_COLLECTION;
+            } else if (subtag) {
+                return Kind.SUBTAG;
+            } else if (isAnnotationPresent(field, ConfigAttribute.class)) {
+                return Kind.ATTRIBUTE;
+            } else if (isAnnotationPresent(field, ConfigValue.class)) {
+                return Kind.VALUE;
+            } else if (isAnnotationPresent(field, ConfigReferenceElement.class)) {
+                return Kind.REFERENCE;
+            }
+            return null;
+        }
+
+        private static MethodHandle stringConstructor(Class<?> type) {
+            try {
+                return LOOKUP.unreflectConstructor(type.getConstructor(String.class)).asType(MethodType.methodType(Object.class, String.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // reported when a value is set, as it always has been
+                return null;
+            }
+        }
+
+        Object get(Object instance) {
+            try {
+                return (Object) getter.invokeExact(instance);
+            } catch (Throwable e) {
+                throw bomb("Error getting configField: " + field.getName(), e);
+            }
+        }
+
+        void set(Object instance, Object value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw bomb("Error setting configField: " + field.getName(), e);
+            }
+        }
+
+        ConfigAttributeValue configAttributeValue() {
+            return configAttributeValue;
+        }
+
+        Object newAttributeValue(Object value) {
+            if (attributeValueConstructor == null) {
+                throw bomb("Error setting configField: " + field.getName() + " as " + field.getType(), new NoSuchMethodException(field.getType().getName() + ".<init>(java.lang.String)"));
+            }
+            try {
+                return (Object) attributeValueConstructor.invokeExact((String) value);
+            } catch (Throwable e) {
+                throw bomb("Error creating configAttribute: " + field.getName() + " as " + field.getType(), e);
+            }
+        }
+    }
+}
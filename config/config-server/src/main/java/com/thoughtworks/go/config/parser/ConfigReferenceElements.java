@@ -15,21 +15,18 @@
  */
 package com.thoughtworks.go.config.parser;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ConfigReferenceElements {
     private final Map<String, Map<String, Object>> collectionRegistry;
 
     public ConfigReferenceElements() {
-        collectionRegistry = new HashMap<>();
+        collectionRegistry = new ConcurrentHashMap<>();
     }
 
     public void add(String collectionName, String referenceElementId, Object referenceElement) {
-        if (!collectionRegistry.containsKey(collectionName)) {
-            collectionRegistry.put(collectionName, new HashMap<>());
-        }
-        collectionRegistry.get(collectionName).put(referenceElementId, referenceElement);
+        collectionRegistry.computeIfAbsent(collectionName, name -> new ConcurrentHashMap<>()).put(referenceElementId, referenceElement);
     }
 
     public Object get(String collection, String referenceElementId) {
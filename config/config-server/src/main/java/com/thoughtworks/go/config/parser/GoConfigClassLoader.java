@@ -16,89 +16,97 @@
 package com.thoughtworks.go.config.parser;
 
 import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.config.parser.ConfigClassBinder.FieldBinder;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.security.GoCipher;
 import com.thoughtworks.go.util.ConfigUtil;
 import org.jdom2.Element;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import javax.annotation.PostConstruct;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.thoughtworks.go.config.ConfigCache.annotationFor;
-import static com.thoughtworks.go.config.ConfigCache.isAnnotationPresent;
+import static com.thoughtworks.go.config.parser.ConfigClassBinder.binderFor;
 import static com.thoughtworks.go.config.parser.GoConfigFieldLoader.fieldParser;
 import static com.thoughtworks.go.util.ExceptionUtils.*;
 import static java.lang.String.format;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 public class GoConfigClassLoader<T> {
-    private static final Logger LOGGER = LoggerFactory.getLogger(GoConfigClassLoader.class);
     private final ConfigUtil configUtil = new ConfigUtil("magic");
     private final Element e;
     private final Class<T> aClass;
+    private final ConfigClassBinder binder;
     private final ConfigCache configCache;
     private final GoCipher goCipher;
     private final ConfigElementImplementationRegistry registry;
     private final ConfigReferenceElements configReferenceElements;
+    private ParallelParse parallelParse;
 
     public static <T> GoConfigClassLoader<T> classParser(Element e, Class<T> aClass, ConfigCache configCache, GoCipher goCipher, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
-        return new GoConfigClassLoader<>(e, aClass, configCache, goCipher, registry, configReferenceElements);
+        return new GoConfigClassLoader<>(e, aClass, configCache, goCipher, registry, configReferenceElements, null);
     }
 
-    private GoConfigClassLoader(Element e, Class<T> aClass, ConfigCache configCache, GoCipher goCipher, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
+    private GoConfigClassLoader(Element e, Class<T> aClass, ConfigCache configCache, GoCipher goCipher, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements, ParallelParse parallelParse) {
         this.e = e;
         this.aClass = aClass;
+        this.binder = binderFor(aClass);
         this.configCache = configCache;
         this.goCipher = goCipher;
         this.registry = registry;
         this.configReferenceElements = configReferenceElements;
+        this.parallelParse = parallelParse;
+    }
+
+    /**
+     * Parses the elements of collections of the given type concurrently, once there are at least
+     * {@code minimumElements} of them, on a pool with a thread per core. Only meant for collections whose elements do
+     * not depend on each other while being parsed, such as pipeline groups, and which are not nested in each other.
+     */
+    public GoConfigClassLoader<T> inParallelFor(Class<?> collectionType, int minimumElements) {
+        this.parallelParse = minimumElements > 0 ? new ParallelParse(collectionType, minimumElements) : null;
+        return this;
+    }
+
+    <C> GoConfigClassLoader<C> childParser(Element child, Class<C> type) {
+        return new GoConfigClassLoader<>(child, type, configCache, goCipher, registry, configReferenceElements, parallelParse);
+    }
+
+    ConfigReferenceElements configReferenceElements() {
+        return configReferenceElements;
+    }
+
+    ConfigElementImplementationRegistry registry() {
+        return registry;
     }
 
     public T parse() {
         bombUnless(atElement(),
             () -> "Unable to parse element <" + e.getName() + "> for class " + aClass.getSimpleName());
         T o = createInstance();
-        if (isAnnotationPresent(aClass, ConfigReferenceCollection.class)) {
-            ConfigReferenceCollection referenceCollection = aClass.getAnnotation(ConfigReferenceCollection.class);
-            String collectionName = referenceCollection.collectionName();
-            String idFieldName = referenceCollection.idFieldName();
+        if (binder.referenceCollection != null) {
+            String collectionName = binder.referenceCollection.collectionName();
+            String idFieldName = binder.referenceCollection.idFieldName();
             if (e.getAttribute(idFieldName) != null) {
                 String id = e.getAttribute(idFieldName).getValue();
                 configReferenceElements.add(collectionName, id, o);
             }
         }
-        for (GoConfigFieldLoader<?> field : allFields(o)) {
-            field.parse();
+        ConfigClassBinder instanceBinder = binderFor(o.getClass());
+        for (FieldBinder field : instanceBinder.fields(configCache.getFieldCache().valuesFor(o.getClass()))) {
+            fieldParser(e, o, field, this).parse();
         }
         if (isConfigCollection()) {
             //noinspection unchecked
             parseCollection((Collection<Object>) o);
         }
         //check whether there are public PostConstruct methods and call them
-        postConstruct(o);
+        instanceBinder.postConstruct(o);
         return o;
     }
 
-    private void postConstruct(T o) {
-        Method[] methods = o.getClass().getMethods();
-        for (Method method : methods) {
-            if (isAnnotationPresent(method, PostConstruct.class)) {
-                try {
-                    method.invoke(o);
-                } catch (Exception e) {
-                    LOGGER.error("Failed to save config: ", e);
-                    throw bomb(e);
-                }
-            }
-        }
-    }
-
     @SuppressWarnings("unchecked")
     public Collection<?> parseImplicitCollection() {
         Collection<Object> collection = (Collection<Object>) createInstance();
@@ -107,13 +115,21 @@ public class GoConfigClassLoader<T> {
     }
 
     private void parseCollection(Collection<Object> collection) {
-        ConfigCollection collectionAnnotation = annotationFor(aClass, ConfigCollection.class);
+        ConfigCollection collectionAnnotation = binder.configCollection;
         Class<?> elementType = collectionAnnotation.value();
 
+        List<GoConfigClassLoader<?>> elementParsers = new ArrayList<>();
         for (Element childElement : e.getChildren()) {
-            if (isInCollection(childElement, elementType)) {
-                Class<?> collectionType = findConcreteType(childElement, elementType);
-                collection.add(classParser(childElement, collectionType, configCache, new GoCipher(), registry, configReferenceElements).parse());
+            Class<?> collectionType = findConcreteType(childElement, elementType);
+            if (collectionType != null) {
+                elementParsers.add(childParser(childElement, collectionType));
+            }
+        }
+        if (parallelParse != null && parallelParse.appliesTo(aClass, elementParsers.size())) {
+            collection.addAll(parseConcurrently(elementParsers));
+        } else {
+            for (GoConfigClassLoader<?> elementParser : elementParsers) {
+                collection.add(elementParser.parse());
             }
         }
         int minimumSize = collectionAnnotation.minimum();
@@ -122,17 +138,28 @@ public class GoConfigClassLoader<T> {
                 + "Found " + collection.size() + ".");
     }
 
-    private <I> List<GoConfigFieldLoader<?>> allFields(I o) {
-        List<GoConfigFieldLoader<?>> fields = new ArrayList<>();
-        List<Field> allFields = configCache.getFieldCache().valuesFor(o.getClass());
-        for (Field field : allFields) {
-            fields.add(fieldParser(e, o, field, configCache, registry, configReferenceElements));
+    private static List<Object> parseConcurrently(List<GoConfigClassLoader<?>> elementParsers) {
+        List<CompletableFuture<?>> parsed = new ArrayList<>(elementParsers.size());
+        for (GoConfigClassLoader<?> elementParser : elementParsers) {
+            parsed.add(CompletableFuture.supplyAsync(elementParser::parse, Parsers.POOL));
         }
-        return fields;
+        List<Object> elements = new ArrayList<>(parsed.size());
+        for (CompletableFuture<?> element : parsed) {
+            try {
+                elements.add(element.join());
+            } catch (CompletionException e) {
+                // report the first failure in document order, as a sequential parse would
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        return elements;
     }
 
     private boolean atElement() {
-        AttributeAwareConfigTag attributeAwareConfigTag = annotationFor(aClass, AttributeAwareConfigTag.class);
+        AttributeAwareConfigTag attributeAwareConfigTag = binder.attributeAwareConfigTag;
         if (attributeAwareConfigTag != null) {
             final String attribute = attributeAwareConfigTag.attribute();
             bombIf(isBlank(attribute), () -> format("Type '%s' has invalid configuration for @AttributeAwareConfigTag. It must have `attribute` with non blank value.", aClass.getName()));
@@ -140,7 +167,7 @@ public class GoConfigClassLoader<T> {
             return configUtil.atTag(e, attributeAwareConfigTag.value());
         }
 
-        ConfigTag configTag = annotationFor(aClass, ConfigTag.class);
+        ConfigTag configTag = binder.configTag;
 
         if (configTag == null) {
             return false;
@@ -155,11 +182,13 @@ public class GoConfigClassLoader<T> {
     }
 
     private T createInstance() {
-        return ConfigElementInstantiator.instantiateConfigElement(this.goCipher, typeToGenerate(e));
+        Class<T> type = typeToGenerate(e);
+        //noinspection unchecked
+        return (T) binderFor(type).newInstance(this.goCipher);
     }
 
     private Class<T> typeToGenerate(Element e) {
-        if (isImplicitCollection(aClass)) {
+        if (binder.implicitCollection) {
             return aClass;
         }
         //noinspection unchecked
@@ -169,7 +198,8 @@ public class GoConfigClassLoader<T> {
     }
 
     public static boolean compare(Element e, Class<?> implementation) {
-        final AttributeAwareConfigTag attributeAwareConfigTag = annotationFor(implementation, AttributeAwareConfigTag.class);
+        ConfigClassBinder implementationBinder = binderFor(implementation);
+        final AttributeAwareConfigTag attributeAwareConfigTag = implementationBinder.attributeAwareConfigTag;
 
         if (attributeAwareConfigTag != null) {
             return compareAttributeAwareConfigTag(e, attributeAwareConfigTag);
@@ -185,26 +215,18 @@ public class GoConfigClassLoader<T> {
             e.getNamespace().getURI().equals(attributeAwareConfigTag.namespaceURI());
     }
 
-    static boolean isImplicitCollection(Class<?> type) {
-        return isAnnotationPresent(type, ConfigCollection.class) && !(isAnnotationPresent(type, ConfigTag.class) || isAnnotationPresent(type, AttributeAwareConfigTag.class));
-    }
-
     public static ConfigTag configTag(Class<?> type) {
-        ConfigTag tag = annotationFor(type, ConfigTag.class);
+        ConfigTag tag = binderFor(type).configTag;
         bombIfNull(tag, () -> "Invalid type '" + type + "' to autoload. Must have ConfigTag annotation.");
         return tag;
     }
 
     private boolean isConfigCollection() {
-        return isAnnotationPresent(aClass, ConfigCollection.class);
-    }
-
-    private boolean isInCollection(Element e, Class<?> type) {
-        return findConcreteType(e, type) != null;
+        return binder.configCollection != null;
     }
 
-    private Class<?> findConcreteType(Element e, Class<?> type) {
-        if (type.isInterface() && isAnnotationPresent(type, ConfigInterface.class)) {
+    Class<?> findConcreteType(Element e, Class<?> type) {
+        if (type.isInterface() && binderFor(type).configInterface) {
             for (Class<?> implementation : registry.implementersOf(type)) {
                 if (compare(e, implementation)) {
                     return implementation;
@@ -215,4 +237,30 @@ public class GoConfigClassLoader<T> {
         }
         return null;
     }
+
+    /**
+     * Threads shared by all parallel parses, created on first use and let go of when idle. Parsing an element never
+     * waits on another one, so a bounded pool cannot deadlock.
+     */
+    private static final class Parsers {
+        private static final ExecutorService POOL = pool();
+
+        private static ExecutorService pool() {
+            int threads = Runtime.getRuntime().availableProcessors();
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "config-parser-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    private record ParallelParse(Class<?> collectionType, int minimumElements) {
+        boolean appliesTo(Class<?> type, int elements) {
+            return collectionType.equals(type) && elements >= minimumElements;
+        }
+    }
 }
@@ -15,55 +15,27 @@
  */
 package com.thoughtworks.go.config.parser;
 
-import com.thoughtworks.go.config.ConfigCache;
-import com.thoughtworks.go.config.ConfigInterface;
-import com.thoughtworks.go.config.ConfigSubtag;
 import com.thoughtworks.go.config.ConfigTag;
-import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
-import com.thoughtworks.go.security.GoCipher;
+import com.thoughtworks.go.config.parser.ConfigClassBinder.FieldBinder;
 import com.thoughtworks.go.util.ConfigUtil;
 import org.jdom2.Element;
 
-import java.lang.reflect.Field;
-import java.util.HashMap;
-import java.util.Map;
-
-import static com.thoughtworks.go.config.ConfigCache.annotationFor;
-import static com.thoughtworks.go.config.ConfigCache.isAnnotationPresent;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
 public class GoConfigSubtagLoader {
-    private static final Map<Field, ConfigSubtag> isSubTags = new HashMap<>();
-
     private final ConfigUtil configUtil = new ConfigUtil("magic");
     private final Element e;
-    private final Field field;
-    private final ConfigCache configCache;
-    private final ConfigElementImplementationRegistry registry;
-    private final ConfigReferenceElements configReferenceElements;
-
-    public static boolean isSubtag(Field field) {
-        return findSubTag(field) != null;
-    }
-
-    private static ConfigSubtag findSubTag(Field field) {
-        if (!isSubTags.containsKey(field)) {
-            isSubTags.put(field, field.getAnnotation(ConfigSubtag.class));
-        }
-        return isSubTags.get(field);
-    }
+    private final FieldBinder field;
+    private final GoConfigClassLoader<?> parent;
 
-    public static GoConfigSubtagLoader subtagParser(Element e, Field field, ConfigCache configCache, final ConfigElementImplementationRegistry registry,
-                                                        ConfigReferenceElements configReferenceElements) {
-        return new GoConfigSubtagLoader(e, field, configCache, registry, configReferenceElements);
+    static GoConfigSubtagLoader subtagParser(Element e, FieldBinder field, GoConfigClassLoader<?> parent) {
+        return new GoConfigSubtagLoader(e, field, parent);
     }
 
-    private GoConfigSubtagLoader(Element e, Field field, ConfigCache configCache, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
+    private GoConfigSubtagLoader(Element e, FieldBinder field, GoConfigClassLoader<?> parent) {
         this.e = e;
         this.field = field;
-        this.configCache = configCache;
-        this.registry = registry;
-        this.configReferenceElements = configReferenceElements;
+        this.parent = parent;
     }
 
     public Object parse() {
@@ -71,41 +43,36 @@ public class GoConfigSubtagLoader {
         if (type == null) { return null; }
 
         ConfigTag tag = GoConfigClassLoader.configTag(type);
-        if (configUtil.optionalAndMissingTag(e, tag, findSubTag(field).optional())) {
+        if (configUtil.optionalAndMissingTag(e, tag, field.subtag.optional())) {
             return null;
         }
 
-        return GoConfigClassLoader.classParser(configUtil.getChild(e, tag), type, configCache, new GoCipher(), registry, configReferenceElements).parse();
+        return parent.childParser(configUtil.getChild(e, tag), type).parse();
     }
 
     private Class<?> findTypeOfField() {
-        Class<?> type = field.getType();
-        if (isInterface(type)) {
+        Class<?> type = field.field.getType();
+        if (ConfigClassBinder.binderFor(type).configInterface) {
             for (Element subElement : e.getChildren()) {
                 Class<?> concreteType = findConcreteTypeFrom(subElement, type);
                 if (concreteType != null) {
                     return concreteType;
                 }
             }
-            boolean optional = annotationFor(field, ConfigSubtag.class).optional();
+            boolean optional = field.subtag.optional();
             if (optional) { return null; }
             throw bomb("Unable to find a tag of type '" + type.getSimpleName() + "' under element '" + e.getName()
                     + "'");
         }
-        return field.getType();
+        return type;
     }
 
     private Class<?> findConcreteTypeFrom(Element element, Class<?> interfaceType) {
-        for (Class<?> implementation : registry.implementersOf(interfaceType)) {
+        for (Class<?> implementation : parent.registry().implementersOf(interfaceType)) {
             if (GoConfigClassLoader.compare(element, implementation)) {
                 return implementation;
             }
         }
         return null;
     }
-
-    private boolean isInterface(Class<?> aClass) {
-        return isAnnotationPresent(aClass, ConfigInterface.class);
-    }
-
 }
@@ -34,6 +34,7 @@ import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.jetbrains.annotations.TestOnly;
@@ -71,6 +72,7 @@ public class ConfigRepository {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConfigRepository.class.getName());
     private Git git;
     private Repository gitRepo;
+    private final ConfigRevisionIndex revisionIndex;
 
     @Autowired
     public ConfigRepository(SystemEnvironment systemEnvironment) throws IOException {
@@ -80,6 +82,7 @@ public class ConfigRepository {
         gitRepo = new FileRepositoryBuilder().setGitDir(configRepoDir).build();
         updateWithDefaults(gitRepo.getConfig());
         git = new Git(gitRepo);
+        revisionIndex = new ConfigRevisionIndex(gitRepo, REFS_MASTER);
     }
 
     private void updateWithDefaults(StoredConfig config) {
@@ -92,6 +95,7 @@ public class ConfigRepository {
     }
 
     public void initialize() throws IOException {
+        revisionIndex.invalidate();
         if (!gitRepo.getDirectory().exists()) {
             gitRepo.create();
         } else {
@@ -127,6 +131,7 @@ public class ConfigRepository {
                 public void run() throws Exception {
                     addCommand.addFilepattern(CRUISE_CONFIG_XML).call();
                     git.commit().setAuthor(rev.getUsername(), COMMIT_EMAIL).setMessage(rev.getComment()).call();
+                    revisionIndex.extendIfLoaded();
                 }
             });
         } catch (Exception e) {
@@ -151,31 +156,41 @@ public class ConfigRepository {
     }
 
     private GoConfigRevision findRevisionByMd5(final String md5) throws GitAPIException {
-        return doLocked(() -> getGoConfigRevision(getRevCommitForMd5(md5)));
+        return getGoConfigRevision(getRevCommitForMd5(md5));
     }
 
     public RevCommit getRevCommitForMd5(String md5) throws GitAPIException {
         Assert.notNull(md5, "md5 is required");
 
-        final String expectedPart = GoConfigRevision.Fragment.md5.represent(GoConfigRevision.esc(md5));
-        for (RevCommit revision : revisions()) {
-            String message = revision.getFullMessage();
-            if (message.endsWith(expectedPart)) {
-                return revision;
+        try {
+            ObjectId commit = revisionIndex.commitForMd5(md5).orElse(null);
+            if (commit != null) {
+                return parseCommit(commit);
             }
+        } catch (IOException e) {
+            throw new RuntimeException("Error while looking up config revision in the config repository.", e);
         }
         throw new IllegalArgumentException(String.format("There is no config version corresponding to md5: '%s'", md5));
     }
 
     RevCommit getRevCommitForCommitSHA(String commitSHA) throws GitAPIException {
-        for (RevCommit revision : revisions()) {
-            if (revision.getName().equals(commitSHA)) {
-                return revision;
+        try {
+            ObjectId commit = ObjectId.isId(commitSHA) ? ObjectId.fromString(commitSHA) : null;
+            if (commit != null && revisionIndex.contains(commit)) {
+                return parseCommit(commit);
             }
+        } catch (IOException e) {
+            throw new RuntimeException("Error while looking up commit in the config repository.", e);
         }
         throw new IllegalArgumentException(String.format("There is no commit corresponding to SHA: '%s'", commitSHA));
     }
 
+    private RevCommit parseCommit(ObjectId commit) throws IOException {
+        try (RevWalk walk = new RevWalk(gitRepo)) {
+            return walk.parseCommit(commit);
+        }
+    }
+
     public GoConfigRevision getCurrentRevision() {
         return doLocked(() -> {
             RevCommit revision;
@@ -206,21 +221,18 @@ public class ConfigRepository {
     }
 
     public GoConfigRevisions getCommits(final int pageSize, final int offset) {
-        return doLocked(() -> {
-            GoConfigRevisions goConfigRevisions = new GoConfigRevisions();
-            try {
-                LogCommand command = git.log().setMaxCount(pageSize).setSkip(offset);
-                Iterable<RevCommit> revisions = command.call();
-                for (RevCommit revision : revisions) {
-                    GoConfigRevision goConfigRevision = new GoConfigRevision((byte[]) null, revision.getFullMessage());
-                    goConfigRevision.setCommitSHA(revision.name());
-                    goConfigRevisions.add(goConfigRevision);
-                }
-            } catch (Exception e) {
-                // ignore
+        GoConfigRevisions goConfigRevisions = new GoConfigRevisions();
+        try (RevWalk walk = new RevWalk(gitRepo)) {
+            for (ObjectId commit : revisionIndex.page(pageSize, offset)) {
+                RevCommit revision = walk.parseCommit(commit);
+                GoConfigRevision goConfigRevision = new GoConfigRevision((byte[]) null, revision.getFullMessage());
+                goConfigRevision.setCommitSHA(revision.name());
+                goConfigRevisions.add(goConfigRevision);
             }
-            return goConfigRevisions;
-        });
+        } catch (Exception e) {
+            // ignore
+        }
+        return goConfigRevisions;
     }
 
     private GoConfigRevision getGoConfigRevision(final RevCommit revision) {
@@ -256,30 +268,26 @@ public class ConfigRepository {
     }
 
     public String configChangesFor(final String laterMD5, final String earlierMD5) throws GitAPIException {
-        return doLocked(() -> {
-            RevCommit laterCommit = null;
-            RevCommit earlierCommit = null;
-            if (!StringUtils.isBlank(laterMD5)) {
-                laterCommit = getRevCommitForMd5(laterMD5);
-            }
-            if (!StringUtils.isBlank(earlierMD5))
-                earlierCommit = getRevCommitForMd5(earlierMD5);
-            return findDiffBetweenTwoRevisions(laterCommit, earlierCommit);
-        });
+        RevCommit laterCommit = null;
+        RevCommit earlierCommit = null;
+        if (!StringUtils.isBlank(laterMD5)) {
+            laterCommit = getRevCommitForMd5(laterMD5);
+        }
+        if (!StringUtils.isBlank(earlierMD5))
+            earlierCommit = getRevCommitForMd5(earlierMD5);
+        return findDiffBetweenTwoRevisions(laterCommit, earlierCommit);
     }
 
     public String configChangesForCommits(final String fromRevision, final String toRevision) throws GitAPIException {
-        return doLocked(() -> {
-            RevCommit laterCommit = null;
-            RevCommit earlierCommit = null;
-            if (!StringUtils.isBlank(fromRevision)) {
-                laterCommit = getRevCommitForCommitSHA(fromRevision);
-            }
-            if (!StringUtils.isBlank(toRevision)) {
-                earlierCommit = getRevCommitForCommitSHA(toRevision);
-            }
-            return findDiffBetweenTwoRevisions(laterCommit, earlierCommit);
-        });
+        RevCommit laterCommit = null;
+        RevCommit earlierCommit = null;
+        if (!StringUtils.isBlank(fromRevision)) {
+            laterCommit = getRevCommitForCommitSHA(fromRevision);
+        }
+        if (!StringUtils.isBlank(toRevision)) {
+            earlierCommit = getRevCommitForCommitSHA(toRevision);
+        }
+        return findDiffBetweenTwoRevisions(laterCommit, earlierCommit);
     }
 
     String findDiffBetweenTwoRevisions(RevCommit laterCommit, RevCommit earlierCommit) {
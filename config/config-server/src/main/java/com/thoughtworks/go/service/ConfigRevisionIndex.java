@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.service;
+
+import com.thoughtworks.go.domain.GoConfigRevision;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Understands looking up config commits on a branch by the md5 recorded in their commit message, and by position in
+ * history, without walking the whole history every time. The index is built lazily on first use and then extended
+ * with only the new commits whenever the branch moves forward. If the branch is rewritten (e.g. reset), it is rebuilt.
+ * <p>
+ * All access is guarded by the index itself, not by the check-in lock of {@link ConfigRepository}, so readers do not
+ * wait for check-ins.
+ */
+class ConfigRevisionIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigRevisionIndex.class);
+    private static final String MD5_FRAGMENT = GoConfigRevision.Fragment.md5.represent("");
+
+    private final Repository repository;
+    private final String branch;
+
+    private final Map<String, ObjectId> escapedMd5ToCommit = new HashMap<>();
+    private final Set<ObjectId> commits = new HashSet<>();
+    private final List<ObjectId> commitsOldestFirst = new ArrayList<>();
+    private ObjectId head;
+
+    ConfigRevisionIndex(Repository repository, String branch) {
+        this.repository = repository;
+        this.branch = branch;
+    }
+
+    synchronized Optional<ObjectId> commitForMd5(String md5) throws IOException {
+        refresh();
+        return Optional.ofNullable(escapedMd5ToCommit.get(GoConfigRevision.esc(md5)));
+    }
+
+    synchronized boolean contains(ObjectId commit) throws IOException {
+        refresh();
+        return commits.contains(commit);
+    }
+
+    /**
+     * @return ids of up to {@code pageSize} commits, newest first, after skipping the {@code offset} newest ones
+     */
+    synchronized List<ObjectId> page(int pageSize, int offset) throws IOException {
+        refresh();
+        List<ObjectId> page = new ArrayList<>();
+        for (int i = commitsOldestFirst.size() - 1 - offset; i >= 0 && page.size() < pageSize; i--) {
+            page.add(commitsOldestFirst.get(i));
+        }
+        return page;
+    }
+
+    /**
+     * Picks up new commits right away if the index has already been built; otherwise leaves it to be built on first use.
+     */
+    synchronized void extendIfLoaded() throws IOException {
+        if (head != null) {
+            refresh();
+        }
+    }
+
+    synchronized void invalidate() {
+        escapedMd5ToCommit.clear();
+        commits.clear();
+        commitsOldestFirst.clear();
+        head = null;
+    }
+
+    private void refresh() throws IOException {
+        Ref ref = repository.exactRef(branch);
+        ObjectId currentHead = ref == null ? null : ref.getObjectId();
+        if (Objects.equals(currentHead, head)) {
+            return;
+        }
+        if (currentHead == null) {
+            invalidate();
+            return;
+        }
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            if (head != null && isAncestor(walk, head, currentHead)) {
+                walk.reset();
+                walk.markStart(walk.parseCommit(currentHead));
+                walk.markUninteresting(walk.parseCommit(head));
+                append(walk);
+            } else {
+                long startTime = System.currentTimeMillis();
+                invalidate();
+                walk.reset();
+                walk.markStart(walk.parseCommit(currentHead));
+                append(walk);
+                LOGGER.info("[CONFIG REPOSITORY] Indexed {} config revisions in {}ms.", commitsOldestFirst.size(), System.currentTimeMillis() - startTime);
+            }
+        }
+        head = currentHead;
+    }
+
+    private boolean isAncestor(RevWalk walk, ObjectId previousHead, ObjectId currentHead) throws IOException {
+        try {
+            return walk.isMergedInto(walk.parseCommit(previousHead), walk.parseCommit(currentHead));
+        } catch (MissingObjectException e) {
+            return false;
+        }
+    }
+
+    private void append(RevWalk newestFirst) {
+        List<RevCommit> newCommits = new ArrayList<>();
+        for (RevCommit commit : newestFirst) {
+            newCommits.add(commit);
+        }
+        Collections.reverse(newCommits);
+
+        for (RevCommit commit : newCommits) {
+            ObjectId id = commit.toObjectId();
+            commitsOldestFirst.add(id);
+            commits.add(id);
+            String message = commit.getFullMessage();
+            int md5Start = message.lastIndexOf(MD5_FRAGMENT);
+            if (md5Start >= 0) {
+                // later commits win, just like a newest-first search through history would
+                escapedMd5ToCommit.put(message.substring(md5Start + MD5_FRAGMENT.length()), id);
+            }
+        }
+    }
+}
@@ -48,6 +48,7 @@ import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.domain.packagerepository.PackageDefinition;
 import com.thoughtworks.go.domain.packagerepository.PackageRepository;
 import com.thoughtworks.go.helper.MaterialConfigsMother;
+import com.thoughtworks.go.helper.PipelineConfigMother;
 import com.thoughtworks.go.helper.StageConfigMother;
 import com.thoughtworks.go.plugin.access.artifact.ArtifactMetadataStore;
 import com.thoughtworks.go.plugin.access.packagematerial.PackageConfiguration;
@@ -2363,6 +2364,36 @@ public class MagicalGoConfigXmlLoaderTest {
         assertThat(configHolder.config.findGroup("defaultGroup")).isEqualTo(group);
     }
 
+    @Test
+    void shouldParsePipelineGroupsInParallelIntoTheSameConfigAsASequentialParse() throws Exception {
+        CruiseConfig config = new BasicCruiseConfig();
+        for (int group = 0; group < 20; group++) {
+            for (int pipeline = 0; pipeline < 3; pipeline++) {
+                PipelineConfig pipelineConfig = PipelineConfigMother.pipelineConfig("pipeline-" + group + "-" + pipeline, "build",
+                        new MaterialConfigs(git("https://example.com/repo-" + group + ".git")), "compile", "test");
+                pipelineConfig.addEnvironmentVariable("GROUP", String.valueOf(group));
+                config.addPipelineWithoutValidation("group-" + group, pipelineConfig);
+            }
+        }
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        xmlWriter.write(config, stream, true);
+        String xml = stream.toString(UTF_8);
+
+        CruiseConfig sequential = xmlLoader.deserializeConfig(xml);
+        CruiseConfig parallel;
+        systemEnvironment.setProperty(SystemEnvironment.GO_CONFIG_PARALLEL_PARSE_MIN_GROUPS.propertyName(), "2");
+        try {
+            parallel = xmlLoader.deserializeConfig(xml);
+        } finally {
+            systemEnvironment.clearProperty(SystemEnvironment.GO_CONFIG_PARALLEL_PARSE_MIN_GROUPS.propertyName());
+        }
+
+        assertThat(parallel.getGroups()).hasSize(20);
+        assertThat(parallel.getGroups()).isEqualTo(sequential.getGroups());
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(parallel.getAllPipelineNames()).isEqualTo(sequential.getAllPipelineNames());
+    }
+
     private CruiseConfig loadJobWithRunOnAllAgents(String value) throws Exception {
         String content = configWithPipeline(
                 ("""
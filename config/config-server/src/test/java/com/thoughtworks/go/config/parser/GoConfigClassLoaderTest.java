@@ -18,6 +18,7 @@ package com.thoughtworks.go.config.parser;
 import com.thoughtworks.go.config.AttributeAwareConfigTag;
 import com.thoughtworks.go.config.ConfigAttribute;
 import com.thoughtworks.go.config.ConfigCache;
+import com.thoughtworks.go.config.ConfigCollection;
 import com.thoughtworks.go.config.ConfigTag;
 import com.thoughtworks.go.config.preprocessor.ClassAttributeCache;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
@@ -28,6 +29,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.when;
@@ -136,6 +140,51 @@ public class GoConfigClassLoaderTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Attribute `type` is not allowed in com.thoughtworks.go.config.parser.AttributeAwareConfigTagHasConfigAttributeWithSameName. You cannot use @ConfigAttribute annotation with attribute name `type` when @AttributeAwareConfigTag is configured with same name.");
     }
+
+    @Test
+    public void shouldKeepDocumentOrderWhenParsingCollectionElementsInParallel() {
+        final Element element = new Element("items");
+        for (int i = 0; i < 50; i++) {
+            element.addContent(new Element("item").setAttribute("name", "item-" + i));
+        }
+        when(configCache.getFieldCache()).thenReturn(new ClassAttributeCache.FieldCache());
+
+        final ConfigItems items = GoConfigClassLoader.classParser(element, ConfigItems.class, configCache, goCipher, registry, referenceElements)
+                .inParallelFor(ConfigItems.class, 2)
+                .parse();
+
+        assertThat(items).hasSize(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(items.get(i).name).isEqualTo("item-" + i);
+        }
+    }
+
+    @Test
+    public void shouldReportTheFirstFailingElementWhenParsingCollectionElementsInParallel() {
+        final Element element = new Element("items");
+        element.addContent(new Element("item").setAttribute("name", "first"));
+        element.addContent(new Element("item").setAttribute("type", "missing-name"));
+        element.addContent(new Element("item"));
+        when(configCache.getFieldCache()).thenReturn(new ClassAttributeCache.FieldCache());
+
+        final GoConfigClassLoader<ConfigItems> loader = GoConfigClassLoader.classParser(element, ConfigItems.class, configCache, goCipher, registry, referenceElements)
+                .inParallelFor(ConfigItems.class, 2);
+
+        assertThatThrownBy(loader::parse)
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Non optional attribute 'name' is not in element: \n\t<item type=\"missing-name\" />");
+    }
+}
+
+@ConfigTag("items")
+@ConfigCollection(ConfigItem.class)
+class ConfigItems extends ArrayList<ConfigItem> {
+}
+
+@ConfigTag("item")
+class ConfigItem {
+    @ConfigAttribute(value = "name", optional = false)
+    String name;
 }
 
 class ConfigWithoutAnnotation {
@@ -23,6 +23,7 @@ import com.thoughtworks.go.helper.ConfigFileFixture;
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TimeProvider;
 import org.eclipse.jgit.api.ListBranchCommand;
+import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Ref;
@@ -101,6 +102,51 @@ public class ConfigRepositoryTest {
         }
     }
 
+    @Test
+    public void shouldFindRevisionsCheckedInAfterTheIndexWasBuilt() throws Exception {
+        configRepo.checkin(new GoConfigRevision("v1", "md5-v1", "user-name", "100.3.9", new TimeProvider()));
+        assertThat(configRepo.getRevCommitForMd5("md5-v1").getFullMessage(), containsString("md5:md5-v1"));
+
+        configRepo.checkin(new GoConfigRevision("v2", "md5-v2", "user-name", "100.3.9", new TimeProvider()));
+        RevCommit v2 = configRepo.getRevCommitForMd5("md5-v2");
+
+        assertThat(configRepo.getRevision("md5-v2").getContent(), is("v2"));
+        assertThat(configRepo.getRevCommitForCommitSHA(v2.getName()), is(v2));
+        assertThat(configRepo.getCommits(10, 0).size(), is(2));
+    }
+
+    @Test
+    public void shouldRebuildRevisionIndexWhenHistoryIsRewritten() throws Exception {
+        configRepo.checkin(new GoConfigRevision("v1", "md5-v1", "user-name", "100.3.9", new TimeProvider()));
+        RevCommit v1 = configRepo.getCurrentRevCommit();
+        configRepo.checkin(new GoConfigRevision("v2", "md5-v2", "user-name", "100.3.9", new TimeProvider()));
+        assertThat(configRepo.getRevision("md5-v2").getContent(), is("v2"));
+
+        configRepo.git().reset().setMode(ResetCommand.ResetType.HARD).setRef(v1.getName()).call();
+
+        try {
+            configRepo.getRevCommitForMd5("md5-v2");
+            fail("should have failed as md5-v2 is no longer part of history");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("There is no config version corresponding to md5: 'md5-v2'"));
+        }
+        assertThat(configRepo.getCommits(10, 0).size(), is(1));
+    }
+
+    @Test
+    public void shouldFailToFindCommitForUnknownOrInvalidSHA() throws Exception {
+        configRepo.checkin(new GoConfigRevision("v1", "md5-v1", "user-name", "100.3.9", new TimeProvider()));
+
+        for (String sha : List.of("not-a-sha", "0123456789012345678901234567890123456789")) {
+            try {
+                configRepo.getRevCommitForCommitSHA(sha);
+                fail("should have failed for " + sha);
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(), is(String.format("There is no commit corresponding to SHA: '%s'", sha)));
+            }
+        }
+    }
+
     @Test
     public void shouldGetCommitsCorrectly() throws Exception {
         configRepo.checkin(new GoConfigRevision("v1", "md5-v1", "user-name", "100.3.9", new TimeProvider()));
@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.ServiceLoader;
 import java.util.function.Function;
@@ -36,6 +37,9 @@ public class ConnectionManager {
     @Getter(lazy = true)
     private final BasicDataSource dataSourceInstance = createDataSource();
 
+    @Getter(lazy = true)
+    private final Optional<BasicDataSource> replicaDataSourceInstance = createReplicaDataSource();
+
     @Getter(lazy = true)
     private final BackupProcessor backupProcessor = createBackupProcessor();
 
@@ -61,7 +65,7 @@ public class ConnectionManager {
 
     private BasicDataSource createDataSource() {
         final DbProperties dbProperties = getDbProperties();
-        BasicDataSource basicDataSource = new BasicDataSource();
+        BasicDataSource basicDataSource = new MeteredDataSource();
 
         if (isBlank(dbProperties.url())) {
             return DefaultH2DataSource.defaultH2DataSource(basicDataSource, dbProperties);
@@ -78,6 +82,25 @@ public class ConnectionManager {
         return basicDataSource;
     }
 
+    private Optional<BasicDataSource> createReplicaDataSource() {
+        final DbProperties dbProperties = getDbProperties();
+        if (!dbProperties.hasReplica()) {
+            return Optional.empty();
+        }
+
+        BasicDataSource basicDataSource = new MeteredDataSource();
+        basicDataSource.setDriverClassName(dbProperties.driver());
+        basicDataSource.setUrl(dbProperties.replicaUrl());
+        basicDataSource.setUsername(dbProperties.replicaUser());
+        basicDataSource.setPassword(dbProperties.replicaPassword());
+
+        basicDataSource.setMaxTotal(dbProperties.replicaMaxTotal());
+        basicDataSource.setMaxIdle(dbProperties.replicaMaxIdle());
+        basicDataSource.setConnectionProperties(dbProperties.connectionPropertiesAsString());
+        basicDataSource.setDefaultReadOnly(true);
+        return Optional.of(basicDataSource);
+    }
+
     private BackupProcessor createBackupProcessor() {
         log.debug("Loading backup processor");
         for (BackupProcessor backupProcessor : ServiceLoader.load(BackupProcessor.class)) {
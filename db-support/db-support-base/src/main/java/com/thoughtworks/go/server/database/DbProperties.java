@@ -47,6 +47,13 @@ public class DbProperties {
     private String extraBackupCommandArgs;
     private Map<String, String> extraBackupEnv;
     private Properties connectionProperties;
+    private String replicaUrl;
+    private String replicaUser;
+    private String replicaPassword;
+    private int replicaMaxIdle;
+    private int replicaMaxTotal;
+    private int replicaMaxLagSeconds;
+    private int replicaHealthCheckIntervalSeconds;
 
     public DbProperties initializeFrom(Properties properties, Function<String, String> decrypter) {
         this.url = properties.getProperty("db.url");
@@ -54,9 +61,19 @@ public class DbProperties {
         this.driver = properties.getProperty("db.driver");
         this.maxIdle = Integer.parseInt(properties.getProperty("db.maxIdle", "32"));
         this.maxTotal = Integer.parseInt(properties.getProperty("db.maxActive", "32"));
-        this.password = findPassword(properties, decrypter);
+        this.password = findPassword(properties, decrypter, "db.password", "db.encryptedPassword");
         this.extraBackupCommandArgs = properties.getProperty("db.extraBackupCommandArgs", "");
 
+        this.replicaUrl = properties.getProperty("db.replica.url");
+        this.replicaUser = properties.getProperty("db.replica.user", this.user);
+        this.replicaPassword = isNotBlank(properties.getProperty("db.replica.password")) || isNotBlank(properties.getProperty("db.replica.encryptedPassword"))
+                ? findPassword(properties, decrypter, "db.replica.password", "db.replica.encryptedPassword")
+                : this.password;
+        this.replicaMaxIdle = Integer.parseInt(properties.getProperty("db.replica.maxIdle", String.valueOf(this.maxIdle)));
+        this.replicaMaxTotal = Integer.parseInt(properties.getProperty("db.replica.maxActive", String.valueOf(this.maxTotal)));
+        this.replicaMaxLagSeconds = Integer.parseInt(properties.getProperty("db.replica.maxLagSeconds", "5"));
+        this.replicaHealthCheckIntervalSeconds = Integer.parseInt(properties.getProperty("db.replica.healthCheckIntervalSeconds", "10"));
+
         this.connectionProperties = new Properties();
         this.extraBackupEnv = new HashMap<>();
         for (String key : properties.stringPropertyNames()) {
@@ -77,9 +94,13 @@ public class DbProperties {
         return isNotBlank(url) && url.startsWith("jdbc:postgresql:");
     }
 
-    private String findPassword(Properties properties, Function<String, String> decrypter) {
-        String password = properties.getProperty("db.password");
-        String encryptedPassword = properties.getProperty("db.encryptedPassword");
+    public boolean hasReplica() {
+        return isNotBlank(replicaUrl);
+    }
+
+    private String findPassword(Properties properties, Function<String, String> decrypter, String passwordKey, String encryptedPasswordKey) {
+        String password = properties.getProperty(passwordKey);
+        String encryptedPassword = properties.getProperty(encryptedPasswordKey);
 
         if (isNotBlank(encryptedPassword)) {
             return decrypter.apply(encryptedPassword);
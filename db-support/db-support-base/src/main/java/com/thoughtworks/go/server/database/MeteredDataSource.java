@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Understands how long callers wait to borrow connections from the pool, and how many are waiting, so that pool
+ * saturation can be told apart from slow queries.
+ */
+public class MeteredDataSource extends BasicDataSource {
+    private final AtomicInteger borrowing = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowFailureCount = new LongAdder();
+    private final LongAdder totalBorrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        borrowing.incrementAndGet();
+        try {
+            Connection connection = super.getConnection();
+            borrowCount.increment();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            borrowFailureCount.increment();
+            throw e;
+        } finally {
+            borrowing.decrementAndGet();
+            long waited = System.nanoTime() - start;
+            totalBorrowWaitNanos.add(waited);
+            maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    public int getNumBorrowing() {
+        return borrowing.get();
+    }
+
+    public Map<String, Object> poolStatistics() {
+        long borrows = borrowCount.sum();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Active", getNumActive());
+        json.put("Idle", getNumIdle());
+        json.put("Max Total", getMaxTotal());
+        json.put("Max Idle", getMaxIdle());
+        json.put("Waiting For Connection", getNumBorrowing());
+        json.put("Connections Borrowed", borrows);
+        json.put("Borrow Failures", borrowFailureCount.sum());
+        json.put("Average Borrow Wait (ms)", borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalBorrowWaitNanos.sum() / borrows));
+        json.put("Max Borrow Wait (ms)", TimeUnit.NANOSECONDS.toMillis(maxBorrowWaitNanos.get()));
+        return json;
+    }
+}
@@ -63,6 +63,24 @@ public abstract class QueryExtensions {
                 + "AND p.id > :pipelineId";
     }
 
+    public String retrievePipelineTimelineFor() {
+        return "SELECT p.name, p.id AS p_id, p.counter, m.modifiedtime, "
+                + " (SELECT materials.fingerprint FROM materials WHERE id = m.materialId), naturalOrder, m.revision, pmr.folder, pmr.toRevisionId AS mod_id, pmr.Id as pmrid "
+                + "FROM pipelines p, pipelinematerialrevisions pmr, modifications m "
+                + "WHERE p.id = pmr.pipelineid "
+                + "AND pmr.torevisionid = m.id "
+                + "AND LOWER(p.name) = LOWER(:pipelineName) "
+                + "AND p.id < :pipelineId";
+    }
+
+    /**
+     * @return a query that returns how far behind the primary a read replica is, in seconds, or null if the database
+     * does not support read replicas
+     */
+    public String replicationLagInSecondsQuery() {
+        return null;
+    }
+
     protected <T> String joinWithQuotesForSql(T[] array) {
         StringBuilder buffer = new StringBuilder();
         for (int i = 0; i < array.length; i++) {
@@ -32,6 +32,25 @@ public class PostgresqlQueryExtensions extends QueryExtensions {
                 + "AND p.id > :pipelineId";
     }
 
+    @Override
+    public String retrievePipelineTimelineFor() {
+        // `name` is `citext`, so the comparison is already case-insensitive (and can use the index on it)
+        return "SELECT CAST(p.name AS VARCHAR), p.id AS p_id, p.counter, m.modifiedtime, "
+                + " (SELECT CAST(materials.fingerprint AS VARCHAR) FROM materials WHERE id = m.materialId), naturalOrder, m.revision, pmr.folder, pmr.toRevisionId AS mod_id, pmr.Id as pmrid "
+                + "FROM pipelines p, pipelinematerialrevisions pmr, modifications m "
+                + "WHERE p.id = pmr.pipelineid "
+                + "AND pmr.torevisionid = m.id "
+                + "AND p.name = :pipelineName "
+                + "AND p.id < :pipelineId";
+    }
+
+    @Override
+    public String replicationLagInSecondsQuery() {
+        // a replica that has replayed everything it received is not lagging, however old the last replayed commit is
+        return "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+                + "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())), 0) END";
+    }
+
     @Override
     public boolean accepts(String url) {
         return isNotBlank(url) && url.startsWith("jdbc:postgresql:");
@@ -77,6 +77,10 @@ public class ModifiedFile extends PersistentObject implements Serializable {
         return fileName;
     }
 
+    public String getFolderName() {
+        return folderName;
+    }
+
     public ModifiedAction getAction() {
         return action;
     }
@@ -29,7 +29,10 @@ import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.server.handler.gzip.GzipHandler;
 import org.eclipse.jetty.server.session.SessionHandler;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.webapp.*;
 import org.eclipse.jetty.websocket.server.config.JettyWebSocketConfiguration;
 import org.eclipse.jetty.websocket.server.config.JettyWebSocketServletContainerInitializer;
@@ -45,13 +48,15 @@ import java.io.InputStream;
 import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.IntConsumer;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 public class JettyServer extends AppServer {
     static String JETTY_XML_LOCATION_IN_JAR = "/defaultFiles/config";
-    static final String JETTY_CONFIG_VERSION = "jetty-config-gocd-v10";
+    static final String JETTY_CONFIG_VERSION = "jetty-config-gocd-v11";
     private static final Logger LOG = LoggerFactory.getLogger(JettyServer.class);
     private static final String JETTY_XML = "jetty.xml";
     private final Server server;
@@ -59,7 +64,7 @@ public class JettyServer extends AppServer {
     private WebAppContext webAppContext;
 
     public JettyServer(SystemEnvironment systemEnvironment) {
-        this(systemEnvironment, new Server(), new DeploymentManager());
+        this(systemEnvironment, new Server(threadPool(systemEnvironment)), new DeploymentManager());
     }
 
     JettyServer(SystemEnvironment systemEnvironment, Server server, DeploymentManager deploymentManager) {
@@ -93,6 +98,41 @@ public class JettyServer extends AppServer {
         server.setStopAtShutdown(true);
     }
 
+    /**
+     * The pool every connector hands its requests to. A custom {@code jetty.xml} that sets the pool sizes wins over
+     * the defaults, but not over sizes set explicitly as system properties (see {@link #keepExplicitThreadPoolSizes}). With virtual threads turned on, the pool threads only do the non-blocking work
+     * of the connectors, and request handling, which blocks, runs on a virtual thread each.
+     */
+    static QueuedThreadPool threadPool(SystemEnvironment systemEnvironment) {
+        int minThreads = systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MIN_THREADS);
+        int maxThreads = systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_THREADS);
+        int maxQueuedRequests = systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_QUEUED_REQUESTS);
+
+        BlockingQueue<Runnable> queue = null;
+        if (maxQueuedRequests > 0) {
+            int initialCapacity = Math.min(maxQueuedRequests, Math.max(minThreads, 8));
+            queue = new BlockingArrayQueue<>(initialCapacity, initialCapacity, maxQueuedRequests);
+        }
+
+        QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, minThreads,
+            systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_IDLE_TIMEOUT_IN_MILLIS),
+            systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_RESERVED_THREADS),
+            queue, null);
+        threadPool.setName("qtp-go");
+
+        if (systemEnvironment.get(SystemEnvironment.GO_SERVER_USE_VIRTUAL_THREADS)) {
+            if (VirtualThreads.areSupported()) {
+                threadPool.setUseVirtualThreads(true);
+            } else {
+                LOG.warn("Virtual threads were asked for using {}, but are not supported by this JVM. Requests will be handled by the thread pool.",
+                    SystemEnvironment.GO_SERVER_USE_VIRTUAL_THREADS.propertyName());
+            }
+        }
+        LOG.info("Using a server thread pool with min={}, max={}, reserved={}, maxQueuedRequests={}, virtualThreads={}",
+            minThreads, maxThreads, threadPool.getReservedThreads(), maxQueuedRequests > 0 ? maxQueuedRequests : "unbounded", threadPool.isUseVirtualThreads());
+        return threadPool;
+    }
+
     static GzipHandler gzipHandler() {
         GzipHandler gzipHandler = new GzipHandler();
         gzipHandler.addIncludedMimeTypes(
@@ -193,7 +233,14 @@ public class JettyServer extends AppServer {
             replaceJettyXmlIfItBelongsToADifferentVersion(jettyConfig);
             LOG.info("Configuring Jetty using {}", jettyConfig.getAbsolutePath());
             XmlConfiguration configuration = new XmlConfiguration(Resource.newResource(jettyConfig));
-            configuration.configure(server);
+            if (server.getThreadPool() instanceof QueuedThreadPool threadPool) {
+                int minThreads = threadPool.getMinThreads();
+                int maxThreads = threadPool.getMaxThreads();
+                configuration.configure(server);
+                keepExplicitThreadPoolSizes(threadPool, jettyConfig, minThreads, maxThreads);
+            } else {
+                configuration.configure(server);
+            }
         } else {
             String message = String.format(
                 "No custom jetty configuration (%s) found, using defaults.",
@@ -202,6 +249,29 @@ public class JettyServer extends AppServer {
         }
     }
 
+    /**
+     * A {@code jetty.xml} that still sizes the thread pool would otherwise silently undo the
+     * {@code go.server.thread.pool.*} properties. Sizes passed explicitly as system properties are put back, and any
+     * size that {@code jetty.xml} does get to change is logged.
+     */
+    private static void keepExplicitThreadPoolSizes(QueuedThreadPool threadPool, File jettyConfig, int minThreads, int maxThreads) {
+        keepExplicitThreadPoolSize(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_THREADS, "maxThreads", maxThreads, threadPool.getMaxThreads(), threadPool::setMaxThreads, jettyConfig);
+        keepExplicitThreadPoolSize(SystemEnvironment.GO_SERVER_THREAD_POOL_MIN_THREADS, "minThreads", minThreads, threadPool.getMinThreads(), threadPool::setMinThreads, jettyConfig);
+    }
+
+    private static void keepExplicitThreadPoolSize(SystemEnvironment.GoSystemProperty<Integer> property, String name, int configured, int fromJettyXml, IntConsumer setter, File jettyConfig) {
+        if (configured == fromJettyXml) return;
+
+        if (System.getProperty(property.propertyName()) != null) {
+            LOG.warn("Ignoring {}={} of the server thread pool in {}, since {}={} is set explicitly.",
+                name, fromJettyXml, jettyConfig.getAbsolutePath(), property.propertyName(), configured);
+            setter.accept(configured);
+        } else {
+            LOG.warn("{} sets {}={} on the server thread pool, overriding {}={}. Remove it from there to size the pool using {}.",
+                jettyConfig.getAbsolutePath(), name, fromJettyXml, property.propertyName(), configured, property.propertyName());
+        }
+    }
+
     protected void replaceJettyXmlIfItBelongsToADifferentVersion(File jettyConfig) throws IOException {
         if (Files.readString(jettyConfig.toPath(), UTF_8).contains(JETTY_CONFIG_VERSION)) return;
         replaceFileWithPackagedOne(jettyConfig);
@@ -17,6 +17,8 @@ package com.thoughtworks.go.server.util;
 
 import com.thoughtworks.go.server.JettyServer;
 import com.thoughtworks.go.util.SystemEnvironment;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.io.ConnectionStatistics;
 import org.eclipse.jetty.server.*;
 
 public class GoPlainSocketConnector implements GoSocketConnector {
@@ -34,13 +36,31 @@ public class GoPlainSocketConnector implements GoSocketConnector {
         httpConfig.setSendServerVersion(false);
         httpConfig.addCustomizer(new ForwardedRequestCustomizer());
 
-        ServerConnector httpConnector = new ServerConnector(server.getServer(), new HttpConnectionFactory(httpConfig));
+        ServerConnector httpConnector = new ServerConnector(server.getServer(), connectionFactories(httpConfig));
         httpConnector.setHost(systemEnvironment.getListenHost());
         httpConnector.setPort(systemEnvironment.getServerPort());
         httpConnector.setIdleTimeout(systemEnvironment.get(SystemEnvironment.GO_SERVER_CONNECTION_IDLE_TIMEOUT_IN_MILLIS));
+        // open connections, requests, bytes and durations for this connector; published over JMX with the rest of the server
+        httpConnector.addBean(new ConnectionStatistics());
         return httpConnector;
     }
 
+    /**
+     * HTTP/1.1 stays the default. With HTTP/2 turned on, clients can also upgrade to h2c, or start with it directly,
+     * and multiplex their requests over one connection. TLS, and with it h2 proper, is left to a proxy in front.
+     * <p>
+     * It is off by default: a proxy in front that passes {@code Upgrade: h2c} through turns the upgraded connection
+     * into a tunnel straight to the server, past whatever access rules the proxy applies (h2c smuggling). Only turn it
+     * on when agents reach the server directly, or the proxy strips or refuses h2c upgrades.
+     */
+    private ConnectionFactory[] connectionFactories(HttpConfiguration httpConfig) {
+        HttpConnectionFactory http1 = new HttpConnectionFactory(httpConfig);
+        if (!systemEnvironment.get(SystemEnvironment.GO_SERVER_HTTP2_ENABLED)) {
+            return new ConnectionFactory[]{http1};
+        }
+        return new ConnectionFactory[]{http1, new HTTP2CServerConnectionFactory(httpConfig)};
+    }
+
     @Override
     public Connector getConnector() {
         return httpConnector;
@@ -19,6 +19,7 @@ import com.thoughtworks.go.util.SystemEnvironment;
 import org.eclipse.jetty.deploy.App;
 import org.eclipse.jetty.deploy.DeploymentManager;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
 import org.eclipse.jetty.jmx.MBeanContainer;
 import org.eclipse.jetty.server.*;
 import org.eclipse.jetty.server.handler.ContextHandler;
@@ -57,9 +58,12 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.InstanceOfAssertFactories.type;
 import static org.mockito.Mockito.*;
 
@@ -105,6 +109,7 @@ public class JettyServerTest {
         when(systemEnvironment.useCompressedJs()).thenReturn(true);
         when(systemEnvironment.get(SystemEnvironment.RESPONSE_BUFFER_SIZE)).thenReturn(1000);
         when(systemEnvironment.get(SystemEnvironment.GO_SERVER_CONNECTION_IDLE_TIMEOUT_IN_MILLIS)).thenReturn(2000L);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_HTTP2_ENABLED)).thenReturn(true);
         when(systemEnvironment.configDir()).thenReturn(configDir);
         when(systemEnvironment.getJettyConfigFile()).thenReturn(new File("foo"));
         when(systemEnvironment.isSessionCookieSecure()).thenReturn(false);
@@ -136,7 +141,7 @@ public class JettyServerTest {
         assertThat(captor.getValue()).asInstanceOf(type(ServerConnector.class))
                 .satisfies(connector -> {
                     assertThat(connector.getServer()).isEqualTo(server);
-                    assertThat(connector.getConnectionFactories()).singleElement().isInstanceOf(HttpConnectionFactory.class);
+                    assertThat(connector.getConnectionFactories()).hasExactlyElementsOfTypes(HttpConnectionFactory.class, HTTP2CServerConnectionFactory.class);
                     assertThat(connector.getIdleTimeout()).isEqualTo(2000L);
                 });
     }
@@ -330,6 +335,100 @@ public class JettyServerTest {
                 .isInstanceOf(ContextHandlerCollection.class);
     }
 
+    @Test
+    public void shouldSizeTheThreadPoolFromSystemEnvironment() {
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MIN_THREADS)).thenReturn(5);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_THREADS)).thenReturn(50);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_IDLE_TIMEOUT_IN_MILLIS)).thenReturn(30_000);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_RESERVED_THREADS)).thenReturn(2);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_QUEUED_REQUESTS)).thenReturn(-1);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_USE_VIRTUAL_THREADS)).thenReturn(false);
+
+        QueuedThreadPool threadPool = JettyServer.threadPool(systemEnvironment);
+
+        assertThat(threadPool.getMinThreads()).isEqualTo(5);
+        assertThat(threadPool.getMaxThreads()).isEqualTo(50);
+        assertThat(threadPool.getIdleTimeout()).isEqualTo(30_000);
+        assertThat(threadPool.getReservedThreads()).isEqualTo(2);
+        assertThat(threadPool.isUseVirtualThreads()).isFalse();
+    }
+
+    @Test
+    public void shouldBoundTheRequestQueueOfTheThreadPoolWhenAsked() throws Exception {
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MIN_THREADS)).thenReturn(1);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_THREADS)).thenReturn(1);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_IDLE_TIMEOUT_IN_MILLIS)).thenReturn(30_000);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_RESERVED_THREADS)).thenReturn(0);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_QUEUED_REQUESTS)).thenReturn(2);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_USE_VIRTUAL_THREADS)).thenReturn(false);
+
+        QueuedThreadPool threadPool = JettyServer.threadPool(systemEnvironment);
+        threadPool.start();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            threadPool.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+            started.await();
+            threadPool.execute(() -> awaitQuietly(release));
+            threadPool.execute(() -> awaitQuietly(release));
+
+            assertThatThrownBy(() -> threadPool.execute(() -> awaitQuietly(release))).isInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+            threadPool.stop();
+        }
+    }
+
+    @Test
+    public void shouldLetJettyXmlSizeTheThreadPoolWhenTheSizesAreNotSetExplicitly(@TempDir Path temporaryFolder) throws Exception {
+        QueuedThreadPool threadPool = new QueuedThreadPool(300, 20);
+        when(server.getThreadPool()).thenReturn(threadPool);
+        when(systemEnvironment.getJettyConfigFile()).thenReturn(jettyXmlSizingTheThreadPool(temporaryFolder, 10, 200).toFile());
+
+        jettyServer.configure();
+
+        assertThat(threadPool.getMinThreads()).isEqualTo(10);
+        assertThat(threadPool.getMaxThreads()).isEqualTo(200);
+    }
+
+    @Test
+    public void shouldKeepThreadPoolSizesSetExplicitlyOverThoseInJettyXml(@TempDir Path temporaryFolder) throws Exception {
+        systemProperties.set(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_THREADS.propertyName(), "50");
+        QueuedThreadPool threadPool = new QueuedThreadPool(50, 20);
+        when(server.getThreadPool()).thenReturn(threadPool);
+        when(systemEnvironment.getJettyConfigFile()).thenReturn(jettyXmlSizingTheThreadPool(temporaryFolder, 10, 200).toFile());
+
+        jettyServer.configure();
+
+        assertThat(threadPool.getMinThreads()).isEqualTo(10);
+        assertThat(threadPool.getMaxThreads()).isEqualTo(50);
+    }
+
+    private static Path jettyXmlSizingTheThreadPool(Path folder, int minThreads, int maxThreads) throws IOException {
+        return Files.writeString(folder.resolve("jetty.xml"), String.format("""
+            <?xml version="1.0"?>
+            <!DOCTYPE Configure PUBLIC "-//Jetty//Configure//EN" "http://www.eclipse.org/jetty/configure_10_0.dtd">
+            <Configure id="Server" class="org.eclipse.jetty.server.Server">
+                <!-- %s -->
+                <Get name="ThreadPool">
+                    <Set name="minThreads">%d</Set>
+                    <Set name="maxThreads">%d</Set>
+                </Get>
+            </Configure>
+            """, JettyServer.JETTY_CONFIG_VERSION, minThreads, maxThreads), UTF_8);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private Map<Class<? extends ContextHandler>, ContextHandler> getLoadedHandlers() throws Exception {
         Map<Class<? extends ContextHandler>, ContextHandler> handlerTypeToHandler = new HashMap<>();
         for (App app : appCaptor.getAllValues()) {
@@ -17,6 +17,8 @@ package com.thoughtworks.go.server.util;
 
 import com.thoughtworks.go.server.JettyServer;
 import com.thoughtworks.go.util.SystemEnvironment;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.io.ConnectionStatistics;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.ServerConnector;
@@ -40,6 +42,13 @@ public class GoPlainSocketConnectorTest {
         when(systemEnvironment.get(SystemEnvironment.RESPONSE_BUFFER_SIZE)).thenReturn(100);
         when(systemEnvironment.get(SystemEnvironment.GO_SERVER_CONNECTION_IDLE_TIMEOUT_IN_MILLIS)).thenReturn(200L);
         when(systemEnvironment.getListenHost()).thenReturn("foo");
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_HTTP2_ENABLED)).thenReturn(true);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MIN_THREADS)).thenReturn(1);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_THREADS)).thenReturn(10);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_IDLE_TIMEOUT_IN_MILLIS)).thenReturn(1000);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_RESERVED_THREADS)).thenReturn(-1);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_THREAD_POOL_MAX_QUEUED_REQUESTS)).thenReturn(-1);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_USE_VIRTUAL_THREADS)).thenReturn(false);
         JettyServer server = new JettyServer(systemEnvironment);
 
         connector = (ServerConnector) new GoPlainSocketConnector(server, systemEnvironment).getConnector();
@@ -61,4 +70,15 @@ public class GoPlainSocketConnectorTest {
     public void shouldNotSendAServerHeaderForSecurityReasons() throws Exception {
         assertThat(configuration.getSendServerVersion(), is(false));
     }
+
+    @Test
+    public void shouldKeepConnectionStatisticsForTheConnector() {
+        assertThat(connector.getBean(ConnectionStatistics.class) != null, is(true));
+    }
+
+    @Test
+    public void shouldAcceptH2cAlongsideHttp1() {
+        assertThat(connector.getDefaultProtocol(), is("HTTP/1.1"));
+        assertThat(connector.getConnectionFactory(HTTP2CServerConnectionFactory.class) != null, is(true));
+    }
 }
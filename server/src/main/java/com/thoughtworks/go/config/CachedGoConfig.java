@@ -21,8 +21,10 @@ import com.thoughtworks.go.config.validation.GoConfigValidity;
 import com.thoughtworks.go.domain.ConfigErrors;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.listener.IncrementalConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.service.MaintenanceModeService;
+import com.thoughtworks.go.server.util.StructuralDigest;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
@@ -34,6 +36,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import static com.thoughtworks.go.server.service.GoConfigService.INVALID_CRUISE_CONFIG_XML;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
@@ -191,9 +194,10 @@ public class CachedGoConfig {
     }
 
     private synchronized void saveValidConfigToCacheAndNotifyConfigChangeListeners(GoConfigHolder configHolder) {
+        CruiseConfig previousConfig = currentConfig;
         saveValidConfigToCache(configHolder);
         if (configHolder != null) {
-            notifyListeners(currentConfig);
+            notifyListeners(previousConfig, currentConfig);
         }
     }
 
@@ -217,10 +221,22 @@ public class CachedGoConfig {
     }
 
     private synchronized void notifyListeners(CruiseConfig newCruiseConfig) {
+        notifyListeners(null, newCruiseConfig);
+    }
+
+    private synchronized void notifyListeners(CruiseConfig previousCruiseConfig, CruiseConfig newCruiseConfig) {
         LOGGER.info("About to notify config listeners");
+        ConfigChangeSet changeSet = null;
         for (ConfigChangedListener listener : listeners) {
             try {
-                listener.onConfigChange(newCruiseConfig);
+                if (previousCruiseConfig != null && listener instanceof IncrementalConfigChangedListener) {
+                    if (changeSet == null) {
+                        changeSet = computeChangeSet(previousCruiseConfig, newCruiseConfig);
+                    }
+                    ((IncrementalConfigChangedListener) listener).onConfigChange(newCruiseConfig, changeSet);
+                } else {
+                    listener.onConfigChange(newCruiseConfig);
+                }
             } catch (Exception e) {
                 LOGGER.error("Failed to fire config changed event for listener: {}", listener, e);
             }
@@ -228,6 +244,21 @@ public class CachedGoConfig {
         LOGGER.info("Finished notifying all listeners");
     }
 
+    private ConfigChangeSet computeChangeSet(CruiseConfig previousCruiseConfig, CruiseConfig newCruiseConfig) {
+        long startTime = System.currentTimeMillis();
+        ConfigChangeSet changeSet = ConfigChangeSet.between(previousCruiseConfig, newCruiseConfig, CachedGoConfig::sameContent);
+        LOGGER.debug("Computing config change set took (in ms): {}. {}", (System.currentTimeMillis() - startTime), changeSet);
+        return changeSet;
+    }
+
+    /**
+     * Domain {@code equals} leaves out config fields such as material filters, so an entity is only unchanged when its
+     * structural digest (the one its ETag is made of) is unchanged too.
+     */
+    public static boolean sameContent(Object previous, Object current) {
+        return Objects.equals(previous, current) && StructuralDigest.digestHex(previous).equals(StructuralDigest.digestHex(current));
+    }
+
     @TestOnly
     public synchronized void clearListeners() {
         listeners.clear();
@@ -25,15 +25,25 @@ import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static java.lang.String.format;
 
 @Component
 public class PartialConfigService implements PartialConfigUpdateCompletedListener, ChangedRepoConfigWatchListListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartialConfigService.class);
     public static final String INVALID_CRUISE_CONFIG_MERGE = "Invalid Merged Configuration";
 
     private final GoConfigService goConfigService;
@@ -43,6 +53,11 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
     private final GoConfigRepoConfigDataSource repoConfigDataSource;
     private final GoConfigWatchList configWatchList;
 
+    // partials waiting to be merged, keyed by config repo fingerprint; guarded by itself, as are the two fields below
+    private final Map<String, PendingPartial> pendingPartials = new LinkedHashMap<>();
+    private boolean mergeInProgress = false;
+    private Thread merger;
+
     @Autowired
     public PartialConfigService(GoConfigRepoConfigDataSource repoConfigDataSource,
                                 GoConfigWatchList configWatchList, GoConfigService goConfigService,
@@ -78,26 +93,170 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
                 cachedGoPartials.cacheAsLastKnown(fingerprint, incoming);
 
                 //validate rules
-                hasRuleViolations(incoming);
-
-                /* Validate config.
-                UpdateConfig will fail to update the configuration if there are validation errors.
-                Even in case of rules violation, the updateConfig method is required to populate a server health message
-                of rule violation, which also will be shown on the config repo spa.*/
-                if (updateConfig(incoming, fingerprint, repoConfig)) {
-                    // mark the partial as valid when config is updated successfully for it.
-                    cachedGoPartials.markAsValid(fingerprint, incoming);
-                } else {
-                    /* If the latest partial is invalid for the current config repo rules.
-                    1. Apply latest config repo rules to previous valid partial.
-                    2. If the previous valid partials are valid - do nothing - as the error for the latest partial is
-                       already populated and config contains the last known partial.
-                    3. If the previous valid partials are invalid - remove those config without clearing the server health message.
-                       Server health message is populated for the same fingerprint with the latest parse failure message.*/
-                    if (hasRuleViolationsOnPreviousValidPartial(repoConfig)) {
-                        removeCachedLastValidPartial(fingerprint);
-                    }
+                boolean hasRuleViolations = hasRuleViolations(incoming);
+
+                enqueueAndMerge(new PendingPartial(repoConfig, incoming, fingerprint, hasRuleViolations));
+            }
+        }
+    }
+
+    /**
+     * Queues a partial for merging and returns once it has been merged (or has failed to merge). The first caller
+     * to find no merge in progress becomes responsible for merging everything that is queued (waiting for the
+     * configured coalescing window first), and keeps doing so until the queue is drained. Partials that arrive
+     * while a merge is in progress are picked up by the next batch, so a burst of config repo updates results in a
+     * handful of full config saves instead of one per partial.
+     */
+    private void enqueueAndMerge(PendingPartial pendingPartial) {
+        boolean mergeHere;
+        synchronized (pendingPartials) {
+            // a newer partial from the same repo supersedes one that has not been merged yet
+            PendingPartial superseded = pendingPartials.remove(pendingPartial.fingerprint);
+            if (superseded != null) {
+                pendingPartial.merged.whenComplete((ignored, failure) -> superseded.completeWith(failure));
+            }
+            pendingPartials.put(pendingPartial.fingerprint, pendingPartial);
+            if (mergeInProgress && merger == Thread.currentThread()) {
+                // queued from within a save this thread is making; it is merged before the outer call returns
+                return;
+            }
+            mergeHere = !mergeInProgress;
+            if (mergeHere) {
+                mergeInProgress = true;
+                merger = Thread.currentThread();
+            }
+        }
+
+        if (mergeHere) {
+            mergeQueuedPartials();
+        }
+        awaitMerge(pendingPartial);
+    }
+
+    private void mergeQueuedPartials() {
+        boolean drained = false;
+        try {
+            waitForCoalescingWindow();
+            List<PendingPartial> batch;
+            while (!(batch = drainPendingPartials()).isEmpty()) {
+                Throwable failure = null;
+                try {
+                    mergeBatch(batch);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Failed to merge a batch of {} config repo partials.", batch.size(), e);
+                    failure = e;
+                } catch (Error e) {
+                    // not something to carry on merging after, but whoever waits on this batch must not block forever
+                    failure = e;
+                    throw e;
+                } finally {
+                    completeAll(batch, failure);
+                }
+            }
+            drained = true;
+        } finally {
+            if (!drained) {
+                List<PendingPartial> abandoned;
+                synchronized (pendingPartials) {
+                    abandoned = new ArrayList<>(pendingPartials.values());
+                    pendingPartials.clear();
+                    mergeInProgress = false;
+                    merger = null;
+                }
+                completeAll(abandoned, new IllegalStateException("Merging of queued config repo partials was aborted."));
+            }
+        }
+    }
+
+    private static void completeAll(List<PendingPartial> pendingPartials, Throwable failure) {
+        pendingPartials.forEach(pendingPartial -> pendingPartial.completeWith(failure));
+    }
+
+    private void awaitMerge(PendingPartial pendingPartial) {
+        try {
+            pendingPartial.merged.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private List<PendingPartial> drainPendingPartials() {
+        synchronized (pendingPartials) {
+            List<PendingPartial> batch = new ArrayList<>(pendingPartials.values());
+            pendingPartials.clear();
+            if (batch.isEmpty()) {
+                mergeInProgress = false;
+                merger = null;
+            }
+            return batch;
+        }
+    }
+
+    private void waitForCoalescingWindow() {
+        long window = new SystemEnvironment().get(SystemEnvironment.CONFIG_REPO_PARTIAL_MERGE_WINDOW_IN_MILLIS);
+        if (window <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(window);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void mergeBatch(List<PendingPartial> batch) {
+        List<PendingPartial> mergeable = new ArrayList<>();
+        for (PendingPartial pendingPartial : batch) {
+            if (pendingPartial.hasRuleViolations) {
+                // will fail validation anyway; merge it on its own so the error is reported against its repo
+                mergeInIsolation(pendingPartial);
+            } else {
+                mergeable.add(pendingPartial);
+            }
+        }
+
+        if (mergeable.size() > 1) {
+            if (updateConfig(mergeable)) {
+                for (PendingPartial pendingPartial : mergeable) {
+                    cachedGoPartials.markAsValid(pendingPartial.fingerprint, pendingPartial.partial);
                 }
+                return;
+            }
+            LOGGER.info("Merging {} config repo partials together failed validation, merging them one at a time.", mergeable.size());
+        }
+
+        for (PendingPartial pendingPartial : mergeable) {
+            mergeInIsolation(pendingPartial);
+        }
+    }
+
+    private void mergeInIsolation(PendingPartial pendingPartial) {
+        final String fingerprint = pendingPartial.fingerprint;
+        final PartialConfig incoming = pendingPartial.partial;
+        final ConfigRepoConfig repoConfig = pendingPartial.repoConfig;
+
+        /* Validate config.
+        UpdateConfig will fail to update the configuration if there are validation errors.
+        Even in case of rules violation, the updateConfig method is required to populate a server health message
+        of rule violation, which also will be shown on the config repo spa.*/
+        if (updateConfig(incoming, fingerprint, repoConfig)) {
+            // mark the partial as valid when config is updated successfully for it.
+            cachedGoPartials.markAsValid(fingerprint, incoming);
+        } else {
+            /* If the latest partial is invalid for the current config repo rules.
+            1. Apply latest config repo rules to previous valid partial.
+            2. If the previous valid partials are valid - do nothing - as the error for the latest partial is
+               already populated and config contains the last known partial.
+            3. If the previous valid partials are invalid - remove those config without clearing the server health message.
+               Server health message is populated for the same fingerprint with the latest parse failure message.*/
+            if (hasRuleViolationsOnPreviousValidPartial(repoConfig)) {
+                removeCachedLastValidPartial(fingerprint);
             }
         }
     }
@@ -168,6 +327,21 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
         }
     }
 
+    private boolean updateConfig(final List<PendingPartial> batch) {
+        try {
+            goConfigService.updateConfig(cruiseConfig -> {
+                for (PendingPartial pendingPartial : batch) {
+                    buildUpdateCommand(pendingPartial.partial, pendingPartial.fingerprint).update(cruiseConfig);
+                }
+                return cruiseConfig;
+            });
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Failed to merge a batch of {} config repo partials.", batch.size(), e);
+            return false;
+        }
+    }
+
     private boolean shouldMergePartial(PartialConfig partial, String fingerprint, ConfigRepoConfig repoConfig) {
         return isPartialDifferentFromLastKnown(partial, fingerprint) ||
                 repoConfigDataSource.hasConfigRepoConfigChangedSinceLastUpdate(repoConfig.getRepo());
@@ -194,4 +368,27 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
         partial.validatePermissionsOnSubtree();
         return partial.hasErrors();
     }
+
+    private static class PendingPartial {
+        private final ConfigRepoConfig repoConfig;
+        private final PartialConfig partial;
+        private final String fingerprint;
+        private final boolean hasRuleViolations;
+        private final CompletableFuture<Void> merged = new CompletableFuture<>();
+
+        private PendingPartial(ConfigRepoConfig repoConfig, PartialConfig partial, String fingerprint, boolean hasRuleViolations) {
+            this.repoConfig = repoConfig;
+            this.partial = partial;
+            this.fingerprint = fingerprint;
+            this.hasRuleViolations = hasRuleViolations;
+        }
+
+        private void completeWith(Throwable failure) {
+            if (failure == null) {
+                merged.complete(null);
+            } else {
+                merged.completeExceptionally(failure);
+            }
+        }
+    }
 }
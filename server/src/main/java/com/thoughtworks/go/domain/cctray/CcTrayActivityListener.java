@@ -33,6 +33,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 /* Listens to all activity that is needed to keep CCTray updated and sets it up for processing.
  */
 @Component
@@ -44,6 +46,7 @@ public class CcTrayActivityListener implements Initializer, JobStatusListener, S
     private final CcTrayConfigChangeHandler configChangeHandler;
 
     private final MultiplexingQueueProcessor processor;
+    private final CompletableFuture<Void> initialLoad = new CompletableFuture<>();
 
     @Autowired
     public CcTrayActivityListener(GoConfigService goConfigService, CcTrayJobStatusChangeHandler jobStatusChangeHandler,
@@ -69,6 +72,14 @@ public class CcTrayActivityListener implements Initializer, JobStatusListener, S
         processor.start();
     }
 
+    /**
+     * Waits for the CCTray statuses to be loaded for the config it was given when it registered for config changes, which is
+     * processed once the daemon has started.
+     */
+    public void awaitInitialLoad() {
+        initialLoad.join();
+    }
+
     protected SecurityConfigChangeListener securityConfigChangeListener() {
         return new SecurityConfigChangeListener() {
             @Override
@@ -130,7 +141,13 @@ public class CcTrayActivityListener implements Initializer, JobStatusListener, S
         processor.add(new Action() {
             @Override
             public void call() {
-                configChangeHandler.call(newConfig);
+                try {
+                    configChangeHandler.call(newConfig);
+                    initialLoad.complete(null);
+                } catch (RuntimeException e) {
+                    initialLoad.completeExceptionally(e);
+                    throw e;
+                }
             }
 
             @Override
@@ -47,12 +47,34 @@ public abstract class ArtifactCache<T extends Comparable<T>> {
                 return false;
             }
         }
-        if (cacheAlreadyCreated(artifactLocation)) { return true; }
+        if (cacheAlreadyCreated(artifactLocation)) {
+            cacheHit(artifactLocation);
+            return true;
+        }
 
         startCacheCreationThread(artifactLocation);
         return false;
     }
 
+    /**
+     * Creates the cached file in the calling thread, unless it exists already or is being created.
+     */
+    public void prepare(T artifactLocation) throws IOException {
+        if (pendingCacheFiles.add(artifactLocation)) {
+            try {
+                createCachedFileIfAbsent(artifactLocation);
+            } finally {
+                pendingCacheFiles.remove(artifactLocation);
+            }
+        }
+    }
+
+    private void createCachedFileIfAbsent(T artifactLocation) throws IOException {
+        if (!cacheAlreadyCreated(artifactLocation)) {
+            createCachedFile(artifactLocation);
+        }
+    }
+
     private boolean exceptionCreatingCache(T artifactLocation) {
         return pendingExceptions.containsKey(artifactLocation);
     }
@@ -68,11 +90,12 @@ public abstract class ArtifactCache<T extends Comparable<T>> {
     protected void startCacheCreationThread(final T artifactLocation) {
         boolean inserted = pendingCacheFiles.add(artifactLocation);
         if (inserted) {
+            cacheMiss(artifactLocation);
             Thread cacheCreatorThread = new Thread("cache-creator-thread-" + UUID.randomUUID()) {
                 @Override
                 public void run() {
                     try {
-                        createCachedFile(artifactLocation);
+                        createCachedFileIfAbsent(artifactLocation);
                     } catch (Exception e) {
                         pendingExceptions.putIfAbsent(artifactLocation, e);
                     } finally {
@@ -84,6 +107,12 @@ public abstract class ArtifactCache<T extends Comparable<T>> {
         }
     }
 
+    protected void cacheHit(T artifactLocation) {
+    }
+
+    protected void cacheMiss(T artifactLocation) {
+    }
+
     public abstract File cachedFile(T artifactLocation);
 
     abstract void createCachedFile(T artifactLocation) throws IOException;
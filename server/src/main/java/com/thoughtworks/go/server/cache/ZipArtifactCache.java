@@ -16,42 +16,219 @@
 package com.thoughtworks.go.server.cache;
 
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
+import com.thoughtworks.go.server.service.support.ServerInfoProvider;
 import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.ZipUtil;
+import org.apache.commons.compress.archivers.zip.DefaultBackingStoreSupplier;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
 
 import static com.thoughtworks.go.util.StringUtil.removeTrailingSlash;
+import static com.thoughtworks.go.util.SystemEnvironment.GO_ZIP_ARTIFACT_CACHE_MAX_SIZE_MB;
+import static com.thoughtworks.go.util.SystemEnvironment.GO_ZIP_ARTIFACT_CACHE_PARALLEL_THRESHOLD_MB;
 
+/**
+ * Understands zipping artifact folders for download. Only one zip of a folder is created at a time, folders above a
+ * configured size are deflated on a shared pool with a thread per core, and the least recently downloaded zips are
+ * deleted once the cache grows past its configured size or the artifacts disk runs low.
+ */
 @Component
-public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> {
+public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> implements ServerInfoProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZipArtifactCache.class);
+    private static final long MEGABYTE = 1024 * 1024;
+
     private final ZipUtil zipUtil;
+    private final SystemEnvironment systemEnvironment;
+    private final Set<File> zipsBeingCreated = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<File, Long> sizesByLastUse = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private boolean existingZipsIndexed;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong zipsCreated = new AtomicLong();
+    private final AtomicLong parallelZipsCreated = new AtomicLong();
+    private final AtomicLong zipsFailed = new AtomicLong();
+    private final AtomicLong zipsEvicted = new AtomicLong();
+    private final AtomicLong creationMillis = new AtomicLong();
+    private final ExecutorService deflaters = deflaterPool();
 
     @Autowired
-    public ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil) {
+    public ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemEnvironment systemEnvironment) {
         super(artifactsDirHolder);
         this.zipUtil = zipUtil;
+        this.systemEnvironment = systemEnvironment;
     }
 
     @Override
     void createCachedFile(ArtifactFolder artifactFolder) throws IOException {
-        File originalFolder = artifactFolder.getRootFolder();
         File cachedZip = cachedFile(artifactFolder);
+        if (!zipsBeingCreated.add(cachedZip)) {
+            LOGGER.debug("[Artifact Zip] '{}' is already being created", cachedZip);
+            return;
+        }
+        try {
+            if (!cachedZip.exists()) {
+                createZip(artifactFolder.getRootFolder(), cachedZip);
+            }
+        } finally {
+            zipsBeingCreated.remove(cachedZip);
+        }
+    }
+
+    private void createZip(File originalFolder, File cachedZip) throws IOException {
+        long before = System.currentTimeMillis();
         File cachedTempZip = zipToTempFile(cachedZip);
         cachedTempZip.getParentFile().mkdirs();
         try {
-            zipUtil.zip(originalFolder, cachedTempZip, Deflater.DEFAULT_COMPRESSION);
+            if (FileUtils.sizeOfDirectory(originalFolder) >= systemEnvironment.get(GO_ZIP_ARTIFACT_CACHE_PARALLEL_THRESHOLD_MB) * MEGABYTE) {
+                zipInParallel(originalFolder, cachedTempZip);
+                parallelZipsCreated.incrementAndGet();
+            } else {
+                zipUtil.zip(originalFolder, cachedTempZip, Deflater.DEFAULT_COMPRESSION);
+            }
         } catch (IOException e) {
+            zipsFailed.incrementAndGet();
             cachedTempZip.delete();
             throw e;
         }
         FileUtils.moveFile(cachedTempZip, cachedZip);
+
+        long timeTaken = System.currentTimeMillis() - before;
+        zipsCreated.incrementAndGet();
+        creationMillis.addAndGet(timeTaken);
+        LOGGER.info("[Artifact Zip] Zipped '{}' into '{}' ({} bytes). The time taken is: {}ms", originalFolder, cachedZip, cachedZip.length(), timeTaken);
+
+        recordUse(cachedZip);
+        long budget = systemEnvironment.get(GO_ZIP_ARTIFACT_CACHE_MAX_SIZE_MB) * MEGABYTE;
+        if (budget > 0) {
+            evictLeastRecentlyUsed(cachedZip, () -> cachedBytes <= budget);
+        }
+    }
+
+    /**
+     * Lays the zip out exactly like {@link ZipUtil#zip(File, File, int)} does, but deflates the files on the pool of as
+     * many threads as there are cores, shared by all zips being created, spilling the compressed entries next to the
+     * zip until they are all written out.
+     */
+    private void zipInParallel(File originalFolder, File destination) throws IOException {
+        try {
+            ParallelScatterZipCreator creator = new ParallelScatterZipCreator(new UnstoppableExecutor(deflaters),
+                    new DefaultBackingStoreSupplier(destination.getParentFile().toPath()), Deflater.DEFAULT_COMPRESSION);
+            List<ZipArchiveEntry> directories = new ArrayList<>();
+            addToZip(originalFolder.getName(), originalFolder, creator, directories);
+            try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(destination)) {
+                for (ZipArchiveEntry directory : directories) {
+                    zip.putArchiveEntry(directory);
+                    zip.closeArchiveEntry();
+                }
+                creator.writeTo(zip);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while zipping " + originalFolder, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to zip " + originalFolder, e.getCause());
+        }
+    }
+
+    private static ExecutorService deflaterPool() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "artifact-zip-deflater-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Runs tasks on the shared pool, but ignores being shut down: {@link ParallelScatterZipCreator} shuts down the
+     * executor it is given once all its entries have been deflated.
+     */
+    private static class UnstoppableExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private volatile boolean shutdown;
+
+        UnstoppableExecutor(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    private void addToZip(String path, File source, ParallelScatterZipCreator creator, List<ZipArchiveEntry> directories) {
+        if (source.isDirectory()) {
+            directories.add(new ZipArchiveEntry(path + "/"));
+            File[] children = source.listFiles();
+            for (File child : children == null ? new File[0] : children) {
+                addToZip(path + "/" + child.getName(), child, creator, directories);
+            }
+        } else {
+            ZipArchiveEntry entry = new ZipArchiveEntry(path);
+            entry.setMethod(ZipEntry.DEFLATED);
+            entry.setTime(source.lastModified());
+            creator.addArchiveEntry(entry, open(source));
+        }
+    }
+
+    private InputStreamSupplier open(File file) {
+        return () -> {
+            try {
+                return new BufferedInputStream(new FileInputStream(file));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
     }
 
     private File zipToTempFile(File cachedZip) {
@@ -65,4 +242,99 @@ public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> {
         String relativize = FilenameUtils.separatorsToUnix(artifactFolder.getRootFolder().getPath()).replaceFirst(FilenameUtils.separatorsToUnix(root.getPath()), CACHE_ARTIFACTS_FOLDER);
         return new File(root, removeTrailingSlash(relativize) + ".zip");
     }
+
+    @Override
+    protected void cacheHit(ArtifactFolder artifactFolder) {
+        hits.incrementAndGet();
+        recordUse(cachedFile(artifactFolder));
+    }
+
+    @Override
+    protected void cacheMiss(ArtifactFolder artifactFolder) {
+        misses.incrementAndGet();
+    }
+
+    private synchronized void recordUse(File cachedZip) {
+        indexExistingZips();
+        Long previousSize = sizesByLastUse.put(cachedZip, cachedZip.length());
+        cachedBytes += cachedZip.length() - (previousSize == null ? 0 : previousSize);
+    }
+
+    /**
+     * Deletes zips, least recently used first, until there is enough space or no zip is left to delete.
+     *
+     * @param keep a zip that must not be deleted, or {@code null}
+     * @return the number of zips deleted
+     */
+    public synchronized int evictLeastRecentlyUsed(File keep, BooleanSupplier enoughSpace) {
+        indexExistingZips();
+        int evicted = 0;
+        Iterator<Map.Entry<File, Long>> leastRecentlyUsed = sizesByLastUse.entrySet().iterator();
+        while (leastRecentlyUsed.hasNext() && !enoughSpace.getAsBoolean()) {
+            Map.Entry<File, Long> entry = leastRecentlyUsed.next();
+            File zip = entry.getKey();
+            if (zip.equals(keep) || zipsBeingCreated.contains(zip)) {
+                continue;
+            }
+            boolean existed = zip.exists();
+            if (existed && !zip.delete()) {
+                LOGGER.warn("[Artifact Zip] Could not delete '{}' to make space, it may be in use", zip);
+                continue;
+            }
+            leastRecentlyUsed.remove();
+            cachedBytes -= entry.getValue();
+            if (existed) {
+                evicted++;
+            }
+        }
+        zipsEvicted.addAndGet(evicted);
+        if (evicted > 0) {
+            LOGGER.info("[Artifact Zip] Deleted {} least recently used zips. Zips left: {} ({} bytes)", evicted, sizesByLastUse.size(), cachedBytes);
+        }
+        return evicted;
+    }
+
+    private void indexExistingZips() {
+        if (existingZipsIndexed) {
+            return;
+        }
+        existingZipsIndexed = true;
+        File cacheRoot = new File(artifactsDirHolder.getArtifactsDir(), CACHE_ARTIFACTS_FOLDER);
+        if (!cacheRoot.isDirectory()) {
+            return;
+        }
+        List<File> zips = new ArrayList<>(FileUtils.listFiles(cacheRoot, new String[]{"zip"}, true));
+        zips.sort(Comparator.comparingLong(File::lastModified));
+        for (File zip : zips) {
+            sizesByLastUse.put(zip, zip.length());
+            cachedBytes += zip.length();
+        }
+    }
+
+    @Override
+    public double priority() {
+        return 12.5;
+    }
+
+    @Override
+    public Map<String, Object> asJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        synchronized (this) {
+            json.put("Cached zips", sizesByLastUse.size());
+            json.put("Cached bytes", cachedBytes);
+        }
+        json.put("Hits", hits.get());
+        json.put("Misses", misses.get());
+        json.put("Zips created", zipsCreated.get());
+        json.put("Zips created in parallel", parallelZipsCreated.get());
+        json.put("Zips failed", zipsFailed.get());
+        json.put("Zips evicted", zipsEvicted.get());
+        json.put("Time spent zipping (ms)", creationMillis.get());
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return "Artifact Zip Cache";
+    }
 }
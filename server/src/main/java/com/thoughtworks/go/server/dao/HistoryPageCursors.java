@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.dao;
+
+import com.thoughtworks.go.server.cache.GoCache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Understands turning page numbers (offsets) of a history, which is listed newest first by id, into keyset cursors.
+ * Whenever a page is served, the id of its oldest entry is remembered as the cursor for the page that follows it, so
+ * that paging further back can seek with {@code id < cursor} (like {@link FeedModifier#After}) instead of walking past
+ * {@code offset} rows. Cursors are only valid until a new entry is added to the history, so they must be invalidated
+ * then.
+ * <p>
+ * A page read can finish after an invalidation that happened while it was running, so callers take the
+ * {@link #generation()} before querying and hand it back to {@link #remember}, which drops cursors from an older
+ * generation.
+ */
+class HistoryPageCursors {
+    private static final String GENERATION = "generation";
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    private final GoCache goCache;
+    private final String cacheKey;
+
+    HistoryPageCursors(GoCache goCache, String cacheKey) {
+        this.goCache = goCache;
+        this.cacheKey = cacheKey;
+    }
+
+    /**
+     * @return the id of the entry just before {@code offset}, or null if it is not known
+     */
+    Long cursorFor(int offset) {
+        if (offset <= 0) {
+            return null;
+        }
+        return (Long) goCache.get(cacheKey, String.valueOf(offset));
+    }
+
+    /**
+     * @return the generation of the cursors, which changes every time they are invalidated
+     */
+    Long generation() {
+        synchronized (cacheKey) {
+            Long generation = (Long) goCache.get(cacheKey, GENERATION);
+            if (generation == null) {
+                generation = GENERATIONS.incrementAndGet();
+                goCache.put(cacheKey, GENERATION, generation);
+            }
+            return generation;
+        }
+    }
+
+    void remember(Long generation, int offset, List<Long> idsNewestFirst) {
+        if (idsNewestFirst.isEmpty()) {
+            return;
+        }
+        synchronized (cacheKey) {
+            if (generation.equals(goCache.get(cacheKey, GENERATION))) {
+                goCache.put(cacheKey, String.valueOf(offset + idsNewestFirst.size()), idsNewestFirst.get(idsNewestFirst.size() - 1));
+            }
+        }
+    }
+
+    void invalidate() {
+        synchronized (cacheKey) {
+            goCache.remove(cacheKey);
+        }
+    }
+}
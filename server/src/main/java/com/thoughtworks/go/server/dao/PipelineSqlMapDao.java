@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.dao;
 
+import com.google.common.collect.Lists;
 import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.GoConfigDao;
@@ -30,6 +31,7 @@ import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.cache.LazyCache;
 import com.thoughtworks.go.server.database.Database;
+import com.thoughtworks.go.server.database.ReplicaReads;
 import com.thoughtworks.go.server.domain.StageStatusListener;
 import com.thoughtworks.go.server.initializers.Initializer;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
@@ -63,6 +65,7 @@ import java.util.*;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -84,6 +87,11 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     private final ReadWriteLock activePipelineRWLock = new ReentrantReadWriteLock();
     private final Lock activePipelineReadLock = activePipelineRWLock.readLock();
     private final Lock activePipelineWriteLock = activePipelineRWLock.writeLock();
+    /**
+     * Stage changes seen while active pipelines are being loaded for the cache, to be applied to them before they are
+     * cached. Guarded by {@link #activePipelineWriteLock}, and null when no such load is running.
+     */
+    private List<Stage> stagesChangedWhileLoadingActivePipelines;
 
     @Autowired
     public PipelineSqlMapDao(StageDao stageDao,
@@ -151,6 +159,8 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
                 @Override
                 public void afterCommit() {
                     goCache.remove(cacheKeyForLatestPipelineIdByPipelineName(pipeline.getName()));
+                    goCache.remove(cacheKeyForOldestAndLatestPipelineId(pipeline.getName()));
+                    historyPageCursors(pipeline.getName()).invalidate();
                     invalidateCacheConditionallyForPipelineInstancesTriggeredWithDependencyMaterial(pipeline);
                 }
             });
@@ -377,52 +387,128 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
                 arguments("pipelineName", pipelineName).and("stageName", stageName).and("naturalOrder", naturalOrder).asMap());
     }
 
+    /**
+     * Loads active pipelines, their history and their material revisions into the caches, a chunk of pipelines at a
+     * time so that all of them never need to be held in memory together.
+     */
     public void cacheActivePipelines() {
         LOGGER.info("Retrieving Active Pipelines from Database...");
-        final List<PipelineInstanceModel> pipelines = getAllPIMs();
-        if (pipelines.isEmpty()) {
-            return;
+        Set<CaseInsensitiveString> pipelinesInConfig = new HashSet<>(getPipelineNamesInConfig());
+        if (pipelinesInConfig.isEmpty()) {
+            LOGGER.warn("No pipelines found in Config, Skipping material revision caching.");
+        }
+        recordStageChangesWhileLoadingActivePipelines();
+        try {
+            Map<CaseInsensitiveString, TreeSet<Long>> activePipelines = loadActivePipelinesInChunks(pipelines -> {
+                pipelines.forEach(pipeline -> goCache.put(pipelineHistoryCacheKey(pipeline.getId()), pipeline));
+                cacheMaterialRevisionsOfPipelinesInConfig(pipelines, pipelinesInConfig);
+            });
+            if (activePipelines != null) {
+                cacheLoadedActivePipelines(activePipelines, true);
+            }
+        } finally {
+            stopRecordingStageChanges();
         }
-        List<Thread> loaderThreads = loadActivePipelineAndHistoryToCache(pipelines);
-        cacheMaterialRevisions(pipelines);
-        waitForLoaderThreadsToJoin(loaderThreads);
     }
 
-    private List<PipelineInstanceModel> getAllPIMs() {
-        return getSqlMapClientTemplate().queryForList("allActivePipelines");
+    /**
+     * Fills only the caches that are safe to fill while the server is serving requests: the ids of active pipelines
+     * (unless a request has already cached them) and their material revisions, which never change. Pipeline history
+     * is left to be cached on first use. Like {@link #cacheActivePipelines()}, pipelines are read a chunk at a time.
+     */
+    public void warmUpActivePipelines() {
+        Set<CaseInsensitiveString> pipelinesInConfig = new HashSet<>(getPipelineNamesInConfig());
+        recordStageChangesWhileLoadingActivePipelines();
+        try {
+            Map<CaseInsensitiveString, TreeSet<Long>> activePipelines = loadActivePipelinesInChunks(pipelines -> cacheMaterialRevisionsOfPipelinesInConfig(pipelines, pipelinesInConfig));
+            if (activePipelines != null) {
+                cacheLoadedActivePipelines(activePipelines, false);
+            }
+        } finally {
+            stopRecordingStageChanges();
+        }
     }
 
-    private List<CaseInsensitiveString> getPipelineNamesInConfig() {
-        return configFileDao.load().getAllPipelineNames();
+    private void recordStageChangesWhileLoadingActivePipelines() {
+        try {
+            activePipelineWriteLock.lock();
+            stagesChangedWhileLoadingActivePipelines = new ArrayList<>();
+        } finally {
+            activePipelineWriteLock.unlock();
+        }
+    }
+
+    private void stopRecordingStageChanges() {
+        try {
+            activePipelineWriteLock.lock();
+            stagesChangedWhileLoadingActivePipelines = null;
+        } finally {
+            activePipelineWriteLock.unlock();
+        }
     }
 
-    private void waitForLoaderThreadsToJoin(Collection<Thread> loaderThreads) {
-        for (Thread loaderThread : loaderThreads) {
+    /**
+     * Caches active pipelines loaded a chunk at a time. A pipeline can become active or complete after the chunk it
+     * belongs to has been read, so the stage changes seen during the load are applied before the result is cached.
+     */
+    private void cacheLoadedActivePipelines(Map<CaseInsensitiveString, TreeSet<Long>> activePipelines, boolean replaceCached) {
+        String cacheKey = activePipelinesCacheKey();
+        synchronized (cacheKey) {
             try {
-                loaderThread.join();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                activePipelineWriteLock.lock();
+                if (replaceCached || goCache.get(cacheKey) == null) {
+                    for (Stage stage : stagesChangedWhileLoadingActivePipelines) {
+                        applyStageChange(stage, activePipelines);
+                    }
+                    goCache.put(cacheKey, activePipelines);
+                }
+            } finally {
+                activePipelineWriteLock.unlock();
             }
         }
     }
 
-    private List<Thread> loadActivePipelineAndHistoryToCache(final List<PipelineInstanceModel> pipelines) {
-        final Thread activePipelinesCacheLoader = new Thread(() -> {
-            LOGGER.info("Loading Active Pipelines to cache...Started");
-            Map<CaseInsensitiveString, TreeSet<Long>> result = groupPipelineInstanceIdsByPipelineName(pipelines);
-            goCache.put(activePipelinesCacheKey(), result);
-            LOGGER.info("Loading Active Pipelines to cache...Done");
-        }, "goActivePipelinesCacheLoader");
-        final Thread historyCacheLoader = new Thread(() -> {
-            LOGGER.info("Loading pipeline history to cache...Started");
+    private Map<CaseInsensitiveString, TreeSet<Long>> loadActivePipelinesInChunks(Consumer<List<PipelineInstanceModel>> onChunk) {
+        List<Long> activePipelineIds = getSqlMapClientTemplate().queryForList("allActivePipelineIds");
+        if (activePipelineIds.isEmpty()) {
+            return null;
+        }
+        Map<CaseInsensitiveString, TreeSet<Long>> activePipelines = new HashMap<>();
+        int loaded = 0;
+        for (List<Long> chunk : Lists.partition(activePipelineIds, warmUpChunkSize())) {
+            List<PipelineInstanceModel> pipelines = getSqlMapClientTemplate().queryForList("activePipelinesByIds", arguments("ids", chunk).asMap());
             for (PipelineInstanceModel pipeline : pipelines) {
-                goCache.put(pipelineHistoryCacheKey(pipeline.getId()), pipeline);
+                initializePipelineInstances(activePipelines, new CaseInsensitiveString(pipeline.getName())).add(pipeline.getId());
             }
-            LOGGER.info("Loading pipeline history to cache...Done");
-        }, "goPipelineHistoryCacheLoader");
-        historyCacheLoader.start();
-        activePipelinesCacheLoader.start();
-        return List.of(activePipelinesCacheLoader, historyCacheLoader);
+            onChunk.accept(pipelines);
+            loaded += chunk.size();
+            LOGGER.info("Loaded {} of {} active pipelines into memory.", loaded, activePipelineIds.size());
+        }
+        return activePipelines;
+    }
+
+    private void cacheMaterialRevisionsOfPipelinesInConfig(List<PipelineInstanceModel> pipelines, Set<CaseInsensitiveString> pipelinesInConfig) {
+        Set<Long> idsInConfig = new HashSet<>();
+        for (PipelineInstanceModel pipeline : pipelines) {
+            if (pipelinesInConfig.contains(new CaseInsensitiveString(pipeline.getName()))) {
+                idsInConfig.add(pipeline.getId());
+            }
+        }
+        if (!idsInConfig.isEmpty()) {
+            materialRepository.cacheMaterialRevisionsForPipelines(idsInConfig);
+        }
+    }
+
+    private int warmUpChunkSize() {
+        return Math.max(1, new SystemEnvironment().get(SystemEnvironment.GO_STARTUP_WARMUP_CHUNK_SIZE));
+    }
+
+    private List<PipelineInstanceModel> getAllPIMs() {
+        return getSqlMapClientTemplate().queryForList("allActivePipelines");
+    }
+
+    private List<CaseInsensitiveString> getPipelineNamesInConfig() {
+        return configFileDao.load().getAllPipelineNames();
     }
 
     @Override
@@ -442,26 +528,6 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         return convertToPipelineInstanceModels(similarMapForSinglePipeline);
     }
 
-    private void cacheMaterialRevisions(List<PipelineInstanceModel> models) {
-        List<CaseInsensitiveString> pipelinesInConfig = getPipelineNamesInConfig();
-        if (pipelinesInConfig.isEmpty()) {
-            LOGGER.warn("No pipelines found in Config, Skipping material revision caching.");
-            return;
-        }
-        Set<Long> ids = new HashSet<>();
-        for (PipelineInstanceModel model : models) {
-            if (pipelinesInConfig.contains(new CaseInsensitiveString(model.getName()))) {
-                ids.add(model.getId());
-            }
-
-        }
-        if (ids.isEmpty()) {
-            LOGGER.warn("No PIMs found in Config, Skipping material revision caching.");
-            return;
-        }
-        materialRepository.cacheMaterialRevisionsForPipelines(ids);
-    }
-
     private PipelineInstanceModels convertToPipelineInstanceModels(Map<CaseInsensitiveString, TreeSet<Long>> result) {
         List<PipelineInstanceModel> models = new ArrayList<>();
 
@@ -556,20 +622,26 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
 
     private void syncCachedActivePipelines(Stage stage) {
-        Map<CaseInsensitiveString, TreeSet<Long>> activePipelinesToIds = goCache.get(activePipelinesCacheKey());
-        if (activePipelinesToIds == null) {
-            return;
-        }
-        CaseInsensitiveString pipelineName = new CaseInsensitiveString(loadHistory(stage.getPipelineId()).getName());
         try {
             activePipelineWriteLock.lock();
-            addActiveAsLatest(stage, activePipelinesToIds, pipelineName);
-            removeCompletedIfNotLatest(stage, activePipelinesToIds, pipelineName);
+            if (stagesChangedWhileLoadingActivePipelines != null) {
+                stagesChangedWhileLoadingActivePipelines.add(stage);
+            }
+            Map<CaseInsensitiveString, TreeSet<Long>> activePipelinesToIds = goCache.get(activePipelinesCacheKey());
+            if (activePipelinesToIds != null) {
+                applyStageChange(stage, activePipelinesToIds);
+            }
         } finally {
             activePipelineWriteLock.unlock();
         }
     }
 
+    private void applyStageChange(Stage stage, Map<CaseInsensitiveString, TreeSet<Long>> activePipelinesToIds) {
+        CaseInsensitiveString pipelineName = new CaseInsensitiveString(loadHistory(stage.getPipelineId()).getName());
+        addActiveAsLatest(stage, activePipelinesToIds, pipelineName);
+        removeCompletedIfNotLatest(stage, activePipelinesToIds, pipelineName);
+    }
+
     private void addActiveAsLatest(Stage stage,
                                    Map<CaseInsensitiveString, TreeSet<Long>> activePipelinesToIds,
                                    CaseInsensitiveString pipelineName) {
@@ -637,7 +709,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
     @Override
     public PipelineInstanceModels loadHistory(String pipelineName, FeedModifier modifier, long cursor, Integer pageSize) {
-        List<Long> ids = findPipelineIds(pipelineName, modifier, cursor, pageSize);
+        List<Long> ids = ReplicaReads.allow(() -> findPipelineIds(pipelineName, modifier, cursor, pageSize));
         if (ids.size() == 1) {
             return PipelineInstanceModels.createPipelineInstanceModels(loadHistoryByIdWithBuildCause(ids.get(0)));
         }
@@ -654,8 +726,25 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
     @Override
     public PipelineRunIdInfo getOldestAndLatestPipelineId(String pipelineName) {
-        Map<String, Object> params = arguments("pipelineName", pipelineName).asMap();
-        return getSqlMapClientTemplate().queryForObject("getOldestAndLatestPipelineRun", params);
+        String cacheKey = cacheKeyForOldestAndLatestPipelineId(pipelineName);
+        PipelineRunIdInfo runIdInfo = goCache.get(cacheKey);
+        if (runIdInfo == null) {
+            synchronized (cacheKey) {
+                runIdInfo = goCache.get(cacheKey);
+                if (runIdInfo == null) {
+                    Map<String, Object> params = arguments("pipelineName", pipelineName).asMap();
+                    runIdInfo = getSqlMapClientTemplate().queryForObject("getOldestAndLatestPipelineRun", params);
+                    if (runIdInfo != null) {
+                        goCache.put(cacheKey, runIdInfo);
+                    }
+                }
+            }
+        }
+        return runIdInfo;
+    }
+
+    String cacheKeyForOldestAndLatestPipelineId(String pipelineName) {
+        return cacheKeyGenerator.generate("oldestAndLatestPipelineId", pipelineName.toLowerCase());
     }
 
     @Override
@@ -672,8 +761,8 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
                 and("rawPattern", pattern.toLowerCase()).
                 and("limit", limit).asMap();
         long begin = System.currentTimeMillis();
-        List<PipelineInstanceModel> matchingPIMs = getSqlMapClientTemplate().queryForList("findMatchingPipelineInstances", args);
-        List<PipelineInstanceModel> exactMatchingPims = getSqlMapClientTemplate().queryForList("findExactMatchingPipelineInstances", args);
+        List<PipelineInstanceModel> matchingPIMs = ReplicaReads.allow(() -> getSqlMapClientTemplate().queryForList("findMatchingPipelineInstances", args));
+        List<PipelineInstanceModel> exactMatchingPims = ReplicaReads.allow(() -> getSqlMapClientTemplate().queryForList("findExactMatchingPipelineInstances", args));
         LOGGER.debug("[Compare Pipelines] Query initiated for pipeline {} with pattern {}. Query execution took {} milliseconds", pipelineName, pattern, System.currentTimeMillis() - begin);
         exactMatchingPims.addAll(matchingPIMs);
         return PipelineInstanceModels.createPipelineInstanceModels(exactMatchingPims);
@@ -703,15 +792,27 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
     }
 
     private List<Long> fetchPipelineIds(String pipelineName, int limit, int offset) {
+        HistoryPageCursors cursors = historyPageCursors(pipelineName);
+        Long generation = cursors.generation();
+        Long cursor = cursors.cursorFor(offset);
         List<Long> ids;
-        Map<String, Object> toGet =
-                arguments("pipelineName", pipelineName)
-                        .and("limit", limit)
-                        .and("offset", offset).asMap();
-        ids = getSqlMapClientTemplate().queryForList("getPipelineRange", toGet);
+        if (cursor != null) {
+            ids = findPipelineIds(pipelineName, FeedModifier.After, cursor, limit);
+        } else {
+            Map<String, Object> toGet =
+                    arguments("pipelineName", pipelineName)
+                            .and("limit", limit)
+                            .and("offset", offset).asMap();
+            ids = getSqlMapClientTemplate().queryForList("getPipelineRange", toGet);
+        }
+        cursors.remember(generation, offset, ids);
         return ids;
     }
 
+    private HistoryPageCursors historyPageCursors(String pipelineName) {
+        return new HistoryPageCursors(goCache, cacheKeyGenerator.generate("pipelineHistoryPageCursors", pipelineName.toLowerCase()));
+    }
+
     String cacheKeyForLatestPipelineIdByPipelineName(String pipelineName) {
         return cacheKeyGenerator.generate("latestPipelineIdByPipelineName", pipelineName.toLowerCase());
     }
@@ -30,6 +30,7 @@ import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModels;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.database.Database;
+import com.thoughtworks.go.server.database.ReplicaReads;
 import com.thoughtworks.go.server.domain.JobStatusListener;
 import com.thoughtworks.go.server.domain.StageIdentity;
 import com.thoughtworks.go.server.domain.StageStatusListener;
@@ -57,6 +58,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
 import static java.lang.String.format;
@@ -123,6 +125,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
             if (!clearOnlyHistoryPages) {
                 goCache.remove(cacheKeyForStageCount(pipelineName, stage.getName()));
                 goCache.remove(cacheKeyForStageOffset(stage));
+                historyPageCursors(pipelineName, stage.getName()).invalidate();
             }
             goCache.remove(cacheKeyForStageHistories(pipelineName, stage.getName()));
             goCache.remove(cacheKeyForStageHistoryViaCursor(pipelineName, stage.getName()));
@@ -532,11 +535,21 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     List<StageHistoryEntry> findStages(Pagination pagination, String pipelineName, String stageName) {
+        HistoryPageCursors cursors = historyPageCursors(pipelineName, stageName);
+        Long generation = cursors.generation();
+        Long cursor = cursors.cursorFor(pagination.getOffset());
         Map<String, Object> args = arguments("pipelineName", pipelineName).
             and("stageName", stageName).
             and("limit", pagination.getPageSize()).
-            and("offset", pagination.getOffset()).asMap();
-        return getSqlMapClientTemplate().queryForList("findStageHistoryPage", args);
+            and("offset", pagination.getOffset()).
+            and("cursor", cursor).asMap();
+        List<StageHistoryEntry> entries = getSqlMapClientTemplate().queryForList(cursor == null ? "findStageHistoryPage" : "findStageHistoryPageAfter", args);
+        cursors.remember(generation, pagination.getOffset(), entries.stream().map(StageHistoryEntry::getId).collect(Collectors.toList()));
+        return entries;
+    }
+
+    private HistoryPageCursors historyPageCursors(String pipelineName, String stageName) {
+        return new HistoryPageCursors(goCache, cacheKeyGenerator.generate("stageHistoryPageCursors", new CaseInsensitiveString(pipelineName), new CaseInsensitiveString(stageName)));
     }
 
     private int findOffsetForStage(Stage stage) {
@@ -563,7 +576,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         Map parameters = new HashMap();
         parameters.put("value", transitionId);
         parameters.put("pageLimit", pageSize);
-        return getSqlMapClientTemplate().queryForList(baseQuery + modifier.suffix(), parameters);
+        return ReplicaReads.allow(() -> getSqlMapClientTemplate().queryForList(baseQuery + modifier.suffix(), parameters));
     }
 
     @Override
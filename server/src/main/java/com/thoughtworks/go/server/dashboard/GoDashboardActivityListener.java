@@ -35,6 +35,8 @@ import com.thoughtworks.go.server.service.StageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 /* Listens to all activity that is needed to keep the dashboard updated and sets it up for processing.
  */
 @Component
@@ -51,6 +53,7 @@ public class GoDashboardActivityListener implements Initializer, ConfigChangedLi
     private final GoDashboardTemplateConfigChangeHandler templateConfigChangeHandler;
 
     private final MultiplexingQueueProcessor processor;
+    private final CompletableFuture<Void> initialLoad = new CompletableFuture<>();
 
     @Autowired
     public GoDashboardActivityListener(GoConfigService goConfigService,
@@ -93,12 +96,26 @@ public class GoDashboardActivityListener implements Initializer, ConfigChangedLi
         processor.start();
     }
 
+    /**
+     * Waits for the dashboard to be loaded for the config it was given when it registered for config changes, which is
+     * processed once the daemon has started.
+     */
+    public void awaitInitialLoad() {
+        initialLoad.join();
+    }
+
     @Override
     public void onConfigChange(final CruiseConfig newConfig) {
         processor.add(new Action() {
             @Override
             public void call() {
-                configChangeHandler.call(newConfig);
+                try {
+                    configChangeHandler.call(newConfig);
+                    initialLoad.complete(null);
+                } catch (RuntimeException e) {
+                    initialLoad.completeExceptionally(e);
+                    throw e;
+                }
             }
 
             @Override
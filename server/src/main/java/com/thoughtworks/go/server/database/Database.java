@@ -26,9 +26,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
+import javax.sql.DataSource;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Component
@@ -62,7 +64,7 @@ public class Database {
     }
 
     @Bean(name = "goDataSource")
-    public BasicDataSource getDataSource() throws SQLException {
+    public DataSource getDataSource() throws SQLException {
         BasicDataSource dataSource = connectionManager.getDataSourceInstance();
         try (Connection connection = dataSource.getConnection()) {
             new DbDeploySchemaVerifier().verify(connection, systemEnvironment.getConfigDir());
@@ -72,7 +74,17 @@ public class Database {
             databaseMigrator.migrate(connection);
         }
 
-        return dataSource;
+        Optional<BasicDataSource> replica = connectionManager.getReplicaDataSourceInstance();
+        if (replica.isEmpty()) {
+            return dataSource;
+        }
+
+        DbProperties dbProperties = connectionManager.getDbProperties();
+        log.info("Read-only queries will be sent to the replica database at {} while it is healthy.", dbProperties.replicaUrl());
+        ReplicaHealthCheck healthCheck = new ReplicaHealthCheck(replica.get(), getQueryExtensions().replicationLagInSecondsQuery(), dbProperties.replicaMaxLagSeconds());
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(dataSource, replica.get(), healthCheck);
+        routingDataSource.startHealthChecks(dbProperties.replicaHealthCheckIntervalSeconds());
+        return routingDataSource;
     }
 
     public void backup(File targetDir) {
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.thoughtworks.go.util.SystemEnvironment.GO_DB_SLOW_QUERY_THRESHOLD_MILLIS;
+
+/**
+ * Understands how much time each SQL statement (by statement id) takes, and how many rows it touches. Statements that
+ * take longer than {@code go.db.slow.query.threshold.millis} are logged along with the shape (never the values) of
+ * their bind parameters.
+ */
+@Component
+public class QueryStatistics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryStatistics.class);
+    private static final long[] BUCKET_UPPER_BOUNDS_IN_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    private final ConcurrentMap<String, StatementStatistics> statements = new ConcurrentHashMap<>();
+    private final SystemEnvironment systemEnvironment;
+
+    @Autowired
+    public QueryStatistics(SystemEnvironment systemEnvironment) {
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public void record(String statementId, long durationInNanos, int rows, Object parameter) {
+        statements.computeIfAbsent(statementId, id -> new StatementStatistics()).record(durationInNanos, rows);
+
+        long durationInMillis = TimeUnit.NANOSECONDS.toMillis(durationInNanos);
+        long threshold = systemEnvironment.get(GO_DB_SLOW_QUERY_THRESHOLD_MILLIS);
+        if (threshold > 0 && durationInMillis >= threshold) {
+            LOGGER.warn("Slow query [{}] took {}ms and touched {} rows. Parameters: {}", statementId, durationInMillis, rows, parameterShape(parameter));
+        }
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    /**
+     * @return statistics for each statement, the ones with the most total time first
+     */
+    public Map<String, Object> asJson() {
+        List<Map.Entry<String, StatementStatistics>> entries = new ArrayList<>(statements.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, StatementStatistics> entry) -> entry.getValue().totalNanos.sum()).reversed());
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (Map.Entry<String, StatementStatistics> entry : entries) {
+            json.put(entry.getKey(), entry.getValue().asJson());
+        }
+        return json;
+    }
+
+    static String parameterShape(Object parameter) {
+        if (parameter instanceof Map) {
+            StringJoiner shape = new StringJoiner(", ", "{", "}");
+            ((Map<?, ?>) parameter).forEach((key, value) -> shape.add(key + "=" + typeOf(value)));
+            return shape.toString();
+        }
+        return typeOf(parameter);
+    }
+
+    private static String typeOf(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Collection) {
+            return value.getClass().getSimpleName() + "[" + ((Collection<?>) value).size() + "]";
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private static class StatementStatistics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_UPPER_BOUNDS_IN_MILLIS.length + 1];
+
+        private StatementStatistics() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long durationInNanos, int rowCount) {
+            count.increment();
+            totalNanos.add(durationInNanos);
+            rows.add(rowCount);
+            maxNanos.accumulateAndGet(durationInNanos, Math::max);
+            buckets[bucketFor(TimeUnit.NANOSECONDS.toMillis(durationInNanos))].increment();
+        }
+
+        private static int bucketFor(long durationInMillis) {
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_IN_MILLIS.length; i++) {
+                if (durationInMillis <= BUCKET_UPPER_BOUNDS_IN_MILLIS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_UPPER_BOUNDS_IN_MILLIS.length;
+        }
+
+        private Map<String, Object> asJson() {
+            long executions = count.sum();
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Count", executions);
+            json.put("Total Time (ms)", TimeUnit.NANOSECONDS.toMillis(totalNanos.sum()));
+            json.put("Average Time (ms)", executions == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.sum() / executions));
+            json.put("Max Time (ms)", TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+            json.put("Rows", rows.sum());
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_IN_MILLIS.length; i++) {
+                histogram.put("<= " + BUCKET_UPPER_BOUNDS_IN_MILLIS[i] + "ms", buckets[i].sum());
+            }
+            histogram.put("> " + BUCKET_UPPER_BOUNDS_IN_MILLIS[BUCKET_UPPER_BOUNDS_IN_MILLIS.length - 1] + "ms", buckets[BUCKET_UPPER_BOUNDS_IN_MILLIS.length].sum());
+            json.put("Histogram", histogram);
+            return json;
+        }
+    }
+}
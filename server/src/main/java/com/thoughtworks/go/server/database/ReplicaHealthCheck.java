@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Understands whether the read replica can serve reads: it must be reachable and, where the database can tell,
+ * no more than {@code maxLagSeconds} behind the primary. The replica is considered unhealthy until it is first checked.
+ */
+@Slf4j
+public class ReplicaHealthCheck implements Runnable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource replica;
+    private final String replicationLagQuery;
+    private final int maxLagSeconds;
+    private volatile boolean healthy;
+    private volatile String status = "Not checked yet";
+
+    public ReplicaHealthCheck(DataSource replica, String replicationLagQuery, int maxLagSeconds) {
+        this.replica = replica;
+        this.replicationLagQuery = replicationLagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Override
+    public void run() {
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                markUnhealthy("Connection to replica is not valid");
+                return;
+            }
+            if (replicationLagQuery == null) {
+                markHealthy("Reachable, replication lag unknown");
+                return;
+            }
+            double lagInSeconds = replicationLag(connection);
+            if (lagInSeconds > maxLagSeconds) {
+                markUnhealthy(String.format("Replica is %.1fs behind the primary, more than the allowed %ds", lagInSeconds, maxLagSeconds));
+            } else {
+                markHealthy(String.format("Replica is %.1fs behind the primary", lagInSeconds));
+            }
+        } catch (Exception e) {
+            markUnhealthy("Could not check replica: " + e.getMessage());
+        }
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public String status() {
+        return status;
+    }
+
+    public void markUnhealthy(String reason) {
+        if (healthy) {
+            log.warn("Sending all reads to the primary database. {}", reason);
+        }
+        healthy = false;
+        status = reason;
+    }
+
+    private void markHealthy(String reason) {
+        if (!healthy) {
+            log.info("Sending read-only queries to the replica database. {}", reason);
+        }
+        healthy = true;
+        status = reason;
+    }
+
+    private double replicationLag(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(replicationLagQuery)) {
+            return resultSet.next() ? resultSet.getDouble(1) : 0;
+        }
+    }
+}
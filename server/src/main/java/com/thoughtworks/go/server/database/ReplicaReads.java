@@ -0,0 +1,45 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import java.util.function.Supplier;
+
+/**
+ * Understands marking reads that may be served by the read replica, if one is configured (see
+ * {@link ReplicaRoutingDataSource}). Only mark reads that tolerate slightly stale data and whose results are not
+ * cached, or a stale result could outlive the replication lag. Reads made inside a transaction always go to the
+ * primary.
+ */
+public final class ReplicaReads {
+    private static final ThreadLocal<Boolean> ALLOWED = ThreadLocal.withInitial(() -> false);
+
+    private ReplicaReads() {
+    }
+
+    public static <T> T allow(Supplier<T> read) {
+        boolean previous = ALLOWED.get();
+        ALLOWED.set(true);
+        try {
+            return read.get();
+        } finally {
+            ALLOWED.set(previous);
+        }
+    }
+
+    static boolean areAllowed() {
+        return ALLOWED.get();
+    }
+}
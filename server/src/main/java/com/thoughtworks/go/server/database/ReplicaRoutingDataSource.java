@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Understands sending reads marked with {@link ReplicaReads} to a read replica, and everything else to the primary.
+ * Reads fall back to the primary whenever the replica is unhealthy, too far behind, or fails to hand out a
+ * connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaHealthCheck healthCheck;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaHealthCheck healthCheck) {
+        this.primary = primary;
+        this.replica = replica;
+        this.healthCheck = healthCheck;
+        setTargetDataSources(Map.<Object, Object>of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public void startHealthChecks(int intervalInSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(healthCheck, 0, intervalInSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ReplicaReads.areAllowed() && !TransactionSynchronizationManager.isActualTransactionActive() && healthCheck.isHealthy()) {
+            return REPLICA;
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target != replica) {
+            return target.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            healthCheck.markUnhealthy("Could not get a connection to the replica: " + e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    public ReplicaHealthCheck getHealthCheck() {
+        return healthCheck;
+    }
+}
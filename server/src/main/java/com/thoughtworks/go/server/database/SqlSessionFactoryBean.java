@@ -36,12 +36,14 @@ import java.io.IOException;
 public class SqlSessionFactoryBean implements FactoryBean<SqlSessionFactory>, InitializingBean {
     private final DataSource dataSource;
     private final Resource configLocation;
+    private final QueryStatistics queryStatistics;
     private SqlSessionFactory sqlSessionFactory;
 
     @Autowired
-    public SqlSessionFactoryBean(DataSource dataSource, @Value("classpath:/sql-map-config.xml") Resource configLocation) {
+    public SqlSessionFactoryBean(DataSource dataSource, @Value("classpath:/sql-map-config.xml") Resource configLocation, QueryStatistics queryStatistics) {
         this.dataSource = dataSource instanceof TransactionAwareDataSourceProxy ? dataSource : new TransactionAwareDataSourceProxy(dataSource);
         this.configLocation = configLocation;
+        this.queryStatistics = queryStatistics;
     }
 
     @Override
@@ -75,6 +77,7 @@ public class SqlSessionFactoryBean implements FactoryBean<SqlSessionFactory>, In
         Configuration configuration = xmlConfigBuilder.getConfiguration();
         configuration.setEnvironment(new Environment(getClass().getSimpleName(), new SpringManagedTransactionFactory(), this.dataSource));
         xmlConfigBuilder.parse();
+        configuration.addInterceptor(new QueryTimingInterceptor(queryStatistics));
         return factoryBuilder.build(configuration);
     }
 
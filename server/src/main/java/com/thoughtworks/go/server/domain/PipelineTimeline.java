@@ -15,14 +15,13 @@
  */
 package com.thoughtworks.go.server.domain;
 
-import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.domain.PipelineTimelineEntry;
 import com.thoughtworks.go.listener.TimelineUpdateListener;
 import com.thoughtworks.go.server.persistence.PipelineRepository;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
-import com.thoughtworks.go.util.ClonerFactory;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.lang3.ArrayUtils;
 import org.jetbrains.annotations.TestOnly;
 import org.slf4j.Logger;
@@ -34,49 +33,52 @@ import org.springframework.transaction.support.TransactionSynchronizationAdapter
 import java.util.*;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 /**
  * Understands a sorted collection of PipelineMaterialModification
+ * <p>
+ * Each pipeline's runs are held in compact {@link PipelineTimelineColumns}; the {@link PipelineTimelineEntry} instances
+ * returned are copies built on demand. With {@link SystemEnvironment#GO_PIPELINE_TIMELINE_LAZY} set, the history of a
+ * pipeline is only loaded from the database the first time it is asked for (or the first time it is scheduled again).
  */
 @Component
 public class PipelineTimeline {
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineTimeline.class);
 
-    private final Map<CaseInsensitiveString, TreeSet<PipelineTimelineEntry>> naturalOrderPmm;
-    private final Map<CaseInsensitiveString, ArrayList<PipelineTimelineEntry>> scheduleOrderPmm;
+    private final Map<CaseInsensitiveString, PipelineTimelineColumns> timelines;
+    private final PipelineTimelineColumns.StringTable strings = new PipelineTimelineColumns.StringTable();
+    private final List<CaseInsensitiveString> lazilyLoadedDuringUpdate = new ArrayList<>();
+    private boolean updating;
+    private final boolean loadLazily;
     private volatile long maximumId;
     private final PipelineRepository pipelineRepository;
     private TransactionTemplate transactionTemplate;
     private TransactionSynchronizationManager transactionSynchronizationManager;
     private TimelineUpdateListener[] listeners;
-    private final ReadWriteLock naturalOrderLock = new ReentrantReadWriteLock();
-    private final ReadWriteLock scheduleOrderLock = new ReentrantReadWriteLock();
-    private final Cloner cloner = ClonerFactory.instance();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
-    @Autowired
     public PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager,
+                            TimelineUpdateListener... listeners) {
+        this(new SystemEnvironment(), pipelineRepository, transactionTemplate, transactionSynchronizationManager, listeners);
+    }
+
+    @Autowired
+    public PipelineTimeline(SystemEnvironment systemEnvironment, PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate,
+                            TransactionSynchronizationManager transactionSynchronizationManager,
                             @Autowired(required = false) TimelineUpdateListener... listeners) {
         this.pipelineRepository = pipelineRepository;
         this.transactionTemplate = transactionTemplate;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.listeners = ArrayUtils.nullToEmpty(listeners, TimelineUpdateListener[].class);
-        naturalOrderPmm = new HashMap<>();
-        scheduleOrderPmm = new HashMap<>();
+        this.loadLazily = systemEnvironment.get(SystemEnvironment.GO_PIPELINE_TIMELINE_LAZY);
+        timelines = new HashMap<>();
         maximumId = -1;
     }
 
     @TestOnly
     public Collection<PipelineTimelineEntry> getEntriesFor(String pipelineName) {
-        naturalOrderLock.readLock().lock();
-        try {
-            TreeSet<PipelineTimelineEntry> tree = naturalOrderPmm.get(new CaseInsensitiveString(pipelineName));
-            if (tree == null) {
-                tree = new TreeSet<>();
-            }
-            return Collections.unmodifiableCollection(cloner.deepClone(tree));
-        } finally {
-            naturalOrderLock.readLock().unlock();
-        }
+        return read(new CaseInsensitiveString(pipelineName), columns -> Collections.unmodifiableCollection(columns.inNaturalOrder()), Collections.emptyList());
     }
 
     public long maximumId() {
@@ -84,19 +86,32 @@ public class PipelineTimeline {
     }
 
     public void add(PipelineTimelineEntry pipelineTimelineEntry) {
-        CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
-        initializedNaturalOrderCollection(pipelineName).add(pipelineTimelineEntry);
-        initializedScheduleOrderCollection(pipelineName).add(pipelineTimelineEntry);
-        pipelineTimelineEntry.setInsertedBefore(naturalOrderAfter(pipelineTimelineEntry));
-        pipelineTimelineEntry.setInsertedAfter(naturalOrderBefore(pipelineTimelineEntry));
-        pipelineTimelineEntry.updateNaturalOrder();
-        updateMaximumId(pipelineTimelineEntry.getId());
+        lock.writeLock().lock();
+        try {
+            CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
+            PipelineTimelineColumns columns = timelines.get(pipelineName);
+            if (columns == null) {
+                columns = new PipelineTimelineColumns(pipelineTimelineEntry.getPipelineName(), strings);
+                timelines.put(pipelineName, columns);
+                if (loadLazily) {
+                    // runs are added in id order, so everything before this one is history which has not been loaded yet
+                    lazilyLoadedDuringUpdate.add(pipelineName);
+                    pipelineRepository.loadPipelineTimeline(this, pipelineTimelineEntry.getPipelineName(), pipelineTimelineEntry.getId());
+                }
+            }
+            columns.add(pipelineTimelineEntry);
+            updateMaximumId(pipelineTimelineEntry.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void update() {
         acquireAllWriteLocks();
         try {
             final long maximumIdBeforeUpdate = maximumId;
+            lazilyLoadedDuringUpdate.clear();
+            updating = true;
             transactionTemplate.execute(transactionStatus -> {
                 final List<PipelineTimelineEntry> newlyAddedEntries = new ArrayList<>();
                 transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
@@ -107,19 +122,25 @@ public class PipelineTimeline {
                         } else if (STATUS_COMMITTED == status) {
                             notifyListeners(newlyAddedEntries);
                         }
+                        lazilyLoadedDuringUpdate.clear();
                     }
 
                     private void rollbackTempEntries() {
                         for (PipelineTimelineEntry entry : newlyAddedEntries) {
                             rollbackNewEntryFor(entry);
                         }
+                        // natural orders worked out while loading these may not have made it to the database
+                        for (CaseInsensitiveString pipelineName : lazilyLoadedDuringUpdate) {
+                            drop(pipelineName);
+                        }
                         maximumId = maximumIdBeforeUpdate;
                     }
 
                     private void rollbackNewEntryFor(PipelineTimelineEntry entry) {
-                        CaseInsensitiveString pipelineName = new CaseInsensitiveString(entry.getPipelineName());
-                        initializedNaturalOrderCollection(pipelineName).remove(entry);
-                        initializedScheduleOrderCollection(pipelineName).remove(entry);
+                        PipelineTimelineColumns columns = timelines.get(new CaseInsensitiveString(entry.getPipelineName()));
+                        if (columns != null) {
+                            columns.remove(entry.getId());
+                        }
                     }
 
 
@@ -128,6 +149,7 @@ public class PipelineTimeline {
                 return null;
             });
         } finally {
+            updating = false;
             releaseAllWriteLocks();
         }
     }
@@ -136,14 +158,12 @@ public class PipelineTimeline {
     // --------------------------------------------------------
     // These methods should acquire and release lock in corresponding order.
     private void acquireAllWriteLocks() {
-        naturalOrderLock.writeLock().lock();
-        scheduleOrderLock.writeLock().lock();
+        lock.writeLock().lock();
     }
 
     //Release in the reverse of the acquired order.
     private void releaseAllWriteLocks() {
-        scheduleOrderLock.writeLock().unlock();
-        naturalOrderLock.writeLock().unlock();
+        lock.writeLock().unlock();
     }
     // --------------------------------------------------------
 
@@ -157,10 +177,14 @@ public class PipelineTimeline {
             }
         }
 
-        for (TimelineUpdateListener listener : listeners) {
-            for (Map.Entry<CaseInsensitiveString, PipelineTimelineEntry> entry : pipelineToOldestEntry.entrySet()) {
+        if (listeners.length == 0) {
+            return;
+        }
+        for (Map.Entry<CaseInsensitiveString, PipelineTimelineEntry> entry : pipelineToOldestEntry.entrySet()) {
+            TreeSet<PipelineTimelineEntry> timeline = new TreeSet<>(timelines.get(entry.getKey()).inNaturalOrder());
+            for (TimelineUpdateListener listener : listeners) {
                 try {
-                    listener.added(entry.getValue(), naturalOrderPmm.get(entry.getKey()));
+                    listener.added(entry.getValue(), timeline);
                 } catch (Exception e) {
                     LOGGER.warn("Ignoring exception when notifying listener: {}", listener, e);
                 }
@@ -174,7 +198,15 @@ public class PipelineTimeline {
     public void updateTimelineOnInit() {
         acquireAllWriteLocks();
         try {
+            if (loadLazily) {
+                maximumId = Math.max(maximumId, pipelineRepository.latestPipelineId());
+                LOGGER.info("Pipeline timeline will be loaded lazily, one pipeline at a time");
+                return;
+            }
             pipelineRepository.updatePipelineTimeline(this, new ArrayList<>());
+            for (PipelineTimelineColumns columns : timelines.values()) {
+                columns.trimToSize();
+            }
         } finally {
             releaseAllWriteLocks();
         }
@@ -186,21 +218,12 @@ public class PipelineTimeline {
      * @return PMM which was before the pipeline with this id at the time of insertion of the PTE with the id or null if there was nothing before this pipeline during insertion
      */
     public PipelineTimelineEntry runBefore(long id, final CaseInsensitiveString pipelineName) {
-        naturalOrderLock.readLock().lock();
-        try {
-            TreeSet<PipelineTimelineEntry> treeForPipeline = naturalOrderPmm.get(pipelineName);
-            if (treeForPipeline == null) {
-                return null;
-            }
-            for (PipelineTimelineEntry pipelineTimelineEntry : treeForPipeline) {
-                if (id == pipelineTimelineEntry.getId()) {
-                    return pipelineTimelineEntry.insertedAfter();
-                }
+        return read(pipelineName, columns -> {
+            if (!columns.contains(id)) {
+                throw new RuntimeException("Cannot find pipeline with id: " + id);
             }
-            throw new RuntimeException("Cannot find pipeline with id: " + id);
-        } finally {
-            naturalOrderLock.readLock().unlock();
-        }
+            return columns.insertedAfter(id);
+        }, null);
     }
 
     /**
@@ -209,57 +232,20 @@ public class PipelineTimeline {
      * @return PMM which was after the pipeline with this id at the time of insertion of the PTE with the id or null if there was nothing after this pipeline during insertion
      */
     public PipelineTimelineEntry runAfter(long id, final CaseInsensitiveString pipelineName) {
-        naturalOrderLock.readLock().lock();
-        try {
-            TreeSet<PipelineTimelineEntry> treeForPipeline = naturalOrderPmm.get(pipelineName);
-            if (treeForPipeline == null) {
-                return null;
+        return read(pipelineName, columns -> {
+            if (!columns.contains(id)) {
+                throw new RuntimeException("Cannot find pipeline with id: " + id);
             }
-            for (PipelineTimelineEntry pipelineTimelineEntry : treeForPipeline) {
-                if (id == pipelineTimelineEntry.getId()) {
-                    return pipelineTimelineEntry.insertedBefore();
-                }
-            }
-            throw new RuntimeException("Cannot find pipeline with id: " + id);
-        } finally {
-            naturalOrderLock.readLock().unlock();
-        }
+            return columns.insertedBefore(id);
+        }, null);
     }
 
     private void updateMaximumId(long id) {
         maximumId = Math.max(id, maximumId);
     }
 
-    private TreeSet<PipelineTimelineEntry> initializedNaturalOrderCollection(final CaseInsensitiveString pipelineName) {
-        if (!naturalOrderPmm.containsKey(pipelineName)) {
-            naturalOrderPmm.put(pipelineName, new TreeSet<>());
-        }
-        return naturalOrderPmm.get(pipelineName);
-    }
-
-    private ArrayList<PipelineTimelineEntry> initializedScheduleOrderCollection(final CaseInsensitiveString pipelineName) {
-        if (!scheduleOrderPmm.containsKey(pipelineName)) {
-            scheduleOrderPmm.put(pipelineName, new ArrayList<>());
-        }
-        return scheduleOrderPmm.get(pipelineName);
-    }
-
-    private PipelineTimelineEntry naturalOrderAfter(PipelineTimelineEntry pipelineTimelineEntry) {
-        naturalOrderLock.readLock().lock();
-        try {
-            return naturalOrderPmm.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName())).higher(pipelineTimelineEntry);
-        } finally {
-            naturalOrderLock.readLock().unlock();
-        }
-    }
-
     PipelineTimelineEntry naturalOrderBefore(PipelineTimelineEntry pipelineTimelineEntry) {
-        naturalOrderLock.readLock().lock();
-        try {
-            return naturalOrderPmm.get(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName())).lower(pipelineTimelineEntry);
-        } finally {
-            naturalOrderLock.readLock().unlock();
-        }
+        return read(new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName()), columns -> columns.naturalOrderBefore(pipelineTimelineEntry), null);
     }
 
     /**
@@ -269,48 +255,80 @@ public class PipelineTimeline {
     public void clearWhichIsEvilAndShouldNotBeUsedInRealWorld() {
         acquireAllWriteLocks();
         try {
-            naturalOrderPmm.clear();
-            scheduleOrderPmm.clear();
+            timelines.values().forEach(PipelineTimelineColumns::release);
+            timelines.clear();
         } finally {
             releaseAllWriteLocks();
         }
     }
 
+    private void drop(CaseInsensitiveString pipelineName) {
+        PipelineTimelineColumns columns = timelines.remove(pipelineName);
+        if (columns != null) {
+            columns.release();
+        }
+    }
+
     public int instanceCount(CaseInsensitiveString pipelineName) {
-        scheduleOrderLock.readLock().lock();
+        return read(pipelineName, PipelineTimelineColumns::size, 0);
+    }
+
+    public PipelineTimelineEntry instanceFor(CaseInsensitiveString pipelineName, int index) {
+        return read(pipelineName, columns -> columns.inScheduleOrder(index), null);
+    }
+
+
+    public PipelineTimelineEntry getEntryFor(CaseInsensitiveString pipelineName, Integer pipelineCounter) {
+        return read(pipelineName, columns -> columns.withCounter(pipelineCounter), null);
+    }
+
+    private <T> T read(CaseInsensitiveString pipelineName, Function<PipelineTimelineColumns, T> reader, T whenAbsent) {
+        lock.readLock().lock();
         try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
-            return instances == null ? 0 : instances.size();
+            PipelineTimelineColumns columns = timelines.get(pipelineName);
+            if (columns != null || !loadLazily) {
+                return columns == null || columns.isEmpty() ? whenAbsent : reader.apply(columns);
+            }
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
-    }
 
-    public PipelineTimelineEntry instanceFor(CaseInsensitiveString pipelineName, int index) {
-        scheduleOrderLock.readLock().lock();
+        load(pipelineName);
+        lock.readLock().lock();
         try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
-            return instances == null ? null : instances.get(index);
+            PipelineTimelineColumns columns = timelines.get(pipelineName);
+            return columns == null || columns.isEmpty() ? whenAbsent : reader.apply(columns);
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            lock.readLock().unlock();
         }
     }
 
-
-    public PipelineTimelineEntry getEntryFor(CaseInsensitiveString pipelineName, Integer pipelineCounter) {
-        scheduleOrderLock.readLock().lock();
+    private void load(CaseInsensitiveString pipelineName) {
+        acquireAllWriteLocks();
         try {
-            ArrayList<PipelineTimelineEntry> instances = scheduleOrderPmm.get(pipelineName);
-            for (int i = instances.size() - 1; i >= 0; i--) {
-                PipelineTimelineEntry instance = instances.get(i);
-                if (instance.getCounter() == pipelineCounter) {
-                    return instance;
-                }
+            if (timelines.containsKey(pipelineName)) {
+                return;
+            }
+            long startedAt = System.currentTimeMillis();
+            PipelineTimelineColumns columns = new PipelineTimelineColumns(pipelineName.toString(), strings);
+            timelines.put(pipelineName, columns);
+            if (updating) {
+                // read by the update itself, so what is loaded joins its transaction and must go if that is rolled back
+                lazilyLoadedDuringUpdate.add(pipelineName);
             }
-            return null;
+            try {
+                transactionTemplate.execute(transactionStatus -> {
+                    pipelineRepository.loadPipelineTimeline(this, pipelineName.toString(), maximumId + 1);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                drop(pipelineName);
+                throw e;
+            }
+            columns.trimToSize();
+            LOGGER.debug("Loaded {} runs into the pipeline timeline for {} in {}ms", columns.size(), pipelineName, System.currentTimeMillis() - startedAt);
         } finally {
-            scheduleOrderLock.readLock().unlock();
+            releaseAllWriteLocks();
         }
     }
-
 }
@@ -0,0 +1,749 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+
+import java.util.*;
+
+/**
+ * Understands the runs of one pipeline in the {@link PipelineTimeline}, kept column-wise in primitive arrays instead of
+ * as one {@link PipelineTimelineEntry} (with its own revisions map) per run. Entries handed out are materialized copies.
+ * <p>
+ * Runs are kept in schedule order. Their natural (material check-in) order is kept in a red-black tree over the same
+ * arrays, which is navigated exactly the way {@link TreeSet} navigates its tree. That matters: the natural ordering of
+ * runs is not always transitive, so where a run ends up (and the natural order persisted for it) depends on the path
+ * taken through the tree, and has to come out the same as it did before the timeline was stored this way.
+ * <p>
+ * Not thread safe; guarded by the lock of the owning timeline.
+ */
+final class PipelineTimelineColumns {
+    private static final long NONE = -1;
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final String pipelineName;
+    private final StringTable strings;
+
+    private int size;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] counters = new int[INITIAL_CAPACITY];
+    private double[] naturalOrders = new double[INITIAL_CAPACITY];
+    private long[] insertedBeforeIds = new long[INITIAL_CAPACITY];
+    private long[] insertedAfterIds = new long[INITIAL_CAPACITY];
+    private int[] revisionStarts = new int[INITIAL_CAPACITY + 1];
+    private boolean idsAscending = true;
+
+    private int revisionCount;
+    private int[] fingerprints = new int[INITIAL_CAPACITY];
+    private long[] modifiedTimes = new long[INITIAL_CAPACITY];
+    private int[] revisions = new int[INITIAL_CAPACITY];
+    private int[] folders = new int[INITIAL_CAPACITY];
+    private long[] modificationIds = new long[INITIAL_CAPACITY];
+
+    // natural order: tree nodes, one per run, each pointing at the run it holds by its schedule order index
+    private int root = NIL;
+    private int[] runOf = new int[INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private boolean[] black = new boolean[INITIAL_CAPACITY];
+
+    PipelineTimelineColumns(String pipelineName, StringTable strings) {
+        this.pipelineName = pipelineName;
+        this.strings = strings;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds the run in natural order, links it to the runs on either side of it and fixes its natural order (which
+     * fails if it disagrees with the natural order already recorded for the run).
+     */
+    void add(PipelineTimelineEntry entry) {
+        boolean alreadyPresent = contains(entry.getId());
+        if (!alreadyPresent) {
+            insert(entry);
+        }
+        entry.setInsertedBefore(runAt(higher(entry), false));
+        entry.setInsertedAfter(runAt(lower(entry), false));
+        entry.updateNaturalOrder();
+        if (!alreadyPresent) {
+            int run = size - 1;
+            naturalOrders[run] = entry.naturalOrder();
+            insertedBeforeIds[run] = entry.insertedBefore() == null ? NONE : entry.insertedBefore().getId();
+            insertedAfterIds[run] = entry.insertedAfter() == null ? NONE : entry.insertedAfter().getId();
+        }
+    }
+
+    void remove(long id) {
+        int run = indexOf(id);
+        if (run < 0) {
+            return;
+        }
+        for (int node = 0; node < size; node++) {
+            if (runOf[node] == run) {
+                deleteNode(node);
+                break;
+            }
+        }
+        for (int node = 0; node < size - 1; node++) {
+            if (runOf[node] > run) {
+                runOf[node]--;
+            }
+        }
+
+        int from = revisionStarts[run];
+        int to = revisionStarts[run + 1];
+        int removedRevisions = to - from;
+        releaseStrings(from, to);
+        System.arraycopy(fingerprints, to, fingerprints, from, revisionCount - to);
+        System.arraycopy(modifiedTimes, to, modifiedTimes, from, revisionCount - to);
+        System.arraycopy(revisions, to, revisions, from, revisionCount - to);
+        System.arraycopy(folders, to, folders, from, revisionCount - to);
+        System.arraycopy(modificationIds, to, modificationIds, from, revisionCount - to);
+        revisionCount -= removedRevisions;
+
+        int tail = size - 1 - run;
+        System.arraycopy(ids, run + 1, ids, run, tail);
+        System.arraycopy(counters, run + 1, counters, run, tail);
+        System.arraycopy(naturalOrders, run + 1, naturalOrders, run, tail);
+        System.arraycopy(insertedBeforeIds, run + 1, insertedBeforeIds, run, tail);
+        System.arraycopy(insertedAfterIds, run + 1, insertedAfterIds, run, tail);
+        for (int i = run + 1; i <= size; i++) {
+            revisionStarts[i - 1] = revisionStarts[i] - removedRevisions;
+        }
+        size--;
+    }
+
+    /**
+     * Gives back the strings held by all runs to the shared table, before the columns are dropped.
+     */
+    void release() {
+        releaseStrings(0, revisionCount);
+        revisionCount = 0;
+        size = 0;
+        root = NIL;
+    }
+
+    boolean contains(long id) {
+        return indexOf(id) >= 0;
+    }
+
+    PipelineTimelineEntry insertedAfter(long id) {
+        return linked(insertedAfterIds[indexOf(id)]);
+    }
+
+    PipelineTimelineEntry insertedBefore(long id) {
+        return linked(insertedBeforeIds[indexOf(id)]);
+    }
+
+    PipelineTimelineEntry naturalOrderBefore(PipelineTimelineEntry entry) {
+        return runAt(lower(entry), true);
+    }
+
+    PipelineTimelineEntry inScheduleOrder(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return materialize(index, true);
+    }
+
+    PipelineTimelineEntry withCounter(int counter) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (counters[i] == counter) {
+                return materialize(i, true);
+            }
+        }
+        return null;
+    }
+
+    List<PipelineTimelineEntry> inNaturalOrder() {
+        List<PipelineTimelineEntry> entries = new ArrayList<>(size);
+        int node = root;
+        while (node != NIL && left[node] != NIL) {
+            node = left[node];
+        }
+        for (; node != NIL; node = successor(node)) {
+            entries.add(materialize(runOf[node], true));
+        }
+        return entries;
+    }
+
+    /**
+     * Gives back the spare capacity left over from growing the columns, once a bulk load is done.
+     */
+    void trimToSize() {
+        int capacity = Math.max(size, 1);
+        ids = Arrays.copyOf(ids, capacity);
+        counters = Arrays.copyOf(counters, capacity);
+        naturalOrders = Arrays.copyOf(naturalOrders, capacity);
+        insertedBeforeIds = Arrays.copyOf(insertedBeforeIds, capacity);
+        insertedAfterIds = Arrays.copyOf(insertedAfterIds, capacity);
+        revisionStarts = Arrays.copyOf(revisionStarts, capacity + 1);
+        runOf = Arrays.copyOf(runOf, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        black = Arrays.copyOf(black, capacity);
+
+        int revisionCapacity = Math.max(revisionCount, 1);
+        fingerprints = Arrays.copyOf(fingerprints, revisionCapacity);
+        modifiedTimes = Arrays.copyOf(modifiedTimes, revisionCapacity);
+        revisions = Arrays.copyOf(revisions, revisionCapacity);
+        folders = Arrays.copyOf(folders, revisionCapacity);
+        modificationIds = Arrays.copyOf(modificationIds, revisionCapacity);
+    }
+
+    private PipelineTimelineEntry linked(long id) {
+        if (id == NONE) {
+            return null;
+        }
+        int index = indexOf(id);
+        return index < 0 ? null : materialize(index, false);
+    }
+
+    private PipelineTimelineEntry runAt(int node, boolean withLinks) {
+        return node == NIL ? null : materialize(runOf[node], withLinks);
+    }
+
+    private int indexOf(long id) {
+        if (idsAscending) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index < 0 ? -1 : index;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same ordering as {@link PipelineTimelineEntry#compareTo(PipelineTimelineEntry)}, against a stored run: the run
+     * whose revision of a common material was checked in first comes first. Ties and contention fall back to the counter.
+     */
+    private int compare(PipelineTimelineEntry entry, int run) {
+        if (entry.getId() == ids[run]) {
+            return 0;
+        }
+        boolean found = false;
+        boolean contention = false;
+        long earliest = 0;
+        int verdict = 0;
+        for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> material : entry.revisions().entrySet()) {
+            PipelineTimelineEntry.Revision revision = material.getValue().get(0);
+            int stored = firstRevisionOf(run, strings.indexOf(material.getKey()));
+            if (revision == null || stored < 0) {
+                continue;
+            }
+            long thisTime = revision.date.getTime();
+            long thatTime = modifiedTimes[stored];
+            if (thisTime == thatTime) {
+                continue;
+            }
+            long earlier = Math.min(thisTime, thatTime);
+            int value = thisTime < thatTime ? -1 : 1;
+            if (!found || earlier < earliest) {
+                found = true;
+                contention = false;
+                earliest = earlier;
+                verdict = value;
+            } else if (earlier == earliest && value != verdict) {
+                contention = true;
+            }
+        }
+        if (!found || contention) {
+            return entry.getCounter() < counters[run] ? -1 : 1;
+        }
+        return verdict;
+    }
+
+    private int firstRevisionOf(int run, int fingerprint) {
+        if (fingerprint < 0) {
+            return -1;
+        }
+        for (int r = revisionStarts[run]; r < revisionStarts[run + 1]; r++) {
+            if (fingerprints[r] == fingerprint) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(PipelineTimelineEntry entry) {
+        int parentNode = NIL;
+        boolean toTheLeft = false;
+        for (int node = root; node != NIL; ) {
+            parentNode = node;
+            toTheLeft = compare(entry, runOf[node]) < 0;
+            node = toTheLeft ? left[node] : right[node];
+        }
+
+        append(entry);
+        int node = size - 1;
+        runOf[node] = node;
+        left[node] = NIL;
+        right[node] = NIL;
+        parent[node] = parentNode;
+        if (parentNode == NIL) {
+            root = node;
+            black[node] = true;
+            return;
+        }
+        if (toTheLeft) {
+            left[parentNode] = node;
+        } else {
+            right[parentNode] = node;
+        }
+        fixAfterInsertion(node);
+    }
+
+    private int lower(PipelineTimelineEntry entry) {
+        int node = root;
+        while (node != NIL) {
+            if (compare(entry, runOf[node]) > 0) {
+                if (right[node] == NIL) {
+                    return node;
+                }
+                node = right[node];
+            } else {
+                if (left[node] == NIL) {
+                    int child = node;
+                    int up = parent[node];
+                    while (up != NIL && child == left[up]) {
+                        child = up;
+                        up = parent[up];
+                    }
+                    return up;
+                }
+                node = left[node];
+            }
+        }
+        return NIL;
+    }
+
+    private int higher(PipelineTimelineEntry entry) {
+        int node = root;
+        while (node != NIL) {
+            if (compare(entry, runOf[node]) < 0) {
+                if (left[node] == NIL) {
+                    return node;
+                }
+                node = left[node];
+            } else {
+                if (right[node] == NIL) {
+                    int child = node;
+                    int up = parent[node];
+                    while (up != NIL && child == right[up]) {
+                        child = up;
+                        up = parent[up];
+                    }
+                    return up;
+                }
+                node = right[node];
+            }
+        }
+        return NIL;
+    }
+
+    private int successor(int node) {
+        if (right[node] != NIL) {
+            int next = right[node];
+            while (left[next] != NIL) {
+                next = left[next];
+            }
+            return next;
+        }
+        int child = node;
+        int up = parent[node];
+        while (up != NIL && child == right[up]) {
+            child = up;
+            up = parent[up];
+        }
+        return up;
+    }
+
+    // red-black tree maintenance, as in java.util.TreeMap
+
+    private void fixAfterInsertion(int x) {
+        black[x] = false;
+        while (x != NIL && x != root && !isBlack(parent[x])) {
+            if (parentOf(x) == leftOf(parentOf(parentOf(x)))) {
+                int y = rightOf(parentOf(parentOf(x)));
+                if (!isBlack(y)) {
+                    setBlack(parentOf(x), true);
+                    setBlack(y, true);
+                    setBlack(parentOf(parentOf(x)), false);
+                    x = parentOf(parentOf(x));
+                } else {
+                    if (x == rightOf(parentOf(x))) {
+                        x = parentOf(x);
+                        rotateLeft(x);
+                    }
+                    setBlack(parentOf(x), true);
+                    setBlack(parentOf(parentOf(x)), false);
+                    rotateRight(parentOf(parentOf(x)));
+                }
+            } else {
+                int y = leftOf(parentOf(parentOf(x)));
+                if (!isBlack(y)) {
+                    setBlack(parentOf(x), true);
+                    setBlack(y, true);
+                    setBlack(parentOf(parentOf(x)), false);
+                    x = parentOf(parentOf(x));
+                } else {
+                    if (x == leftOf(parentOf(x))) {
+                        x = parentOf(x);
+                        rotateRight(x);
+                    }
+                    setBlack(parentOf(x), true);
+                    setBlack(parentOf(parentOf(x)), false);
+                    rotateLeft(parentOf(parentOf(x)));
+                }
+            }
+        }
+        black[root] = true;
+    }
+
+    private void deleteNode(int p) {
+        if (left[p] != NIL && right[p] != NIL) {
+            int s = successor(p);
+            runOf[p] = runOf[s];
+            p = s;
+        }
+
+        int replacement = left[p] != NIL ? left[p] : right[p];
+        if (replacement != NIL) {
+            parent[replacement] = parent[p];
+            if (parent[p] == NIL) {
+                root = replacement;
+            } else if (p == left[parent[p]]) {
+                left[parent[p]] = replacement;
+            } else {
+                right[parent[p]] = replacement;
+            }
+            left[p] = right[p] = parent[p] = NIL;
+            if (black[p]) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (parent[p] == NIL) {
+            root = NIL;
+        } else {
+            if (black[p]) {
+                fixAfterDeletion(p);
+            }
+            if (parent[p] != NIL) {
+                if (p == left[parent[p]]) {
+                    left[parent[p]] = NIL;
+                } else if (p == right[parent[p]]) {
+                    right[parent[p]] = NIL;
+                }
+                parent[p] = NIL;
+            }
+        }
+        moveNode(size - 1, p);
+    }
+
+    /**
+     * Keeps the nodes packed at the front of the arrays by moving the last one into the slot that was freed.
+     */
+    private void moveNode(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        runOf[to] = runOf[from];
+        left[to] = left[from];
+        right[to] = right[from];
+        parent[to] = parent[from];
+        black[to] = black[from];
+        if (left[to] != NIL) {
+            parent[left[to]] = to;
+        }
+        if (right[to] != NIL) {
+            parent[right[to]] = to;
+        }
+        if (parent[to] == NIL) {
+            root = to;
+        } else if (left[parent[to]] == from) {
+            left[parent[to]] = to;
+        } else {
+            right[parent[to]] = to;
+        }
+    }
+
+    private void fixAfterDeletion(int x) {
+        while (x != root && isBlack(x)) {
+            if (x == leftOf(parentOf(x))) {
+                int sib = rightOf(parentOf(x));
+                if (!isBlack(sib)) {
+                    setBlack(sib, true);
+                    setBlack(parentOf(x), false);
+                    rotateLeft(parentOf(x));
+                    sib = rightOf(parentOf(x));
+                }
+                if (isBlack(leftOf(sib)) && isBlack(rightOf(sib))) {
+                    setBlack(sib, false);
+                    x = parentOf(x);
+                } else {
+                    if (isBlack(rightOf(sib))) {
+                        setBlack(leftOf(sib), true);
+                        setBlack(sib, false);
+                        rotateRight(sib);
+                        sib = rightOf(parentOf(x));
+                    }
+                    setBlack(sib, isBlack(parentOf(x)));
+                    setBlack(parentOf(x), true);
+                    setBlack(rightOf(sib), true);
+                    rotateLeft(parentOf(x));
+                    x = root;
+                }
+            } else {
+                int sib = leftOf(parentOf(x));
+                if (!isBlack(sib)) {
+                    setBlack(sib, true);
+                    setBlack(parentOf(x), false);
+                    rotateRight(parentOf(x));
+                    sib = leftOf(parentOf(x));
+                }
+                if (isBlack(rightOf(sib)) && isBlack(leftOf(sib))) {
+                    setBlack(sib, false);
+                    x = parentOf(x);
+                } else {
+                    if (isBlack(leftOf(sib))) {
+                        setBlack(rightOf(sib), true);
+                        setBlack(sib, false);
+                        rotateLeft(sib);
+                        sib = leftOf(parentOf(x));
+                    }
+                    setBlack(sib, isBlack(parentOf(x)));
+                    setBlack(parentOf(x), true);
+                    setBlack(leftOf(sib), true);
+                    rotateRight(parentOf(x));
+                    x = root;
+                }
+            }
+        }
+        setBlack(x, true);
+    }
+
+    private void rotateLeft(int p) {
+        if (p == NIL) {
+            return;
+        }
+        int r = right[p];
+        right[p] = left[r];
+        if (left[r] != NIL) {
+            parent[left[r]] = p;
+        }
+        parent[r] = parent[p];
+        if (parent[p] == NIL) {
+            root = r;
+        } else if (left[parent[p]] == p) {
+            left[parent[p]] = r;
+        } else {
+            right[parent[p]] = r;
+        }
+        left[r] = p;
+        parent[p] = r;
+    }
+
+    private void rotateRight(int p) {
+        if (p == NIL) {
+            return;
+        }
+        int l = left[p];
+        left[p] = right[l];
+        if (right[l] != NIL) {
+            parent[right[l]] = p;
+        }
+        parent[l] = parent[p];
+        if (parent[p] == NIL) {
+            root = l;
+        } else if (right[parent[p]] == p) {
+            right[parent[p]] = l;
+        } else {
+            left[parent[p]] = l;
+        }
+        right[l] = p;
+        parent[p] = l;
+    }
+
+    private boolean isBlack(int node) {
+        return node == NIL || black[node];
+    }
+
+    private void setBlack(int node, boolean isBlack) {
+        if (node != NIL) {
+            black[node] = isBlack;
+        }
+    }
+
+    private int parentOf(int node) {
+        return node == NIL ? NIL : parent[node];
+    }
+
+    private int leftOf(int node) {
+        return node == NIL ? NIL : left[node];
+    }
+
+    private int rightOf(int node) {
+        return node == NIL ? NIL : right[node];
+    }
+
+    private void append(PipelineTimelineEntry entry) {
+        ensureCapacity(size + 1);
+        long id = entry.getId();
+        idsAscending = idsAscending && (size == 0 || ids[size - 1] < id);
+        ids[size] = id;
+        counters[size] = entry.getCounter();
+        naturalOrders[size] = entry.naturalOrder();
+        insertedBeforeIds[size] = NONE;
+        insertedAfterIds[size] = NONE;
+
+        for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> material : entry.revisions().entrySet()) {
+            for (PipelineTimelineEntry.Revision revision : material.getValue()) {
+                ensureRevisionCapacity(revisionCount + 1);
+                fingerprints[revisionCount] = strings.intern(material.getKey());
+                modifiedTimes[revisionCount] = revision.date.getTime();
+                revisions[revisionCount] = strings.intern(revision.revision);
+                folders[revisionCount] = strings.intern(revision.folder);
+                modificationIds[revisionCount] = revision.id;
+                revisionCount++;
+            }
+        }
+        size++;
+        revisionStarts[size] = revisionCount;
+    }
+
+    private void releaseStrings(int from, int to) {
+        for (int r = from; r < to; r++) {
+            strings.release(fingerprints[r]);
+            strings.release(revisions[r]);
+            strings.release(folders[r]);
+        }
+    }
+
+    private PipelineTimelineEntry materialize(int run, boolean withLinks) {
+        Map<String, List<PipelineTimelineEntry.Revision>> revisionsByFingerprint = new HashMap<>();
+        for (int r = revisionStarts[run]; r < revisionStarts[run + 1]; r++) {
+            revisionsByFingerprint.computeIfAbsent(strings.get(fingerprints[r]), fingerprint -> new ArrayList<>())
+                .add(new PipelineTimelineEntry.Revision(new Date(modifiedTimes[r]), strings.get(revisions[r]), strings.get(folders[r]), modificationIds[r]));
+        }
+        PipelineTimelineEntry entry = new PipelineTimelineEntry(pipelineName, ids[run], counters[run], revisionsByFingerprint, naturalOrders[run]);
+        if (withLinks) {
+            entry.setInsertedBefore(linked(insertedBeforeIds[run]));
+            entry.setInsertedAfter(linked(insertedAfterIds[run]));
+        }
+        return entry;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        counters = Arrays.copyOf(counters, newCapacity);
+        naturalOrders = Arrays.copyOf(naturalOrders, newCapacity);
+        insertedBeforeIds = Arrays.copyOf(insertedBeforeIds, newCapacity);
+        insertedAfterIds = Arrays.copyOf(insertedAfterIds, newCapacity);
+        revisionStarts = Arrays.copyOf(revisionStarts, newCapacity + 1);
+        runOf = Arrays.copyOf(runOf, newCapacity);
+        left = Arrays.copyOf(left, newCapacity);
+        right = Arrays.copyOf(right, newCapacity);
+        parent = Arrays.copyOf(parent, newCapacity);
+        black = Arrays.copyOf(black, newCapacity);
+    }
+
+    private void ensureRevisionCapacity(int capacity) {
+        if (capacity <= fingerprints.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, fingerprints.length + (fingerprints.length >> 1));
+        fingerprints = Arrays.copyOf(fingerprints, newCapacity);
+        modifiedTimes = Arrays.copyOf(modifiedTimes, newCapacity);
+        revisions = Arrays.copyOf(revisions, newCapacity);
+        folders = Arrays.copyOf(folders, newCapacity);
+        modificationIds = Arrays.copyOf(modificationIds, newCapacity);
+    }
+
+    /**
+     * Understands handing out one small int per distinct string (material fingerprints, revisions, folders), shared by
+     * the columns of all pipelines so that a material used by many pipelines is stored once. Every {@link #intern} is
+     * matched by a {@link #release} when the run holding the string goes away, and a string nobody holds any more is
+     * dropped and its int handed out again.
+     */
+    static final class StringTable {
+        private static final int NULL = -1;
+
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] references = new int[INITIAL_CAPACITY];
+        private final Deque<Integer> freed = new ArrayDeque<>();
+
+        int intern(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            Integer index = indices.get(value);
+            if (index == null) {
+                index = freed.isEmpty() ? values.size() : freed.pop();
+                if (index == values.size()) {
+                    values.add(value);
+                    if (index == references.length) {
+                        references = Arrays.copyOf(references, references.length * 2);
+                    }
+                } else {
+                    values.set(index, value);
+                }
+                indices.put(value, index);
+            }
+            references[index]++;
+            return index;
+        }
+
+        void release(int index) {
+            if (index == NULL) {
+                return;
+            }
+            if (--references[index] == 0) {
+                indices.remove(values.set(index, null));
+                freed.push(index);
+            }
+        }
+
+        int indexOf(String value) {
+            Integer index = value == null ? null : indices.get(value);
+            return index == null ? NULL : index;
+        }
+
+        String get(int index) {
+            return index == NULL ? null : values.get(index);
+        }
+
+        int size() {
+            return indices.size();
+        }
+    }
+}
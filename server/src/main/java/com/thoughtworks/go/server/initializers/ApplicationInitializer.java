@@ -32,6 +32,7 @@ import com.thoughtworks.go.server.materials.MaterialUpdateService;
 import com.thoughtworks.go.server.materials.SCMMaterialSource;
 import com.thoughtworks.go.server.newsecurity.filters.InvalidateAuthenticationOnSecurityConfigChangeFilter;
 import com.thoughtworks.go.server.service.*;
+import com.thoughtworks.go.server.service.dd.FanInGraphCache;
 import com.thoughtworks.go.server.service.support.ResourceMonitoring;
 import com.thoughtworks.go.server.service.support.toggle.FeatureToggleService;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
@@ -45,6 +46,11 @@ import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.thoughtworks.go.server.initializers.StartupWarmUp.background;
+import static com.thoughtworks.go.server.initializers.StartupWarmUp.critical;
 
 @Component
 public class ApplicationInitializer implements ApplicationListener<ContextRefreshedEvent> {
@@ -86,6 +92,10 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
     @Autowired private BackupService backupService;
     @Autowired private DataSource dataSource;
     @Autowired private RevokeStaleAccessTokenService revokeStaleAccessTokenService;
+    @Autowired private StartupWarmUp startupWarmUp;
+    @Autowired private FanInGraphCache fanInGraphCache;
+    @Autowired private ValueStreamMapWarmUp valueStreamMapWarmUp;
+    @Autowired private ZipArtifactCacheWarmUp zipArtifactCacheWarmUp;
 
     @Value("${cruise.daemons.enabled}")
     private boolean daemonsEnabled;
@@ -130,17 +140,18 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
             materialUpdateService.initialize();
             pipelineLabelCorrector.correctPipelineLabelCountEntries();
             pipelineScheduler.initialize();
+            fanInGraphCache.initialize();
             invalidateAuthenticationOnSecurityConfigChangeFilter.initialize();
 
-            pipelineTimeline.updateTimelineOnInit();
-            pipelineSqlMapDao.initialize();
-            consoleActivityMonitor.populateActivityMap();
+            startupWarmUp.run(warmUpPhases());
             timerScheduler.initialize();
             backupScheduler.initialize();
             goDiskSpaceMonitor.initialize();
             railsAssetsService.initialize();
             ccTrayActivityListener.initialize();
             dashboardActivityListener.initialize();
+            valueStreamMapWarmUp.initialize();
+            zipArtifactCacheWarmUp.initialize();
 
             ServletHelper.init();
             // initialize static accessors
@@ -161,10 +172,27 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
         }
     }
 
+    private StartupWarmUp.Phase[] warmUpPhases() {
+        List<StartupWarmUp.Phase> phases = new ArrayList<>(List.of(
+            critical("Pipeline timeline", pipelineTimeline::updateTimelineOnInit),
+            startupWarmUp.deferrable("Active pipelines", pipelineSqlMapDao::initialize, pipelineSqlMapDao::warmUpActivePipelines),
+            critical("Console activity", consoleActivityMonitor::populateActivityMap),
+            background("Entity hashes", entityHashingService::warmUp)
+        ));
+        if (daemonsEnabled) {
+            // loaded by the daemons started once the critical phases are done
+            phases.add(background("Dashboard", dashboardActivityListener::awaitInitialLoad));
+            phases.add(background("CCTray", ccTrayActivityListener::awaitInitialLoad));
+        }
+        return phases.toArray(new StartupWarmUp.Phase[0]);
+    }
+
     private void startDaemons() {
         try {
             dashboardActivityListener.startDaemon();
             ccTrayActivityListener.startDaemon();
+            valueStreamMapWarmUp.startDaemon();
+            zipArtifactCacheWarmUp.startDaemon();
         } catch (Throwable throwable) {
             throw new RuntimeException(throwable);
         }
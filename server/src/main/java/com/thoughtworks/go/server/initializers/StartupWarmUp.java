@@ -0,0 +1,185 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.initializers;
+
+import com.thoughtworks.go.server.service.support.ServerInfoProvider;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.thoughtworks.go.util.SystemEnvironment.GO_STARTUP_WARMUP_LAZY;
+import static com.thoughtworks.go.util.SystemEnvironment.GO_STARTUP_WARMUP_THREADS;
+
+/**
+ * Understands warming up caches on server startup. Independent phases run in parallel. Startup waits for the critical
+ * phases, while the others carry on in the background and the caches they would have filled get filled on first use
+ * instead. The time taken by each phase is logged and reported in the support API.
+ */
+@Component
+public class StartupWarmUp implements ServerInfoProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    private final SystemEnvironment systemEnvironment;
+    private final Map<String, PhaseStatus> statuses = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Autowired
+    public StartupWarmUp(SystemEnvironment systemEnvironment) {
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public static Phase critical(String name, Runnable loader) {
+        return new Phase(name, loader, true);
+    }
+
+    public static Phase background(String name, Runnable loader) {
+        return new Phase(name, loader, false);
+    }
+
+    /**
+     * @return a critical phase that runs {@code eagerLoader}, or, when {@code go.startup.warmup.lazy} is turned on, a
+     * background phase that runs {@code lazyLoader}, which must only fill caches that are safe to fill while the
+     * server is serving requests
+     */
+    public Phase deferrable(String name, Runnable eagerLoader, Runnable lazyLoader) {
+        return systemEnvironment.get(GO_STARTUP_WARMUP_LAZY) ? background(name, lazyLoader) : critical(name, eagerLoader);
+    }
+
+    public void run(Phase... phases) {
+        long startedAt = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(phases.length, systemEnvironment.get(GO_STARTUP_WARMUP_THREADS))), threadFactory());
+        try {
+            for (Phase phase : phases) {
+                statuses.put(phase.name, new PhaseStatus(phase.critical));
+            }
+            // critical phases are submitted first, so that they never queue behind a background phase for a thread
+            Map<Phase, Future<?>> criticalPhases = new LinkedHashMap<>();
+            for (Phase phase : phases) {
+                if (phase.critical) {
+                    criticalPhases.put(phase, executor.submit(() -> runTimed(phase)));
+                }
+            }
+            for (Phase phase : phases) {
+                if (!phase.critical) {
+                    executor.submit(() -> runTimed(phase));
+                }
+            }
+            for (Map.Entry<Phase, Future<?>> entry : criticalPhases.entrySet()) {
+                await(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        LOGGER.info("[Startup Warm-up] Critical phases done in {}ms.", System.currentTimeMillis() - startedAt);
+    }
+
+    private void runTimed(Phase phase) {
+        PhaseStatus status = statuses.get(phase.name);
+        long startedAt = System.currentTimeMillis();
+        LOGGER.info("[Startup Warm-up] {}...Started", phase.name);
+        try {
+            phase.loader.run();
+            status.done(System.currentTimeMillis() - startedAt, null);
+            LOGGER.info("[Startup Warm-up] {}...Done in {}ms", phase.name, System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            status.done(System.currentTimeMillis() - startedAt, e);
+            if (phase.critical) {
+                throw e;
+            }
+            LOGGER.warn("[Startup Warm-up] {}...Failed after {}ms. The cache will be filled on first use.", phase.name, System.currentTimeMillis() - startedAt, e);
+        }
+    }
+
+    private void await(Phase phase, Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for " + phase.name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "startup-warm-up-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public double priority() {
+        return 12.3;
+    }
+
+    @Override
+    public Map<String, Object> asJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        synchronized (statuses) {
+            statuses.forEach((name, status) -> json.put(name, status.asJson()));
+        }
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return "Startup Warm-up";
+    }
+
+    public static class Phase {
+        private final String name;
+        private final Runnable loader;
+        private final boolean critical;
+
+        private Phase(String name, Runnable loader, boolean critical) {
+            this.name = name;
+            this.loader = loader;
+            this.critical = critical;
+        }
+    }
+
+    private static class PhaseStatus {
+        private final boolean critical;
+        private volatile Long durationInMillis;
+        private volatile String failure;
+
+        private PhaseStatus(boolean critical) {
+            this.critical = critical;
+        }
+
+        private void done(long durationInMillis, Exception failure) {
+            this.failure = failure == null ? null : failure.getMessage();
+            this.durationInMillis = durationInMillis;
+        }
+
+        private Map<String, Object> asJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Critical", critical);
+            json.put("Status", durationInMillis == null ? "Running" : failure == null ? "Done" : "Failed: " + failure);
+            json.put("Duration (ms)", durationInMillis);
+            return json;
+        }
+    }
+}
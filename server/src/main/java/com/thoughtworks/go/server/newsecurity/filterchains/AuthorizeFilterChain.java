@@ -113,6 +113,7 @@ public class AuthorizeFilterChain extends FilterChainProxy {
 
                 .addAuthorityFilterChain("/api/config-repository.git/**", apiAccessDeniedHandler, ROLE_SUPERVISOR)
                 .addAuthorityFilterChain("/api/support", apiAccessDeniedHandler, ROLE_SUPERVISOR)
+                .addAuthorityFilterChain("/api/support/database", apiAccessDeniedHandler, ROLE_SUPERVISOR)
 
                 // any other APIs require `ROLE_USER`
                 .addAuthorityFilterChain("/api/**", apiAccessDeniedHandler, ROLE_USER)
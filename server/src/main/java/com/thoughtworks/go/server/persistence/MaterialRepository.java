@@ -761,8 +761,13 @@ public class MaterialRepository extends HibernateDaoSupport {
 
         try {
             checkAndRemoveDuplicates(materialInstance, newChanges, list);
-            for (Modification modification : list) {
-                getHibernateTemplate().saveOrUpdate(modification);
+            int batchSize = new SystemEnvironment().get(SystemEnvironment.MODIFICATIONS_INSERT_BATCH_SIZE);
+            if (batchSize > 0 && list.stream().noneMatch(Modification::hasId)) {
+                insertInBatches(list, batchSize);
+            } else {
+                for (Modification modification : list) {
+                    getHibernateTemplate().saveOrUpdate(modification);
+                }
             }
         } catch (Exception e) {
             String message = "Cannot save modification: ";
@@ -774,6 +779,19 @@ public class MaterialRepository extends HibernateDaoSupport {
         removeCachedModificationsFor(materialInstance);
     }
 
+    private void insertInBatches(List<Modification> modifications, int batchSize) {
+        if (modifications.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        getHibernateTemplate().execute(session -> {
+            session.flush();
+            session.doWork(connection -> new ModificationsBatchInserter(batchSize).insert(connection, modifications));
+            return null;
+        });
+        LOGGER.debug("Inserted {} modifications in batches of {} in {}ms", modifications.size(), batchSize, System.currentTimeMillis() - startTime);
+    }
+
     private void checkAndRemoveDuplicates(MaterialInstance materialInstance,
                                           List<Modification> newChanges,
                                           List<Modification> list) {
@@ -894,14 +912,20 @@ public class MaterialRepository extends HibernateDaoSupport {
                 + " FROM modifications AS m"
                 + " INNER JOIN materials mat ON mat.id = m.materialId"
                 + " WHERE mat.fingerprint = :finger_print"
+                // keep the searched expressions as they are, they match the trigram indexes created on PostgreSQL
                 + " AND (m.revision || ' ' || COALESCE(m.username, '') || ' ' || COALESCE(m.comment, '') LIKE :search_string OR m.pipelineLabel LIKE :search_string)"
-                + " ORDER BY m.id DESC"
+                + " ORDER BY CASE WHEN m.revision = :exact_string OR m.pipelineLabel = :exact_string THEN 0"
+                + "               WHEN m.revision LIKE :prefix_string OR m.pipelineLabel LIKE :prefix_string THEN 1"
+                + "               ELSE 2 END,"
+                + " m.id DESC"
                 + " LIMIT 5";
             SQLQuery query = session.createSQLQuery(sql);
             query.addEntity("m", Modification.class);
             Material material = materialConfigConverter.toMaterial(materialConfig);
             query.setString("finger_print", material.getFingerprint());
             query.setString("search_string", "%" + searchString + "%");
+            query.setString("exact_string", searchString);
+            query.setString("prefix_string", searchString + "%");
             final List<MatchedRevision> list = new ArrayList<>();
             //noinspection unchecked
             for (Modification mod : (List<Modification>) query.list()) {
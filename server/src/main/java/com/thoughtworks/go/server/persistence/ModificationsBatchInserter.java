@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.persistence;
+
+import com.google.common.collect.Lists;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.domain.materials.ModifiedFile;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Understands inserting new modifications, and their modified files, using JDBC batches instead of one Hibernate
+ * insert per row. Generated ids are read back into the given objects, just like a Hibernate save would.
+ */
+class ModificationsBatchInserter {
+    private static final String INSERT_MODIFICATION = "INSERT INTO modifications " +
+        "(revision, comment, emailAddress, modifiedTime, userName, pipelineLabel, pipelineId, additionalData, materialId) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_MODIFIED_FILE = "INSERT INTO modifiedFiles " +
+        "(modificationId, action, fileName, folderName) " +
+        "VALUES (?, ?, ?, ?)";
+    // asked for by name: some drivers (e.g. PostgreSQL) return every column of the inserted row as generated keys
+    private static final String[] GENERATED_KEY_COLUMNS = {"id"};
+
+    private final int batchSize;
+
+    ModificationsBatchInserter(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    void insert(Connection connection, List<Modification> modifications) throws SQLException {
+        for (List<Modification> batch : Lists.partition(modifications, batchSize)) {
+            insertModifications(connection, batch);
+        }
+
+        List<ModifiedFileOf> files = new ArrayList<>();
+        for (Modification modification : modifications) {
+            for (ModifiedFile file : modification.getModifiedFiles()) {
+                file.setModificationId(modification.getId());
+                files.add(new ModifiedFileOf(modification.getId(), file));
+            }
+        }
+        for (List<ModifiedFileOf> batch : Lists.partition(files, batchSize)) {
+            insertModifiedFiles(connection, batch);
+        }
+    }
+
+    private void insertModifications(Connection connection, List<Modification> batch) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_MODIFICATION, GENERATED_KEY_COLUMNS)) {
+            for (Modification modification : batch) {
+                statement.setString(1, modification.getRevision());
+                statement.setString(2, modification.getComment());
+                statement.setString(3, modification.getEmailAddress());
+                statement.setTimestamp(4, modification.getModifiedTime() == null ? null : new Timestamp(modification.getModifiedTime().getTime()));
+                statement.setString(5, modification.getUserName());
+                statement.setString(6, modification.getPipelineLabel());
+                statement.setObject(7, modification.getPipelineId(), Types.BIGINT);
+                statement.setString(8, modification.getAdditionalData());
+                statement.setLong(9, modification.getMaterialInstance().getId());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            List<Long> ids = generatedKeys(statement, batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setId(ids.get(i));
+            }
+        }
+    }
+
+    private void insertModifiedFiles(Connection connection, List<ModifiedFileOf> batch) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_MODIFIED_FILE, GENERATED_KEY_COLUMNS)) {
+            for (ModifiedFileOf modifiedFileOf : batch) {
+                ModifiedFile file = modifiedFileOf.file;
+                statement.setLong(1, modifiedFileOf.modificationId);
+                statement.setString(2, file.getAction() == null ? null : file.getAction().name());
+                statement.setString(3, file.getFileName());
+                statement.setString(4, file.getFolderName());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            List<Long> ids = generatedKeys(statement, batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).file.setId(ids.get(i));
+            }
+        }
+    }
+
+    private List<Long> generatedKeys(PreparedStatement statement, int expected) throws SQLException {
+        List<Long> ids = new ArrayList<>(expected);
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            // MySQL ignores the requested names and returns the key alone, in a column with a name of its own
+            int idColumn = keys.getMetaData().getColumnCount() == 1 ? 1 : keys.findColumn(GENERATED_KEY_COLUMNS[0]);
+            while (keys.next()) {
+                ids.add(keys.getLong(idColumn));
+            }
+        }
+        if (ids.size() != expected) {
+            throw new IllegalStateException(String.format("Expected %s generated ids from batch insert, but got %s", expected, ids.size()));
+        }
+        return ids;
+    }
+
+    private static class ModifiedFileOf {
+        private final long modificationId;
+        private final ModifiedFile file;
+
+        private ModifiedFileOf(long modificationId, ModifiedFile file) {
+            this.modificationId = modificationId;
+            this.file = file;
+        }
+    }
+}
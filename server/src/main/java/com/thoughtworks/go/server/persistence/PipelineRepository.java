@@ -35,6 +35,7 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Understands how to store and retrieve pipelines from the database
@@ -61,6 +62,33 @@ public class PipelineRepository extends HibernateDaoSupport {
     }
 
 public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, final List<PipelineTimelineEntry> tempEntriesForRollback) {
+        LOGGER.info("Start updating pipeline timeline");
+        populatePipelineTimeline(pipelineTimeline, tempEntriesForRollback, session -> {
+            SQLQuery query = session.createSQLQuery(queryExtensions.retrievePipelineTimeline());
+            query.setLong("pipelineId", pipelineTimeline.maximumId());
+            return query;
+        });
+        LOGGER.info("Pipeline timeline updated");
+    }
+
+    /**
+     * Adds the runs of one pipeline with an id below {@code beforePipelineId} to a timeline which is loaded lazily
+     */
+    public void loadPipelineTimeline(final PipelineTimeline pipelineTimeline, final String pipelineName, final long beforePipelineId) {
+        populatePipelineTimeline(pipelineTimeline, new ArrayList<>(), session -> {
+            SQLQuery query = session.createSQLQuery(queryExtensions.retrievePipelineTimelineFor());
+            query.setString("pipelineName", pipelineName);
+            query.setLong("pipelineId", beforePipelineId);
+            return query;
+        });
+    }
+
+    public long latestPipelineId() {
+        Number latestId = (Number) getHibernateTemplate().execute(session -> session.createSQLQuery("SELECT MAX(id) FROM pipelines").uniqueResult());
+        return latestId == null ? -1 : latestId.longValue();
+    }
+
+    private void populatePipelineTimeline(final PipelineTimeline pipelineTimeline, final List<PipelineTimelineEntry> tempEntriesForRollback, final Function<Session, SQLQuery> timelineQuery) {
         getHibernateTemplate().execute(new HibernateCallback() {
             private static final int PIPELINE_NAME = 0;
             private static final int ID = 1;
@@ -75,13 +103,11 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
 
             @Override
             public Object doInHibernate(Session session) throws HibernateException {
-                LOGGER.info("Start updating pipeline timeline");
-                List<Object[]> matches = retrieveTimeline(session, pipelineTimeline);
+                List<Object[]> matches = retrieveTimeline(session);
                 List<PipelineTimelineEntry> newPipelines = populateFrom(matches);
                 addEntriesToPipelineTimeline(newPipelines, pipelineTimeline, tempEntriesForRollback);
 
                 updateNaturalOrdering(session, newPipelines);
-                LOGGER.info("Pipeline timeline updated");
                 return null;
             }
 
@@ -103,11 +129,8 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
                 return matches;
             }
 
-            private List<Object[]> retrieveTimeline(Session session, PipelineTimeline pipelineTimeline) {
-                SQLQuery query = session.createSQLQuery(queryExtensions.retrievePipelineTimeline());
-                query.setLong("pipelineId", pipelineTimeline.maximumId());
-
-                List<Object[]> matches = loadTimeline(query);
+            private List<Object[]> retrieveTimeline(Session session) {
+                List<Object[]> matches = loadTimeline(timelineQuery.apply(session));
                 sortTimeLineByPidAndPmrId(matches);
                 return matches;
             }
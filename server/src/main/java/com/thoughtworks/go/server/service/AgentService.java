@@ -428,6 +428,7 @@ public class AgentService implements DatabaseEntityChangeListener<Agent> {
     private void notifyAgentChangeListenersAndSyncAgentFromUpdatedAgent(Agent agentAfterUpdate, AgentInstance agentInstanceBeforeUpdate) {
         notifyAgentChangeListeners(agentAfterUpdate);
         agentInstanceBeforeUpdate.syncAgentFrom(agentAfterUpdate);
+        agentInstances.add(agentInstanceBeforeUpdate);
     }
 
     private void createNewAgentInstanceAndAddToCache(Agent agentAfterUpdate) {
@@ -17,6 +17,7 @@ package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.config.ServerConfig;
 import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
 import com.thoughtworks.go.server.messaging.SendEmailMessage;
 import com.thoughtworks.go.server.service.result.OperationResult;
 import com.thoughtworks.go.server.service.result.ServerHealthStateOperationResult;
@@ -34,13 +35,15 @@ public class ArtifactsDiskCleaner extends DiskSpaceChecker {
     private final ArtifactsService artifactService;
     private final StageService stageService;
     private final ConfigDbStateRepository configDbStateRepository;
+    private final ZipArtifactCache zipArtifactCache;
 
     public ArtifactsDiskCleaner(SystemEnvironment systemEnvironment, GoConfigService goConfigService, final SystemDiskSpaceChecker diskSpaceChecker, ArtifactsService artifactService,
-                                StageService stageService, ConfigDbStateRepository configDbStateRepository) {
+                                ZipArtifactCache zipArtifactCache, StageService stageService, ConfigDbStateRepository configDbStateRepository) {
         super(null, systemEnvironment, goConfigService.artifactsDir(), goConfigService, ArtifactsDiskSpaceFullChecker.ARTIFACTS_DISK_FULL_ID, diskSpaceChecker);
         this.artifactService = artifactService;
         this.stageService = stageService;
         this.configDbStateRepository = configDbStateRepository;
+        this.zipArtifactCache = zipArtifactCache;
         cleaner = new Thread(() -> {
             try {
                 while (true) {
@@ -63,6 +66,8 @@ public class ArtifactsDiskCleaner extends DiskSpaceChecker {
         if (serverConfig.isArtifactPurgingAllowed()) {
             double requiredSpace = requiredSpaceInGb * GoConstants.GIGA_BYTE;
             LOGGER.info("Clearing old artifacts as the disk space is low. Current space: '{}'. Need to clear till we hit: '{}'.", availableSpace(), requiredSpace);
+            int zipsDeleted = zipArtifactCache.evictLeastRecentlyUsed(null, () -> availableSpace() > requiredSpace);
+            LOGGER.info("Deleted '{}' cached artifact zips. Current space: '{}'", zipsDeleted, availableSpace());
             List<Stage> stages;
             int numberOfStagesPurged = 0;
             do {
@@ -23,8 +23,8 @@ import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.builder.Builder;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.domain.materials.Material;
-import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.listener.IncrementalConfigChangedListener;
 import com.thoughtworks.go.plugin.access.exceptions.SecretResolutionFailureException;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.*;
@@ -59,7 +59,7 @@ import static java.util.stream.StreamSupport.stream;
  * Understands how to assign work to agents
  */
 @Service
-public class BuildAssignmentService implements ConfigChangedListener {
+public class BuildAssignmentService implements IncrementalConfigChangedListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(BuildAssignmentService.class.getName());
     public static final NoWork NO_WORK = new NoWork();
     public static final String GO_PIPELINE_GROUP_NAME = "GO_PIPELINE_GROUP_NAME";
@@ -260,6 +260,24 @@ public class BuildAssignmentService implements ConfigChangedListener {
         }
     }
 
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changeSet) {
+        if (!changeSet.hasPipelineChanges()) {
+            return;
+        }
+        LOGGER.info("[Configuration Changed] Removing jobs for changed pipelines that no longer exist in configuration.");
+        synchronized (this) {
+            List<JobPlan> jobsToRemove = new ArrayList<>();
+            for (JobPlan jobPlan : jobPlans) {
+                CaseInsensitiveString pipelineName = new CaseInsensitiveString(jobPlan.getPipelineName());
+                if (changeSet.hasPipelineChanged(pipelineName) && !newCruiseConfig.hasBuildPlan(pipelineName, new CaseInsensitiveString(jobPlan.getStageName()), jobPlan.getName(), true)) {
+                    jobsToRemove.add(jobPlan);
+                }
+            }
+            IterableUtils.forEach(jobsToRemove, this::removeJob);
+        }
+    }
+
     private void removeJobIfNotPresentInCruiseConfig(CruiseConfig newCruiseConfig, JobPlan jobPlan) {
         if (!newCruiseConfig.hasBuildPlan(new CaseInsensitiveString(jobPlan.getPipelineName()), new CaseInsensitiveString(jobPlan.getStageName()), jobPlan.getName(), true)) {
             removeJob(jobPlan);
@@ -206,9 +206,9 @@ public class ElasticAgentPluginService {
 //      messageTimeToLive is lesser than the starvation threshold to ensure there are no duplicate create agent message
         long messageTimeToLive = goConfigService.elasticJobStarvationThreshold() - 10000;
 
+        Map<ProfileKey, List<JobPlan>> plansByProfile = new LinkedHashMap<>();
         for (JobPlan plan : plansThatRequireElasticAgent) {
             jobCreationTimeMap.put(plan.getJobId(), timeProvider.currentTimeMillis());
-            ElasticProfile elasticProfile = plan.getElasticProfile();
             ClusterProfile clusterProfile = plan.getClusterProfile();
             JobIdentifier jobIdentifier = plan.getIdentifier();
             if (clusterProfile == null) {
@@ -222,18 +222,7 @@ public class ElasticAgentPluginService {
                 logToJobConsole(jobIdentifier, cancellationMessage);
                 scheduleService.cancelJob(jobIdentifier);
             } else if (elasticAgentPluginRegistry.has(clusterProfile.getPluginId())) {
-                String environment = environmentConfigService.envForPipeline(plan.getPipelineName());
-                try {
-                    resolveSecrets(clusterProfile, elasticProfile);
-                    createAgentQueue.post(new CreateAgentMessage(ephemeralAutoRegisterKeyService.autoRegisterKey(), environment, elasticProfile, clusterProfile, jobIdentifier), messageTimeToLive);
-                    serverHealthService.removeByScope(scopeForJob(jobIdentifier));
-                } catch (RulesViolationException | SecretResolutionFailureException e) {
-                    JobInstance jobInstance = jobInstanceSqlMapDao.buildById(plan.getJobId());
-                    String failureMessage = format("\nThis job was failed by GoCD. This job is configured to run on an elastic agent, there were errors while resolving secrets for the the associated elastic configurations.\nReasons: %s", e.getMessage());
-                    logToJobConsole(jobIdentifier, failureMessage);
-                    scheduleService.failJob(jobInstance);
-                    jobStatusTopic.post(new JobStatusMessage(jobIdentifier, jobInstance.getState(), plan.getAgentUuid()));
-                }
+                plansByProfile.computeIfAbsent(new ProfileKey(clusterProfile, plan.getElasticProfile()), key -> new ArrayList<>()).add(plan);
             } else {
                 String jobConfigIdentifier = jobIdentifier.jobConfigIdentifier().toString();
                 String description = format("Plugin [%s] associated with %s is missing. Either the plugin is not " +
@@ -244,6 +233,36 @@ public class ElasticAgentPluginService {
                 LOGGER.error(description);
             }
         }
+
+        plansByProfile.values().forEach(plans -> postCreateAgentMessages(plans, messageTimeToLive));
+    }
+
+    /**
+     * Resolves secrets once for all the plans sharing an elastic profile and cluster profile. Each plan still gets a
+     * message of its own, so that the plugin calls are spread over the create agent listeners.
+     */
+    private void postCreateAgentMessages(List<JobPlan> plansWithSameProfiles, long messageTimeToLive) {
+        JobPlan first = plansWithSameProfiles.get(0);
+        ElasticProfile elasticProfile = first.getElasticProfile();
+        ClusterProfile clusterProfile = first.getClusterProfile();
+        try {
+            resolveSecrets(clusterProfile, elasticProfile);
+        } catch (RulesViolationException | SecretResolutionFailureException e) {
+            for (JobPlan plan : plansWithSameProfiles) {
+                JobInstance jobInstance = jobInstanceSqlMapDao.buildById(plan.getJobId());
+                String failureMessage = format("\nThis job was failed by GoCD. This job is configured to run on an elastic agent, there were errors while resolving secrets for the the associated elastic configurations.\nReasons: %s", e.getMessage());
+                logToJobConsole(plan.getIdentifier(), failureMessage);
+                scheduleService.failJob(jobInstance);
+                jobStatusTopic.post(new JobStatusMessage(plan.getIdentifier(), jobInstance.getState(), plan.getAgentUuid()));
+            }
+            return;
+        }
+
+        for (JobPlan plan : plansWithSameProfiles) {
+            String environment = environmentConfigService.envForPipeline(plan.getPipelineName());
+            createAgentQueue.post(new CreateAgentMessage(ephemeralAutoRegisterKeyService.autoRegisterKey(), environment, elasticProfile, clusterProfile, plan.getIdentifier()), messageTimeToLive);
+            serverHealthService.removeByScope(scopeForJob(plan.getIdentifier()));
+        }
     }
 
     public boolean shouldAssignWork(ElasticAgentMetadata metadata, String environment, ElasticProfile elasticProfile, ClusterProfile clusterProfile, JobIdentifier identifier) {
@@ -390,4 +409,27 @@ public class ElasticAgentPluginService {
             secretParamResolver.resolve(clusterProfile);
         secretParamResolver.resolve(elasticProfile);
     }
+
+    private static class ProfileKey {
+        private final ClusterProfile clusterProfile;
+        private final ElasticProfile elasticProfile;
+
+        private ProfileKey(ClusterProfile clusterProfile, ElasticProfile elasticProfile) {
+            this.clusterProfile = clusterProfile;
+            this.elasticProfile = elasticProfile;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ProfileKey that = (ProfileKey) o;
+            return Objects.equals(clusterProfile, that.clusterProfile) && Objects.equals(elasticProfile, that.elasticProfile);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clusterProfile, elasticProfile);
+        }
+    }
 }
@@ -20,16 +20,13 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSerializer;
-import com.thoughtworks.go.config.ConfigCache;
 import com.thoughtworks.go.config.EnvironmentVariableConfig;
-import com.thoughtworks.go.config.MagicalGoConfigXmlWriter;
-import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.domain.config.ConfigurationProperty;
 import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.plugin.api.info.PluginDescriptor;
 import com.thoughtworks.go.plugin.domain.common.PluginInfo;
 import com.thoughtworks.go.server.util.DigestMixin;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.thoughtworks.go.server.util.StructuralDigest;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
@@ -45,13 +42,6 @@ public class EntityHashes implements DigestMixin {
             registerTypeAdapter(Modification.class, Serializers.MODIFICATION).
             create();
 
-    private final MagicalGoConfigXmlWriter xmlSerializer;
-
-    @Autowired
-    public EntityHashes(ConfigCache configCache, ConfigElementImplementationRegistry registry) {
-        xmlSerializer = new MagicalGoConfigXmlWriter(configCache, registry);
-    }
-
     /**
      * Computes a cryptographic digest of a collection's contents
      *
@@ -68,18 +58,20 @@ public class EntityHashes implements DigestMixin {
                 collect(Collectors.joining(SEP_CHAR)));
     }
 
+    /**
+     * Digests a config entity from its config fields, without serializing it to xml first
+     *
+     * @param entity a config entity
+     * @return a cryptographic hex digest ({@link String}), stable across server restarts
+     */
     public String digestDomainConfigEntity(Object entity) {
-        return digest(serializeDomainEntity(entity));
+        return StructuralDigest.digestHex(entity);
     }
 
     public String digestDomainNonConfigEntity(Object entity) {
         return digest(GSON.toJson(entity));
     }
 
-    protected String serializeDomainEntity(Object domainObject) {
-        return xmlSerializer.toXmlPartial(domainObject);
-    }
-
     private interface Serializers {
         /**
          * Custom serializer for encrypted data to ensure stable JSON output when crypto salt changes
@@ -30,8 +30,8 @@ import com.thoughtworks.go.domain.packagerepository.PackageRepository;
 import com.thoughtworks.go.domain.packagerepository.Packages;
 import com.thoughtworks.go.domain.scm.SCM;
 import com.thoughtworks.go.domain.scm.SCMs;
-import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.listener.IncrementalConfigChangedListener;
 import com.thoughtworks.go.plugin.domain.common.CombinedPluginInfo;
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.domain.PluginSettings;
@@ -42,13 +42,20 @@ import org.springframework.stereotype.Component;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 @Component
-public class EntityHashingService implements ConfigChangedListener, Initializer {
+public class EntityHashingService implements IncrementalConfigChangedListener, Initializer {
     static final String ETAG_CACHE_KEY = "GO_ETAG_CACHE";
+    /**
+     * Digests of the entities a {@link ConfigChangeSet} tells about. These survive config saves that do not touch
+     * them; everything else lives under {@link #ETAG_CACHE_KEY} and is dropped on every config change.
+     */
+    static final String TRACKED_ETAG_CACHE_KEY = "GO_TRACKED_ETAG_CACHE";
+    private static final Set<Class<?>> TRACKED_ENTITIES = Set.of(PipelineConfig.class, PipelineTemplateConfig.class, BasicEnvironmentConfig.class);
 
     private final GoConfigService goConfigService;
     private final GoCache goCache;
@@ -216,9 +223,52 @@ public class EntityHashingService implements ConfigChangedListener, Initializer
     public void startDaemon() {
     }
 
+    /**
+     * Digests the pipelines, templates and environments of the current config, so that the first requests for them
+     * are answered from the cache. Stops as soon as the config changes, as what is left would be digests of old config.
+     */
+    public void warmUp() {
+        CruiseConfig config = goConfigService.currentCruiseConfig();
+        for (PipelineConfigs group : config.getGroups()) {
+            for (PipelineConfig pipelineConfig : group) {
+                if (config != goConfigService.currentCruiseConfig()) {
+                    return;
+                }
+                hashForEntity(pipelineConfig, group.getGroup());
+            }
+        }
+        for (PipelineTemplateConfig template : config.getTemplates()) {
+            if (config != goConfigService.currentCruiseConfig()) {
+                return;
+            }
+            hashForEntity(template);
+        }
+        for (EnvironmentConfig environment : config.getEnvironments()) {
+            if (config != goConfigService.currentCruiseConfig()) {
+                return;
+            }
+            hashForEntity(environment);
+        }
+    }
+
     @Override
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         goCache.remove(ETAG_CACHE_KEY);
+        goCache.remove(TRACKED_ETAG_CACHE_KEY);
+    }
+
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changeSet) {
+        goCache.remove(ETAG_CACHE_KEY);
+        for (CaseInsensitiveString pipeline : changeSet.getChangedPipelines()) {
+            goCache.remove(TRACKED_ETAG_CACHE_KEY, cacheKey(PipelineConfig.class, pipeline.toLower()));
+        }
+        for (CaseInsensitiveString template : changeSet.getChangedTemplates()) {
+            goCache.remove(TRACKED_ETAG_CACHE_KEY, cacheKey(PipelineTemplateConfig.class, template.toLower()));
+        }
+        for (CaseInsensitiveString environment : changeSet.getChangedEnvironments()) {
+            goCache.remove(TRACKED_ETAG_CACHE_KEY, cacheKey(BasicEnvironmentConfig.class, environment.toLower()));
+        }
     }
 
     public String hashForEntity(PipelineTemplateConfig config) {
@@ -354,6 +404,7 @@ public class EntityHashingService implements ConfigChangedListener, Initializer
 
     public String hashForEntity(PipelineConfig pipelineConfig, String groupName) {
         return getFromCache(
+                pipelineConfig,
                 cacheKey(pipelineConfig, pipelineConfig.name()),
                 () -> hashes.digest(
                         hashes.digestDomainConfigEntity(pipelineConfig),
@@ -390,7 +441,7 @@ public class EntityHashingService implements ConfigChangedListener, Initializer
 
     public String hashForEntity(ArtifactConfig artifactConfig) {
         String cacheKey = cacheKey(artifactConfig, "cacheKey");
-        return getFromCache(cacheKey, () -> String.valueOf(Objects.hash(artifactConfig)));
+        return getFromCache(artifactConfig, cacheKey, () -> String.valueOf(Objects.hash(artifactConfig)));
     }
 
     /**
@@ -418,7 +469,7 @@ public class EntityHashingService implements ConfigChangedListener, Initializer
     }
 
     public void removeFromCache(Object domainObject, String name) {
-        goCache.remove(ETAG_CACHE_KEY, cacheKey(domainObject, name));
+        goCache.remove(cacheKeyFor(domainObject), cacheKey(domainObject, name));
     }
 
     /**
@@ -443,7 +494,15 @@ public class EntityHashingService implements ConfigChangedListener, Initializer
     }
 
     private String cacheKey(Object domainObject, String name) {
-        return classnameOf(domainObject) + "." + name;
+        return cacheKey(domainObject.getClass(), name);
+    }
+
+    private String cacheKey(Class<?> entityType, String name) {
+        return entityType.getName() + "." + name;
+    }
+
+    private String cacheKeyFor(Object domainObject) {
+        return TRACKED_ENTITIES.contains(domainObject.getClass()) ? TRACKED_ETAG_CACHE_KEY : ETAG_CACHE_KEY;
     }
 
     /**
@@ -465,7 +524,7 @@ public class EntityHashingService implements ConfigChangedListener, Initializer
      * @return the content digest of the entity (possibly retrieved from a cache hit)
      */
     private String getNonConfigEntityDigestFromCache(String cacheKey, Object entity) {
-        return getFromCache(cacheKey, () -> hashes.digestDomainNonConfigEntity(entity));
+        return getFromCache(entity, cacheKey, () -> hashes.digestDomainNonConfigEntity(entity));
     }
 
     /**
@@ -477,23 +536,20 @@ public class EntityHashingService implements ConfigChangedListener, Initializer
      * @return the content digest of the entity (possibly retrieved from a cache hit)
      */
     private String getConfigEntityDigestFromCache(String cacheKey, Object entity) {
-        return getFromCache(cacheKey, () -> hashes.digestDomainConfigEntity(entity));
+        return getFromCache(entity, cacheKey, () -> hashes.digestDomainConfigEntity(entity));
     }
 
-    private String getFromCache(String cacheKey, Supplier<String> digestSupplier) {
-        final String cached = (String) goCache.get(ETAG_CACHE_KEY, cacheKey);
+    private String getFromCache(Object entity, String cacheKey, Supplier<String> digestSupplier) {
+        final String parentKey = cacheKeyFor(entity);
+        final String cached = (String) goCache.get(parentKey, cacheKey);
 
         if (cached != null) {
             return cached;
         }
 
         final String digest = digestSupplier.get();
-        goCache.put(ETAG_CACHE_KEY, cacheKey, digest);
+        goCache.put(parentKey, cacheKey, digest);
 
         return digest;
     }
-
-    private String classnameOf(Object entity) {
-        return entity.getClass().getName();
-    }
 }
@@ -29,12 +29,12 @@ import com.thoughtworks.go.config.update.PatchEnvironmentCommand;
 import com.thoughtworks.go.config.update.UpdateEnvironmentCommand;
 import com.thoughtworks.go.domain.AgentInstance;
 import com.thoughtworks.go.domain.ConfigElementForEdit;
-import com.thoughtworks.go.domain.EnvironmentPipelineMatchers;
+import com.thoughtworks.go.domain.EnvironmentMatchIndex;
 import com.thoughtworks.go.domain.JobPlan;
 import com.thoughtworks.go.i18n.LocalizedMessage;
 import com.thoughtworks.go.listener.AgentChangeListener;
-import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.listener.IncrementalConfigChangedListener;
 import com.thoughtworks.go.presentation.environment.EnvironmentPipelineModel;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult;
@@ -44,8 +44,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -58,14 +60,14 @@ import static java.util.stream.Collectors.toList;
  * Understands grouping of agents and pipelines within an environment
  */
 @Service
-public class EnvironmentConfigService implements ConfigChangedListener, AgentChangeListener {
+public class EnvironmentConfigService implements IncrementalConfigChangedListener, AgentChangeListener {
     public GoConfigService goConfigService;
     private SecurityService securityService;
     private EntityHashingService entityHashingService;
     private AgentService agentService;
 
     private EnvironmentsConfig environments;
-    private EnvironmentPipelineMatchers matchers;
+    private EnvironmentMatchIndex matchIndex;
     private static final Cloner cloner = ClonerFactory.instance();
 
     public EnvironmentConfigService() {
@@ -102,15 +104,12 @@ public class EnvironmentConfigService implements ConfigChangedListener, AgentCha
     }
 
     List<JobPlan> filterJobsByAgent(List<JobPlan> jobPlans, String agentUuid) {
-        return jobPlans.stream().filter(jobPlan -> matchers.match(jobPlan.getPipelineName(), agentUuid)).collect(toList());
+        return matchIndex.filterByAgent(jobPlans, JobPlan::getPipelineName, agentUuid);
     }
 
     String envForPipeline(String pipelineName) {
-        return matchers.stream()
-                .filter(matcher -> matcher.hasPipeline(pipelineName))
-                .map(matcher -> str(matcher.name()))
-                .findFirst()
-                .orElse(null);
+        CaseInsensitiveString environmentName = matchIndex.environmentOf(pipelineName);
+        return environmentName == null ? null : str(environmentName);
     }
 
     public EnvironmentConfig environmentForPipeline(String pipelineName) {
@@ -267,28 +266,89 @@ public class EnvironmentConfigService implements ConfigChangedListener, AgentCha
         removeAgentFromCurrentlyAssociatedEnvironments(uuid, new ArrayList<>(envsToRemove));
         addAgentToNewlyAssociatedEnvironments(uuid, new ArrayList<>(envToAdd));
 
-        matchers = environments.matchers();
+        matchIndex = new EnvironmentMatchIndex(environments.matchers());
     }
 
     @Override
     public void agentDeleted(Agent agent) {
         List<String> envNames = agent.getEnvironmentsAsList();
         removeAgentFromCurrentlyAssociatedEnvironments(agent.getUuid(), envNames);
-        matchers = environments.matchers();
+        matchIndex = new EnvironmentMatchIndex(environments.matchers());
     }
 
     void syncEnvironments(EnvironmentsConfig envsConfig) {
         if (envsConfig != null) {
-            environments = envsConfig;
-            agentService.getAgentInstances().forEach(this::syncAssociatedAgentFromDB);
-            matchers = envsConfig.matchers();
+            syncEnvironments(envsConfig, true);
         }
     }
 
+    private void syncEnvironments(EnvironmentsConfig envsConfig, boolean reindex) {
+        environments = envsConfig;
+        agentService.getAgentInstances().forEach(this::syncAssociatedAgentFromDB);
+        if (reindex || matchIndex == null) {
+            matchIndex = new EnvironmentMatchIndex(envsConfig.matchers());
+        }
+    }
+
+    @Override
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         syncEnvironments(newCruiseConfig.getEnvironments());
     }
 
+    /**
+     * The match index only depends on which pipelines and agents are in which environment, so it is kept as it is
+     * when no environment membership has changed.
+     */
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changeSet) {
+        EnvironmentsConfig newEnvironments = newCruiseConfig.getEnvironments();
+        if (newEnvironments != null) {
+            syncEnvironments(newEnvironments, hasMembershipChanges(environments, newEnvironments, changeSet));
+        }
+    }
+
+    /**
+     * The previous environments already have the agents associated in the DB synced into them, while the new ones do
+     * not yet, so those agents are left out and only the pipelines and agents owned by the config are compared.
+     */
+    private boolean hasMembershipChanges(EnvironmentsConfig previous, EnvironmentsConfig current, ConfigChangeSet changeSet) {
+        if (previous == null || !changeSet.getAddedEnvironments().isEmpty() || !changeSet.getRemovedEnvironments().isEmpty()) {
+            return true;
+        }
+        if (changeSet.getModifiedEnvironments().isEmpty()) {
+            return false;
+        }
+
+        Map<CaseInsensitiveString, Set<String>> agentsFromDB = agentsAssociatedFromDB();
+        for (CaseInsensitiveString name : changeSet.getModifiedEnvironments()) {
+            Set<String> syncedAgents = agentsFromDB.getOrDefault(name, Set.of());
+            if (!configOwnedMembers(previous.find(name), syncedAgents).equals(configOwnedMembers(current.find(name), syncedAgents))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<CaseInsensitiveString, Set<String>> agentsAssociatedFromDB() {
+        Map<CaseInsensitiveString, Set<String>> agentsByEnvironment = new HashMap<>();
+        for (AgentInstance agentInstance : agentService.getAgentInstances()) {
+            Agent agent = agentInstance.getAgent();
+            for (String envName : agent.getEnvironmentsAsList()) {
+                agentsByEnvironment.computeIfAbsent(new CaseInsensitiveString(envName), name -> new HashSet<>()).add(agent.getUuid());
+            }
+        }
+        return agentsByEnvironment;
+    }
+
+    private static Members configOwnedMembers(EnvironmentConfig environment, Set<String> syncedAgents) {
+        if (environment == null) {
+            return new Members(Set.of(), Set.of());
+        }
+        Set<String> agents = new HashSet<>(environment.getAgents().getUuids());
+        agents.removeAll(syncedAgents);
+        return new Members(new HashSet<>(environment.getPipelineNames()), agents);
+    }
+
     private void removeAgentFromCurrentlyAssociatedEnvironments(String uuid, List<String> envNames) {
         envNames.stream().map(this::find)
                 .filter(envConfig -> isEnvironmentAssociatedWithAgentLocally(envConfig, uuid))
@@ -348,4 +408,7 @@ public class EnvironmentConfigService implements ConfigChangedListener, AgentCha
             }
         }
     }
+
+    private record Members(Set<CaseInsensitiveString> pipelines, Set<String> agents) {
+    }
 }
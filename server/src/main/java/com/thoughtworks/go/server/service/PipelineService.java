@@ -28,7 +28,7 @@ import com.thoughtworks.go.server.dao.PipelineSqlMapDao;
 import com.thoughtworks.go.server.domain.PipelineConfigDependencyGraph;
 import com.thoughtworks.go.server.domain.PipelineTimeline;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
-import com.thoughtworks.go.server.service.dd.FanInGraph;
+import com.thoughtworks.go.server.service.dd.FanInGraphCache;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.lang3.StringUtils;
@@ -52,11 +52,11 @@ public class PipelineService implements UpstreamPipelineResolver {
     private MaterialRepository materialRepository;
     private final SystemEnvironment systemEnvironment;
     private final GoConfigService goConfigService;
-    private MaterialConfigConverter materialConfigConverter;
+    private final FanInGraphCache fanInGraphCache;
 
     @Autowired
     public PipelineService(PipelineSqlMapDao pipelineDao, StageService stageService, PipelineLockService pipelineLockService, PipelineTimeline pipelineTimeline, MaterialRepository materialRepository,
-                           TransactionTemplate transactionTemplate, SystemEnvironment systemEnvironment, GoConfigService goConfigService, MaterialConfigConverter materialConfigConverter) {
+                           TransactionTemplate transactionTemplate, SystemEnvironment systemEnvironment, GoConfigService goConfigService, FanInGraphCache fanInGraphCache) {
         this.pipelineDao = pipelineDao;
         this.stageService = stageService;
         this.pipelineLockService = pipelineLockService;
@@ -65,7 +65,7 @@ public class PipelineService implements UpstreamPipelineResolver {
         this.transactionTemplate = transactionTemplate;
         this.systemEnvironment = systemEnvironment;
         this.goConfigService = goConfigService;
-        this.materialConfigConverter = materialConfigConverter;
+        this.fanInGraphCache = fanInGraphCache;
     }
 
     public Pipeline fullPipelineById(long pipelineId) {
@@ -208,8 +208,7 @@ public class PipelineService implements UpstreamPipelineResolver {
     /* DIAMOND BEGIN */
 
     public MaterialRevisions getRevisionsBasedOnDependencies(MaterialRevisions actualRevisions, CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
-        FanInGraph fanInGraph = new FanInGraph(cruiseConfig, pipelineName, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
-        final MaterialRevisions computedRevisions = fanInGraph.computeRevisions(actualRevisions, pipelineTimeline);
+        final MaterialRevisions computedRevisions = fanInGraphCache.computeRevisions(actualRevisions, cruiseConfig, pipelineName, pipelineTimeline);
         fillUpNonOverridableRevisions(actualRevisions, computedRevisions);
         return restoreOriginalMaterialConfigAndMaterialOrderUsingFingerprint(actualRevisions, computedRevisions);
     }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.server.messaging.MultiplexingQueueProcessor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Understands doing work for completed stages one piece at a time, off the thread that reports the stage status. Work
+ * is keyed; work added for a key that is waiting or being done is dropped, so the queue holds at most one piece of work
+ * per key.
+ */
+class StageCompletionQueue<K> {
+    private final MultiplexingQueueProcessor processor;
+    private final Set<K> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean started;
+
+    StageCompletionQueue(String name) {
+        this.processor = new MultiplexingQueueProcessor(name);
+    }
+
+    void start() {
+        processor.start();
+        started = true;
+    }
+
+    /**
+     * @return whether work should be added for the stage: the queue has been started and the stage has completed
+     */
+    boolean accepts(Stage stage) {
+        return started && stage.getState().completed();
+    }
+
+    void add(K key, String description, Runnable work) {
+        if (!pending.add(key)) {
+            return;
+        }
+        processor.add(new MultiplexingQueueProcessor.Action() {
+            @Override
+            public void call() {
+                try {
+                    work.run();
+                } finally {
+                    pending.remove(key);
+                }
+            }
+
+            @Override
+            public String description() {
+                return description;
+            }
+        });
+    }
+}
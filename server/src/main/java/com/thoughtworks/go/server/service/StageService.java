@@ -35,6 +35,7 @@ import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.dao.FeedModifier;
 import com.thoughtworks.go.server.dao.PipelineDao;
 import com.thoughtworks.go.server.dao.StageDao;
+import com.thoughtworks.go.server.database.ReplicaReads;
 import com.thoughtworks.go.server.domain.StageIdentity;
 import com.thoughtworks.go.server.domain.StageStatusListener;
 import com.thoughtworks.go.server.domain.Username;
@@ -370,7 +371,8 @@ public class StageService implements StageFinder {
                                        FeedModifier feedModifier,
                                        Username username) {
         if (pipelineCounter != null) {
-            List<StageFeedEntry> feedBasedOnPipelineCounter = stageDao.findStageFeedBy(pipelineName, pipelineCounter, feedModifier, FEED_PAGE_SIZE);
+            // not cached, so it may come from the read replica; the latest feed below is cached and must come from the primary
+            List<StageFeedEntry> feedBasedOnPipelineCounter = ReplicaReads.allow(() -> stageDao.findStageFeedBy(pipelineName, pipelineCounter, feedModifier, FEED_PAGE_SIZE));
             return cloner.deepClone(new FeedEntries(new ArrayList<>(feedBasedOnPipelineCounter)));
         }
 
@@ -412,7 +414,7 @@ public class StageService implements StageFinder {
     }
 
     public FeedEntries feedBefore(long entryId, String pipelineName, Username username) {
-        List<StageFeedEntry> stageEntries = stageDao.findCompletedStagesFor(pipelineName, FeedModifier.Before, entryId, FEED_PAGE_SIZE);
+        List<StageFeedEntry> stageEntries = ReplicaReads.allow(() -> stageDao.findCompletedStagesFor(pipelineName, FeedModifier.Before, entryId, FEED_PAGE_SIZE));
         populateAuthors(stageEntries, pipelineName, username);
         return new FeedEntries(new ArrayList<>(stageEntries));
     }
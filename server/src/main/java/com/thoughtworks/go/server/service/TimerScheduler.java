@@ -16,11 +16,12 @@
 package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.ConfigChangeSet;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.TimerConfig;
-import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.listener.IncrementalConfigChangedListener;
 import com.thoughtworks.go.server.scheduling.BuildCauseProducerService;
 import com.thoughtworks.go.server.service.result.ServerHealthStateOperationResult;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
@@ -48,7 +49,7 @@ import static org.quartz.impl.matchers.GroupMatcher.groupEquals;
  * Understands scheduling pipelines based on a timer
  */
 @Component
-public class TimerScheduler implements ConfigChangedListener {
+public class TimerScheduler implements IncrementalConfigChangedListener {
     private static final Logger LOG = LoggerFactory.getLogger(TimerScheduler.class);
 
     private final GoConfigService goConfigService;
@@ -147,6 +148,16 @@ public class TimerScheduler implements ConfigChangedListener {
         scheduleAllJobs(newCruiseConfig.getAllPipelineConfigs());
     }
 
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changeSet) {
+        for (CaseInsensitiveString pipelineName : changeSet.getChangedPipelines()) {
+            unscheduleJob(CaseInsensitiveString.str(pipelineName));
+            if (newCruiseConfig.hasPipelineNamed(pipelineName)) {
+                scheduleJob(quartzScheduler, newCruiseConfig.pipelineConfigByName(pipelineName));
+            }
+        }
+    }
+
     private void unscheduleAllJobs() {
         try {
             Set<JobKey> jobKeys = quartzScheduler.getJobKeys(groupEquals(PIPELINE_TRIGGGER_TIMER_GROUP));
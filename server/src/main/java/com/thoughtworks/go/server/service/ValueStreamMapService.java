@@ -36,8 +36,11 @@ import com.thoughtworks.go.server.presentation.models.ValueStreamMapPresentation
 import com.thoughtworks.go.server.service.result.HttpLocalizedOperationResult;
 import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
 import com.thoughtworks.go.server.valuestreammap.DownstreamInstancePopulator;
+import com.thoughtworks.go.server.valuestreammap.DummyNodeCreation;
+import com.thoughtworks.go.server.valuestreammap.LevelAssignment;
 import com.thoughtworks.go.server.valuestreammap.RunStagesPopulator;
 import com.thoughtworks.go.server.valuestreammap.UnrunStagesPopulator;
+import com.thoughtworks.go.server.valuestreammap.ValueStreamMapLayouts;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import org.slf4j.Logger;
@@ -60,11 +63,14 @@ public class ValueStreamMapService {
     private final RunStagesPopulator runStagesPopulator;
     private final UnrunStagesPopulator unrunStagePopulator;
     private final SecurityService securityService;
+    private final ValueStreamMapLayouts layouts;
+    private final LevelAssignment levelAssignment = new LevelAssignment();
+    private final DummyNodeCreation dummyNodeCreation = new DummyNodeCreation();
     private static final Logger LOGGER = LoggerFactory.getLogger(ValueStreamMapService.class);
 
     @Autowired
     public ValueStreamMapService(PipelineService pipelineService, MaterialRepository materialRepository, GoConfigService goConfigService, DownstreamInstancePopulator downstreamInstancePopulator,
-                                 RunStagesPopulator runStagesPopulator, UnrunStagesPopulator unrunStagePopulator, SecurityService securityService) {
+                                 RunStagesPopulator runStagesPopulator, UnrunStagesPopulator unrunStagePopulator, SecurityService securityService, ValueStreamMapLayouts layouts) {
         this.pipelineService = pipelineService;
         this.materialRepository = materialRepository;
         this.goConfigService = goConfigService;
@@ -72,6 +78,7 @@ public class ValueStreamMapService {
         this.runStagesPopulator = runStagesPopulator;
         this.unrunStagePopulator = unrunStagePopulator;
         this.securityService = securityService;
+        this.layouts = layouts;
     }
 
     public ValueStreamMapPresentationModel getValueStreamMap(CaseInsensitiveString pipelineName, int counter, Username username, LocalizedOperationResult result) {
@@ -80,11 +87,13 @@ public class ValueStreamMapService {
                 result.forbidden(LocalizedMessage.forbiddenToViewPipeline(pipelineName), HealthStateType.general(HealthStateScope.forPipeline(pipelineName.toString())));
                 return null;
             }
-            ValueStreamMap valueStreamMap = buildValueStreamMap(pipelineName, counter, username, result);
+            ValueStreamMap valueStreamMap = buildValueStreamMap(pipelineName, counter, result);
             if (valueStreamMap == null) {
                 return null;
             }
-            return valueStreamMap.presentationModel();
+            removeRevisionsBasedOnPermissionAndCurrentConfig(valueStreamMap, username);
+            valueStreamMap.addWarningIfBuiltFromInCompatibleRevisions();
+            return presentationModel(valueStreamMap, ValueStreamMapLayouts.keyForPipeline(pipelineName.toString(), counter));
         } catch (Exception e) {
             result.internalServerError("Value Stream Map of pipeline '" + pipelineName + "' with counter '" + counter + "' can not be rendered. Please check the server log for details.");
             LOGGER.error("[Value Stream Map] Pipeline {} with counter {} could not be rendered.", pipelineName, counter, e);
@@ -92,7 +101,28 @@ public class ValueStreamMapService {
         }
     }
 
-    private ValueStreamMap buildValueStreamMap(CaseInsensitiveString pipelineName, int counter, Username username, LocalizedOperationResult result) {
+    /**
+     * Builds the value stream map of a pipeline instance and lays it out, without showing it to anyone, so that the
+     * queries and the layout it needs are cached by the time someone asks for it.
+     */
+    public void warmUpValueStreamMap(CaseInsensitiveString pipelineName, int counter) {
+        ValueStreamMap valueStreamMap = buildValueStreamMap(pipelineName, counter, new HttpLocalizedOperationResult());
+        if (valueStreamMap != null) {
+            presentationModel(valueStreamMap, ValueStreamMapLayouts.keyForPipeline(pipelineName.toString(), counter));
+        }
+    }
+
+    /**
+     * Same as {@link ValueStreamMap#presentationModel()}, but reuses the node order worked out for the same map before.
+     */
+    private ValueStreamMapPresentationModel presentationModel(ValueStreamMap valueStreamMap, String layoutKey) {
+        NodeLevelMap nodeLevelMap = levelAssignment.apply(valueStreamMap);
+        dummyNodeCreation.apply(valueStreamMap, nodeLevelMap);
+        layouts.minimizeCrossings(layoutKey, nodeLevelMap);
+        return new ValueStreamMapPresentationModel(valueStreamMap.getCurrentPipeline(), valueStreamMap.getCurrentMaterial(), nodeLevelMap.nodesAtEachLevel());
+    }
+
+    private ValueStreamMap buildValueStreamMap(CaseInsensitiveString pipelineName, int counter, LocalizedOperationResult result) {
         CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
         BuildCause buildCauseForPipeline;
         try {
@@ -115,10 +145,6 @@ public class ValueStreamMapService {
             return null;
         }
         addInstanceInformationToTheGraph(valueStreamMap);
-        removeRevisionsBasedOnPermissionAndCurrentConfig(valueStreamMap, username);
-
-        valueStreamMap.addWarningIfBuiltFromInCompatibleRevisions();
-
         return valueStreamMap;
     }
 
@@ -171,7 +197,8 @@ public class ValueStreamMapService {
                 return null;
             }
 
-            return buildValueStreamMap(material, materialInstance, modification, downstreamPipelines, username).presentationModel();
+            return presentationModel(buildValueStreamMap(material, materialInstance, modification, downstreamPipelines, username),
+                    ValueStreamMapLayouts.keyForMaterial(materialFingerprint, revision));
         } catch (Exception e) {
             result.internalServerError("Value Stream Map of material with fingerprint '" + materialFingerprint + "' with revision '" + revision + "' can not be rendered. Please check the server log for details.");
             LOGGER.error("[Value Stream Map] Material {} with revision {} could not be rendered.", materialFingerprint, revision, e);
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.domain.PipelineIdentifier;
+import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.domain.StageResult;
+import com.thoughtworks.go.server.domain.StageStatusListener;
+import com.thoughtworks.go.server.initializers.Initializer;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import static com.thoughtworks.go.util.SystemEnvironment.GO_VSM_WARMUP_ENABLED;
+
+/**
+ * Understands building the value stream map of a pipeline run in the background once the run is over (its last stage
+ * completed, or a stage did not pass), so that the map of the latest runs is quick to show. A run is built at most once
+ * at a time: requests for a run that is waiting or being built are dropped.
+ */
+@Component
+public class ValueStreamMapWarmUp implements StageStatusListener, Initializer {
+    private final ValueStreamMapService valueStreamMapService;
+    private final StageService stageService;
+    private final GoConfigService goConfigService;
+    private final SystemEnvironment systemEnvironment;
+    private final StageCompletionQueue<PipelineIdentifier> queue = new StageCompletionQueue<>("Value Stream Map Warm-up");
+
+    @Autowired
+    public ValueStreamMapWarmUp(ValueStreamMapService valueStreamMapService, StageService stageService, GoConfigService goConfigService, SystemEnvironment systemEnvironment) {
+        this.valueStreamMapService = valueStreamMapService;
+        this.stageService = stageService;
+        this.goConfigService = goConfigService;
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    @Override
+    public void initialize() {
+        if (systemEnvironment.get(GO_VSM_WARMUP_ENABLED)) {
+            stageService.addStageStatusListener(this);
+        }
+    }
+
+    @Override
+    public void startDaemon() {
+        if (systemEnvironment.get(GO_VSM_WARMUP_ENABLED)) {
+            queue.start();
+        }
+    }
+
+    @Override
+    public void stageStatusChanged(Stage stage) {
+        if (!queue.accepts(stage) || !endsPipelineRun(stage)) {
+            return;
+        }
+        PipelineIdentifier pipelineRun = stage.getIdentifier().pipelineIdentifier();
+        queue.add(pipelineRun, "value stream map of " + pipelineRun.pipelineLocator(),
+                () -> valueStreamMapService.warmUpValueStreamMap(new CaseInsensitiveString(pipelineRun.getName()), pipelineRun.getCounter()));
+    }
+
+    private boolean endsPipelineRun(Stage stage) {
+        String pipelineName = stage.getIdentifier().getPipelineName();
+        if (!goConfigService.hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
+            return false;
+        }
+        return stage.getResult() != StageResult.Passed || !goConfigService.hasNextStage(pipelineName, stage.getName());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.JobInstance;
+import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.domain.StageIdentifier;
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
+import com.thoughtworks.go.server.domain.StageStatusListener;
+import com.thoughtworks.go.server.initializers.Initializer;
+import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+
+import static com.thoughtworks.go.util.SystemEnvironment.GO_ZIP_ARTIFACT_CACHE_EAGER_PATHS;
+
+/**
+ * Understands zipping the configured artifact folders of every job of a stage as soon as the stage completes, so that
+ * they can be downloaded as zip without waiting. Folders are zipped one at a time, off the thread that reports the
+ * stage status.
+ */
+@Component
+public class ZipArtifactCacheWarmUp implements StageStatusListener, Initializer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZipArtifactCacheWarmUp.class);
+
+    private final ZipArtifactCache zipArtifactCache;
+    private final ArtifactsService artifactsService;
+    private final StageService stageService;
+    private final SystemEnvironment systemEnvironment;
+    private final StageCompletionQueue<StageIdentifier> queue = new StageCompletionQueue<>("Artifact Zip Warm-up");
+
+    @Autowired
+    public ZipArtifactCacheWarmUp(ZipArtifactCache zipArtifactCache, ArtifactsService artifactsService, StageService stageService, SystemEnvironment systemEnvironment) {
+        this.zipArtifactCache = zipArtifactCache;
+        this.artifactsService = artifactsService;
+        this.stageService = stageService;
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    @Override
+    public void initialize() {
+        if (isEnabled()) {
+            stageService.addStageStatusListener(this);
+        }
+    }
+
+    @Override
+    public void startDaemon() {
+        if (isEnabled()) {
+            queue.start();
+        }
+    }
+
+    private boolean isEnabled() {
+        return systemEnvironment.get(GO_ZIP_ARTIFACT_CACHE_EAGER_PATHS).length > 0;
+    }
+
+    @Override
+    public void stageStatusChanged(Stage stage) {
+        if (!queue.accepts(stage)) {
+            return;
+        }
+        StageIdentifier stageIdentifier = stage.getIdentifier();
+        queue.add(stageIdentifier, "artifact zips of " + stageIdentifier.entityLocator(), () -> {
+            for (JobInstance job : stage.getJobInstances()) {
+                for (String path : systemEnvironment.get(GO_ZIP_ARTIFACT_CACHE_EAGER_PATHS)) {
+                    zip(job, path);
+                }
+            }
+        });
+    }
+
+    void zip(JobInstance job, String path) {
+        if (path.contains("..")) {
+            return;
+        }
+        try {
+            File folder = artifactsService.findArtifact(job.getIdentifier(), path);
+            if (folder.isDirectory()) {
+                zipArtifactCache.prepare(new ArtifactFolder(job.getIdentifier(), folder, path));
+            }
+        } catch (Exception e) {
+            LOGGER.warn("[Artifact Zip] Could not zip '{}' of '{}' ahead of time", path, job.getIdentifier().buildLocator(), e);
+        }
+    }
+}
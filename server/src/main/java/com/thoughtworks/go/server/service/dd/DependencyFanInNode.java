@@ -41,6 +41,13 @@ public class DependencyFanInNode extends FanInNode {
     private int currentCount;
     StageIdentifier currentRevision;
     private Map<StageIdentifier, Set<FaninScmMaterial>> stageIdentifierScmMaterial = new LinkedHashMap<>();
+    private int upstreamScmMaterialsCapacity = Integer.MAX_VALUE;
+    private final Map<Long, List<FaninScmMaterial>> upstreamScmMaterialsByPipelineId = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<FaninScmMaterial>> eldest) {
+            return size() > upstreamScmMaterialsCapacity;
+        }
+    };
     public Set<FanInNode> children = new HashSet<>();
 
     public Set<? extends FaninScmMaterial> stageIdentifierScmMaterialForCurrentRevision() {
@@ -98,9 +105,18 @@ public class DependencyFanInNode extends FanInNode {
         return revisionAlteration;
     }
 
+    /**
+     * Starts a new resolution. The revisions found by an earlier resolution are forgotten, but the scm materials found
+     * by walking up from each instance of the upstream pipeline are remembered, since timeline entries never change.
+     * So when the upstream pipeline has run again, only the new instance needs to be walked.
+     */
     public void initialize(FanInGraphContext context) {
         totalInstanceCount = context.pipelineTimeline.instanceCount(((DependencyMaterialConfig) materialConfig).getPipelineName());
         maxBackTrackLimit = context.maxBackTrackLimit;
+        currentCount = 0;
+        currentRevision = null;
+        stageIdentifierScmMaterial.clear();
+        upstreamScmMaterialsCapacity = context.maxBackTrackLimit + 2 * context.revBatchCount;
     }
 
     public PipelineTimelineEntry latestPipelineTimelineEntry(FanInGraphContext context) {
@@ -132,28 +148,39 @@ public class DependencyFanInNode extends FanInNode {
     }
 
     private Pair<StageIdentifier, List<FaninScmMaterial>> getRevisionNthFor(int n, FanInGraphContext context) {
-        List<FaninScmMaterial> scmMaterials = new ArrayList<>();
-        PipelineTimeline pipelineTimeline = context.pipelineTimeline;
-        Queue<PipelineTimelineEntry.Revision> revisionQueue = new ConcurrentLinkedQueue<>();
         DependencyMaterialConfig dependencyMaterial = (DependencyMaterialConfig) materialConfig;
-        PipelineTimelineEntry entry = pipelineTimeline.instanceFor(dependencyMaterial.getPipelineName(), totalInstanceCount - n);
-
-        Set<CaseInsensitiveString> visitedNodes = new HashSet<>();
+        PipelineTimelineEntry entry = context.pipelineTimeline.instanceFor(dependencyMaterial.getPipelineName(), totalInstanceCount - n);
 
         StageIdentifier dependentStageIdentifier = dependentStageIdentifier(context, entry, CaseInsensitiveString.str(dependencyMaterial.getStageName()));
-        if (!StageIdentifier.NULL.equals(dependentStageIdentifier)) {
-            addToRevisionQueue(entry, revisionQueue, scmMaterials, context, visitedNodes);
-        } else {
+        if (StageIdentifier.NULL.equals(dependentStageIdentifier)) {
             return null;
         }
+        context.instancesExamined++;
+
+        List<FaninScmMaterial> scmMaterials = upstreamScmMaterialsByPipelineId.get(entry.getId());
+        if (scmMaterials == null) {
+            scmMaterials = Collections.unmodifiableList(upstreamScmMaterials(entry, context));
+            upstreamScmMaterialsByPipelineId.put(entry.getId(), scmMaterials);
+        } else {
+            context.instancesReused++;
+        }
+        return new Pair<>(dependentStageIdentifier, scmMaterials);
+    }
+
+    private List<FaninScmMaterial> upstreamScmMaterials(PipelineTimelineEntry entry, FanInGraphContext context) {
+        List<FaninScmMaterial> scmMaterials = new ArrayList<>();
+        PipelineTimeline pipelineTimeline = context.pipelineTimeline;
+        Queue<PipelineTimelineEntry.Revision> revisionQueue = new ConcurrentLinkedQueue<>();
+        Set<CaseInsensitiveString> visitedNodes = new HashSet<>();
+
+        addToRevisionQueue(entry, revisionQueue, scmMaterials, context, visitedNodes);
         while (!revisionQueue.isEmpty()) {
             PipelineTimelineEntry.Revision revision = revisionQueue.poll();
             DependencyMaterialRevision dmr = DependencyMaterialRevision.create(revision.revision, null);
             PipelineTimelineEntry pte = pipelineTimeline.getEntryFor(new CaseInsensitiveString(dmr.getPipelineName()), dmr.getPipelineCounter());
             addToRevisionQueue(pte, revisionQueue, scmMaterials, context, visitedNodes);
         }
-
-        return new Pair<>(dependentStageIdentifier, scmMaterials);
+        return scmMaterials;
     }
 
     private boolean validateAllScmRevisionsAreSameWithinAFingerprint(Pair<StageIdentifier, List<FaninScmMaterial>> pIdScmPair) {
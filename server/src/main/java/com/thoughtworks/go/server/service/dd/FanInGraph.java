@@ -55,11 +55,13 @@ public class FanInGraph {
     private final Map<String, MaterialConfig> fingerprintScmMaterialMap = new HashMap<>();
     private final Map<String, DependencyMaterialConfig> fingerprintDepMaterialMap = new HashMap<>();
     private final Map<DependencyMaterialConfig, Set<String>> dependencyMaterialFingerprintMap = new HashMap<>();
+    private final Map<DependencyMaterialConfig, Set<MaterialConfig>> pipelineScmDepMap;
 
     private final DependencyFanInNode root;
     private final CaseInsensitiveString pipelineName;
     private final SystemEnvironment systemEnvironment;
     private FanInEventListener fanInEventListener;
+    private FanInGraphContext lastContext;
 
     public FanInGraph(CruiseConfig cruiseConfig, CaseInsensitiveString root, MaterialRepository materialRepository, PipelineDao pipelineDao, SystemEnvironment systemEnvironment,
                       MaterialConfigConverter materialConfigConverter) {
@@ -74,6 +76,7 @@ public class FanInGraph {
         this.root = (DependencyFanInNode) FanInNodeFactory.create(new DependencyMaterialConfig(target.name(), target.get(0).name()));
 
         buildGraph(target);
+        this.pipelineScmDepMap = getPipelineScmDepMap();
     }
 
     private void buildGraph(PipelineConfig target) {
@@ -142,6 +145,33 @@ public class FanInGraph {
         return scmMaterials;
     }
 
+    /**
+     * @return names of the pipeline this graph resolves revisions for and of all the pipelines upstream of it
+     */
+    public Set<CaseInsensitiveString> pipelineNames() {
+        Set<CaseInsensitiveString> pipelineNames = new HashSet<>();
+        for (FanInNode node : nodes.values()) {
+            if (node.materialConfig instanceof DependencyMaterialConfig) {
+                pipelineNames.add(((DependencyMaterialConfig) node.materialConfig).getPipelineName());
+            }
+        }
+        return pipelineNames;
+    }
+
+    /**
+     * @return number of upstream instances looked at by the last resolution
+     */
+    public synchronized int instancesExaminedInLastResolution() {
+        return lastContext == null ? 0 : lastContext.instancesExamined;
+    }
+
+    /**
+     * @return number of upstream instances looked at by the last resolution that had already been walked by an earlier one
+     */
+    public synchronized int instancesReusedInLastResolution() {
+        return lastContext == null ? 0 : lastContext.instancesReused;
+    }
+
     public Map<DependencyMaterialConfig, Set<MaterialConfig>> getPipelineScmDepMap() {
         Map<DependencyMaterialConfig, Set<MaterialConfig>> dependencyMaterialListMap = new HashMap<>();
 
@@ -156,7 +186,11 @@ public class FanInGraph {
         return dependencyMaterialListMap;
     }
 
-    public MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
+    /**
+     * Resolutions on the same graph are serialized, since the nodes keep the state of the current resolution. A graph
+     * can be reused for as long as the config of the pipelines in it does not change.
+     */
+    public synchronized MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, PipelineTimeline pipelineTimeline) {
         assertAllDirectDependenciesArePresentInInput(actualRevisions, pipelineName);
 
         Pair<List<RootFanInNode>, List<DependencyFanInNode>> scmAndDepMaterialsChildren = getScmAndDepMaterialsChildren();
@@ -192,7 +226,7 @@ public class FanInGraph {
     //Ramraj ge salute
     //Srikant & Sachin
     @Deprecated
-    public Collection<MaterialRevision> computeRevisionsForReporting(CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
+    public synchronized Collection<MaterialRevision> computeRevisionsForReporting(CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
         Pair<List<RootFanInNode>, List<DependencyFanInNode>> scmAndDepMaterialsChildren = getScmAndDepMaterialsChildren();
         List<RootFanInNode> scmChildren = scmAndDepMaterialsChildren.first();
         List<DependencyFanInNode> depChildren = scmAndDepMaterialsChildren.last();
@@ -384,10 +418,11 @@ public class FanInGraph {
         context.revBatchCount = REVISION_BUFFER_SIZE;
         context.pipelineTimeline = pipelineTimeline;
         context.fingerprintScmMaterialMap = fingerprintScmMaterialMap;
-        context.pipelineScmDepMap = getPipelineScmDepMap();
+        context.pipelineScmDepMap = pipelineScmDepMap;
         context.fingerprintDepMaterialMap = fingerprintDepMaterialMap;
         context.pipelineDao = pipelineDao;
         context.maxBackTrackLimit = systemEnvironment.get(SystemEnvironment.RESOLVE_FANIN_MAX_BACK_TRACK_LIMIT);
+        lastContext = context;
         return context;
     }
 
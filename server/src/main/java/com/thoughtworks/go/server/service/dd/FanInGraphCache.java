@@ -0,0 +1,214 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.dd;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.ConfigChangeSet;
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.domain.MaterialRevisions;
+import com.thoughtworks.go.listener.IncrementalConfigChangedListener;
+import com.thoughtworks.go.server.dao.PipelineDao;
+import com.thoughtworks.go.server.domain.PipelineTimeline;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.server.service.GoConfigService;
+import com.thoughtworks.go.server.service.MaterialConfigConverter;
+import com.thoughtworks.go.server.service.support.ServerInfoProvider;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Understands keeping the fan-in graph of each pipeline around between schedule checks, so that neither the graph nor
+ * the upstream instances already walked by its nodes have to be worked out again on every check. Only graphs built
+ * from the current config are kept. A graph is dropped when the config of any pipeline in it changes.
+ * <p>
+ * The time taken by each resolution is logged and reported in the support API.
+ */
+@Component
+public class FanInGraphCache implements IncrementalConfigChangedListener, ServerInfoProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FanInGraphCache.class);
+    private static final int SLOWEST_PIPELINES_TO_REPORT = 25;
+
+    private final GoConfigService goConfigService;
+    private final MaterialRepository materialRepository;
+    private final PipelineDao pipelineDao;
+    private final SystemEnvironment systemEnvironment;
+    private final MaterialConfigConverter materialConfigConverter;
+
+    private final Map<CaseInsensitiveString, CachedGraph> graphs = new ConcurrentHashMap<>();
+    private final Map<CaseInsensitiveString, ResolutionTimings> timings = new ConcurrentHashMap<>();
+    private final AtomicLong graphsBuilt = new AtomicLong();
+    private final AtomicLong graphsReused = new AtomicLong();
+
+    @Autowired
+    public FanInGraphCache(GoConfigService goConfigService, MaterialRepository materialRepository, PipelineDao pipelineDao,
+                           SystemEnvironment systemEnvironment, MaterialConfigConverter materialConfigConverter) {
+        this.goConfigService = goConfigService;
+        this.materialRepository = materialRepository;
+        this.pipelineDao = pipelineDao;
+        this.systemEnvironment = systemEnvironment;
+        this.materialConfigConverter = materialConfigConverter;
+    }
+
+    public void initialize() {
+        goConfigService.register(this);
+    }
+
+    public MaterialRevisions computeRevisions(MaterialRevisions actualRevisions, CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName, PipelineTimeline pipelineTimeline) {
+        FanInGraph graph = graphFor(cruiseConfig, pipelineName);
+        ResolutionTimings resolutionTimings = timings.computeIfAbsent(pipelineName, name -> new ResolutionTimings());
+        synchronized (graph) {
+            long startTime = System.nanoTime();
+            boolean resolved = false;
+            try {
+                MaterialRevisions revisions = graph.computeRevisions(actualRevisions, pipelineTimeline);
+                resolved = true;
+                return revisions;
+            } finally {
+                long durationInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                int examined = graph.instancesExaminedInLastResolution();
+                int reused = graph.instancesReusedInLastResolution();
+                resolutionTimings.record(durationInMillis, examined, reused, resolved);
+                LOGGER.debug("[Fan-in] Resolved revisions for {} in {}ms ({}). Looked at {} upstream instances, {} of them already walked.",
+                        pipelineName, durationInMillis, resolved ? "resolved" : "failed", examined, reused);
+            }
+        }
+    }
+
+    private FanInGraph graphFor(CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName) {
+        CachedGraph cached = graphs.get(pipelineName);
+        if (cached != null && cached.cruiseConfig == cruiseConfig) {
+            graphsReused.incrementAndGet();
+            return cached.graph;
+        }
+
+        FanInGraph graph = new FanInGraph(cruiseConfig, pipelineName, materialRepository, pipelineDao, systemEnvironment, materialConfigConverter);
+        graphsBuilt.incrementAndGet();
+        if (isCurrentConfig(cruiseConfig)) {
+            graphs.put(pipelineName, new CachedGraph(graph, cruiseConfig));
+        }
+        return graph;
+    }
+
+    private boolean isCurrentConfig(CruiseConfig cruiseConfig) {
+        return goConfigService != null && goConfigService.currentCruiseConfig() == cruiseConfig;
+    }
+
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig) {
+        graphs.clear();
+        timings.keySet().retainAll(newCruiseConfig.getAllPipelineNames());
+    }
+
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changeSet) {
+        Set<CaseInsensitiveString> changedPipelines = changeSet.getChangedPipelines();
+        graphs.entrySet().removeIf(entry -> !Collections.disjoint(entry.getValue().pipelineNames, changedPipelines));
+        for (CachedGraph cached : graphs.values()) {
+            cached.cruiseConfig = newCruiseConfig;
+        }
+        timings.keySet().removeAll(changeSet.getRemovedPipelines());
+    }
+
+    int numberOfCachedGraphs() {
+        return graphs.size();
+    }
+
+    @Override
+    public double priority() {
+        return 12.4;
+    }
+
+    @Override
+    public Map<String, Object> asJson() {
+        List<Map.Entry<CaseInsensitiveString, ResolutionTimings>> slowest = new ArrayList<>(timings.entrySet());
+        slowest.sort(Comparator.comparingLong((Map.Entry<CaseInsensitiveString, ResolutionTimings> entry) -> entry.getValue().totalMillis()).reversed());
+
+        Map<String, Object> resolutions = new LinkedHashMap<>();
+        for (Map.Entry<CaseInsensitiveString, ResolutionTimings> entry : slowest.subList(0, Math.min(SLOWEST_PIPELINES_TO_REPORT, slowest.size()))) {
+            resolutions.put(entry.getKey().toString(), entry.getValue().asJson());
+        }
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Cached graphs", graphs.size());
+        json.put("Graphs built", graphsBuilt.get());
+        json.put("Graphs reused", graphsReused.get());
+        json.put("Slowest pipelines", resolutions);
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return "Fan-in Resolution";
+    }
+
+    private static class CachedGraph {
+        private final FanInGraph graph;
+        private final Set<CaseInsensitiveString> pipelineNames;
+        private volatile CruiseConfig cruiseConfig;
+
+        private CachedGraph(FanInGraph graph, CruiseConfig cruiseConfig) {
+            this.graph = graph;
+            this.pipelineNames = graph.pipelineNames();
+            this.cruiseConfig = cruiseConfig;
+        }
+    }
+
+    private static class ResolutionTimings {
+        private long count;
+        private long failures;
+        private long totalMillis;
+        private long maxMillis;
+        private long lastMillis;
+        private int lastInstancesExamined;
+        private int lastInstancesReused;
+
+        private synchronized void record(long durationInMillis, int instancesExamined, int instancesReused, boolean resolved) {
+            count++;
+            if (!resolved) {
+                failures++;
+            }
+            totalMillis += durationInMillis;
+            maxMillis = Math.max(maxMillis, durationInMillis);
+            lastMillis = durationInMillis;
+            lastInstancesExamined = instancesExamined;
+            lastInstancesReused = instancesReused;
+        }
+
+        private synchronized long totalMillis() {
+            return totalMillis;
+        }
+
+        private synchronized Map<String, Object> asJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("Resolutions", count);
+            json.put("Failed resolutions", failures);
+            json.put("Total (ms)", totalMillis);
+            json.put("Max (ms)", maxMillis);
+            json.put("Last (ms)", lastMillis);
+            json.put("Upstream instances looked at in last resolution", lastInstancesExamined);
+            json.put("Upstream instances reused in last resolution", lastInstancesReused);
+            return json;
+        }
+    }
+}
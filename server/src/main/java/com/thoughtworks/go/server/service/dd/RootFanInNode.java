@@ -28,6 +28,7 @@ public class RootFanInNode extends FanInNode {
     }
 
     public void setScmRevision(Set<FaninScmMaterial> allScmMaterials) {
+        scmRevision = null;
         for (FaninScmMaterial scmMaterial : allScmMaterials) {
             if (materialConfig.getFingerprint().equals(scmMaterial.fingerprint)) {
                 scmRevision = scmMaterial.revision;
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.support;
+
+import com.thoughtworks.go.server.database.MeteredDataSource;
+import com.thoughtworks.go.server.database.QueryStatistics;
+import com.thoughtworks.go.server.database.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class DatabaseInformationProvider implements ServerInfoProvider {
+    private final DataSource dataSource;
+    private final QueryStatistics queryStatistics;
+
+    @Autowired
+    public DatabaseInformationProvider(DataSource dataSource, QueryStatistics queryStatistics) {
+        this.dataSource = dataSource;
+        this.queryStatistics = queryStatistics;
+    }
+
+    @Override
+    public double priority() {
+        return 12.2;
+    }
+
+    @Override
+    public Map<String, Object> asJson() {
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        if (dataSource instanceof ReplicaRoutingDataSource) {
+            ReplicaRoutingDataSource routingDataSource = (ReplicaRoutingDataSource) dataSource;
+            putPoolStatistics(json, "Connection Pool", routingDataSource.getPrimary());
+            putPoolStatistics(json, "Replica Connection Pool", routingDataSource.getReplica());
+            json.put("Replica Healthy", routingDataSource.getHealthCheck().isHealthy());
+            json.put("Replica Status", routingDataSource.getHealthCheck().status());
+        } else {
+            putPoolStatistics(json, "Connection Pool", dataSource);
+        }
+        json.put("Statements", queryStatistics.asJson());
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return "Database Statistics";
+    }
+
+    private static void putPoolStatistics(Map<String, Object> json, String key, DataSource pool) {
+        if (pool instanceof MeteredDataSource) {
+            json.put(key, ((MeteredDataSource) pool).poolStatistics());
+        }
+    }
+}
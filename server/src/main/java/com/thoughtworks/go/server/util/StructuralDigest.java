@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.util;
+
+import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.util.pool.DigestObjectPools;
+import org.apache.commons.codec.binary.Hex;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Digests a config entity by walking the same fields the config xml is made of ({@link ConfigAttribute},
+ * {@link ConfigSubtag}, {@link ConfigValue} and the elements of a {@link ConfigCollection}) and feeding them straight
+ * into the message digest, instead of serializing the entity first.
+ * <p>
+ * Fields are visited in name order and every value is tagged and length prefixed, so the digest only depends on the
+ * content of the entity and is the same in every server process.
+ */
+public class StructuralDigest {
+    private static final DigestObjectPools DIGESTS = new DigestObjectPools();
+    private static final byte NULL = 0;
+    private static final byte VALUE = 1;
+    private static final byte ELEMENT = 2;
+    private static final byte ELEMENTS = 3;
+
+    private static final ClassValue<Shape> SHAPES = new ClassValue<>() {
+        @Override
+        protected Shape computeValue(Class<?> type) {
+            return new Shape(type);
+        }
+    };
+
+    private StructuralDigest() {
+    }
+
+    public static String digestHex(Object entity) {
+        return DIGESTS.computeDigest(DigestObjectPools.SHA_512_256, digest -> {
+            new Walker(digest).value(entity);
+            return Hex.encodeHexString(digest.digest());
+        });
+    }
+
+    private static class Walker {
+        private final MessageDigest digest;
+        private final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+
+        private Walker(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        private void value(Object value) {
+            if (value == null) {
+                digest.update(NULL);
+                return;
+            }
+            Shape shape = SHAPES.get(value.getClass());
+            if (shape.attributeValueField != null) {
+                digest.update(VALUE);
+                string(String.valueOf(shape.read(shape.attributeValueField, value)));
+            } else if (!shape.element) {
+                digest.update(VALUE);
+                string(value.toString());
+            } else {
+                digest.update(ELEMENT);
+                string(shape.name);
+                for (Field field : shape.fields) {
+                    string(field.getName());
+                    value(shape.read(field, value));
+                }
+                if (shape.collection) {
+                    Collection<?> elements = (Collection<?>) value;
+                    digest.update(ELEMENTS);
+                    length(elements.size());
+                    for (Object element : elements) {
+                        value(element);
+                    }
+                }
+            }
+        }
+
+        private void string(String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            length(bytes.length);
+            digest.update(bytes);
+        }
+
+        private void length(int value) {
+            digest.update(length.clear().putInt(value).flip());
+        }
+    }
+
+    private static class Shape {
+        private final String name;
+        private final boolean element;
+        private final boolean collection;
+        private final List<Field> fields;
+        private final Field attributeValueField;
+
+        private Shape(Class<?> type) {
+            this.name = type.getName();
+            this.fields = configFields(type);
+            boolean configCollection = type.isAnnotationPresent(ConfigCollection.class);
+            this.collection = configCollection && Collection.class.isAssignableFrom(type);
+            this.element = configCollection || !fields.isEmpty()
+                || type.isAnnotationPresent(ConfigTag.class) || type.isAnnotationPresent(AttributeAwareConfigTag.class);
+            ConfigAttributeValue attributeValue = type.getAnnotation(ConfigAttributeValue.class);
+            this.attributeValueField = attributeValue == null ? null : field(type, attributeValue.fieldName());
+        }
+
+        private Object read(Field field, Object instance) {
+            try {
+                return field.get(instance);
+            } catch (IllegalAccessException e) {
+                throw bomb("Error getting configField: " + field.getName(), e);
+            }
+        }
+
+        private static List<Field> configFields(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> klass = type; klass != null && klass != Object.class; klass = klass.getSuperclass()) {
+                for (Field field : klass.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && isConfigField(field)) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            fields.sort(Comparator.comparing((Field field) -> field.getDeclaringClass().getName()).thenComparing(Field::getName));
+            return fields;
+        }
+
+        private static boolean isConfigField(Field field) {
+            return field.isAnnotationPresent(ConfigAttribute.class) || field.isAnnotationPresent(ConfigSubtag.class) || field.isAnnotationPresent(ConfigValue.class);
+        }
+
+        private static Field field(Class<?> type, String name) {
+            for (Class<?> klass = type; klass != null; klass = klass.getSuperclass()) {
+                try {
+                    Field field = klass.getDeclaredField(name);
+                    field.setAccessible(true);
+                    return field;
+                } catch (NoSuchFieldException ignored) {
+                }
+            }
+            throw bomb("No field " + name + " on " + type.getName());
+        }
+    }
+}
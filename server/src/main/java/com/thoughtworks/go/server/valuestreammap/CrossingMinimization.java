@@ -19,23 +19,111 @@ import com.thoughtworks.go.domain.valuestreammap.Node;
 import com.thoughtworks.go.domain.valuestreammap.NodeLevelMap;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 import static java.lang.Math.abs;
 import static java.util.Collections.sort;
 
+/**
+ * Orders the nodes at each level of a value stream map so that edges cross as little as possible. Each sweep reorders
+ * every level by the barycentre of its neighbours, once from left to right and once from right to left. Sweeps after
+ * the first are only kept if they reduce the number of crossings. The first sweep always runs to the end, so every map
+ * gets at least the ordering it got before sweeps were repeated. The time budget only limits the sweeps after it: none
+ * is started once the budget is spent, and one that runs out of budget stops and is judged like any other, so that
+ * very large maps still get laid out in bounded time.
+ */
 public class CrossingMinimization {
 
     private static final int LEVEL_OF_CURRENT_PIPELINE = 0;
 
+    private final int maxSweeps;
+    private final long budgetInNanos;
+
+    public CrossingMinimization() {
+        this(1, Long.MAX_VALUE);
+    }
+
+    public CrossingMinimization(int maxSweeps, long budgetInMillis) {
+        this.maxSweeps = Math.max(1, maxSweeps);
+        this.budgetInNanos = TimeUnit.MILLISECONDS.toNanos(budgetInMillis);
+    }
+
     public void apply(NodeLevelMap levelToNodesMap) {
+        long startTime = System.nanoTime();
         initializeNodeDepths(levelToNodesMap);
 
-        reorderByBaryCenter(new LeftToRight(levelToNodesMap));
-        reorderByBaryCenter(new RightToLeft(levelToNodesMap));
+        sweep(levelToNodesMap, () -> true);
+        sweepWhileCrossingsReduce(levelToNodesMap, startTime);
         normalizeUpstream(levelToNodesMap);
         normalizeDownstream(levelToNodesMap);
     }
 
+    private void sweep(NodeLevelMap levelToNodesMap, BooleanSupplier withinBudget) {
+        reorderByBaryCenter(new LeftToRight(levelToNodesMap), withinBudget);
+        reorderByBaryCenter(new RightToLeft(levelToNodesMap), withinBudget);
+    }
+
+    private void sweepWhileCrossingsReduce(NodeLevelMap levelToNodesMap, long startTime) {
+        if (maxSweeps == 1) {
+            return;
+        }
+        int crossings = crossings(levelToNodesMap);
+        for (int i = 1; i < maxSweeps && crossings > 0 && hasBudget(startTime); i++) {
+            Map<Node, Integer> depthsBeforeSweep = depths(levelToNodesMap);
+            sweep(levelToNodesMap, () -> hasBudget(startTime));
+            int crossingsAfterSweep = crossings(levelToNodesMap);
+            if (crossingsAfterSweep >= crossings) {
+                restoreDepths(levelToNodesMap, depthsBeforeSweep);
+                return;
+            }
+            crossings = crossingsAfterSweep;
+        }
+    }
+
+    private boolean hasBudget(long startTime) {
+        return System.nanoTime() - startTime < budgetInNanos;
+    }
+
+    int crossings(NodeLevelMap nodeLevelMap) {
+        int crossings = 0;
+        for (List<Node> nodesAtLevel : nodeLevelMap.nodesAtEachLevel()) {
+            List<int[]> edges = new ArrayList<>();
+            for (Node node : nodesAtLevel) {
+                for (Node child : node.getChildren()) {
+                    edges.add(new int[]{node.getDepth(), child.getDepth()});
+                }
+            }
+            for (int i = 0; i < edges.size(); i++) {
+                for (int j = i + 1; j < edges.size(); j++) {
+                    if ((long) (edges.get(i)[0] - edges.get(j)[0]) * (edges.get(i)[1] - edges.get(j)[1]) < 0) {
+                        crossings++;
+                    }
+                }
+            }
+        }
+        return crossings;
+    }
+
+    private Map<Node, Integer> depths(NodeLevelMap nodeLevelMap) {
+        Map<Node, Integer> depths = new HashMap<>();
+        for (List<Node> nodesAtLevel : nodeLevelMap.nodesAtEachLevel()) {
+            for (Node node : nodesAtLevel) {
+                depths.put(node, node.getDepth());
+            }
+        }
+        return depths;
+    }
+
+    private void restoreDepths(NodeLevelMap nodeLevelMap, Map<Node, Integer> depths) {
+        for (List<Node> nodesAtLevel : nodeLevelMap.nodesAtEachLevel()) {
+            for (Node node : nodesAtLevel) {
+                node.setDepth(depths.get(node));
+            }
+            sort(nodesAtLevel);
+        }
+    }
+
     private void normalizeUpstream(NodeLevelMap nodeLevelMap) {
         reorderByMinDepth(new RightToLeft(nodeLevelMap, LEVEL_OF_CURRENT_PIPELINE - 2));
     }
@@ -88,8 +176,8 @@ public class CrossingMinimization {
         return min;
     }
 
-    private void reorderByBaryCenter(TraversalDirection traversalDirection) {
-        while (traversalDirection.hasNext()) {
+    private void reorderByBaryCenter(TraversalDirection traversalDirection, BooleanSupplier withinBudget) {
+        while (traversalDirection.hasNext() && withinBudget.getAsBoolean()) {
             List<Node> nodesAtLevel = traversalDirection.next();
             ArrayList<NodeBaryCentre> nodeBaryCentres = new ArrayList<>();
             for (Node node : nodesAtLevel) {
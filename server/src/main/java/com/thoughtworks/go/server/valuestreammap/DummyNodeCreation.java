@@ -20,6 +20,7 @@ import com.thoughtworks.go.domain.valuestreammap.Node;
 import com.thoughtworks.go.domain.valuestreammap.NodeLevelMap;
 import com.thoughtworks.go.domain.valuestreammap.ValueStreamMap;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -53,7 +54,8 @@ public class DummyNodeCreation {
     }
 
     private DummyNode insertDummyNode(Node node, Node currentChildNode, NodeLevelMap nodeLevelMap) {
-        String dummyNodeId = UUID.randomUUID().toString();
+        // derived from the edge it replaces, so that the same graph always gets the same dummy nodes
+        String dummyNodeId = UUID.nameUUIDFromBytes((node.getId() + "->" + currentChildNode.getId()).getBytes(StandardCharsets.UTF_8)).toString();
         DummyNode dummyNode = new DummyNode(dummyNodeId, "dummy-" + dummyNodeId);
         dummyNode.setLevel(node.getLevel() + 1);
         nodeLevelMap.add(dummyNode);
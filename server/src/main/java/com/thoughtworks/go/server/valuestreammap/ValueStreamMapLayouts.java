@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.valuestreammap;
+
+import com.thoughtworks.go.domain.valuestreammap.Node;
+import com.thoughtworks.go.domain.valuestreammap.NodeLevelMap;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static com.thoughtworks.go.util.SystemEnvironment.*;
+import static java.util.Collections.sort;
+
+/**
+ * Understands remembering how the nodes of a value stream map were ordered, so that crossings need not be minimized
+ * again every time the same map is rendered. A layout is remembered against the structure of the map it was computed
+ * for: levels, nodes and edges, in order. New runs of pipelines in the map only add instances to existing nodes and
+ * keep the layout, while a config change that adds, removes or rewires pipelines changes the structure, and the
+ * layout is computed again.
+ */
+@Component
+public class ValueStreamMapLayouts {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValueStreamMapLayouts.class);
+
+    private final SystemEnvironment systemEnvironment;
+    private final Map<String, Layout> layouts;
+
+    @Autowired
+    public ValueStreamMapLayouts(SystemEnvironment systemEnvironment) {
+        this.systemEnvironment = systemEnvironment;
+        int cacheSize = systemEnvironment.get(GO_VSM_LAYOUT_CACHE_SIZE);
+        this.layouts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Layout> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public static String keyForPipeline(String pipelineName, int counter) {
+        return "pipeline:" + pipelineName.toLowerCase() + ":" + counter;
+    }
+
+    public static String keyForMaterial(String fingerprint, String revision) {
+        return "material:" + fingerprint + ":" + revision;
+    }
+
+    /**
+     * Sets the depth of every node, and orders the nodes at each level by it, either from the layout remembered for
+     * the same structure under {@code key}, or by minimizing crossings.
+     */
+    public void minimizeCrossings(String key, NodeLevelMap nodeLevelMap) {
+        String structure = structureOf(nodeLevelMap);
+        Layout layout = layouts.get(key);
+        if (layout != null && layout.structure.equals(structure)) {
+            layout.applyTo(nodeLevelMap);
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<Node> nodesInStructureOrder = nodesOf(nodeLevelMap);
+        new CrossingMinimization(systemEnvironment.get(GO_VSM_CROSSING_MINIMIZATION_SWEEPS), systemEnvironment.get(GO_VSM_CROSSING_MINIMIZATION_BUDGET_MILLIS)).apply(nodeLevelMap);
+        layouts.put(key, new Layout(structure, nodesInStructureOrder));
+        LOGGER.debug("[Value Stream Map] Minimized crossings for {} in {}ms.", key, System.currentTimeMillis() - startTime);
+    }
+
+    public void invalidate(String key) {
+        layouts.remove(key);
+    }
+
+    int size() {
+        return layouts.size();
+    }
+
+    private static List<Node> nodesOf(NodeLevelMap nodeLevelMap) {
+        List<Node> nodes = new ArrayList<>();
+        for (List<Node> nodesAtLevel : nodeLevelMap.nodesAtEachLevel()) {
+            nodes.addAll(nodesAtLevel);
+        }
+        return nodes;
+    }
+
+    private static String structureOf(NodeLevelMap nodeLevelMap) {
+        StringBuilder structure = new StringBuilder();
+        for (List<Node> nodesAtLevel : nodeLevelMap.nodesAtEachLevel()) {
+            structure.append('[');
+            for (Node node : nodesAtLevel) {
+                structure.append(node.getId()).append('<');
+                for (Node parent : node.getParents()) {
+                    structure.append(parent.getId()).append(',');
+                }
+                structure.append('>');
+                for (Node child : node.getChildren()) {
+                    structure.append(child.getId()).append(',');
+                }
+                structure.append(';');
+            }
+            structure.append(']');
+        }
+        return structure.toString();
+    }
+
+    private static class Layout {
+        private final String structure;
+        private final List<Integer> depths = new ArrayList<>();
+
+        private Layout(String structure, List<Node> nodesInStructureOrder) {
+            this.structure = structure;
+            for (Node node : nodesInStructureOrder) {
+                depths.add(node.getDepth());
+            }
+        }
+
+        private void applyTo(NodeLevelMap nodeLevelMap) {
+            Iterator<Integer> depth = depths.iterator();
+            for (List<Node> nodesAtLevel : nodeLevelMap.nodesAtEachLevel()) {
+                for (Node node : nodesAtLevel) {
+                    node.setDepth(depth.next());
+                }
+                sort(nodesAtLevel);
+            }
+        }
+    }
+}
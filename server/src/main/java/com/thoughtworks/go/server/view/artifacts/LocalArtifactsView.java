@@ -15,12 +15,14 @@
  */
 package com.thoughtworks.go.server.view.artifacts;
 
+import com.thoughtworks.go.domain.ArtifactMd5Checksums;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.server.service.ArtifactsService;
 import com.thoughtworks.go.server.service.ConsoleService;
 import com.thoughtworks.go.server.web.ArtifactFolder;
 import com.thoughtworks.go.server.web.ArtifactFolderViewFactory;
 import com.thoughtworks.go.server.web.FileModelAndView;
+import com.thoughtworks.go.util.ArtifactLogUtil;
 import org.springframework.web.servlet.ModelAndView;
 
 import java.io.File;
@@ -48,7 +50,7 @@ public class LocalArtifactsView implements ArtifactsView {
                 : artifactsService.findArtifact(translatedId, filePath);
 
         if (file.exists() && file.isFile()) {
-            return FileModelAndView.createFileView(file, sha);
+            return FileModelAndView.createFileView(file, sha, isConsoleOutput(filePath) ? null : md5For(filePath));
         }
 
         //return the contents of the specified directory formatted as required
@@ -64,4 +66,12 @@ public class LocalArtifactsView implements ArtifactsView {
 
     }
 
+    private String md5For(String filePath) throws Exception {
+        File checksumFile = artifactsService.findArtifact(translatedId, ArtifactLogUtil.CRUISE_OUTPUT_FOLDER + "/" + ArtifactLogUtil.MD5_CHECKSUM_FILENAME);
+        if (checksumFile == null || !checksumFile.isFile()) {
+            return null;
+        }
+        return new ArtifactMd5Checksums(checksumFile).md5For(filePath);
+    }
+
 }
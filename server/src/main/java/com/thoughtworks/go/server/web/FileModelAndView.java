@@ -35,6 +35,10 @@ import static javax.servlet.http.HttpServletResponse.*;
 public class FileModelAndView {
 
     public static ModelAndView createFileView(File file, String sha) {
+        return createFileView(file, sha, null);
+    }
+
+    public static ModelAndView createFileView(File file, String sha, String md5) {
         boolean hasChanged = isFileChanged(file, sha);
         if (!hasChanged) {
             return new ModelAndView(new AbstractView() {
@@ -50,6 +54,9 @@ public class FileModelAndView {
 			if (file instanceof ZippedArtifact) {
 				model.put(FileView.NEED_TO_ZIP, true);
 			}
+            if (md5 != null) {
+                model.put(FileView.ARTIFACT_MD5, md5);
+            }
             model.put("targetFile", file);
             return new ModelAndView("fileView", model);
         }
@@ -16,8 +16,8 @@
 package com.thoughtworks.go.server.web;
 
 import com.thoughtworks.go.util.ZipUtil;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.server.HttpOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -29,9 +29,17 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.zip.Deflater;
 
 @Component
@@ -41,6 +49,7 @@ public class FileView implements View, ServletContextAware {
 
     private ServletContext servletContext;
     public static final String NEED_TO_ZIP = "need_to_zip";
+    public static final String ARTIFACT_MD5 = "artifact_md5";
 
     private ServletContext getServletContext() {
         return this.servletContext;
@@ -56,26 +65,154 @@ public class FileView implements View, ServletContextAware {
         return "application/octet-stream";
     }
 
-    private void handleFile(File file, boolean needToZip, HttpServletResponse response) throws Exception {
+    private void handleFile(HttpServletRequest request, File file, boolean needToZip, String md5, HttpServletResponse response) throws Exception {
         String filename = file.getName();
         seContentType(needToZip, response, filename);
         setHeaders(response, filename);
-        setContentLength(needToZip, file, response);
-        setOutput(needToZip, file, response);
+        if (needToZip) {
+            setZipOutput(file, response);
+            return;
+        }
+
+        long lastModified = file.lastModified();
+        String etag = etag(file, md5);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = file.length();
+        List<ByteRange> ranges = isRangeApplicable(request, etag, lastModified) ? ByteRange.parse(request.getHeader("Range"), length) : null;
+        if (ranges == null) {
+            setContentLength(false, file, response);
+            sendFile(file, 0, length, response.getOutputStream());
+        } else if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + length);
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.contentRange(length));
+            response.addHeader("Content-Length", Long.toString(range.length()));
+            sendFile(file, range.start(), range.length(), response.getOutputStream());
+        } else {
+            sendRanges(file, length, ranges, response);
+        }
     }
 
-    private void setOutput(boolean needToZip, File file, HttpServletResponse response) throws IOException {
+    private void setZipOutput(File file, HttpServletResponse response) throws IOException {
         ServletOutputStream out = response.getOutputStream();
-        if (needToZip) {
-            new ZipUtil().zip(file, out, Deflater.NO_COMPRESSION);
-        } else {
-            try (FileInputStream input = new FileInputStream(file)) {
-                IOUtils.copy(input, out, 32 * 1024);
+        new ZipUtil().zip(file, out, Deflater.NO_COMPRESSION);
+        out.flush();
+    }
+
+    /**
+     * Sends a region of the file. Jetty's own output reads the region straight into its direct buffers and completes the
+     * response, without copying it through the heap; any other stream is written to through a channel wrapping it,
+     * which {@link FileChannel#transferTo} copies into through a heap buffer.
+     */
+    private void sendFile(File file, long start, long count, ServletOutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (out instanceof HttpOutput httpOutput) {
+                httpOutput.sendContent(new FileRegionChannel(channel, start, count));
+            } else {
+                transfer(channel, start, count, Channels.newChannel(out));
+                out.flush();
+            }
+        }
+    }
+
+    private void sendRanges(File file, long length, List<ByteRange> ranges, HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        String contentType = response.getContentType();
+        byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        long contentLength = end.length;
+        byte[][] partHeaders = new byte[ranges.size()][];
+        for (int i = 0; i < ranges.size(); i++) {
+            ByteRange range = ranges.get(i);
+            String partHeader = (i == 0 ? "" : "\r\n") + "--" + boundary + "\r\n"
+                    + "Content-Type: " + contentType + "\r\n"
+                    + "Content-Range: " + range.contentRange(length) + "\r\n\r\n";
+            partHeaders[i] = partHeader.getBytes(StandardCharsets.US_ASCII);
+            contentLength += partHeaders[i].length + range.length();
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.addHeader("Content-Length", Long.toString(contentLength));
+
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders[i]);
+                transfer(channel, ranges.get(i).start(), ranges.get(i).length(), target);
             }
         }
+        out.write(end);
         out.flush();
     }
 
+    private void transfer(FileChannel channel, long start, long count, WritableByteChannel target) throws IOException {
+        long sent = 0;
+        while (sent < count) {
+            long transferred = channel.transferTo(start + sent, count - sent, target);
+            if (transferred <= 0) {
+                throw new IOException("File was truncated while it was being sent");
+            }
+            sent += transferred;
+        }
+    }
+
+    /**
+     * A strong validator when the md5 of the artifact was recorded at upload, otherwise a weak one made up of its size
+     * and modification time.
+     */
+    private String etag(File file, String md5) {
+        if (StringUtils.isNotBlank(md5)) {
+            return "\"" + md5 + "\"";
+        }
+        return "W/\"" + file.length() + "-" + file.lastModified() + "\"";
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.equals("*") || StringUtils.removeStart(trimmed, "W/").equals(StringUtils.removeStart(etag, "W/"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, "If-Modified-Since");
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !etag.startsWith("W/") && ifRange.trim().equals(etag);
+        }
+        return dateHeader(request, "If-Range") == lastModified / 1000 * 1000;
+    }
+
+    private long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
     void setContentLength(boolean needToZip, File file, HttpServletResponse response) {
         if (!needToZip) {
             response.addHeader("Content-Length", Long.toString(file.length()));
@@ -108,17 +245,62 @@ public class FileView implements View, ServletContextAware {
     public void render(Map map, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) throws Exception {
         File file = (File) map.get("targetFile");
         boolean needToZip = map.containsKey(NEED_TO_ZIP);
-        handleFileWithLogging(httpServletResponse, file, needToZip);
+        String md5 = (String) map.get(ARTIFACT_MD5);
+        handleFileWithLogging(httpServletRequest, httpServletResponse, file, needToZip, md5);
     }
 
-    private void handleFileWithLogging(HttpServletResponse httpServletResponse, File file, boolean needToZip) throws Exception {
-        LOGGER.info("[Artifact Download] About to download: {}. ShouldZip? = {}", file.getAbsolutePath(), needToZip);
+    private void handleFileWithLogging(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, File file, boolean needToZip, String md5) throws Exception {
+        LOGGER.info("[Artifact Download] About to download: {}. ShouldZip? = {}. Range = {}", file.getAbsolutePath(), needToZip, httpServletRequest.getHeader("Range"));
         long before = System.currentTimeMillis();
 
-        handleFile(file, needToZip, httpServletResponse);
+        handleFile(httpServletRequest, file, needToZip, md5, httpServletResponse);
 
         long timeTaken = System.currentTimeMillis() - before;
-        LOGGER.info("[Artifact Download] Finished downloading: {}. ShouldZip? = {}. The time taken is: {}ms", file.getAbsolutePath(), needToZip, timeTaken);
+        LOGGER.info("[Artifact Download] Finished downloading: {}. ShouldZip? = {}. Status = {}. The time taken is: {}ms", file.getAbsolutePath(), needToZip, httpServletResponse.getStatus(), timeTaken);
     }
 
+    /**
+     * Reads no further than a region of the file, so that Jetty can send a range the same way it sends a whole file.
+     */
+    private static class FileRegionChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        FileRegionChannel(FileChannel channel, long start, long count) {
+            this.channel = channel;
+            this.position = start;
+            this.end = start + count;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            long remaining = end - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int limit = dst.limit();
+            if (dst.remaining() > remaining) {
+                dst.limit(dst.position() + (int) remaining);
+            }
+            try {
+                int read = channel.read(dst, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -18,7 +18,9 @@ package com.thoughtworks.go.config;
 import com.thoughtworks.go.config.commands.EntityConfigUpdateCommand;
 import com.thoughtworks.go.config.update.FullConfigUpdateCommand;
 import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.listener.IncrementalConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.service.MaintenanceModeService;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
@@ -26,11 +28,14 @@ import com.thoughtworks.go.serverhealth.ServerHealthState;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -98,6 +103,51 @@ public class CachedGoConfigTest {
         verify(listener, times(2)).onConfigChange(any(BasicCruiseConfig.class));
     }
 
+    @Test
+    public void shouldTellIncrementalListenersWhatChangedInASaveAndEveryOtherListenerTheWholeConfig() {
+        IncrementalConfigChangedListener incremental = mock(IncrementalConfigChangedListener.class);
+        IncrementalConfigChangedListener anotherIncremental = mock(IncrementalConfigChangedListener.class);
+        ConfigChangedListener full = mock(ConfigChangedListener.class);
+        cachedGoConfig.registerListener(incremental);
+        cachedGoConfig.registerListener(anotherIncremental);
+        cachedGoConfig.registerListener(full);
+        cachedGoConfig.forceReload();
+
+        BasicCruiseConfig saved = GoConfigMother.configWithPipelines("p1");
+        when(dataSource.writeWithLock(any(UpdateConfigCommand.class), any(GoConfigHolder.class))).thenReturn(new GoFileConfigDataSource.GoConfigSaveResult(new GoConfigHolder(saved, saved), ConfigSaveState.UPDATED));
+        cachedGoConfig.writeWithLock(cruiseConfig -> cruiseConfig);
+
+        ArgumentCaptor<ConfigChangeSet> changeSet = ArgumentCaptor.forClass(ConfigChangeSet.class);
+        ArgumentCaptor<ConfigChangeSet> anotherChangeSet = ArgumentCaptor.forClass(ConfigChangeSet.class);
+        verify(incremental).onConfigChange(same(saved), changeSet.capture());
+        verify(anotherIncremental).onConfigChange(same(saved), anotherChangeSet.capture());
+        assertThat(changeSet.getValue().getAddedPipelines(), contains(new CaseInsensitiveString("p1")));
+        assertThat(anotherChangeSet.getValue(), sameInstance(changeSet.getValue()));
+
+        verify(full).onConfigChange(same(configHolder.config));
+        verify(full).onConfigChange(same(saved));
+        verifyNoMoreInteractions(full);
+    }
+
+    @Test
+    public void shouldTellIncrementalListenersAboutTheWholeConfigWhenThereIsNothingToCompareAgainst() {
+        IncrementalConfigChangedListener listener = mock(IncrementalConfigChangedListener.class);
+        cachedGoConfig.registerListener(listener);
+
+        cachedGoConfig.forceReload();
+        verify(listener).onConfigChange(same(configHolder.config));
+
+        cachedGoConfig.reloadListeners();
+        verify(listener, times(2)).onConfigChange(same(configHolder.config));
+
+        IncrementalConfigChangedListener registeredLater = mock(IncrementalConfigChangedListener.class);
+        cachedGoConfig.registerListener(registeredLater);
+        verify(registeredLater).onConfigChange(same(configHolder.config));
+
+        verify(listener, never()).onConfigChange(any(CruiseConfig.class), any(ConfigChangeSet.class));
+        verify(registeredLater, never()).onConfigChange(any(CruiseConfig.class), any(ConfigChangeSet.class));
+    }
+
     @Test
     public void shouldNotNotifyWhenConfigIsNullDuringRegistration() throws Exception {
         final ConfigChangedListener listener = mock(ConfigChangedListener.class);
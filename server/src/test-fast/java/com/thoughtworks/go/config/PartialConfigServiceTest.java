@@ -28,11 +28,16 @@ import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.server.service.ConfigRepoService;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.serverhealth.ServerHealthState;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
 import static com.thoughtworks.go.helper.PartialConfigMother.*;
@@ -166,6 +171,206 @@ public class PartialConfigServiceTest {
     }
 
 
+    @Test
+    void coalescesPartialsArrivingWhileAMergeIsInProgressIntoOneConfigSave() {
+        cachedGoPartials = mock(CachedGoPartials.class);
+        configWatchList = mock(GoConfigWatchList.class);
+        when(configWatchList.hasConfigRepoWithFingerprint(any(String.class))).thenReturn(true);
+        when(partialConfigHelper.isEquivalent(any(), any())).thenReturn(false);
+        service = new PartialConfigService(repoConfigDataSource, configWatchList, goConfigService, cachedGoPartials, serverHealthService, partialConfigHelper);
+
+        final ConfigRepoConfig repo2 = ConfigRepoConfig.createConfigRepoConfig(git("url2"), "plugin", "id2");
+        final ConfigRepoConfig repo3 = ConfigRepoConfig.createConfigRepoConfig(git("url3"), "plugin", "id3");
+        final PartialConfig first = mock(PartialConfig.class);
+        final PartialConfig second = mock(PartialConfig.class);
+        final PartialConfig third = mock(PartialConfig.class);
+
+        final AtomicInteger saves = new AtomicInteger();
+        when(goConfigService.updateConfig(any(UpdateConfigCommand.class))).thenAnswer(invocation -> {
+            if (saves.incrementAndGet() == 1) {
+                // these arrive while the first save is still in progress
+                service.onSuccessPartialConfig(repo2, second);
+                service.onSuccessPartialConfig(repo3, third);
+            }
+            return ConfigSaveState.UPDATED;
+        });
+
+        service.onSuccessPartialConfig(configRepoConfig, first);
+
+        verify(goConfigService, times(2)).updateConfig(any(UpdateConfigCommand.class));
+        verify(cachedGoPartials).markAsValid(configRepoConfig.getRepo().getFingerprint(), first);
+        verify(cachedGoPartials).markAsValid(repo2.getRepo().getFingerprint(), second);
+        verify(cachedGoPartials).markAsValid(repo3.getRepo().getFingerprint(), third);
+    }
+
+    @Test
+    void fallsBackToMergingEachPartialInIsolationWhenABatchFailsValidation() {
+        cachedGoPartials = mock(CachedGoPartials.class);
+        configWatchList = mock(GoConfigWatchList.class);
+        when(configWatchList.hasConfigRepoWithFingerprint(any(String.class))).thenReturn(true);
+        when(partialConfigHelper.isEquivalent(any(), any())).thenReturn(false);
+        service = new PartialConfigService(repoConfigDataSource, configWatchList, goConfigService, cachedGoPartials, serverHealthService, partialConfigHelper);
+
+        final ConfigRepoConfig repo2 = ConfigRepoConfig.createConfigRepoConfig(git("url2"), "plugin", "id2");
+        final ConfigRepoConfig repo3 = ConfigRepoConfig.createConfigRepoConfig(git("url3"), "plugin", "id3");
+        final PartialConfig first = mock(PartialConfig.class);
+        final PartialConfig good = mock(PartialConfig.class);
+        final PartialConfig bad = mock(PartialConfig.class);
+        when(bad.getOrigin()).thenReturn(new RepoConfigOrigin(repo3, "1"));
+
+        final AtomicInteger saves = new AtomicInteger();
+        when(goConfigService.updateConfig(any(UpdateConfigCommand.class))).thenAnswer(invocation -> {
+            switch (saves.incrementAndGet()) {
+                case 1:
+                    service.onSuccessPartialConfig(repo2, good);
+                    service.onSuccessPartialConfig(repo3, bad);
+                    return ConfigSaveState.UPDATED;
+                case 2:
+                    throw new RuntimeException("batch is invalid");
+                case 3:
+                    return ConfigSaveState.UPDATED;
+                default:
+                    throw new RuntimeException("bad is invalid");
+            }
+        });
+
+        service.onSuccessPartialConfig(configRepoConfig, first);
+
+        verify(goConfigService, times(4)).updateConfig(any(UpdateConfigCommand.class));
+        verify(cachedGoPartials).markAsValid(configRepoConfig.getRepo().getFingerprint(), first);
+        verify(cachedGoPartials).markAsValid(repo2.getRepo().getFingerprint(), good);
+        verify(cachedGoPartials, never()).markAsValid(repo3.getRepo().getFingerprint(), bad);
+        verify(serverHealthService).update(any(ServerHealthState.class));
+    }
+
+    @Test
+    void waitsForAPartialQueuedDuringAnotherMergeToBeMergedBeforeReturning() throws Exception {
+        cachedGoPartials = mock(CachedGoPartials.class);
+        configWatchList = mock(GoConfigWatchList.class);
+        when(configWatchList.hasConfigRepoWithFingerprint(any(String.class))).thenReturn(true);
+        when(partialConfigHelper.isEquivalent(any(), any())).thenReturn(false);
+        service = new PartialConfigService(repoConfigDataSource, configWatchList, goConfigService, cachedGoPartials, serverHealthService, partialConfigHelper);
+
+        final ConfigRepoConfig repo2 = ConfigRepoConfig.createConfigRepoConfig(git("url2"), "plugin", "id2");
+        final PartialConfig first = mock(PartialConfig.class);
+        final PartialConfig second = mock(PartialConfig.class);
+
+        final CountDownLatch firstSaveStarted = new CountDownLatch(1);
+        final CountDownLatch finishFirstSave = new CountDownLatch(1);
+        final AtomicInteger saves = new AtomicInteger();
+        when(goConfigService.updateConfig(any(UpdateConfigCommand.class))).thenAnswer(invocation -> {
+            if (saves.incrementAndGet() == 1) {
+                firstSaveStarted.countDown();
+                assertTrue(finishFirstSave.await(10, TimeUnit.SECONDS));
+            }
+            return ConfigSaveState.UPDATED;
+        });
+
+        Thread merger = new Thread(() -> service.onSuccessPartialConfig(configRepoConfig, first));
+        merger.start();
+        assertTrue(firstSaveStarted.await(10, TimeUnit.SECONDS));
+
+        final AtomicReference<Integer> savesWhenSecondReturned = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            service.onSuccessPartialConfig(repo2, second);
+            savesWhenSecondReturned.set(saves.get());
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            assertTrue(waiter.isAlive());
+            Thread.sleep(5);
+        }
+        assertNull(savesWhenSecondReturned.get());
+
+        finishFirstSave.countDown();
+        merger.join(10_000);
+        waiter.join(10_000);
+
+        assertEquals(2, savesWhenSecondReturned.get());
+        verify(cachedGoPartials).markAsValid(repo2.getRepo().getFingerprint(), second);
+    }
+
+    @Test
+    void failsTheCallersOfABatchThatCouldNotBeMergedAndRecovers() {
+        cachedGoPartials = mock(CachedGoPartials.class);
+        configWatchList = mock(GoConfigWatchList.class);
+        when(configWatchList.hasConfigRepoWithFingerprint(any(String.class))).thenReturn(true);
+        when(partialConfigHelper.isEquivalent(any(), any())).thenReturn(false);
+        service = new PartialConfigService(repoConfigDataSource, configWatchList, goConfigService, cachedGoPartials, serverHealthService, partialConfigHelper);
+
+        final PartialConfig first = mock(PartialConfig.class);
+        final PartialConfig second = mock(PartialConfig.class);
+        doThrow(new IllegalStateException("cache is broken")).when(cachedGoPartials).markAsValid(configRepoConfig.getRepo().getFingerprint(), first);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> service.onSuccessPartialConfig(configRepoConfig, first));
+        assertEquals("cache is broken", e.getMessage());
+
+        service.onSuccessPartialConfig(configRepoConfig, second);
+        verify(cachedGoPartials).markAsValid(configRepoConfig.getRepo().getFingerprint(), second);
+    }
+
+    @Test
+    void doesNotLeaveCallersWaitingWhenAMergeFailsWithAnError() throws Exception {
+        cachedGoPartials = mock(CachedGoPartials.class);
+        configWatchList = mock(GoConfigWatchList.class);
+        when(configWatchList.hasConfigRepoWithFingerprint(any(String.class))).thenReturn(true);
+        when(partialConfigHelper.isEquivalent(any(), any())).thenReturn(false);
+        service = new PartialConfigService(repoConfigDataSource, configWatchList, goConfigService, cachedGoPartials, serverHealthService, partialConfigHelper);
+
+        final ConfigRepoConfig repo2 = ConfigRepoConfig.createConfigRepoConfig(git("url2"), "plugin", "id2");
+        final PartialConfig first = mock(PartialConfig.class);
+        final PartialConfig second = mock(PartialConfig.class);
+
+        final CountDownLatch firstSaveStarted = new CountDownLatch(1);
+        final CountDownLatch finishFirstSave = new CountDownLatch(1);
+        final AtomicInteger saves = new AtomicInteger();
+        when(goConfigService.updateConfig(any(UpdateConfigCommand.class))).thenAnswer(invocation -> {
+            if (saves.incrementAndGet() == 1) {
+                firstSaveStarted.countDown();
+                assertTrue(finishFirstSave.await(10, TimeUnit.SECONDS));
+                throw new StackOverflowError();
+            }
+            return ConfigSaveState.UPDATED;
+        });
+
+        final AtomicReference<Throwable> mergerFailure = new AtomicReference<>();
+        Thread merger = new Thread(() -> {
+            try {
+                service.onSuccessPartialConfig(configRepoConfig, first);
+            } catch (Throwable e) {
+                mergerFailure.set(e);
+            }
+        });
+        merger.start();
+        assertTrue(firstSaveStarted.await(10, TimeUnit.SECONDS));
+
+        final AtomicReference<Throwable> waiterFailure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                service.onSuccessPartialConfig(repo2, second);
+            } catch (Throwable e) {
+                waiterFailure.set(e);
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            assertTrue(waiter.isAlive());
+            Thread.sleep(5);
+        }
+
+        finishFirstSave.countDown();
+        merger.join(10_000);
+        waiter.join(10_000);
+
+        assertFalse(merger.isAlive());
+        assertFalse(waiter.isAlive());
+        assertInstanceOf(StackOverflowError.class, mergerFailure.get());
+        assertInstanceOf(IllegalStateException.class, waiterFailure.get());
+
+        service.onSuccessPartialConfig(repo2, second);
+        verify(cachedGoPartials).markAsValid(repo2.getRepo().getFingerprint(), second);
+    }
+
     @Test
     void clearsLastValidPartialOnFailureWhenFailsRuleValidations() {
         when(goConfigService.updateConfig(any(UpdateConfigCommand.class))).thenThrow(new RuntimeException("Nope")).thenReturn(ConfigSaveState.UPDATED);
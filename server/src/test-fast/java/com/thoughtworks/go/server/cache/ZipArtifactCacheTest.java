@@ -18,8 +18,10 @@ package com.thoughtworks.go.server.cache;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TestFileUtil;
 import com.thoughtworks.go.util.ZipUtil;
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -27,7 +29,10 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
+import static com.thoughtworks.go.util.SystemEnvironment.GO_ZIP_ARTIFACT_CACHE_MAX_SIZE_MB;
+import static com.thoughtworks.go.util.SystemEnvironment.GO_ZIP_ARTIFACT_CACHE_PARALLEL_THRESHOLD_MB;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
@@ -42,6 +47,7 @@ public class ZipArtifactCacheTest {
     File folder;
     private ArtifactFolder artifactFolder;
     private ArtifactsDirHolder artifactsDirHolder;
+    private SystemEnvironment systemEnvironment;
 
     @BeforeEach
     public void setUp() throws Exception {
@@ -52,7 +58,10 @@ public class ZipArtifactCacheTest {
 
         artifactsDirHolder = mock(ArtifactsDirHolder.class);
         when(artifactsDirHolder.getArtifactsDir()).thenReturn(folder);
-        zipArtifactCache = new ZipArtifactCache(this.artifactsDirHolder, new ZipUtil());
+        systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(GO_ZIP_ARTIFACT_CACHE_PARALLEL_THRESHOLD_MB)).thenReturn(64L);
+        when(systemEnvironment.get(GO_ZIP_ARTIFACT_CACHE_MAX_SIZE_MB)).thenReturn(0L);
+        zipArtifactCache = new ZipArtifactCache(this.artifactsDirHolder, new ZipUtil(), systemEnvironment);
         artifactFolder = new ArtifactFolder(JOB_IDENTIFIER, new File(artifact, "dir"), "dir");
     }
 
@@ -107,6 +116,65 @@ public class ZipArtifactCacheTest {
         assertThat(new File(cacheDir, "dir/file1")).exists();
     }
 
+    @Test
+    public void shouldZipLargeFoldersInParallelWithTheSameLayout() throws Exception {
+        when(systemEnvironment.get(GO_ZIP_ARTIFACT_CACHE_PARALLEL_THRESHOLD_MB)).thenReturn(0L);
+        TestFileUtil.createTestFolder(artifactFolder.getRootFolder(), "empty");
+
+        zipArtifactCache.createCachedFile(artifactFolder);
+
+        File unzipHere = new File(folder, "unzipped");
+        new ZipUtil().unzip(zipArtifactCache.cachedFile(artifactFolder), unzipHere);
+        assertThat(new File(unzipHere, "dir/file1")).exists();
+        assertThat(new File(unzipHere, "dir/empty")).isDirectory();
+        assertThat(zipArtifactCache.asJson()).containsEntry("Zips created in parallel", 1L);
+    }
+
+    @Test
+    public void shouldDeleteLeastRecentlyUsedZipsFirst() throws Exception {
+        File otherFolder = TestFileUtil.createTestFolder(new File(folder, JOB_FOLDERS), "other");
+        TestFileUtil.createTestFile(otherFolder, "file2");
+        ArtifactFolder otherArtifactFolder = new ArtifactFolder(JOB_IDENTIFIER, otherFolder, "other");
+        zipArtifactCache.createCachedFile(artifactFolder);
+        zipArtifactCache.createCachedFile(otherArtifactFolder);
+        assertThat(zipArtifactCache.cacheCreated(artifactFolder)).isTrue();
+
+        File otherZip = zipArtifactCache.cachedFile(otherArtifactFolder);
+        int evicted = zipArtifactCache.evictLeastRecentlyUsed(null, () -> !otherZip.exists());
+
+        assertThat(evicted).isEqualTo(1);
+        assertThat(otherZip).doesNotExist();
+        assertThat(zipArtifactCache.cachedFile(artifactFolder)).exists();
+        assertThat(zipArtifactCache.asJson()).containsEntry("Zips evicted", 1L).containsEntry("Cached zips", 1);
+    }
+
+    @Test
+    public void shouldKeepTheCacheWithinItsBudget() throws Exception {
+        File otherFolder = TestFileUtil.createTestFolder(new File(folder, JOB_FOLDERS), "other");
+        byte[] incompressible = new byte[2 * 1024 * 1024];
+        new Random().nextBytes(incompressible);
+        FileUtils.writeByteArrayToFile(new File(otherFolder, "random"), incompressible);
+        ArtifactFolder otherArtifactFolder = new ArtifactFolder(JOB_IDENTIFIER, otherFolder, "other");
+        when(systemEnvironment.get(GO_ZIP_ARTIFACT_CACHE_MAX_SIZE_MB)).thenReturn(1L);
+
+        zipArtifactCache.createCachedFile(artifactFolder);
+        zipArtifactCache.createCachedFile(otherArtifactFolder);
+
+        assertThat(zipArtifactCache.cachedFile(artifactFolder)).doesNotExist();
+        assertThat(zipArtifactCache.cachedFile(otherArtifactFolder)).exists();
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() throws Exception {
+        waitForCacheCreated();
+        zipArtifactCache.cacheCreated(artifactFolder);
+
+        assertThat(zipArtifactCache.asJson())
+            .containsEntry("Misses", 1L)
+            .containsEntry("Hits", 2L)
+            .containsEntry("Zips created", 1L);
+    }
+
     private void waitForCacheCreated() throws Exception {
         int timesTried = 10;
         while (timesTried > 0 && !zipArtifactCache.cacheCreated(artifactFolder)) {
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.dao;
+
+import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class HistoryPageCursorsTest {
+    private static CacheManager cacheManager;
+    private GoCache goCache;
+    private HistoryPageCursors cursors;
+
+    @BeforeAll
+    public static void beforeClass() {
+        cacheManager = CacheManager.newInstance(new Configuration().name(HistoryPageCursorsTest.class.getName()));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        Cache cache = new Cache(new CacheConfiguration(getClass().getName(), 100));
+        cacheManager.addCache(cache);
+        goCache = new GoCache(cache, mock(TransactionSynchronizationManager.class));
+        cursors = new HistoryPageCursors(goCache, "history-page-cursors");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        goCache.destroy();
+    }
+
+    @AfterAll
+    public static void afterClass() {
+        cacheManager.shutdown();
+    }
+
+    @Test
+    public void shouldRememberTheOldestIdOfAPageAsTheCursorForTheNextPage() {
+        cursors.remember(cursors.generation(), 10, List.of(90L, 85L, 80L));
+
+        assertThat(cursors.cursorFor(13)).isEqualTo(80L);
+        assertThat(cursors.cursorFor(10)).isNull();
+        assertThat(cursors.cursorFor(0)).isNull();
+    }
+
+    @Test
+    public void shouldForgetCursorsWhenInvalidated() {
+        cursors.remember(cursors.generation(), 0, List.of(90L, 85L));
+
+        cursors.invalidate();
+
+        assertThat(cursors.cursorFor(2)).isNull();
+    }
+
+    @Test
+    public void shouldNotRememberAPageReadBeforeAnInvalidationThatHappenedWhileItWasRunning() {
+        Long generationOfSlowRead = cursors.generation();
+
+        cursors.invalidate();
+        Long generationOfLaterRead = cursors.generation();
+        cursors.remember(generationOfSlowRead, 0, List.of(90L, 85L));
+
+        assertThat(generationOfLaterRead).isNotEqualTo(generationOfSlowRead);
+        assertThat(cursors.cursorFor(2)).isNull();
+
+        cursors.remember(generationOfLaterRead, 0, List.of(91L, 90L));
+        assertThat(cursors.cursorFor(2)).isEqualTo(90L);
+    }
+
+    @Test
+    public void shouldNotRememberAPageReadBeforeAnInvalidationWhenNoOtherReadFollowedIt() {
+        Long generationOfSlowRead = cursors.generation();
+
+        cursors.invalidate();
+        cursors.remember(generationOfSlowRead, 0, List.of(90L, 85L));
+
+        assertThat(cursors.cursorFor(2)).isNull();
+    }
+}
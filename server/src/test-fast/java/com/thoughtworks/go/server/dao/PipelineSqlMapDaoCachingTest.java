@@ -134,7 +134,64 @@ class PipelineSqlMapDaoCachingTest {
         pipelineDao.findPipelineIds("pipelineName", 2, 0);
         pipelineDao.findPipelineIds("pipelineName", 1, 2);
         pipelineDao.findPipelineIds("pipelineName", 1, 2);
-        verify(mockTemplate, times(4)).queryForList(eq("getPipelineRange"), any());
+        verify(mockTemplate, times(2)).queryForList(eq("getPipelineRange"), any());
+        verify(mockTemplate, times(2)).queryForList(eq("getPipelineIdsAfter"), any());
+    }
+
+    @Test
+    void findPipelineIds_shouldSeekToASubsequentPageUsingTheOldestIdOfThePreviousPage() {
+        doReturn(List.of(10L, 9L)).when(mockTemplate).queryForList(eq("getPipelineRange"), any());
+        doReturn(List.of(7L, 5L)).when(mockTemplate).queryForList(eq("getPipelineIdsAfter"), any());
+
+        assertThat(pipelineDao.findPipelineIds("pipelineName", 2, 0)).containsExactly(10L, 9L);
+        assertThat(pipelineDao.findPipelineIds("pipelineName", 2, 2)).containsExactly(7L, 5L);
+        pipelineDao.findPipelineIds("pipelineName", 2, 4);
+
+        verify(mockTemplate).queryForList("getPipelineRange", Map.of("pipelineName", "pipelineName", "limit", 2, "offset", 0));
+        verify(mockTemplate).queryForList("getPipelineIdsAfter", Map.of("pipelineName", "pipelineName", "cursor", 9L, "limit", 2));
+        verify(mockTemplate).queryForList("getPipelineIdsAfter", Map.of("pipelineName", "pipelineName", "cursor", 5L, "limit", 2));
+    }
+
+    @Test
+    void findPipelineIds_shouldFallBackToOffsetOnceANewPipelineIsSaved() {
+        doReturn(List.of(10L, 9L)).when(mockTemplate).queryForList(eq("getPipelineRange"), any());
+        doAnswer((Answer<Object>) invocation -> {
+            ((TransactionSynchronizationAdapter) invocation.getArguments()[0]).afterCommit();
+            return null;
+        }).when(transactionSynchronizationManager).registerSynchronization(any(TransactionSynchronization.class));
+        when(transactionTemplate.execute(any())).then(invocation -> {
+            ((TransactionCallback<?>) invocation.getArguments()[0]).doInTransaction(new SimpleTransactionStatus());
+            return null;
+        });
+
+        pipelineDao.findPipelineIds("pipelineName", 2, 0);
+        pipelineDao.save(PipelineMother.pipeline("pipelineName"));
+        pipelineDao.findPipelineIds("pipelineName", 2, 2);
+
+        verify(mockTemplate).queryForList("getPipelineRange", Map.of("pipelineName", "pipelineName", "limit", 2, "offset", 2));
+        verify(mockTemplate, never()).queryForList(eq("getPipelineIdsAfter"), any());
+    }
+
+    @Test
+    void getOldestAndLatestPipelineId_shouldBeCachedUntilANewPipelineIsSaved() {
+        when(mockTemplate.queryForObject(eq("getOldestAndLatestPipelineRun"), any())).thenReturn(new PipelineRunIdInfo(10, 1), new PipelineRunIdInfo(11, 1));
+        doAnswer((Answer<Object>) invocation -> {
+            ((TransactionSynchronizationAdapter) invocation.getArguments()[0]).afterCommit();
+            return null;
+        }).when(transactionSynchronizationManager).registerSynchronization(any(TransactionSynchronization.class));
+        when(transactionTemplate.execute(any())).then(invocation -> {
+            ((TransactionCallback<?>) invocation.getArguments()[0]).doInTransaction(new SimpleTransactionStatus());
+            return null;
+        });
+
+        assertThat(pipelineDao.getOldestAndLatestPipelineId("pipelineName").getLatestRunId()).isEqualTo(10);
+        assertThat(pipelineDao.getOldestAndLatestPipelineId("PIPELINENAME").getLatestRunId()).isEqualTo(10);
+        verify(mockTemplate, times(1)).queryForObject(eq("getOldestAndLatestPipelineRun"), any());
+
+        pipelineDao.save(PipelineMother.pipeline("pipelineName"));
+
+        assertThat(pipelineDao.getOldestAndLatestPipelineId("pipelineName").getLatestRunId()).isEqualTo(11);
+        verify(mockTemplate, times(2)).queryForObject(eq("getOldestAndLatestPipelineRun"), any());
     }
 
     @Test
@@ -18,6 +18,8 @@ package com.thoughtworks.go.server.dao;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import com.thoughtworks.go.config.GoConfigDao;
 import com.thoughtworks.go.domain.Pipeline;
+import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.domain.StageIdentifier;
 import com.thoughtworks.go.domain.buildcause.BuildCause;
 import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.helper.GoConfigMother;
@@ -34,10 +36,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.*;
 
 import static com.thoughtworks.go.helper.ModificationsMother.*;
 import static com.thoughtworks.go.util.IBatisUtil.arguments;
@@ -183,6 +182,63 @@ class PipelineSqlMapDaoTest {
         verifyNoMoreInteractions(sqlMapClientTemplate); /* Should not have loaded history for the other pipeline. */
     }
 
+    @Test
+    void shouldWarmUpActivePipelinesAndTheirMaterialRevisionsWithoutLoadingAllActivePipelinesAtOnce() {
+        String p1 = "pipeline-in-config";
+        String p2 = "pipeline-not-in-config";
+        PipelineInstanceModel pimForP1 = pimFor(p1, 1);
+        PipelineInstanceModel pimForP2 = pimFor(p2, 1);
+
+        when(configFileDao.load()).thenReturn(GoConfigMother.configWithPipelines(p1));
+        when(sqlMapClientTemplate.queryForList("allActivePipelineIds")).thenReturn(List.of(pimForP1.getId(), pimForP2.getId()));
+        when(sqlMapClientTemplate.queryForList("activePipelinesByIds", arguments("ids", List.of(pimForP1.getId(), pimForP2.getId())).asMap())).thenReturn(List.of(pimForP1, pimForP2));
+
+        pipelineSqlMapDao.warmUpActivePipelines();
+
+        verify(sqlMapClientTemplate, never()).queryForList("allActivePipelines");
+        verify(materialRepository).cacheMaterialRevisionsForPipelines(Set.of(pimForP1.getId()));
+        verify(goCache).put(pipelineSqlMapDao.activePipelinesCacheKey(), Map.of(
+                new CaseInsensitiveString(p1), new TreeSet<>(List.of(pimForP1.getId())),
+                new CaseInsensitiveString(p2), new TreeSet<>(List.of(pimForP2.getId()))));
+    }
+
+    @Test
+    void shouldNotReplaceActivePipelinesCachedWhileWarmingUp() {
+        PipelineInstanceModel pim = pimFor("pipeline", 1);
+        when(configFileDao.load()).thenReturn(GoConfigMother.configWithPipelines("pipeline"));
+        when(sqlMapClientTemplate.queryForList("allActivePipelineIds")).thenReturn(List.of(pim.getId()));
+        when(sqlMapClientTemplate.queryForList("activePipelinesByIds", arguments("ids", List.of(pim.getId())).asMap())).thenReturn(List.of(pim));
+        when(goCache.get(pipelineSqlMapDao.activePipelinesCacheKey())).thenReturn(new HashMap<>());
+
+        pipelineSqlMapDao.warmUpActivePipelines();
+
+        verify(goCache, never()).put(eq(pipelineSqlMapDao.activePipelinesCacheKey()), any());
+    }
+
+    @Test
+    void shouldApplyStageChangesSeenWhileWarmingUpBeforeCachingActivePipelines() {
+        PipelineInstanceModel pim = pimFor("pipeline", 1);
+        PipelineInstanceModel triggeredDuringWarmUp = pimFor("another-pipeline", 1);
+        when(configFileDao.load()).thenReturn(GoConfigMother.configWithPipelines("pipeline", "another-pipeline"));
+        when(sqlMapClientTemplate.queryForList("allActivePipelineIds")).thenReturn(List.of(pim.getId()));
+        when(sqlMapClientTemplate.queryForList("activePipelinesByIds", arguments("ids", List.of(pim.getId())).asMap())).thenAnswer(invocation -> {
+            Stage stage = new Stage();
+            stage.setName("stage");
+            stage.building();
+            stage.setPipelineId(triggeredDuringWarmUp.getId());
+            stage.setIdentifier(new StageIdentifier("another-pipeline", 1, "1", "stage", "1"));
+            pipelineSqlMapDao.stageStatusChanged(stage);
+            return List.of(pim);
+        });
+        when(sqlMapClientTemplate.queryForObject("getPipelineHistoryById", arguments("id", triggeredDuringWarmUp.getId()).asMap())).thenReturn(triggeredDuringWarmUp);
+
+        pipelineSqlMapDao.warmUpActivePipelines();
+
+        verify(goCache).put(pipelineSqlMapDao.activePipelinesCacheKey(), Map.of(
+                new CaseInsensitiveString("pipeline"), new TreeSet<>(List.of(pim.getId())),
+                new CaseInsensitiveString("another-pipeline"), new TreeSet<>(List.of(triggeredDuringWarmUp.getId()))));
+    }
+
     private PipelineInstanceModel pimFor(String p1, int counter) {
         StageInstanceModels models = new StageInstanceModels();
         models.add(new StageInstanceModel("stage", "1", new JobHistory()));
@@ -37,6 +37,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -99,6 +103,36 @@ public class GoDashboardActivityListenerTest {
         verify(handler).call(aConfig);
     }
 
+    @Test
+    public void shouldLetStartupWaitUntilTheDashboardIsLoadedForTheFirstConfig() {
+        CruiseConfig aConfig = GoConfigMother.defaultCruiseConfig();
+        GoDashboardConfigChangeHandler handler = mock(GoDashboardConfigChangeHandler.class);
+        GoDashboardActivityListener listener = new GoDashboardActivityListener(goConfigService, stageService, pipelinePauseService, pipelineLockService,
+                null, handler, null, null, null);
+
+        listener.initialize();
+        listener.onConfigChange(aConfig);
+        listener.startDaemon();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), listener::awaitInitialLoad);
+        verify(handler).call(aConfig);
+    }
+
+    @Test
+    public void shouldFailTheWaitForTheInitialLoadWhenLoadingTheDashboardFails() {
+        CruiseConfig aConfig = GoConfigMother.defaultCruiseConfig();
+        GoDashboardConfigChangeHandler handler = mock(GoDashboardConfigChangeHandler.class);
+        doThrow(new IllegalStateException("boom")).when(handler).call(aConfig);
+        GoDashboardActivityListener listener = new GoDashboardActivityListener(goConfigService, stageService, pipelinePauseService, pipelineLockService,
+                null, handler, null, null, null);
+
+        listener.initialize();
+        listener.onConfigChange(aConfig);
+        listener.startDaemon();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThatThrownBy(listener::awaitInitialLoad).hasRootCauseMessage("boom"));
+    }
+
     @Test
     public void onInitializationAndStartOfDaemons_shouldRegisterAListener_WhichCallsConfigChangeHandler_ForPipelineConfigChangeHandling() throws Exception {
         GoDashboardConfigChangeHandler handler = mock(GoDashboardConfigChangeHandler.class);
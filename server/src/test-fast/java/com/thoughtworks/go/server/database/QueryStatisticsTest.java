@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryStatisticsTest {
+    private QueryStatistics queryStatistics;
+
+    @BeforeEach
+    void setUp() {
+        queryStatistics = new QueryStatistics(new SystemEnvironment());
+    }
+
+    @Test
+    void shouldAggregateTimingsAndRowsPerStatement() {
+        queryStatistics.record("Pipeline.getPipelineRange", TimeUnit.MILLISECONDS.toNanos(3), 10, null);
+        queryStatistics.record("Pipeline.getPipelineRange", TimeUnit.MILLISECONDS.toNanos(7), 5, null);
+
+        Map<String, Object> json = statement("Pipeline.getPipelineRange");
+        assertThat(json.get("Count")).isEqualTo(2L);
+        assertThat(json.get("Total Time (ms)")).isEqualTo(10L);
+        assertThat(json.get("Average Time (ms)")).isEqualTo(5L);
+        assertThat(json.get("Max Time (ms)")).isEqualTo(7L);
+        assertThat(json.get("Rows")).isEqualTo(15L);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Long> histogram = (Map<String, Long>) json.get("Histogram");
+        assertThat(histogram.get("<= 5ms")).isEqualTo(1L);
+        assertThat(histogram.get("<= 10ms")).isEqualTo(1L);
+        assertThat(histogram.get("> 5000ms")).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldListStatementsWithTheMostTotalTimeFirst() {
+        queryStatistics.record("Stage.findStageHistoryPage", TimeUnit.MILLISECONDS.toNanos(1), 1, null);
+        queryStatistics.record("Pipeline.getPipelineRange", TimeUnit.MILLISECONDS.toNanos(50), 1, null);
+        queryStatistics.record("JobInstance.getJobHistory", TimeUnit.MILLISECONDS.toNanos(20), 1, null);
+
+        assertThat(List.copyOf(queryStatistics.asJson().keySet()))
+            .containsExactly("Pipeline.getPipelineRange", "JobInstance.getJobHistory", "Stage.findStageHistoryPage");
+    }
+
+    @Test
+    void shouldDescribeTheShapeOfParametersWithoutTheirValues() {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("pipelineName", "secret-pipeline");
+        parameters.put("ids", new ArrayList<>(List.of(1L, 2L)));
+        parameters.put("offset", null);
+
+        assertThat(QueryStatistics.parameterShape(parameters)).isEqualTo("{pipelineName=String, ids=ArrayList[2], offset=null}");
+        assertThat(QueryStatistics.parameterShape(42L)).isEqualTo("Long");
+        assertThat(QueryStatistics.parameterShape(null)).isEqualTo("null");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> statement(String statementId) {
+        return (Map<String, Object>) queryStatistics.asJson().get(statementId);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private ReplicaHealthCheck healthCheck;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.isValid(anyInt())).thenReturn(true);
+
+        healthCheck = new ReplicaHealthCheck(replica, null, 5);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica, healthCheck);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void shouldSendReadsThatAreNotMarkedToThePrimary() throws SQLException {
+        healthCheck.run();
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void shouldSendMarkedReadsToAHealthyReplica() throws SQLException {
+        healthCheck.run();
+
+        assertThat(ReplicaReads.allow(this::connection)).isSameAs(replicaConnection);
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void shouldSendMarkedReadsToThePrimaryUntilTheReplicaHasBeenCheckedAndFoundHealthy() {
+        assertThat(ReplicaReads.allow(this::connection)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void shouldSendMarkedReadsToThePrimaryWhenTheReplicaIsTooFarBehind() throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SELECT lag")).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(30.0);
+        healthCheck = new ReplicaHealthCheck(replica, "SELECT lag", 5);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica, healthCheck);
+
+        healthCheck.run();
+
+        assertThat(healthCheck.isHealthy()).isFalse();
+        assertThat(ReplicaReads.allow(this::connection)).isSameAs(primaryConnection);
+
+        when(resultSet.getDouble(1)).thenReturn(1.0);
+        healthCheck.run();
+
+        assertThat(ReplicaReads.allow(this::connection)).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void shouldSendMarkedReadsInsideATransactionToThePrimary() throws SQLException {
+        healthCheck.run();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertThat(ReplicaReads.allow(this::connection)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void shouldFallBackToThePrimaryAndStopUsingTheReplicaWhenItCannotHandOutAConnection() throws SQLException {
+        healthCheck.run();
+        when(replica.getConnection()).thenThrow(new SQLException("replica is down"));
+
+        assertThat(ReplicaReads.allow(this::connection)).isSameAs(primaryConnection);
+        assertThat(healthCheck.isHealthy()).isFalse();
+        assertThat(healthCheck.status()).contains("replica is down");
+    }
+
+    private Connection connection() {
+        try {
+            return routingDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
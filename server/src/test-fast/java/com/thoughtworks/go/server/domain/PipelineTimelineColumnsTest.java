@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineTimelineColumnsTest {
+    private static final List<String> MATERIALS = List.of("git-1", "git-2", "svn-1", "hg-1");
+
+    private final PipelineTimelineColumns.StringTable strings = new PipelineTimelineColumns.StringTable();
+    private final PipelineTimelineColumns columns = new PipelineTimelineColumns("pipeline", strings);
+    private final TreeSet<PipelineTimelineEntry> expected = new TreeSet<>();
+
+    @Test
+    void shouldNavigateANonTransitiveOrderingTheWayATreeSetDoes() {
+        // a < b on git-1, b < c on svn-1, but c < a on git-2
+        PipelineTimelineEntry a = entry(1, 1, Map.of("git-1", 1L, "git-2", 5L));
+        PipelineTimelineEntry b = entry(2, 2, Map.of("git-1", 2L, "svn-1", 3L));
+        PipelineTimelineEntry c = entry(3, 3, Map.of("git-2", 4L, "svn-1", 6L));
+        assertThat(a.compareTo(b)).isNegative();
+        assertThat(b.compareTo(c)).isNegative();
+        assertThat(c.compareTo(a)).isNegative();
+
+        add(a);
+        add(b);
+        add(c);
+        remove(2);
+        add(entry(4, 4, Map.of("git-1", 2L, "git-2", 4L, "svn-1", 3L)));
+        remove(1);
+
+        assertSameAsTreeSet(entry(5, 5, Map.of("git-2", 5L, "svn-1", 5L)));
+    }
+
+    @Test
+    void shouldFallBackToTheCounterForRunsWithTheSameCheckInTimes() {
+        add(entry(1, 3, Map.of("git-1", 1L)));
+        add(entry(2, 1, Map.of("git-1", 1L)));
+        add(entry(3, 2, Map.of("git-1", 1L, "git-2", 2L)));
+
+        assertThat(columns.inNaturalOrder()).extracting(PipelineTimelineEntry::getCounter).containsExactly(1, 2, 3);
+        assertSameAsTreeSet(entry(4, 4, Map.of("git-1", 1L)));
+    }
+
+    @Test
+    void shouldStayInStepWithATreeSetThroughRandomInsertsAndDeletes() {
+        for (long seed = 0; seed < 50; seed++) {
+            Random random = new Random(seed);
+            PipelineTimelineColumns.StringTable strings = new PipelineTimelineColumns.StringTable();
+            PipelineTimelineColumns columns = new PipelineTimelineColumns("pipeline", strings);
+            TreeSet<PipelineTimelineEntry> expected = new TreeSet<>();
+            long nextId = 1;
+
+            for (int operation = 0; operation < 300; operation++) {
+                if (expected.isEmpty() || random.nextInt(3) > 0) {
+                    PipelineTimelineEntry entry = randomEntry(random, nextId++);
+                    expected.add(entry);
+                    columns.add(entry);
+                    assertThat(idOf(entry.insertedAfter())).as("seed %d", seed).isEqualTo(idOf(expected.lower(entry)));
+                    assertThat(idOf(entry.insertedBefore())).as("seed %d", seed).isEqualTo(idOf(expected.higher(entry)));
+                } else {
+                    long id = randomId(random, expected);
+                    removeFrom(expected, id);
+                    columns.remove(id);
+                    assertThat(columns.contains(id)).isFalse();
+                }
+
+                assertThat(ids(columns.inNaturalOrder())).as("seed %d", seed).isEqualTo(ids(expected));
+                PipelineTimelineEntry probe = randomEntry(random, nextId);
+                assertThat(idOf(columns.naturalOrderBefore(probe))).as("seed %d", seed).isEqualTo(idOf(expected.lower(probe)));
+            }
+
+            for (PipelineTimelineEntry entry : new ArrayList<>(expected)) {
+                columns.remove(entry.getId());
+            }
+            assertThat(columns.isEmpty()).isTrue();
+            assertThat(strings.size()).as("seed %d", seed).isZero();
+        }
+    }
+
+    @Test
+    void shouldMaterializeTheRevisionsOfARun() {
+        PipelineTimelineEntry entry = entry(1, 1, Map.of("git-1", 10L, "svn-1", 20L));
+        add(entry);
+
+        PipelineTimelineEntry materialized = columns.inScheduleOrder(0);
+
+        assertThat(materialized).isEqualTo(entry);
+        assertThat(materialized.revisions()).isEqualTo(entry.revisions());
+        assertThat(materialized.naturalOrder()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldReleaseTheStringsOfRemovedRuns() {
+        add(entry(1, 1, Map.of("git-1", 1L, "git-2", 1L)));
+        add(entry(2, 2, Map.of("git-1", 2L)));
+        int stringsOfBoth = strings.size();
+
+        remove(2);
+        assertThat(strings.size()).isLessThan(stringsOfBoth);
+        assertThat(columns.inScheduleOrder(0).revisions()).containsOnlyKeys("git-1", "git-2");
+
+        remove(1);
+        assertThat(strings.size()).isZero();
+    }
+
+    @Test
+    void shouldReleaseAllStringsHeldByColumnsBeingDropped() {
+        PipelineTimelineColumns other = new PipelineTimelineColumns("other", strings);
+        other.add(entry(10, 1, Map.of("git-1", 1L)));
+        add(entry(1, 1, Map.of("git-1", 1L, "svn-1", 2L)));
+
+        columns.release();
+
+        assertThat(columns.isEmpty()).isTrue();
+        assertThat(other.inScheduleOrder(0).revisions()).isEqualTo(Map.of("git-1", List.of(revision("git-1", 1L))));
+        other.release();
+        assertThat(strings.size()).isZero();
+    }
+
+    private void add(PipelineTimelineEntry entry) {
+        expected.add(entry);
+        columns.add(entry);
+    }
+
+    private void remove(long id) {
+        removeFrom(expected, id);
+        columns.remove(id);
+    }
+
+    private void assertSameAsTreeSet(PipelineTimelineEntry probe) {
+        assertThat(ids(columns.inNaturalOrder())).isEqualTo(ids(expected));
+        assertThat(idOf(columns.naturalOrderBefore(probe))).isEqualTo(idOf(expected.lower(probe)));
+    }
+
+    /**
+     * Removes through the iterator, so that the tree set deletes the node holding the run without looking it up by
+     * comparison, which can miss it when the ordering is not transitive.
+     */
+    private static void removeFrom(TreeSet<PipelineTimelineEntry> entries, long id) {
+        for (Iterator<PipelineTimelineEntry> iterator = entries.iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getId() == id) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private static long randomId(Random random, TreeSet<PipelineTimelineEntry> entries) {
+        return new ArrayList<>(entries).get(random.nextInt(entries.size())).getId();
+    }
+
+    private static PipelineTimelineEntry randomEntry(Random random, long id) {
+        Map<String, Long> checkIns = new HashMap<>();
+        for (String material : MATERIALS) {
+            if (checkIns.isEmpty() || random.nextBoolean()) {
+                // few distinct times, so that runs often share a check-in time
+                checkIns.put(material, (long) random.nextInt(5));
+            }
+        }
+        return entry(id, random.nextInt(20), checkIns);
+    }
+
+    private static PipelineTimelineEntry entry(long id, int counter, Map<String, Long> checkIns) {
+        Map<String, List<PipelineTimelineEntry.Revision>> revisions = new HashMap<>();
+        checkIns.forEach((material, time) -> revisions.put(material, List.of(revision(material, time))));
+        return new PipelineTimelineEntry("pipeline", id, counter, revisions);
+    }
+
+    private static PipelineTimelineEntry.Revision revision(String material, long time) {
+        return new PipelineTimelineEntry.Revision(new Date(time), material + "-" + time, null, time);
+    }
+
+    private static Long idOf(PipelineTimelineEntry entry) {
+        return entry == null ? null : entry.getId();
+    }
+
+    private static List<Long> ids(Collection<PipelineTimelineEntry> entries) {
+        return entries.stream().map(PipelineTimelineEntry::getId).toList();
+    }
+}
@@ -22,6 +22,7 @@ import com.thoughtworks.go.listener.TimelineUpdateListener;
 import com.thoughtworks.go.server.persistence.PipelineRepository;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +33,7 @@ import org.springframework.transaction.support.TransactionSynchronization;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -341,6 +343,109 @@ public class PipelineTimelineTest {
         assertThat(second.naturalOrder(), is((thirdOrder + 0.5) / 2.0));
     }
 
+    @Test
+    public void shouldLoadTheTimelineOfAPipelineOnFirstUseWhenLoadingLazily() {
+        PipelineTimeline timeline = new PipelineTimeline(lazily(), pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        when(pipelineRepository.latestPipelineId()).thenReturn(4L);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArguments()[0]).doInTransaction(null));
+        doAnswer(invocation -> {
+            timeline.add(first);
+            timeline.add(third);
+            return null;
+        }).when(pipelineRepository).loadPipelineTimeline(timeline, "pipeline", 5L);
+
+        timeline.updateTimelineOnInit();
+
+        verify(pipelineRepository, never()).updatePipelineTimeline(eq(timeline), anyList());
+        assertThat(timeline.maximumId(), is(4L));
+
+        assertThat(timeline.instanceCount(new CaseInsensitiveString("pipeline")), is(2));
+        assertThat(timeline.runBefore(third.getId(), new CaseInsensitiveString("pipeline")), is(first));
+        assertThat(timeline.instanceFor(new CaseInsensitiveString("pipeline"), 1), is(third));
+        verify(pipelineRepository, times(1)).loadPipelineTimeline(timeline, "pipeline", 5L);
+    }
+
+    @Test
+    public void shouldLoadTheHistoryOfAPipelineBeforeAddingANewRunToItWhenLoadingLazily() {
+        PipelineTimeline timeline = new PipelineTimeline(lazily(), pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        doAnswer(invocation -> {
+            timeline.add(first);
+            timeline.add(third);
+            return null;
+        }).when(pipelineRepository).loadPipelineTimeline(timeline, "pipeline", 4L);
+
+        timeline.add(fourth);
+        timeline.add(second);
+
+        assertThat(fourth.insertedAfter(), is(third));
+        assertThat(second.insertedAfter(), is(first));
+        assertThat(second.insertedBefore(), is(third));
+        assertThat(timeline.instanceCount(new CaseInsensitiveString("pipeline")), is(4));
+        assertThat(timeline.maximumId(), is(4L));
+        verify(pipelineRepository, times(1)).loadPipelineTimeline(eq(timeline), eq("pipeline"), anyLong());
+    }
+
+    @Test
+    public void shouldForgetPipelinesLoadedLazilyWhileAnUpdateIsRunningWhenTheUpdateIsRolledBack() {
+        PipelineTimeline timeline = new PipelineTimeline(lazily(), pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        stubTransactionSynchronization();
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = (TransactionCallback<?>) invocation.getArguments()[0];
+            if (inTransaction.get()) {
+                return callback.doInTransaction(null);
+            }
+            transactionSynchronization = null;
+            inTransaction.set(true);
+            try {
+                callback.doInTransaction(null);
+            } finally {
+                inTransaction.set(false);
+            }
+            if (transactionSynchronization != null) {
+                transactionSynchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+            return null;
+        });
+        doAnswer(invocation -> {
+            timeline.add(first);
+            timeline.add(second);
+            return null;
+        }).when(pipelineRepository).loadPipelineTimeline(eq(timeline), eq("pipeline"), anyLong());
+        doAnswer(invocation -> {
+            // e.g. working out natural orders, which reads the timeline of the pipeline being added to
+            timeline.instanceCount(new CaseInsensitiveString("pipeline"));
+            return null;
+        }).when(pipelineRepository).updatePipelineTimeline(eq(timeline), anyList());
+
+        timeline.update();
+
+        assertThat(timeline.instanceCount(new CaseInsensitiveString("pipeline")), is(2));
+        verify(pipelineRepository, times(2)).loadPipelineTimeline(eq(timeline), eq("pipeline"), anyLong());
+    }
+
+    @Test
+    public void shouldReturnCopiesOfTheEntriesInTheTimeline() {
+        PipelineTimeline timeline = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
+        timeline.add(first);
+        timeline.add(second);
+
+        PipelineTimelineEntry copy = timeline.instanceFor(new CaseInsensitiveString("pipeline"), 1);
+
+        assertThat(copy, is(not(sameInstance(second))));
+        assertThat(copy.getCounter(), is(second.getCounter()));
+        assertThat(copy.naturalOrder(), is(second.naturalOrder()));
+        assertThat(copy.revisions(), is(second.revisions()));
+        assertThat(copy.insertedAfter(), is(first));
+        assertThat(timeline.getEntryFor(new CaseInsensitiveString("pipeline"), 1), is(first));
+    }
+
+    private SystemEnvironment lazily() {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(SystemEnvironment.GO_PIPELINE_TIMELINE_LAZY)).thenReturn(true);
+        return systemEnvironment;
+    }
+
     @Test
     public void shouldNotAllowResetingOfNaturalOrder() {
         PipelineTimeline mods = new PipelineTimeline(pipelineRepository, transactionTemplate, transactionSynchronizationManager);
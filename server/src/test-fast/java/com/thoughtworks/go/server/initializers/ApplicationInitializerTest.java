@@ -37,12 +37,14 @@ import com.thoughtworks.go.server.service.support.toggle.FeatureToggleService;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
 import com.thoughtworks.go.service.ConfigRepository;
 import com.thoughtworks.go.util.ReflectionUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.ContextRefreshedEvent;
@@ -136,6 +138,8 @@ public class ApplicationInitializerTest {
     private PipelineLabelCorrector pipelineLabelCorrector;
     @Mock
     private ConfigRepositoryInitializer configRepositoryInitializer;
+    @Spy
+    private StartupWarmUp startupWarmUp = new StartupWarmUp(new SystemEnvironment());
     @InjectMocks
     ApplicationInitializer initializer = new ApplicationInitializer();
 
@@ -157,6 +161,23 @@ public class ApplicationInitializerTest {
     public void shouldInitializeCcTrayAndDashboardActivityListenersAfterGoConfigServiceAndPipelineSqlMapDaoAreInitialized() throws Exception {
         verifyOrder(goConfigService, pipelineSqlMapDao, ccTrayActivityListener, dashboardActivityListener);
     }
+    @Test
+    public void shouldWarmUpPipelineTimelineAndConsoleActivityOnStartup() {
+        verify(pipelineTimeline).updateTimelineOnInit();
+        verify(consoleActivityMonitor).populateActivityMap();
+    }
+
+    @Test
+    public void shouldWarmUpEntityHashesInTheBackground() {
+        verify(entityHashingService, timeout(5000)).warmUp();
+    }
+
+    @Test
+    public void shouldNotWaitForTheDashboardOrCcTrayWhenDaemonsAreNotStarted() {
+        verify(dashboardActivityListener, never()).awaitInitialLoad();
+        verify(ccTrayActivityListener, never()).awaitInitialLoad();
+    }
+
     @Test
     public void shouldInitializeBackupService() {
         verify(backupService).initialize();
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.initializers;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.thoughtworks.go.server.initializers.StartupWarmUp.background;
+import static com.thoughtworks.go.server.initializers.StartupWarmUp.critical;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StartupWarmUpTest {
+    private SystemEnvironment systemEnvironment;
+    private StartupWarmUp startupWarmUp;
+
+    @BeforeEach
+    void setUp() {
+        systemEnvironment = new SystemEnvironment();
+        startupWarmUp = new StartupWarmUp(systemEnvironment);
+    }
+
+    @Test
+    void shouldRunCriticalPhasesInParallelAndWaitForThem() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        AtomicBoolean ranInParallel = new AtomicBoolean(true);
+        Runnable loader = () -> {
+            bothStarted.countDown();
+            try {
+                if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                    ranInParallel.set(false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        startupWarmUp.run(critical("first", loader), critical("second", loader));
+
+        assertThat(ranInParallel).isTrue();
+        assertThat(status("first")).isEqualTo("Done");
+        assertThat(status("second")).isEqualTo("Done");
+    }
+
+    @Test
+    void shouldNotWaitForBackgroundPhases() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        startupWarmUp.run(background("lazy", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        }));
+
+        assertThat(status("lazy")).isEqualTo("Running");
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldFailStartupWhenACriticalPhaseFails() {
+        assertThatThrownBy(() -> startupWarmUp.run(critical("broken", () -> {
+            throw new IllegalStateException("boom");
+        }))).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+
+        assertThat(status("broken")).isEqualTo("Failed: boom");
+    }
+
+    @Test
+    void shouldNotFailStartupWhenABackgroundPhaseFails() throws InterruptedException {
+        startupWarmUp.run(background("broken", () -> {
+            throw new IllegalStateException("boom");
+        }), critical("fine", () -> {
+        }));
+
+        for (int i = 0; i < 50 && "Running".equals(status("broken")); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(status("broken")).isEqualTo("Failed: boom");
+        assertThat(status("fine")).isEqualTo("Done");
+    }
+
+    @Test
+    void shouldDeferPhasesOnlyWhenLazyWarmUpIsTurnedOn() {
+        AtomicBoolean eager = new AtomicBoolean();
+        AtomicBoolean lazy = new AtomicBoolean();
+
+        startupWarmUp.run(startupWarmUp.deferrable("eager", () -> eager.set(true), () -> lazy.set(true)));
+
+        assertThat(eager).isTrue();
+        assertThat(lazy).isFalse();
+        assertThat(phase("eager").get("Critical")).isEqualTo(true);
+
+        systemEnvironment.set(SystemEnvironment.GO_STARTUP_WARMUP_LAZY, true);
+        try {
+            startupWarmUp.run(startupWarmUp.deferrable("lazy", () -> {
+            }, () -> {
+            }));
+            assertThat(phase("lazy").get("Critical")).isEqualTo(false);
+        } finally {
+            systemEnvironment.reset(SystemEnvironment.GO_STARTUP_WARMUP_LAZY);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> phase(String name) {
+        return (Map<String, Object>) startupWarmUp.asJson().get(name);
+    }
+
+    private Object status(String name) {
+        return phase(name).get("Status");
+    }
+}
@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.config.ServerConfig;
 import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.helper.StageMother;
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
 import com.thoughtworks.go.server.service.result.DiskSpaceOperationResult;
 import com.thoughtworks.go.server.service.result.HttpOperationResult;
 import com.thoughtworks.go.server.service.result.OperationResult;
@@ -48,6 +49,7 @@ public class ArtifactsDiskCleanerTest {
     private StageService stageService;
     private ArtifactsService artifactService;
     private ConfigDbStateRepository configDbStateRepository;
+    private ZipArtifactCache zipArtifactCache;
     private ServerHealthService serverHealthService;
 
     @BeforeEach
@@ -67,7 +69,9 @@ public class ArtifactsDiskCleanerTest {
 
         configDbStateRepository = mock(ConfigDbStateRepository.class);
 
-        artifactsDiskCleaner = new ArtifactsDiskCleaner(sysEnv, goConfigService, diskSpaceChecker, artifactService, stageService, configDbStateRepository);
+        zipArtifactCache = mock(ZipArtifactCache.class);
+
+        artifactsDiskCleaner = new ArtifactsDiskCleaner(sysEnv, goConfigService, diskSpaceChecker, artifactService, zipArtifactCache, stageService, configDbStateRepository);
     }
 
     @Test
@@ -88,7 +92,7 @@ public class ArtifactsDiskCleanerTest {
         final Thread[] artifactDeleterThread = {null};
         final Semaphore sem = new Semaphore(1);
         sem.acquire();
-        artifactsDiskCleaner = new ArtifactsDiskCleaner(sysEnv, goConfigService, diskSpaceChecker, artifactService, stageService, configDbStateRepository) {
+        artifactsDiskCleaner = new ArtifactsDiskCleaner(sysEnv, goConfigService, diskSpaceChecker, artifactService, zipArtifactCache, stageService, configDbStateRepository) {
             @Override void deleteOldArtifacts() {
                 artifactDeleterThread[0] = Thread.currentThread();
                 artifactsDeletionTriggered[0] = true;
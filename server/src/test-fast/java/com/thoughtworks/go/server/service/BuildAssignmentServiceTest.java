@@ -277,6 +277,59 @@ class BuildAssignmentServiceTest {
         assertThat(jobPlans.get(0)).isEqualTo(jobPlan3);
     }
 
+    @Test
+    void shouldRemoveJobPlansMissingFromConfigAcrossAllPipelinesOnAFullConfigChange() {
+        BasicCruiseConfig config = GoConfigMother.configWithPipelines("p1", "p2");
+        JobPlan stillConfigured = jobPlanFor("p1", "stage", "job");
+        JobPlan noLongerConfigured = jobPlanFor("p2", "stage", "stale");
+
+        jobPlans = (ArrayList<JobPlan>) buildAssignmentService.jobPlans();
+        jobPlans.add(stillConfigured);
+        jobPlans.add(noLongerConfigured);
+
+        buildAssignmentService.onConfigChange(config);
+
+        assertThat(jobPlans).containsExactly(stillConfigured);
+    }
+
+    @Test
+    void shouldOnlyCheckJobPlansOfAddedRemovedAndModifiedPipelinesOnAnIncrementalConfigChange() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("unchanged", "modified", "removed");
+        BasicCruiseConfig current = GoConfigMother.deepClone(previous);
+        current.pipelineConfigByName(new CaseInsensitiveString("modified")).getFirstStageConfig().getJobs().first().setName("renamed");
+        current.getGroups().first().remove(current.pipelineConfigByName(new CaseInsensitiveString("removed")));
+        new GoConfigMother().addPipeline(current, "added", "stage", "job");
+
+        JobPlan unchanged = jobPlanFor("unchanged", "stage", "job");
+        // not in either config, but its pipeline did not change, so it is left to a full config change
+        JobPlan unchangedButStale = jobPlanFor("unchanged", "stage", "stale");
+        JobPlan modified = jobPlanFor("modified", "stage", "job");
+        JobPlan removed = jobPlanFor("removed", "stage", "job");
+        JobPlan added = jobPlanFor("added", "stage", "job");
+
+        jobPlans = (ArrayList<JobPlan>) buildAssignmentService.jobPlans();
+        jobPlans.addAll(List.of(unchanged, unchangedButStale, modified, removed, added));
+
+        buildAssignmentService.onConfigChange(current, ConfigChangeSet.between(previous, current));
+
+        assertThat(jobPlans).containsExactly(unchanged, unchangedButStale, added);
+    }
+
+    @Test
+    void shouldNotTouchJobPlansWhenNoPipelineChanged() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1");
+        BasicCruiseConfig current = GoConfigMother.deepClone(previous);
+        JobPlan stale = jobPlanFor("p1", "stage", "stale");
+
+        jobPlans = (ArrayList<JobPlan>) buildAssignmentService.jobPlans();
+        jobPlans.add(stale);
+
+        buildAssignmentService.onConfigChange(current, ConfigChangeSet.between(previous, current));
+
+        assertThat(jobPlans).containsExactly(stale);
+        verifyNoInteractions(jobInstanceService, scheduleService);
+    }
+
     @Nested
     class AssignWorkToAgent {
         @Test
@@ -574,6 +627,10 @@ class BuildAssignmentServiceTest {
         inOrder.verify(jobStatusTopic).post(new JobStatusMessage(jobPlan.getIdentifier(), JobState.Scheduled, elasticAgentInstance.getUuid()));
     }
 
+    private JobPlan jobPlanFor(String pipelineName, String stageName, String jobName) {
+        return getJobPlan(new CaseInsensitiveString(pipelineName), new CaseInsensitiveString(stageName), new JobConfig(jobName));
+    }
+
     private JobPlan getJobPlan(CaseInsensitiveString pipelineName, CaseInsensitiveString stageName, JobConfig job) {
         JobPlan jobPlan = new InstanceFactory().createJobPlan(job, schedulingContext);
 
@@ -271,6 +271,30 @@ class ElasticAgentPluginServiceTest {
         assertThat(healthStateScope.getScope()).isEqualTo("pipeline-1/stage/job");
     }
 
+    @Test
+    void shouldResolveSecretsOnceForJobsSharingTheSameProfilesAndPostAMessagePerJob() {
+        JobPlan plan1 = plan(1, "docker");
+        JobPlan plan2 = plan(2, "docker");
+        JobPlan plan3 = plan(3, "p1");
+        when(goConfigService.elasticJobStarvationThreshold()).thenReturn(10000L);
+        when(ephemeralAutoRegisterKeyService.autoRegisterKey()).thenReturn("key-1", "key-2", "key-3");
+        when(environmentConfigService.envForPipeline("pipeline-2")).thenReturn("env-2");
+
+        service.createAgentsFor(new ArrayList<>(), List.of(plan1, plan2, plan3));
+
+        ArgumentCaptor<CreateAgentMessage> captor = ArgumentCaptor.forClass(CreateAgentMessage.class);
+        verify(createAgentQueue, times(3)).post(captor.capture(), anyLong());
+        verify(secretParamResolver, times(2)).resolve(any(ClusterProfile.class));
+        verify(secretParamResolver, times(2)).resolve(any(ElasticProfile.class));
+
+        List<CreateAgentMessage> messages = captor.getAllValues();
+        assertThat(messages).extracting(CreateAgentMessage::pluginId).containsExactly("docker", "docker", "p1");
+        assertThat(messages).extracting(CreateAgentMessage::jobIdentifier).containsExactly(plan1.getIdentifier(), plan2.getIdentifier(), plan3.getIdentifier());
+        assertThat(messages).extracting(CreateAgentMessage::autoregisterKey).containsExactly("key-1", "key-2", "key-3");
+        assertThat(messages).extracting(CreateAgentMessage::environment).containsExactly(null, "env-2", null);
+        verify(serverHealthService, times(3)).removeByScope(any(HealthStateScope.class));
+    }
+
     @Test
     void shouldRetryCreateAgentForJobForWhichAssociatedPluginIsMissing() {
         when(goConfigService.elasticJobStarvationThreshold()).thenReturn(0L);
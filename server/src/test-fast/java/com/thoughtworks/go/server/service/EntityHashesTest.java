@@ -13,18 +13,13 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package com.thoughtworks.go.server.service;
 
+import com.thoughtworks.go.config.AdminRole;
 import com.thoughtworks.go.config.AdminUser;
-import com.thoughtworks.go.config.ConfigCache;
-import com.thoughtworks.go.config.MagicalGoConfigXmlWriter;
-import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
-import com.thoughtworks.go.util.ConfigElementImplementationRegistryMother;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
-import org.mockito.stubbing.Answer;
 
 import java.util.List;
 import java.util.Map;
@@ -32,16 +27,14 @@ import java.util.Map;
 import static com.thoughtworks.go.util.CachedDigestUtils.sha512_256Hex;
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 class EntityHashesTest {
     private EntityHashes hashes;
 
     @BeforeEach
     void setup() {
-        hashes = new EntityHashes(new ConfigCache(), ConfigElementImplementationRegistryMother.withNoPlugins());
+        hashes = new EntityHashes();
     }
 
     @Test
@@ -56,29 +49,11 @@ class EntityHashesTest {
 
     @Nested
     class ConfigEntities {
-        @BeforeEach
-        void setup() {
-            final MagicalGoConfigXmlWriter writer = mock(MagicalGoConfigXmlWriter.class);
-
-            hashes = new EntityHashes(mock(ConfigCache.class), mock(ConfigElementImplementationRegistry.class)) {
-                @Override
-                protected String serializeDomainEntity(Object domainObject) {
-                    return writer.toXmlPartial(domainObject);
-                }
-            };
-
-            // mocking this as we aren't testing the XML serialization; that's supposed to be an abstraction!
-            when(writer.toXmlPartial(any(AdminUser.class))).thenAnswer((Answer<String>) invocation -> {
-                final AdminUser user = invocation.getArgument(0);
-                return user.getName().toString();
-            });
-        }
-
         @Test
         void digest_Entities() {
             final String expected = sha512_256Hex(format("%s/%s",
-                    sha512_256Hex("bilbo"),
-                    sha512_256Hex("baggins")
+                    hashes.digestDomainConfigEntity(new AdminUser("bilbo")),
+                    hashes.digestDomainConfigEntity(new AdminUser("baggins"))
             ));
 
             assertEquals(expected, hashes.digest(
@@ -90,8 +65,18 @@ class EntityHashesTest {
         }
 
         @Test
-        void digestDomainConfigEntity() {
-            assertEquals(sha512_256Hex("bilbo"), hashes.digestDomainConfigEntity(new AdminUser("bilbo")));
+        void digestDomainConfigEntity_isTheSameForEntitiesWithTheSameContent() {
+            assertEquals(hashes.digestDomainConfigEntity(new AdminUser("bilbo")), hashes.digestDomainConfigEntity(new AdminUser("bilbo")));
+        }
+
+        @Test
+        void digestDomainConfigEntity_changesWithContent() {
+            assertNotEquals(hashes.digestDomainConfigEntity(new AdminUser("bilbo")), hashes.digestDomainConfigEntity(new AdminUser("baggins")));
+        }
+
+        @Test
+        void digestDomainConfigEntity_changesWithTheTypeOfEntity() {
+            assertNotEquals(hashes.digestDomainConfigEntity(new AdminUser("bilbo")), hashes.digestDomainConfigEntity(new AdminRole("bilbo")));
         }
     }
-}
\ No newline at end of file
+}
@@ -16,12 +16,16 @@
 package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.config.materials.ScmMaterialConfig;
 import com.thoughtworks.go.config.merge.MergeEnvironmentConfig;
 import com.thoughtworks.go.domain.config.ConfigurationKey;
 import com.thoughtworks.go.domain.config.ConfigurationProperty;
 import com.thoughtworks.go.domain.config.ConfigurationValue;
 import com.thoughtworks.go.helper.EnvironmentConfigMother;
+import com.thoughtworks.go.helper.FilterMother;
+import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.helper.PipelineConfigMother;
+import com.thoughtworks.go.helper.PipelineTemplateConfigMother;
 import com.thoughtworks.go.plugin.domain.common.CombinedPluginInfo;
 import com.thoughtworks.go.plugin.domain.common.PluggableInstanceSettings;
 import com.thoughtworks.go.plugin.domain.common.PluginConfiguration;
@@ -31,7 +35,6 @@ import com.thoughtworks.go.security.ProductionIVProvider;
 import com.thoughtworks.go.security.TestIVProvider;
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.domain.PluginSettings;
-import com.thoughtworks.go.util.ConfigElementImplementationRegistryMother;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -40,6 +43,7 @@ import java.util.Collection;
 import java.util.List;
 
 import static com.thoughtworks.go.server.service.EntityHashingService.ETAG_CACHE_KEY;
+import static com.thoughtworks.go.server.service.EntityHashingService.TRACKED_ETAG_CACHE_KEY;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,7 +59,7 @@ public class EntityHashingServiceTest {
     void setUp() {
         this.goConfigService = mock(GoConfigService.class);
         this.goCache = mock(GoCache.class);
-        digests = new EntityHashes(new ConfigCache(), ConfigElementImplementationRegistryMother.withNoPlugins());
+        digests = new EntityHashes();
         this.service = new EntityHashingService(this.goConfigService, this.goCache, mock(PartialConfigHelper.class), digests);
     }
 
@@ -144,6 +148,89 @@ public class EntityHashingServiceTest {
         service.onConfigChange(null);
 
         verify(goCache).remove(ETAG_CACHE_KEY);
+        verify(goCache).remove(TRACKED_ETAG_CACHE_KEY);
+    }
+
+    @Test
+    void invalidatesOnlyChangedPipelinesAndEnvironmentsWhenToldWhatChanged() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1", "p2");
+        new GoConfigMother().addEnvironmentConfig(previous, "uat", "p1");
+        BasicCruiseConfig current = GoConfigMother.deepClone(previous);
+        current.pipelineConfigByName(new CaseInsensitiveString("p2")).setLabelTemplate("${COUNT}-foo");
+        current.getEnvironments().find(new CaseInsensitiveString("uat")).addAgent("agent-1");
+
+        service.onConfigChange(current, ConfigChangeSet.between(previous, current));
+
+        verify(goCache).remove(ETAG_CACHE_KEY);
+        verify(goCache).remove(TRACKED_ETAG_CACHE_KEY, PipelineConfig.class.getName() + ".p2");
+        verify(goCache).remove(TRACKED_ETAG_CACHE_KEY, BasicEnvironmentConfig.class.getName() + ".uat");
+        verifyNoMoreInteractions(goCache);
+    }
+
+    @Test
+    void invalidatesTemplateWhoseAuthorizationAloneChanged() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1");
+        previous.addTemplate(PipelineTemplateConfigMother.createTemplate("t1"));
+        BasicCruiseConfig current = GoConfigMother.deepClone(previous);
+        current.getTemplateByName(new CaseInsensitiveString("t1")).getAuthorization().getAdminsConfig().add(new AdminUser("bob"));
+
+        service.onConfigChange(current, ConfigChangeSet.between(previous, current));
+
+        verify(goCache).remove(ETAG_CACHE_KEY);
+        verify(goCache).remove(TRACKED_ETAG_CACHE_KEY, PipelineTemplateConfig.class.getName() + ".t1");
+        verifyNoMoreInteractions(goCache);
+    }
+
+    @Test
+    void invalidatesPipelineWhoseMaterialFilterAloneChanged() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1", "p2");
+        BasicCruiseConfig current = GoConfigMother.deepClone(previous);
+        PipelineConfig pipeline = current.pipelineConfigByName(new CaseInsensitiveString("p1"));
+        ((ScmMaterialConfig) pipeline.materialConfigs().first()).setFilter(FilterMother.filterFor("**/*.md"));
+
+        service.onConfigChange(current, ConfigChangeSet.between(previous, current, CachedGoConfig::sameContent));
+
+        verify(goCache).remove(ETAG_CACHE_KEY);
+        verify(goCache).remove(TRACKED_ETAG_CACHE_KEY, PipelineConfig.class.getName() + ".p1");
+        verifyNoMoreInteractions(goCache);
+        assertThat(service.hashForEntity(pipeline, "defaultGroup"))
+            .isNotEqualTo(service.hashForEntity(previous.pipelineConfigByName(new CaseInsensitiveString("p1")), "defaultGroup"));
+    }
+
+    @Test
+    void warmsUpDigestsOfPipelinesTemplatesAndEnvironmentsInTheCurrentConfig() {
+        BasicCruiseConfig config = GoConfigMother.configWithPipelines("p1");
+        config.addTemplate(PipelineTemplateConfigMother.createTemplate("t1"));
+        new GoConfigMother().addEnvironmentConfig(config, "uat", "p1");
+        when(goConfigService.currentCruiseConfig()).thenReturn(config);
+
+        service.warmUp();
+
+        verify(goCache).put(eq(TRACKED_ETAG_CACHE_KEY), eq(PipelineConfig.class.getName() + ".p1"), anyString());
+        verify(goCache).put(eq(TRACKED_ETAG_CACHE_KEY), eq(PipelineTemplateConfig.class.getName() + ".t1"), anyString());
+        verify(goCache).put(eq(TRACKED_ETAG_CACHE_KEY), eq(BasicEnvironmentConfig.class.getName() + ".uat"), anyString());
+    }
+
+    @Test
+    void stopsWarmingUpDigestsOnceTheConfigHasChanged() {
+        BasicCruiseConfig config = GoConfigMother.configWithPipelines("p1", "p2");
+        when(goConfigService.currentCruiseConfig()).thenReturn(config, config, GoConfigMother.deepClone(config));
+
+        service.warmUp();
+
+        verify(goCache).put(eq(TRACKED_ETAG_CACHE_KEY), eq(PipelineConfig.class.getName() + ".p1"), anyString());
+        verify(goCache, never()).put(eq(TRACKED_ETAG_CACHE_KEY), eq(PipelineConfig.class.getName() + ".p2"), anyString());
+    }
+
+    @Test
+    void digestOfAConfigEntityDependsOnlyOnItsContent() {
+        PipelineConfig pipeline = PipelineConfigMother.pipelineConfig("P1");
+        PipelineConfig sameContent = PipelineConfigMother.pipelineConfig("P1");
+        PipelineConfig differentContent = PipelineConfigMother.pipelineConfig("P1");
+        differentContent.setLabelTemplate("${COUNT}-foo");
+
+        assertEquals(digests.digestDomainConfigEntity(pipeline), digests.digestDomainConfigEntity(sameContent));
+        assertNotEquals(digests.digestDomainConfigEntity(pipeline), digests.digestDomainConfigEntity(differentContent));
     }
 
     @Test
@@ -153,17 +240,17 @@ public class EntityHashingServiceTest {
         PipelineConfig pipelineConfig = PipelineConfigMother.pipelineConfig("P1");
         listener.onEntityConfigChange(pipelineConfig);
 
-        verify(goCache).remove(ETAG_CACHE_KEY, (pipelineConfig.getClass().getName() + "." + "p1"));
+        verify(goCache).remove(TRACKED_ETAG_CACHE_KEY, (pipelineConfig.getClass().getName() + "." + "p1"));
     }
 
     @Test
     void entityChecksumIsIdenticalForObjectsWithCaseInsensitiveName() {
         BasicEnvironmentConfig environment = EnvironmentConfigMother.environment("UPPER_CASE_NAME");
-        when(goCache.get(ETAG_CACHE_KEY, "com.thoughtworks.go.config.BasicEnvironmentConfig.upper_case_name")).thenReturn("foo");
+        when(goCache.get(TRACKED_ETAG_CACHE_KEY, "com.thoughtworks.go.config.BasicEnvironmentConfig.upper_case_name")).thenReturn("foo");
 
         assertEquals("foo", service.hashForEntity(environment));
 
-        verify(goCache).get(ETAG_CACHE_KEY, "com.thoughtworks.go.config.BasicEnvironmentConfig.upper_case_name");
+        verify(goCache).get(TRACKED_ETAG_CACHE_KEY, "com.thoughtworks.go.config.BasicEnvironmentConfig.upper_case_name");
         verifyNoMoreInteractions(goCache);
     }
 
@@ -196,14 +283,14 @@ public class EntityHashingServiceTest {
         BasicEnvironmentConfig env2 = new BasicEnvironmentConfig(new CaseInsensitiveString("env"));
         MergeEnvironmentConfig merged = new MergeEnvironmentConfig(env1, env2);
 
-        when(goCache.get(ETAG_CACHE_KEY, "com.thoughtworks.go.config.BasicEnvironmentConfig.env")).
+        when(goCache.get(TRACKED_ETAG_CACHE_KEY, "com.thoughtworks.go.config.BasicEnvironmentConfig.env")).
             thenReturn("foo").
             thenReturn("bar");
 
         final String type = MergeEnvironmentConfig.class.getSimpleName();
         assertEquals(digests.digest(type, "foo", "bar"), service.hashForEntity(merged));
 
-        verify(goCache, times(2)).get(ETAG_CACHE_KEY, "com.thoughtworks.go.config.BasicEnvironmentConfig.env");
+        verify(goCache, times(2)).get(TRACKED_ETAG_CACHE_KEY, "com.thoughtworks.go.config.BasicEnvironmentConfig.env");
         verifyNoMoreInteractions(goCache);
     }
 
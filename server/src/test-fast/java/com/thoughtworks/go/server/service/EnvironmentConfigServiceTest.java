@@ -202,6 +202,42 @@ class EnvironmentConfigServiceTest {
         assertThat(filtered.size(), is(0));
     }
 
+    @Test
+    void shouldReindexEnvironmentsWhenAConfigChangeModifiesThem() {
+        BasicEnvironmentConfig uat = new BasicEnvironmentConfig(new CaseInsensitiveString("uat"));
+        uat.addPipeline(new CaseInsensitiveString("uat-pipeline"));
+        CruiseConfig previous = new BasicCruiseConfig();
+        previous.addEnvironment(uat);
+        environmentConfigService.onConfigChange(previous);
+
+        CruiseConfig current = GoConfigMother.deepClone(previous);
+        current.getEnvironments().find(new CaseInsensitiveString("uat")).addPipeline(new CaseInsensitiveString("prod-pipeline"));
+        environmentConfigService.onConfigChange(current, ConfigChangeSet.between(previous, current));
+
+        assertThat(environmentConfigService.filterJobsByAgent(jobs("prod"), "uat-agent").size(), is(1));
+        assertThat(environmentConfigService.envForPipeline("prod-pipeline"), is("uat"));
+    }
+
+    @Test
+    void shouldKeepMatchingAgainstTheSameEnvironmentsWhenAConfigChangeDoesNotModifyThem() {
+        CruiseConfig previous = new BasicCruiseConfig();
+        previous.setEnvironments(environments("uat", "prod"));
+        environmentConfigService.onConfigChange(previous);
+
+        // a saved config is loaded afresh, so the agents associated in the DB have not been synced into it yet
+        CruiseConfig current = new BasicCruiseConfig();
+        EnvironmentsConfig currentEnvironments = spy(environments("uat", "prod"));
+        current.setEnvironments(currentEnvironments);
+        environmentConfigService.onConfigChange(current, ConfigChangeSet.between(previous, current, CachedGoConfig::sameContent));
+
+        verify(currentEnvironments, never()).matchers();
+        assertThat(environmentConfigService.getEnvironmentConfig("uat"), is(sameInstance(current.getEnvironments().find(new CaseInsensitiveString("uat")))));
+        List<JobPlan> filtered = environmentConfigService.filterJobsByAgent(jobs("no-env", "uat", "prod"), "uat-agent");
+        assertThat(filtered.size(), is(1));
+        assertThat(filtered.get(0).getPipelineName(), is("uat-pipeline"));
+        assertThat(environmentConfigService.envForPipeline("prod-pipeline"), is("prod"));
+    }
+
     @Test
     void shouldFindAgentsForPipelineUnderEnvironment() {
         environmentConfigService.syncEnvironments(environments("uat", "prod"));
@@ -15,9 +15,8 @@
  */
 package com.thoughtworks.go.server.service;
 
-import com.thoughtworks.go.config.CaseInsensitiveString;
-import com.thoughtworks.go.config.PipelineConfig;
-import com.thoughtworks.go.config.TimerConfig;
+import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
@@ -34,11 +33,13 @@ import org.quartz.*;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import static com.thoughtworks.go.helper.PipelineConfigMother.pipelineConfig;
 import static com.thoughtworks.go.helper.PipelineConfigMother.pipelineConfigWithTimer;
 import static com.thoughtworks.go.server.service.TimerScheduler.PIPELINE_TRIGGGER_TIMER_GROUP;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 import static org.quartz.CronScheduleBuilder.cronSchedule;
@@ -174,4 +175,71 @@ public class TimerSchedulerTest {
         verify(scheduler).deleteJob(jobKey(pipelineName, PIPELINE_TRIGGGER_TIMER_GROUP));
         verify(scheduler).scheduleJob(jobDetailArgumentCaptor.getValue(), triggerArgumentCaptor.getValue());
     }
+
+    @Test
+    public void shouldRescheduleEveryTimerOnAFullConfigChange() throws Exception {
+        BasicCruiseConfig config = configWithTimers("first", "second");
+        config.pipelineConfigByName(new CaseInsensitiveString("second")).setTimer(null);
+        when(scheduler.getJobKeys(any())).thenReturn(Set.of(jobKey("stale", PIPELINE_TRIGGGER_TIMER_GROUP)));
+        when(scheduler.getJobDetail(jobKey("stale", PIPELINE_TRIGGGER_TIMER_GROUP))).thenReturn(mock(JobDetail.class));
+        ArgumentCaptor<JobDetail> jobs = ArgumentCaptor.forClass(JobDetail.class);
+        when(scheduler.scheduleJob(jobs.capture(), any(Trigger.class))).thenReturn(new Date());
+
+        new TimerScheduler(scheduler, goConfigService, null, null, maintenanceModeService).onConfigChange(config);
+
+        verify(scheduler).getJobKeys(any());
+        verify(scheduler).getJobDetail(jobKey("stale", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).unscheduleJob(triggerKey("stale", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).deleteJob(jobKey("stale", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).scheduleJob(any(JobDetail.class), any(Trigger.class));
+        assertThat(jobs.getValue().getKey().getName(), is("first"));
+    }
+
+    @Test
+    public void shouldOnlyRescheduleTheTimersOfAddedRemovedAndModifiedPipelines() throws Exception {
+        BasicCruiseConfig previous = configWithTimers("unchanged", "modified", "removed");
+        BasicCruiseConfig current = GoConfigMother.deepClone(previous);
+        current.pipelineConfigByName(new CaseInsensitiveString("modified")).setTimer(new TimerConfig("0 0 4 * * ?", false));
+        current.getGroups().first().remove(current.pipelineConfigByName(new CaseInsensitiveString("removed")));
+        new GoConfigMother().addPipeline(current, "added", "stage", "job").setTimer(new TimerConfig("0 0 5 * * ?", false));
+
+        when(scheduler.getJobDetail(jobKey("modified", PIPELINE_TRIGGGER_TIMER_GROUP))).thenReturn(mock(JobDetail.class));
+        when(scheduler.getJobDetail(jobKey("removed", PIPELINE_TRIGGGER_TIMER_GROUP))).thenReturn(mock(JobDetail.class));
+        ArgumentCaptor<JobDetail> jobs = ArgumentCaptor.forClass(JobDetail.class);
+        ArgumentCaptor<CronTrigger> triggers = ArgumentCaptor.forClass(CronTrigger.class);
+        when(scheduler.scheduleJob(jobs.capture(), triggers.capture())).thenReturn(new Date());
+
+        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, null, null, maintenanceModeService);
+        timerScheduler.onConfigChange(current, ConfigChangeSet.between(previous, current));
+
+        verify(scheduler).getJobDetail(jobKey("modified", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).getJobDetail(jobKey("removed", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).getJobDetail(jobKey("added", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).unscheduleJob(triggerKey("modified", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).deleteJob(jobKey("modified", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).unscheduleJob(triggerKey("removed", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler).deleteJob(jobKey("removed", PIPELINE_TRIGGGER_TIMER_GROUP));
+        verify(scheduler, times(2)).scheduleJob(any(JobDetail.class), any(Trigger.class));
+        assertThat(jobs.getAllValues().stream().map(job -> job.getKey().getName()).toList(), containsInAnyOrder("modified", "added"));
+        assertThat(triggers.getAllValues().stream().map(CronTrigger::getCronExpression).toList(), containsInAnyOrder("0 0 4 * * ?", "0 0 5 * * ?"));
+    }
+
+    @Test
+    public void shouldLeaveTheSchedulerAloneWhenNoPipelineChanged() {
+        BasicCruiseConfig previous = configWithTimers("unchanged");
+        BasicCruiseConfig current = GoConfigMother.deepClone(previous);
+
+        TimerScheduler timerScheduler = new TimerScheduler(scheduler, goConfigService, null, null, maintenanceModeService);
+        timerScheduler.onConfigChange(current, ConfigChangeSet.between(previous, current));
+
+        verifyNoInteractions(scheduler);
+    }
+
+    private static BasicCruiseConfig configWithTimers(String... pipelineNames) {
+        BasicCruiseConfig config = GoConfigMother.configWithPipelines(pipelineNames);
+        for (int i = 0; i < pipelineNames.length; i++) {
+            config.pipelineConfigByName(new CaseInsensitiveString(pipelineNames[i])).setTimer(new TimerConfig(String.format("0 0 %d * * ?", i + 1), false));
+        }
+        return config;
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.helper.StageMother;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.go.util.SystemEnvironment.GO_VSM_WARMUP_ENABLED;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class ValueStreamMapWarmUpTest {
+    private static final CaseInsensitiveString PIPELINE = new CaseInsensitiveString("pipeline");
+
+    private ValueStreamMapService valueStreamMapService;
+    private GoConfigService goConfigService;
+    private ValueStreamMapWarmUp warmUp;
+
+    @BeforeEach
+    public void setUp() {
+        valueStreamMapService = mock(ValueStreamMapService.class);
+        goConfigService = mock(GoConfigService.class);
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(GO_VSM_WARMUP_ENABLED)).thenReturn(true);
+        when(goConfigService.hasPipelineNamed(PIPELINE)).thenReturn(true);
+        when(goConfigService.hasNextStage("pipeline", "first")).thenReturn(true);
+        when(goConfigService.hasNextStage("pipeline", "last")).thenReturn(false);
+
+        warmUp = new ValueStreamMapWarmUp(valueStreamMapService, mock(StageService.class), goConfigService, systemEnvironment);
+        warmUp.startDaemon();
+    }
+
+    @Test
+    public void shouldWarmUpOnlyOnceTheLastStageOfAPipelineRunCompletes() {
+        warmUp.stageStatusChanged(StageMother.createPassedStage("pipeline", 7, "first", 1, "job", new Date()));
+        warmUp.stageStatusChanged(StageMother.createPassedStage("pipeline", 7, "last", 1, "job", new Date()));
+
+        verify(valueStreamMapService, timeout(5000)).warmUpValueStreamMap(PIPELINE, 7);
+        verify(valueStreamMapService, after(100).times(1)).warmUpValueStreamMap(any(), anyInt());
+    }
+
+    @Test
+    public void shouldWarmUpWhenAStageFailsBeforeTheLastStage() {
+        warmUp.stageStatusChanged(StageMother.completedFailedStageInstance("pipeline", "first", "job"));
+
+        verify(valueStreamMapService, timeout(5000)).warmUpValueStreamMap(PIPELINE, 1);
+    }
+
+    @Test
+    public void shouldNotWarmUpPipelinesThatAreNoLongerInConfig() {
+        when(goConfigService.hasPipelineNamed(PIPELINE)).thenReturn(false);
+
+        warmUp.stageStatusChanged(StageMother.createPassedStage("pipeline", 7, "last", 1, "job", new Date()));
+
+        verify(valueStreamMapService, after(100).never()).warmUpValueStreamMap(any(), anyInt());
+    }
+
+    @Test
+    public void shouldDropRequestsForARunUntilItsMapHasBeenBuilt() throws Exception {
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            building.countDown();
+            finish.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(valueStreamMapService).warmUpValueStreamMap(PIPELINE, 7);
+
+        warmUp.stageStatusChanged(StageMother.createPassedStage("pipeline", 7, "last", 1, "job", new Date()));
+        building.await(5, TimeUnit.SECONDS);
+        warmUp.stageStatusChanged(StageMother.createPassedStage("pipeline", 7, "last", 2, "job", new Date()));
+        finish.countDown();
+
+        verify(valueStreamMapService, after(100).times(1)).warmUpValueStreamMap(PIPELINE, 7);
+
+        warmUp.stageStatusChanged(StageMother.createPassedStage("pipeline", 7, "last", 3, "job", new Date()));
+        verify(valueStreamMapService, timeout(5000).times(2)).warmUpValueStreamMap(PIPELINE, 7);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.JobInstance;
+import com.thoughtworks.go.helper.JobInstanceMother;
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
+import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ZipArtifactCacheWarmUpTest {
+    private static final JobIdentifier JOB_IDENTIFIER = new JobIdentifier("pipeline", 1, "1", "stage", "1", "job", 42L);
+
+    @TempDir
+    File artifacts;
+
+    private ZipArtifactCache zipArtifactCache;
+    private ArtifactsService artifactsService;
+    private ZipArtifactCacheWarmUp warmUp;
+    private JobInstance job;
+
+    @BeforeEach
+    public void setUp() {
+        zipArtifactCache = mock(ZipArtifactCache.class);
+        artifactsService = mock(ArtifactsService.class);
+        warmUp = new ZipArtifactCacheWarmUp(zipArtifactCache, artifactsService, mock(StageService.class), mock(SystemEnvironment.class));
+        job = JobInstanceMother.completed("job");
+        job.setIdentifier(JOB_IDENTIFIER);
+    }
+
+    @Test
+    public void shouldZipConfiguredFolderOfJob() throws Exception {
+        File dist = new File(artifacts, "dist");
+        dist.mkdirs();
+        when(artifactsService.findArtifact(JOB_IDENTIFIER, "dist")).thenReturn(dist);
+
+        warmUp.zip(job, "dist");
+
+        verify(zipArtifactCache).prepare(new ArtifactFolder(JOB_IDENTIFIER, dist, "dist"));
+    }
+
+    @Test
+    public void shouldSkipPathsThatAreNotFolders() throws Exception {
+        when(artifactsService.findArtifact(JOB_IDENTIFIER, "missing")).thenReturn(new File(artifacts, "missing"));
+
+        warmUp.zip(job, "missing");
+        warmUp.zip(job, "../outside");
+
+        verify(zipArtifactCache, never()).prepare(any());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.dd;
+
+import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.config.materials.MaterialConfigs;
+import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
+import com.thoughtworks.go.domain.MaterialRevisions;
+import com.thoughtworks.go.helper.ModificationsMother;
+import com.thoughtworks.go.helper.PipelineConfigMother;
+import com.thoughtworks.go.server.domain.PipelineTimeline;
+import com.thoughtworks.go.server.service.GoConfigService;
+import com.thoughtworks.go.server.service.MaterialConfigConverter;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
+import static com.thoughtworks.go.helper.MaterialConfigsMother.hg;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+public class FanInGraphCacheTest {
+    private GoConfigService goConfigService;
+    private FanInGraphCache cache;
+    private PipelineConfig up;
+    private PipelineConfig down;
+    private PipelineConfig unrelated;
+    private CruiseConfig cruiseConfig;
+
+    @BeforeEach
+    public void setUp() {
+        goConfigService = mock(GoConfigService.class);
+        cache = new FanInGraphCache(goConfigService, null, null, new SystemEnvironment(), new MaterialConfigConverter());
+
+        up = PipelineConfigMother.pipelineConfig("up", new MaterialConfigs(git("giturl", "dest")));
+        down = PipelineConfigMother.pipelineConfig("down", new MaterialConfigs(new DependencyMaterialConfig(up.name(), up.get(0).name())));
+        unrelated = PipelineConfigMother.pipelineConfig("unrelated", new MaterialConfigs(hg("hgurl", "dest")));
+        cruiseConfig = new BasicCruiseConfig(new BasicPipelineConfigs(up, down, unrelated));
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+    }
+
+    @Test
+    public void shouldReuseTheGraphOfAPipelineForTheCurrentConfig() {
+        resolve(cruiseConfig, up);
+        resolve(cruiseConfig, up);
+
+        assertThat(cache.numberOfCachedGraphs(), is(1));
+        assertThat(cache.asJson().get("Graphs built"), is(1L));
+        assertThat(cache.asJson().get("Graphs reused"), is(1L));
+    }
+
+    @Test
+    public void shouldNotKeepGraphsBuiltFromAConfigOtherThanTheCurrentOne() {
+        CruiseConfig someOtherConfig = new BasicCruiseConfig(new BasicPipelineConfigs(up, down, unrelated));
+
+        resolve(someOtherConfig, up);
+        resolve(someOtherConfig, up);
+
+        assertThat(cache.numberOfCachedGraphs(), is(0));
+        assertThat(cache.asJson().get("Graphs built"), is(2L));
+    }
+
+    @Test
+    public void shouldDropGraphsContainingAPipelineWhoseConfigChanged() {
+        resolve(cruiseConfig, up);
+        resolve(cruiseConfig, unrelated);
+
+        PipelineConfig changedUp = PipelineConfigMother.pipelineConfig("up", new MaterialConfigs(git("new-giturl", "dest")));
+        CruiseConfig newConfig = new BasicCruiseConfig(new BasicPipelineConfigs(changedUp, down, unrelated));
+        cache.onConfigChange(newConfig, ConfigChangeSet.between(cruiseConfig, newConfig));
+        when(goConfigService.currentCruiseConfig()).thenReturn(newConfig);
+
+        assertThat(cache.numberOfCachedGraphs(), is(1));
+
+        resolve(newConfig, unrelated);
+        assertThat(cache.asJson().get("Graphs built"), is(2L));
+    }
+
+    @Test
+    public void shouldDropAllGraphsOnAFullConfigReload() {
+        resolve(cruiseConfig, up);
+        resolve(cruiseConfig, unrelated);
+
+        cache.onConfigChange(cruiseConfig);
+
+        assertThat(cache.numberOfCachedGraphs(), is(0));
+    }
+
+    @Test
+    public void shouldReportTimingsOfEachResolution() {
+        resolve(cruiseConfig, up);
+        resolve(cruiseConfig, up);
+
+        Map<String, Object> slowest = (Map<String, Object>) cache.asJson().get("Slowest pipelines");
+        Map<String, Object> timings = (Map<String, Object>) slowest.get("up");
+        assertThat(timings.get("Resolutions"), is(2L));
+        assertThat(timings.get("Failed resolutions"), is(0L));
+    }
+
+    private void resolve(CruiseConfig config, PipelineConfig pipelineConfig) {
+        MaterialRevisions actualRevisions = ModificationsMother.modifyOneFile(pipelineConfig);
+        MaterialRevisions revisions = cache.computeRevisions(actualRevisions, config, pipelineConfig.name(), mock(PipelineTimeline.class));
+        assertThat(revisions, is(actualRevisions));
+    }
+}
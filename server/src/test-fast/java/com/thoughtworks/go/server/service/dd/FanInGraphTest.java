@@ -29,6 +29,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
 import static com.thoughtworks.go.helper.MaterialConfigsMother.hg;
@@ -58,4 +59,18 @@ public class FanInGraphTest {
         assertThat(scmMaterialUrls.contains("giturl"), is(true));
         assertThat(scmMaterialUrls.contains("hgurl"), is(true));
     }
+
+    @Test
+    public void shouldKnowThePipelinesInTheGraph() {
+        PipelineConfig p1 = PipelineConfigMother.pipelineConfig("p1", new MaterialConfigs(git("giturl", "dest")));
+        DependencyMaterialConfig p1Dep = new DependencyMaterialConfig(p1.name(), p1.get(0).name());
+        PipelineConfig p2 = PipelineConfigMother.pipelineConfig("p2", new MaterialConfigs(p1Dep));
+        PipelineConfig p3 = PipelineConfigMother.pipelineConfig("p3", new MaterialConfigs(p1Dep, new DependencyMaterialConfig(p2.name(), p2.get(0).name())));
+        PipelineConfig unrelated = PipelineConfigMother.pipelineConfig("unrelated", new MaterialConfigs(hg("hgurl", "dest")));
+
+        CruiseConfig cruiseConfig = new BasicCruiseConfig(new BasicPipelineConfigs(p1, p2, p3, unrelated));
+        FanInGraph faninGraph = new FanInGraph(cruiseConfig, p3.name(), null, null, null, null);
+
+        assertThat(faninGraph.pipelineNames(), is(Set.of(p1.name(), p2.name(), p3.name())));
+    }
 }
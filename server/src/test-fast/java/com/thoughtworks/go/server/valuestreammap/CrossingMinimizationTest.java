@@ -321,6 +321,51 @@ public class CrossingMinimizationTest {
         assertThat(graph.findNode(p6).getDepth(), is(2));
     }
 
+    @Test
+    public void shouldCountCrossingsBetweenAdjacentLevels() {
+        /*
+            g1 --> P1--->P3
+               \/      /
+               /\    /
+            g2    P2
+         */
+        ValueStreamMap graph = graphWithCrossingEdges();
+        NodeLevelMap levelToNodesMap = nodeLevelMap(graph);
+        crossingMinimization.initializeNodeDepths(levelToNodesMap);
+
+        assertThat(crossingMinimization.crossings(levelToNodesMap), is(1));
+
+        crossingMinimization.apply(levelToNodesMap);
+
+        assertThat(crossingMinimization.crossings(levelToNodesMap), is(0));
+    }
+
+    @Test
+    public void shouldAlwaysFinishTheFirstSweepEvenWhenTheBudgetIsSpent() {
+        ValueStreamMap graph = graphWithCrossingEdges();
+        NodeLevelMap levelToNodesMap = nodeLevelMap(graph);
+
+        new CrossingMinimization(5, 0).apply(levelToNodesMap);
+
+        assertThat(crossingMinimization.crossings(levelToNodesMap), is(0));
+        assertThat(levelToNodesMap.get(-1), is(List.of(graph.findNode(new CaseInsensitiveString("P2")), graph.findNode(new CaseInsensitiveString("P1")))));
+    }
+
+    private ValueStreamMap graphWithCrossingEdges() {
+        CaseInsensitiveString p3 = new CaseInsensitiveString("P3");
+        CaseInsensitiveString p1 = new CaseInsensitiveString("P1");
+        CaseInsensitiveString p2 = new CaseInsensitiveString("P2");
+        CaseInsensitiveString g1 = new CaseInsensitiveString("g1");
+        CaseInsensitiveString g2 = new CaseInsensitiveString("g2");
+        ValueStreamMap graph = new ValueStreamMap(p3, null);
+        graph.addUpstreamNode(new PipelineDependencyNode(p1, p1.toString()), null, p3);
+        graph.addUpstreamMaterialNode(new SCMDependencyNode(g1.toString(), g1.toString(), "git"), null, p1, new MaterialRevision(null));
+        graph.addUpstreamMaterialNode(new SCMDependencyNode(g2.toString(), g2.toString(), "git"), null, p1, new MaterialRevision(null));
+        graph.addUpstreamNode(new PipelineDependencyNode(p2, p2.toString()), null, p3);
+        graph.addUpstreamMaterialNode(new SCMDependencyNode(g1.toString(), g1.toString(), "git"), null, p2, new MaterialRevision(null));
+        return graph;
+    }
+
     private NodeLevelMap nodeLevelMap(ValueStreamMap graph) {
         return new LevelAssignment().apply(graph);
     }
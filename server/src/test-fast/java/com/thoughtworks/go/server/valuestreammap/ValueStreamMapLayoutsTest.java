@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.valuestreammap;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.valuestreammap.*;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ValueStreamMapLayoutsTest {
+    private static final CaseInsensitiveString P1 = new CaseInsensitiveString("P1");
+    private static final CaseInsensitiveString P2 = new CaseInsensitiveString("P2");
+    private static final CaseInsensitiveString P3 = new CaseInsensitiveString("P3");
+
+    private ValueStreamMapLayouts layouts;
+
+    @BeforeEach
+    public void setUp() {
+        layouts = new ValueStreamMapLayouts(new SystemEnvironment());
+    }
+
+    @Test
+    public void shouldReuseTheLayoutOfAMapWithTheSameStructure() {
+        String key = ValueStreamMapLayouts.keyForPipeline("P3", 1);
+        ValueStreamMap first = graphWithCrossingEdges();
+        layouts.minimizeCrossings(key, new LevelAssignment().apply(first));
+
+        ValueStreamMap second = graphWithCrossingEdges();
+        NodeLevelMap nodeLevelMap = new LevelAssignment().apply(second);
+        layouts.minimizeCrossings(key, nodeLevelMap);
+
+        assertThat(layouts.size(), is(1));
+        assertThat(nodeLevelMap.get(-1), is(List.of(second.findNode(P2), second.findNode(P1))));
+        assertThat(second.findNode(P1).getDepth(), is(first.findNode(P1).getDepth()));
+        assertThat(second.findNode(P2).getDepth(), is(first.findNode(P2).getDepth()));
+    }
+
+    @Test
+    public void shouldLayOutAgainWhenTheStructureOfTheMapChanges() {
+        String key = ValueStreamMapLayouts.keyForPipeline("P3", 1);
+        layouts.minimizeCrossings(key, new LevelAssignment().apply(graphWithCrossingEdges()));
+
+        ValueStreamMap changed = new ValueStreamMap(P3, null);
+        changed.addUpstreamNode(new PipelineDependencyNode(P1, P1.toString()), null, P3);
+        changed.addUpstreamMaterialNode(new SCMDependencyNode("g1", "g1", "git"), null, P1, new MaterialRevision(null));
+        NodeLevelMap nodeLevelMap = new LevelAssignment().apply(changed);
+        layouts.minimizeCrossings(key, nodeLevelMap);
+
+        assertThat(layouts.size(), is(1));
+        assertThat(nodeLevelMap.get(-1), is(List.of(changed.findNode(P1))));
+        assertThat(changed.findNode(P1).getDepth(), is(1));
+    }
+
+    @Test
+    public void shouldForgetALayoutOnceInvalidated() {
+        String key = ValueStreamMapLayouts.keyForPipeline("P3", 1);
+        layouts.minimizeCrossings(key, new LevelAssignment().apply(graphWithCrossingEdges()));
+
+        layouts.invalidate(key);
+
+        assertThat(layouts.size(), is(0));
+    }
+
+    private ValueStreamMap graphWithCrossingEdges() {
+        ValueStreamMap graph = new ValueStreamMap(P3, null);
+        graph.addUpstreamNode(new PipelineDependencyNode(P1, P1.toString()), null, P3);
+        graph.addUpstreamMaterialNode(new SCMDependencyNode("g1", "g1", "git"), null, P1, new MaterialRevision(null));
+        graph.addUpstreamMaterialNode(new SCMDependencyNode("g2", "g2", "git"), null, P1, new MaterialRevision(null));
+        graph.addUpstreamNode(new PipelineDependencyNode(P2, P2.toString()), null, P3);
+        graph.addUpstreamMaterialNode(new SCMDependencyNode("g1", "g1", "git"), null, P2, new MaterialRevision(null));
+        return graph;
+    }
+}
@@ -37,6 +37,8 @@ import static com.thoughtworks.go.util.GoConstants.RESPONSE_CHARSET;
 import static com.thoughtworks.go.util.TempDirUtils.newFile;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class FileViewTest {
@@ -132,6 +134,161 @@ public class FileViewTest {
         assertEquals("UTF-8", mockResponse.getCharacterEncoding());
     }
 
+    @Test
+    public void shouldSendStrongETagFromArtifactMd5AndLastModified() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        model.put(FileView.ARTIFACT_MD5, "5d41402abc4b2a76b9719d911017c592");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals("\"5d41402abc4b2a76b9719d911017c592\"", mockResponse.getHeader("ETag"));
+        assertEquals("bytes", mockResponse.getHeader("Accept-Ranges"));
+        assertNotNull(mockResponse.getHeader("Last-Modified"));
+    }
+
+    @Test
+    public void shouldRespondNotModifiedWhenETagMatches() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        model.put(FileView.ARTIFACT_MD5, "5d41402abc4b2a76b9719d911017c592");
+        mockRequest.addHeader("If-None-Match", "\"some-other-etag\", \"5d41402abc4b2a76b9719d911017c592\"");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(304, mockResponse.getStatus());
+        assertEquals(0, mockResponse.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void shouldRespondNotModifiedWhenNotModifiedSince() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("If-Modified-Since", file.lastModified() + 1000);
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(304, mockResponse.getStatus());
+    }
+
+    @Test
+    public void shouldSendSingleRange() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=1-3");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(206, mockResponse.getStatus());
+        assertEquals("bytes 1-3/5", mockResponse.getHeader("Content-Range"));
+        assertEquals(3, getContentLength(mockResponse));
+        assertEquals("ell", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldSendTheRestOfTheFileWhenResumingFromAnOffset() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        model.put(FileView.ARTIFACT_MD5, "5d41402abc4b2a76b9719d911017c592");
+        mockRequest.addHeader("Range", "bytes=2-");
+        mockRequest.addHeader("If-Range", "\"5d41402abc4b2a76b9719d911017c592\"");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(206, mockResponse.getStatus());
+        assertEquals("bytes 2-4/5", mockResponse.getHeader("Content-Range"));
+        assertEquals("llo", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldSendWholeFileWhenIfRangeDoesNotMatch() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        model.put(FileView.ARTIFACT_MD5, "5d41402abc4b2a76b9719d911017c592");
+        mockRequest.addHeader("Range", "bytes=2-");
+        mockRequest.addHeader("If-Range", "\"changed\"");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(200, mockResponse.getStatus());
+        assertEquals("hello", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldSendMultipleRangesAsMultipartByteranges() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        when(mockServletContext.getMimeType(any())).thenReturn("text/plain");
+        mockRequest.addHeader("Range", "bytes=0-0,-2");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(206, mockResponse.getStatus());
+        String contentType = mockResponse.getContentType();
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        String expected = "--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-0/5\r\n\r\nh"
+                + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 3-4/5\r\n\r\nlo"
+                + "\r\n--" + boundary + "--\r\n";
+        assertEquals(expected, mockResponse.getContentAsString());
+        assertEquals(expected.length(), getContentLength(mockResponse));
+    }
+
+    @Test
+    public void shouldCoalesceOverlappingRangesAndSendThemInOrder() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        when(mockServletContext.getMimeType(any())).thenReturn("text/plain");
+        mockRequest.addHeader("Range", "bytes=3-4,0-1,1-1,4-");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(206, mockResponse.getStatus());
+        String contentType = mockResponse.getContentType();
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        String expected = "--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/5\r\n\r\nhe"
+                + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 3-4/5\r\n\r\nlo"
+                + "\r\n--" + boundary + "--\r\n";
+        assertEquals(expected, mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldSendTouchingRangesAsOneRange() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=2-3,0-1");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(206, mockResponse.getStatus());
+        assertEquals("bytes 0-3/5", mockResponse.getHeader("Content-Range"));
+        assertEquals("hell", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldRespondRangeNotSatisfiableWhenRangeStartsAfterTheEndOfTheFile() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=5-");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(416, mockResponse.getStatus());
+        assertEquals("bytes */5", mockResponse.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void shouldIgnoreMalformedRange() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=3-1");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(200, mockResponse.getStatus());
+        assertEquals("hello", mockResponse.getContentAsString());
+    }
+
     private long getContentLength(MockHttpServletResponse mockResponse) {
         return Long.parseLong(mockResponse.getHeader("Content-Length"));
     }
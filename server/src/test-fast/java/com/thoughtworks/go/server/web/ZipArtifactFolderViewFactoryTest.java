@@ -63,7 +63,7 @@ public class ZipArtifactFolderViewFactoryTest {
     }
 
     private ZipArtifactCache cacheAlreadyCreated() {
-        return new ZipArtifactCache(null, null) {
+        return new ZipArtifactCache(null, null, null) {
             @Override
             public boolean cacheCreated(ArtifactFolder artifactFolder) {
                 return true;
@@ -77,7 +77,7 @@ public class ZipArtifactFolderViewFactoryTest {
     }
 
     private ZipArtifactCache cacheNotCreated() {
-        return new ZipArtifactCache(null, null) {
+        return new ZipArtifactCache(null, null, null) {
             @Override
             public boolean cacheCreated(ArtifactFolder artifactFolder) {
                 return false;
@@ -19,6 +19,7 @@ import com.thoughtworks.go.fixture.ArtifactsDiskIsFull;
 import com.thoughtworks.go.fixture.ArtifactsDiskIsLow;
 import com.thoughtworks.go.fixture.DatabaseDiskIsFull;
 import com.thoughtworks.go.fixture.DatabaseDiskIsLow;
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
 import com.thoughtworks.go.server.service.*;
 import com.thoughtworks.go.serverhealth.HealthStateLevel;
 import com.thoughtworks.go.serverhealth.HealthStateType;
@@ -72,7 +73,7 @@ public class GoDiskSpaceMonitorTest {
         mockDiskSpaceChecker = mock(SystemDiskSpaceChecker.class);
         stageService = mock(StageService.class);
         configDbStateRepository = mock(ConfigDbStateRepository.class);
-        goDiskSpaceMonitor = new GoDiskSpaceMonitor(goConfigService, systemEnvironment, serverHealthService, emailSender, mockDiskSpaceChecker, mock(ArtifactsService.class),
+        goDiskSpaceMonitor = new GoDiskSpaceMonitor(goConfigService, systemEnvironment, serverHealthService, emailSender, mockDiskSpaceChecker, mock(ArtifactsService.class), mock(ZipArtifactCache.class),
             stageService, configDbStateRepository);
         goDiskSpaceMonitor.initialize();
         diskSpaceCacheRefresherInterval = systemEnvironment.getDiskSpaceCacheRefresherInterval();
@@ -24,6 +24,7 @@ import com.thoughtworks.go.domain.materials.MaterialConfig;
 import com.thoughtworks.go.helper.ConfigTestRepo;
 import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.helper.HgTestRepo;
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
 import com.thoughtworks.go.server.cronjob.GoDiskSpaceMonitor;
 import com.thoughtworks.go.server.dao.DatabaseAccessHelper;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
@@ -108,7 +109,7 @@ public class ConfigMaterialUpdateListenerIntegrationTest {
         StageService stageService = mock(StageService.class);
         ConfigDbStateRepository configDbStateRepository = mock(ConfigDbStateRepository.class);
         GoDiskSpaceMonitor goDiskSpaceMonitor = new GoDiskSpaceMonitor(goConfigService, systemEnvironment,
-                serverHealthService, emailSender, mockDiskSpaceChecker, mock(ArtifactsService.class),
+                serverHealthService, emailSender, mockDiskSpaceChecker, mock(ArtifactsService.class), mock(ZipArtifactCache.class),
                 stageService, configDbStateRepository);
         goDiskSpaceMonitor.initialize();
 
@@ -62,6 +62,7 @@ import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.SerializationTester;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TestUtils;
 import com.thoughtworks.go.util.TimeProvider;
 import com.thoughtworks.go.util.json.JsonHelper;
@@ -924,6 +925,22 @@ public class MaterialRepositoryIntegrationTest {
         assertMatchedRevision(revisions.get(1), first.getLatestShortRevision(), first.getLatestRevisionString(), "pavan", first.getDateOfLatestModification(), "comment");
     }
 
+    @Test
+    public void shouldOrderMatchedRevisionsByRelevance() {
+        ScmMaterial material = material();
+        repo.saveOrUpdate(material.createMaterialInstance());
+        MaterialRevision revisionStartingWithSearchString = saveOneScmModification("abc1234", material, "pavan", "meet_you_in_hell.txt", "comment");
+        MaterialRevision commentContainingSearchString = saveOneScmModification("def5678", material, "turn_her", "of_course_he_will_be_there_first.txt", "fixes abc");
+        MaterialRevision exactRevision = saveOneScmModification("abc", material, "turn_her", "lets_party_in_hell.txt", "comment");
+
+        List<MatchedRevision> revisions = repo.findRevisionsMatching(material.config(), "abc");
+
+        assertThat(revisions.size(), is(3));
+        assertThat(revisions.get(0).getLongRevision(), is(exactRevision.getLatestRevisionString()));
+        assertThat(revisions.get(1).getLongRevision(), is(revisionStartingWithSearchString.getLatestRevisionString()));
+        assertThat(revisions.get(2).getLongRevision(), is(commentContainingSearchString.getLatestRevisionString()));
+    }
+
     @Test
     public void shouldConsiderFieldToBeEmptyWhenRevisionOrUsernameOrCommentIsNull() {
         ScmMaterial material = material();
@@ -1151,6 +1168,37 @@ public class MaterialRepositoryIntegrationTest {
         assertThat(JsonHelper.fromJson(savedMaterialInstance.getConfiguration(), PluggableSCMMaterial.class).getScmConfig().getPluginConfiguration().getId(), is(material.getScmConfig().getPluginConfiguration().getId()));
     }
 
+    @Test
+    public void shouldInsertModificationsAndModifiedFilesInBatches() {
+        SystemEnvironment systemEnvironment = new SystemEnvironment();
+        Integer originalBatchSize = systemEnvironment.get(SystemEnvironment.MODIFICATIONS_INSERT_BATCH_SIZE);
+        systemEnvironment.set(SystemEnvironment.MODIFICATIONS_INSERT_BATCH_SIZE, 2);
+        try {
+            final MaterialInstance materialInstance = repo.findOrCreateFrom(new GitMaterial(UUID.randomUUID().toString(), "branch"));
+            final List<Modification> modifications = getModifications(5);
+            for (Modification modification : modifications) {
+                modification.createModifiedFile(modification.getRevision() + ".txt", "dir", ModifiedAction.added);
+                modification.createModifiedFile(modification.getRevision() + ".md", null, ModifiedAction.deleted);
+            }
+
+            transactionTemplate.execute(status -> {
+                repo.saveModifications(materialInstance, modifications);
+                return null;
+            });
+
+            Modifications fromDb = repo.getModificationsFor(materialInstance, Pagination.pageByNumber(1, 10, 10));
+            assertThat(fromDb.size(), is(5));
+            for (Modification modification : modifications) {
+                assertThat(modification.hasId(), is(true));
+                Modification saved = fromDb.stream().filter(item -> item.getId() == modification.getId()).findFirst().orElseThrow();
+                assertThat(saved.getRevision(), is(modification.getRevision()));
+                assertThat(saved.getModifiedFiles(), is(modification.getModifiedFiles()));
+            }
+        } finally {
+            systemEnvironment.set(SystemEnvironment.MODIFICATIONS_INSERT_BATCH_SIZE, originalBatchSize);
+        }
+    }
+
     @Test
     public void shouldRemoveDuplicatesBeforeInsertingModifications() {
         final MaterialInstance materialInstance = repo.findOrCreateFrom(new GitMaterial(UUID.randomUUID().toString(), "branch"));
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.persistence;
+
+import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.domain.MaterialInstance;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.domain.materials.ModifiedAction;
+import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.dao.DatabaseAccessHelper;
+import com.thoughtworks.go.util.PerfTimer;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares saving modifications one row at a time through Hibernate with saving them in JDBC batches. Runs against
+ * whichever database the integration tests are configured for (H2 by default, or PostgreSQL using the db.* properties).
+ */
+@Disabled("For adhoc running only")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = {
+        "classpath:/applicationContext-global.xml",
+        "classpath:/applicationContext-dataLocalAccess.xml",
+        "classpath:/testPropertyConfigurer.xml",
+        "classpath:/spring-all-servlet.xml",
+})
+public class MaterialRepositoryPerformanceTest {
+    private static final int NUMBER_OF_MODIFICATIONS = 5000;
+    private static final int FILES_PER_MODIFICATION = 10;
+
+    @Autowired
+    private MaterialRepository repo;
+    @Autowired
+    private DatabaseAccessHelper dbHelper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private GoCache goCache;
+
+    private final SystemEnvironment systemEnvironment = new SystemEnvironment();
+    private Integer originalBatchSize;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbHelper.onSetUp();
+        originalBatchSize = systemEnvironment.get(SystemEnvironment.MODIFICATIONS_INSERT_BATCH_SIZE);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        systemEnvironment.set(SystemEnvironment.MODIFICATIONS_INSERT_BATCH_SIZE, originalBatchSize);
+        goCache.clear();
+        dbHelper.onTearDown();
+    }
+
+    @Test
+    public void performanceTestForSavingModificationsOneAtATime() {
+        saveModifications(0);
+    }
+
+    @Test
+    public void performanceTestForSavingModificationsInBatches() {
+        saveModifications(500);
+    }
+
+    private void saveModifications(int batchSize) {
+        systemEnvironment.set(SystemEnvironment.MODIFICATIONS_INSERT_BATCH_SIZE, batchSize);
+        MaterialInstance materialInstance = repo.findOrCreateFrom(new GitMaterial(UUID.randomUUID().toString(), "branch"));
+        List<Modification> modifications = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_MODIFICATIONS; i++) {
+            Modification modification = new Modification("user", "comment " + i, "email", new Date(), "revision-" + i);
+            for (int j = 0; j < FILES_PER_MODIFICATION; j++) {
+                modification.createModifiedFile("file-" + j, "folder-" + i, ModifiedAction.modified);
+            }
+            modifications.add(modification);
+        }
+
+        PerfTimer timer = PerfTimer.start(String.format("Saving %s modifications with %s files each, batch size %s", NUMBER_OF_MODIFICATIONS, FILES_PER_MODIFICATION, batchSize));
+        transactionTemplate.execute(status -> {
+            repo.saveModifications(materialInstance, modifications);
+            return null;
+        });
+        timer.stop();
+
+        assertThat(repo.getTotalModificationsFor(materialInstance), is((long) NUMBER_OF_MODIFICATIONS));
+    }
+}
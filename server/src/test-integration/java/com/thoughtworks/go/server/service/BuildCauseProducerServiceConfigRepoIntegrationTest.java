@@ -35,6 +35,7 @@ import com.thoughtworks.go.helper.ConfigTestRepo;
 import com.thoughtworks.go.helper.HgTestRepo;
 import com.thoughtworks.go.helper.PipelineConfigMother;
 import com.thoughtworks.go.helper.PipelineMother;
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
 import com.thoughtworks.go.server.cronjob.GoDiskSpaceMonitor;
 import com.thoughtworks.go.server.dao.DatabaseAccessHelper;
 import com.thoughtworks.go.server.dao.PipelineSqlMapDao;
@@ -161,7 +162,7 @@ public class BuildCauseProducerServiceConfigRepoIntegrationTest {
         StageService stageService = mock(StageService.class);
         ConfigDbStateRepository configDbStateRepository = mock(ConfigDbStateRepository.class);
         goDiskSpaceMonitor = new GoDiskSpaceMonitor(goConfigService, systemEnvironment,
-                serverHealthService, emailSender, mockDiskSpaceChecker, mock(ArtifactsService.class),
+                serverHealthService, emailSender, mockDiskSpaceChecker, mock(ArtifactsService.class), mock(ZipArtifactCache.class),
                 stageService, configDbStateRepository);
         goDiskSpaceMonitor.initialize();
 
@@ -705,6 +705,7 @@ public class Routes {
     public static class Support {
         public static final String BASE = "/api/support";
         public static final String PROCESS_LIST = "/process_list";
+        public static final String DATABASE = "/database";
     }
 
     public static class ClusterProfiles {
@@ -938,6 +939,7 @@ public class Routes {
     public static class InternalAgent {
         public static final String BASE = "/remoting/api/agent";
         public static final String PING = "/ping";
+        public static final String PING_DELTA = "/ping_delta";
         public static final String REPORT_CURRENT_STATUS = "/report_current_status";
         public static final String REPORT_COMPLETING = "/report_completing";
         public static final String REPORT_COMPLETED = "/report_completed";
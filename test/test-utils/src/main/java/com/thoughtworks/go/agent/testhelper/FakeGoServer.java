@@ -19,6 +19,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.assertj.core.util.Hexadecimals;
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
 import org.eclipse.jetty.server.*;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.resource.Resource;
@@ -80,6 +81,7 @@ public class FakeGoServer implements ExtensionContext.Store.CloseableResource {
 
     private Server server;
     private int port;
+    private int h2cPort;
     private int securePort;
     private int secureMtlsRequiredPort;
     private String extraPropertiesHeaderValue;
@@ -91,6 +93,10 @@ public class FakeGoServer implements ExtensionContext.Store.CloseableResource {
         return port;
     }
 
+    public int getH2cPort() {
+        return h2cPort;
+    }
+
     public int getSecurePort() {
         return securePort;
     }
@@ -116,6 +122,9 @@ public class FakeGoServer implements ExtensionContext.Store.CloseableResource {
         ServerConnector connector = new ServerConnector(server);
         server.addConnector(connector);
 
+        ServerConnector h2cConnector = new ServerConnector(server, new HttpConnectionFactory(), new HTTP2CServerConnectionFactory(new HttpConfiguration()));
+        server.addConnector(h2cConnector);
+
         HttpConfiguration config = new HttpConfiguration();
         config.addCustomizer(new SecureRequestCustomizer(false));
         ServerConnector secureConnector = new ServerConnector(server,
@@ -141,6 +150,7 @@ public class FakeGoServer implements ExtensionContext.Store.CloseableResource {
             }
         });
         wac.addServlet(holder, "/hello");
+        wac.addServlet(EchoServlet.class, "/echo");
         addFakeAgentBinaryServlet(wac, "/admin/agent", TEST_AGENT, this);
         addFakeAgentBinaryServlet(wac, "/admin/agent-launcher.jar", TEST_AGENT_LAUNCHER, this);
         addFakeAgentBinaryServlet(wac, "/admin/agent-plugins.zip", TEST_AGENT_PLUGINS, this);
@@ -152,6 +162,7 @@ public class FakeGoServer implements ExtensionContext.Store.CloseableResource {
         server.start();
 
         port = connector.getLocalPort();
+        h2cPort = h2cConnector.getLocalPort();
         securePort = secureConnector.getLocalPort();
         secureMtlsRequiredPort = secureMtlsConnector.getLocalPort();
     }
@@ -168,6 +179,21 @@ public class FakeGoServer implements ExtensionContext.Store.CloseableResource {
         return sslContextFactory;
     }
 
+    /**
+     * Sends the request body back, and describes the request in response headers: the protocol it came in on, the
+     * client port of its connection, and its {@code X-Echo} header.
+     */
+    private static final class EchoServlet extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setHeader("X-Request-Protocol", req.getProtocol());
+            resp.setHeader("X-Remote-Port", String.valueOf(req.getRemotePort()));
+            resp.setHeader("X-Echo", req.getHeader("X-Echo"));
+            resp.setContentType(req.getContentType() == null ? "text/plain" : req.getContentType());
+            req.getInputStream().transferTo(resp.getOutputStream());
+        }
+    }
+
     private static final class AgentStatusApi extends HttpServlet {
         public static String status = "disabled";
         static Properties pluginProps = new Properties();